@@ -28,8 +28,31 @@ dependencies {
     testImplementation("org.openjdk.jmh:jmh-core:1.36")
     testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.36")
 
+    // JOL
+    testImplementation("org.openjdk.jol:jol-core:0.17")
+
 }
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+    // Reproduce or lengthen a fuzz run with e.g. `./gradlew test -PfuzzSeed=42 -PfuzzOperations=5000000`
+    (findProperty("fuzzSeed") as String?)?.let { systemProperty("fuzz.seed", it) }
+    (findProperty("fuzzOperations") as String?)?.let { systemProperty("fuzz.operations", it) }
+}
+
+// Run with `./gradlew jmh`. Narrow a run down with e.g.
+// `./gradlew jmh -PjmhIncludes=ImmutableHashMapBenchmark -PjmhSizes=1000,1000000 -PjmhKeyTypes=STRING`
+jmh {
+    jmhVersion.set("1.36")
+    includeTests.set(true)
+    (findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+    (findProperty("jmhSizes") as String?)?.let {
+        benchmarkParameters.put("size", objects.listProperty<String>().value(it.split(",")))
+    }
+    (findProperty("jmhKeyTypes") as String?)?.let {
+        benchmarkParameters.put("keyType", objects.listProperty<String>().value(it.split(",")))
+    }
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
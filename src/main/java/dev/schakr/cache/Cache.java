@@ -0,0 +1,162 @@
+package dev.schakr.cache;
+
+import dev.schakr.map.HashMap;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+/**
+ * An immutable bounded cache, pairing a {@link HashMap} of entries with the persistent state of an
+ * {@link EvictionPolicy}. Every operation that changes the cache, including a lookup updating the
+ * recency or frequency of a key, returns a new version of the cache and leaves the current one
+ * untouched. Versions can therefore be shared across threads without locks, and a batch of
+ * operations can be rolled back by keeping a reference to the version it started from.
+ * <p>
+ * Each operation performs a constant number of HashMap and BTreeMap operations, making it O(log n)
+ * in every version, including versions that are reused or rolled back to. Null keys are rejected
+ * by all eviction policies.
+ *
+ * @param <K> the type of keys used in this cache
+ * @param <V> the type of values associated with the keys in this cache
+ */
+public final class Cache<K, V> {
+    private final HashMap<K, V> entries;
+    private final Policy<K> policy;
+    private final int capacity;
+    private final int size;
+
+    private Cache(HashMap<K, V> entries, Policy<K> policy, int capacity, int size) {
+        this.entries = entries;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    /**
+     * Creates an empty cache holding at most {@code capacity} entries.
+     *
+     * @param policy the policy used to select the entries to evict
+     * @param capacity the maximum number of entries in the cache; must be positive
+     * @return an {@code Either<Throwable, Cache<K, V>>} where the right side contains the empty cache,
+     *         or the left side contains a {@code Throwable} if the capacity is not positive
+     */
+    public static <K, V> Either<Throwable, Cache<K, V>> create(EvictionPolicy policy, int capacity) {
+        if (capacity <= 0) return Either.left(new IllegalArgumentException("Capacity must be positive"));
+
+        Policy<K> state = switch (policy) {
+            case LRU -> new LruPolicy<>(capacity);
+            case LFU -> new LfuPolicy<>(capacity);
+            case TINY_LFU -> new TinyLfuPolicy<>(capacity);
+        };
+        return Either.right(new Cache<>(new HashMap<>(), state, capacity, 0));
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return the number of entries in the cache
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of entries in the cache.
+     *
+     * @return the capacity of the cache
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Checks if the cache is empty.
+     *
+     * @return true if the cache contains no entries, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether the specified key is present in the cache, without recording an access.
+     *
+     * @param key the key whose presence in the cache is to be tested
+     * @return true if the cache contains the specified key, false otherwise
+     */
+    public boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Retrieves the value associated with the specified key without recording an access.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return an {@code Option<V>} containing the value associated with the key if it exists,
+     *         or {@code Option.none()} if the key is not found
+     */
+    public Option<V> peek(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Retrieves the value associated with the specified key and records the access, returning the
+     * version of the cache that reflects it.
+     *
+     * @param key the key whose associated value is to be returned; must not be null
+     * @return an {@code Either<Throwable, Tuple2<Option<V>, Cache<K, V>>>} where the right side contains
+     *         the value, if any, and the updated cache, or the left side contains a {@code Throwable}
+     *         if the key is null or an error occurred
+     */
+    public Either<Throwable, Tuple2<Option<V>, Cache<K, V>>> get(K key) {
+        if (key == null) return Either.left(new IllegalArgumentException("Key must not be null"));
+        Option<V> value = entries.get(key);
+        return (value.isDefined() ? policy.onAccess(key) : policy.onMiss(key))
+                .map(newPolicy -> Tuple.of(value, new Cache<>(entries, newPolicy, capacity, size)));
+    }
+
+    /**
+     * Associates the specified value with the specified key, evicting entries as selected by the
+     * eviction policy if the cache is full. Depending on the policy, the new entry itself may be
+     * rejected and not be present in the returned cache.
+     *
+     * @param key the key to be added to the cache; must not be null
+     * @param value the value associated with the specified key
+     * @return an {@code Either<Throwable, Cache<K, V>>} where the right side contains the updated cache
+     *         if the addition was successful, or the left side contains a {@code Throwable} if the key is null
+     *         or an error occurred
+     */
+    public Either<Throwable, Cache<K, V>> put(K key, V value) {
+        if (key == null) return Either.left(new IllegalArgumentException("Key must not be null"));
+
+        if (entries.containsKey(key)) {
+            return entries.put(key, value).flatMap(newEntries -> policy.onAccess(key)
+                    .map(newPolicy -> new Cache<>(newEntries, newPolicy, capacity, size)));
+        }
+
+        return entries.put(key, value).flatMap(newEntries -> policy.onInsert(key)
+                .flatMap(eviction -> eviction.evicted()
+                        .foldLeft(Either.<Throwable, HashMap<K, V>>right(newEntries),
+                                (acc, evicted) -> acc.flatMap(m -> m.remove(evicted)))
+                        .map(evictedEntries -> new Cache<>(evictedEntries, eviction.policy(), capacity,
+                                size + 1 - eviction.evicted().size()))));
+    }
+
+    /**
+     * Removes the entry associated with the specified key, if it exists.
+     *
+     * @param key the key whose entry is to be removed; must not be null
+     * @return an {@code Either<Throwable, Cache<K, V>>} where the right side contains the updated cache
+     *         if the removal was successful, or the left side contains a {@code Throwable} if the key is null
+     *         or an error occurred
+     */
+    public Either<Throwable, Cache<K, V>> remove(K key) {
+        if (key == null) return Either.left(new IllegalArgumentException("Key must not be null"));
+
+        if (!entries.containsKey(key)) return Either.right(this);
+
+        return entries.remove(key).flatMap(newEntries -> policy.onRemove(key)
+                .map(newPolicy -> new Cache<>(newEntries, newPolicy, capacity, size - 1)));
+    }
+}
@@ -0,0 +1,24 @@
+package dev.schakr.cache;
+
+/**
+ * The policies a {@link Cache} can use to choose which entry to evict once it is full.
+ */
+public enum EvictionPolicy {
+    /**
+     * Evicts the least recently used entry.
+     */
+    LRU,
+
+    /**
+     * Evicts the least frequently used entry, breaking ties by recency. Access counts saturate at
+     * 15.
+     */
+    LFU,
+
+    /**
+     * Window TinyLFU: new entries enter a small LRU window, and an entry leaving the window is only
+     * admitted to the main segmented LRU if its estimated access frequency, counting misses as well
+     * as hits, is higher than that of the entry it would displace.
+     */
+    TINY_LFU
+}
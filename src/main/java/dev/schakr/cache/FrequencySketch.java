@@ -0,0 +1,112 @@
+package dev.schakr.cache;
+
+import io.vavr.collection.Vector;
+import io.vavr.control.Either;
+
+/**
+ * A persistent count-min sketch estimating how often keys were seen, used by TinyLFU to decide
+ * admission. Each 64-bit word holds sixteen 4-bit counters, and every key is counted in four
+ * words, one counter per row. Once the number of recorded keys reaches ten times the capacity,
+ * all counters are halved, so that the estimates follow recent popularity. The halving is spread
+ * over the following increments, each halving one word, so that no increment copies the table,
+ * even when a version just before the end of a sample is incremented repeatedly. The table has at
+ * most a fifth as many words as a sample has increments, so a halving always completes long
+ * before the next one starts.
+ */
+final class FrequencySketch {
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int[] SEEDS = { 0x97cb3127, 0xc2b2ae35, 0x85ebca6b, 0x27d4eb2f };
+
+    private final Vector<Long> table;
+    private final int sampleSize;
+    private final int additions;
+    private final int resetCursor;
+
+    private FrequencySketch(Vector<Long> table, int sampleSize, int additions, int resetCursor) {
+        this.table = table;
+        this.sampleSize = sampleSize;
+        this.additions = additions;
+        this.resetCursor = resetCursor;
+    }
+
+    /**
+     * Creates an empty sketch sized for a cache of the given capacity.
+     *
+     * @param capacity the maximum number of entries in the cache
+     * @return an empty sketch
+     */
+    static FrequencySketch forCapacity(int capacity) {
+        int width = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+        return new FrequencySketch(Vector.fill(width, 0L), 10 * Math.max(capacity, 16), 0, width);
+    }
+
+    /**
+     * Estimates how often the key was recorded, as the minimum of its counters.
+     *
+     * @param key the key whose frequency is to be estimated; must not be null
+     * @return an {@code Either<Throwable, Integer>} where the right side contains the estimated frequency,
+     *         between 0 and 15, or the left side contains a {@code Throwable} if the key is null
+     */
+    Either<Throwable, Integer> frequency(Object key) {
+        if (key == null) return Either.left(new IllegalArgumentException("Key must not be null"));
+
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int index = index(hash, row);
+            frequency = Math.min(frequency, counter(table.get(index >>> 4), index & 15));
+        }
+        return Either.right(frequency);
+    }
+
+    /**
+     * Records an occurrence of the key, and halves the next word of counters while a halving is in
+     * progress. Completing a sample starts a new halving.
+     *
+     * @param key the key to be recorded; must not be null
+     * @return an {@code Either<Throwable, FrequencySketch>} where the right side contains the sketch with the key
+     *         recorded, or the left side contains a {@code Throwable} if the key is null
+     */
+    Either<Throwable, FrequencySketch> increment(Object key) {
+        if (key == null) return Either.left(new IllegalArgumentException("Key must not be null"));
+
+        int hash = spread(key.hashCode());
+        Vector<Long> newTable = table;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int index = index(hash, row);
+            long word = newTable.get(index >>> 4);
+            if (counter(word, index & 15) < 15) newTable = newTable.update(index >>> 4, word + (1L << ((index & 15) << 2)));
+        }
+
+        int newCursor = resetCursor;
+        if (newCursor < newTable.size()) {
+            newTable = newTable.update(newCursor, (newTable.get(newCursor) >>> 1) & RESET_MASK);
+            newCursor++;
+        }
+
+        if (additions + 1 < sampleSize) return Either.right(new FrequencySketch(newTable, sampleSize, additions + 1, newCursor));
+        return Either.right(new FrequencySketch(newTable, sampleSize, sampleSize / 2, 0));
+    }
+
+    /**
+     * Selects the counter of a row: the word is chosen by a row-specific rehash of the key, and
+     * each row uses its own quarter of the sixteen counters in the word.
+     */
+    private int index(int hash, int row) {
+        int h = spread(hash * SEEDS[row]);
+        int word = h & (table.size() - 1);
+        int counter = (row << 2) | (h >>> 30);
+        return (word << 4) | counter;
+    }
+
+    private static int counter(long word, int counter) {
+        return (int) ((word >>> (counter << 2)) & 0xfL);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return h;
+    }
+}
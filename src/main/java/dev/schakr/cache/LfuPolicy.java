@@ -0,0 +1,104 @@
+package dev.schakr.cache;
+
+import dev.schakr.map.HashMap;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+
+/**
+ * A least frequently used policy. Keys are grouped into buckets by access count, each bucket
+ * ordering its keys by recency, and the policy keeps a pointer to the lowest non-empty bucket so
+ * that the victim is found without searching. Access counts saturate at {@link #MAX_FREQUENCY},
+ * which bounds the search for the next non-empty bucket after a removal and lets keys that were
+ * popular long ago be displaced by keys that are popular now.
+ *
+ * @param <K> the type of the keys tracked by the policy
+ */
+final class LfuPolicy<K> implements Policy<K> {
+    static final int MAX_FREQUENCY = 15;
+
+    private final int capacity;
+    private final int size;
+    private final HashMap<K, Integer> frequencies;
+    private final HashMap<Integer, RecencyOrder<K>> buckets;
+    private final int minFrequency;
+
+    LfuPolicy(int capacity) {
+        this(capacity, 0, new HashMap<>(), new HashMap<>(), 1);
+    }
+
+    private LfuPolicy(int capacity, int size, HashMap<K, Integer> frequencies,
+                      HashMap<Integer, RecencyOrder<K>> buckets, int minFrequency) {
+        this.capacity = capacity;
+        this.size = size;
+        this.frequencies = frequencies;
+        this.buckets = buckets;
+        this.minFrequency = minFrequency;
+    }
+
+    @Override
+    public Either<Throwable, Policy<K>> onAccess(K key) {
+        int frequency = frequencies.get(key).getOrElse(0);
+        if (frequency == 0) return Either.right(this);
+        if (frequency == MAX_FREQUENCY) {
+            return bucket(frequency).touch(key).flatMap(order -> buckets.put(frequency, order))
+                    .map(newBuckets -> new LfuPolicy<>(capacity, size, frequencies, newBuckets, minFrequency));
+        }
+
+        int newFrequency = frequency + 1;
+        return bucket(frequency).remove(key).flatMap(oldBucket -> buckets.put(frequency, oldBucket)
+                .flatMap(newBuckets -> bucket(newBuckets, newFrequency).touch(key)
+                        .flatMap(newBucket -> newBuckets.put(newFrequency, newBucket)))
+                .flatMap(newBuckets -> frequencies.put(key, newFrequency)
+                        .map(newFrequencies -> new LfuPolicy<>(capacity, size, newFrequencies, newBuckets,
+                                (minFrequency == frequency && oldBucket.isEmpty()) ? newFrequency : minFrequency))));
+    }
+
+    @Override
+    public Either<Throwable, Eviction<K>> onInsert(K key) {
+        if (size < capacity) return add(key).map(policy -> new Eviction<>(List.empty(), policy));
+
+        K victim = bucket(minFrequency).eldest().get();
+        return remove(victim).flatMap(policy -> policy.add(key))
+                .map(policy -> new Eviction<>(List.of(victim), policy));
+    }
+
+    @Override
+    public Either<Throwable, Policy<K>> onRemove(K key) {
+        return Either.narrow(remove(key));
+    }
+
+    private Either<Throwable, LfuPolicy<K>> remove(K key) {
+        int frequency = frequencies.get(key).getOrElse(0);
+        if (frequency == 0) return Either.right(this);
+
+        return bucket(frequency).remove(key).flatMap(oldBucket -> buckets.put(frequency, oldBucket)
+                .flatMap(newBuckets -> frequencies.remove(key)
+                        .map(newFrequencies -> new LfuPolicy<>(capacity, size - 1, newFrequencies, newBuckets,
+                                lowestFrequency(newBuckets, minFrequency)))));
+    }
+
+    private Either<Throwable, LfuPolicy<K>> add(K key) {
+        return bucket(1).touch(key).flatMap(newBucket -> buckets.put(1, newBucket))
+                .flatMap(newBuckets -> frequencies.put(key, 1)
+                        .map(newFrequencies -> new LfuPolicy<>(capacity, size + 1, newFrequencies, newBuckets, 1)));
+    }
+
+    private RecencyOrder<K> bucket(int frequency) {
+        return bucket(buckets, frequency);
+    }
+
+    private static <K> RecencyOrder<K> bucket(HashMap<Integer, RecencyOrder<K>> buckets, int frequency) {
+        return buckets.get(frequency).getOrElse(RecencyOrder::empty);
+    }
+
+    /**
+     * Finds the lowest frequency with a non-empty bucket, starting from the given frequency.
+     * Falls back to 1, the frequency of the next inserted key, if all buckets are empty.
+     */
+    private static <K> int lowestFrequency(HashMap<Integer, RecencyOrder<K>> buckets, int from) {
+        for (int frequency = from; frequency <= MAX_FREQUENCY; frequency++) {
+            if (!bucket(buckets, frequency).isEmpty()) return frequency;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,46 @@
+package dev.schakr.cache;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+
+/**
+ * A least recently used policy, evicting the eldest key of a single recency order.
+ *
+ * @param <K> the type of the keys tracked by the policy
+ */
+final class LruPolicy<K> implements Policy<K> {
+    private final int capacity;
+    private final RecencyOrder<K> order;
+
+    LruPolicy(int capacity) {
+        this(capacity, RecencyOrder.empty());
+    }
+
+    private LruPolicy(int capacity, RecencyOrder<K> order) {
+        this.capacity = capacity;
+        this.order = order;
+    }
+
+    @Override
+    public Either<Throwable, Policy<K>> onAccess(K key) {
+        return order.touch(key).map(this::with);
+    }
+
+    @Override
+    public Either<Throwable, Eviction<K>> onInsert(K key) {
+        return order.touch(key).flatMap(touched -> {
+            if (touched.size() <= capacity) return Either.right(new Eviction<>(List.empty(), with(touched)));
+            K eldest = touched.eldest().get();
+            return touched.remove(eldest).map(evicted -> new Eviction<>(List.of(eldest), with(evicted)));
+        });
+    }
+
+    @Override
+    public Either<Throwable, Policy<K>> onRemove(K key) {
+        return order.remove(key).map(this::with);
+    }
+
+    private LruPolicy<K> with(RecencyOrder<K> order) {
+        return (order == this.order) ? this : new LruPolicy<>(capacity, order);
+    }
+}
@@ -0,0 +1,56 @@
+package dev.schakr.cache;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+
+/**
+ * The immutable state of an eviction policy. Every event returns a new version of the policy and
+ * leaves the current one untouched, so that a cache version and its policy can be shared freely.
+ *
+ * @param <K> the type of the keys tracked by the policy
+ */
+interface Policy<K> {
+
+    /**
+     * Records a hit or an update of a key already tracked by the policy.
+     *
+     * @param key the accessed key
+     * @return the policy after the access
+     */
+    Either<Throwable, Policy<K>> onAccess(K key);
+
+    /**
+     * Records a lookup of a key that is not in the cache.
+     *
+     * @param key the missed key
+     * @return the policy after the miss
+     */
+    default Either<Throwable, Policy<K>> onMiss(K key) {
+        return Either.right(this);
+    }
+
+    /**
+     * Starts tracking a key that is not yet tracked by the policy, evicting keys if the capacity is
+     * exceeded. The inserted key itself may be evicted if the policy refuses to admit it.
+     *
+     * @param key the inserted key
+     * @return the evicted keys and the policy after the insertion
+     */
+    Either<Throwable, Eviction<K>> onInsert(K key);
+
+    /**
+     * Stops tracking a key. Keys that are not tracked are ignored.
+     *
+     * @param key the removed key
+     * @return the policy after the removal
+     */
+    Either<Throwable, Policy<K>> onRemove(K key);
+
+    /**
+     * The result of an insertion into a policy.
+     *
+     * @param evicted the keys evicted by the insertion
+     * @param policy the policy after the insertion
+     */
+    record Eviction<K>(List<K> evicted, Policy<K> policy) {}
+}
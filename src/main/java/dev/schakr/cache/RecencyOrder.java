@@ -0,0 +1,87 @@
+package dev.schakr.cache;
+
+import dev.schakr.map.BTreeMap;
+import dev.schakr.map.HashMap;
+import io.vavr.Tuple2;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+/**
+ * A persistent ordering of keys by recency of use, the building block of all eviction policies.
+ * <p>
+ * Every touch stamps the key with the next tick of a counter. Keys are indexed by key in a HashMap
+ * and by tick in a BTreeMap, whose first entry is the eldest key. Moving a key to the most recent
+ * position and finding or removing the eldest key are therefore O(log n) in every version, however
+ * the versions are shared or rolled back, as removed keys leave no gaps to skip in the tick index.
+ *
+ * @param <K> the type of the ordered keys
+ */
+final class RecencyOrder<K> {
+    private final HashMap<K, Long> ticks;
+    private final BTreeMap<Long, K> keys;
+    private final long next;
+    private final int size;
+
+    private RecencyOrder(HashMap<K, Long> ticks, BTreeMap<Long, K> keys, long next, int size) {
+        this.ticks = ticks;
+        this.keys = keys;
+        this.next = next;
+        this.size = size;
+    }
+
+    static <K> RecencyOrder<K> empty() {
+        return new RecencyOrder<>(new HashMap<>(), BTreeMap.empty(), 0, 0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(K key) {
+        return ticks.containsKey(key);
+    }
+
+    /**
+     * Returns the least recently touched key, if any.
+     *
+     * @return an {@code Option} containing the eldest key, or {@code Option.none()} if the order is empty
+     */
+    Option<K> eldest() {
+        return keys.first().map(Tuple2::_2);
+    }
+
+    /**
+     * Moves a key to the most recent position, adding it if it is not yet in the order.
+     *
+     * @param key the key to be touched
+     * @return the order with the key as its most recent key
+     */
+    Either<Throwable, RecencyOrder<K>> touch(K key) {
+        Option<Long> tick = ticks.get(key);
+        if (tick.contains(next - 1)) return Either.right(this);
+        return remove(key).flatMap(order -> order.append(key));
+    }
+
+    /**
+     * Removes a key from the order. Keys that are not in the order are ignored.
+     *
+     * @param key the key to be removed
+     * @return the order without the key
+     */
+    Either<Throwable, RecencyOrder<K>> remove(K key) {
+        Option<Long> tick = ticks.get(key);
+        if (tick.isEmpty()) return Either.right(this);
+
+        return ticks.remove(key).flatMap(newTicks -> keys.remove(tick.get())
+                .map(newKeys -> new RecencyOrder<>(newTicks, newKeys, next, size - 1)));
+    }
+
+    private Either<Throwable, RecencyOrder<K>> append(K key) {
+        return ticks.put(key, next).flatMap(newTicks -> keys.put(next, key)
+                .map(newKeys -> new RecencyOrder<>(newTicks, newKeys, next + 1, size + 1)));
+    }
+}
@@ -0,0 +1,114 @@
+package dev.schakr.cache;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+
+/**
+ * A Window TinyLFU policy. New keys enter an LRU window holding 1% of the capacity. Keys leaving
+ * the window are candidates for the main space, a segmented LRU split into a probation segment and
+ * a protected segment holding 80% of the main space. A candidate is admitted only if the
+ * frequency sketch estimates it to be more popular than the victim it would displace, the eldest
+ * key on probation. Keys accessed on probation are promoted to the protected segment, demoting its
+ * eldest key back to probation if the segment is full.
+ *
+ * @param <K> the type of the keys tracked by the policy
+ */
+final class TinyLfuPolicy<K> implements Policy<K> {
+    private final int capacity;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final RecencyOrder<K> window;
+    private final RecencyOrder<K> probation;
+    private final RecencyOrder<K> protectedSegment;
+    private final FrequencySketch sketch;
+
+    TinyLfuPolicy(int capacity) {
+        this(capacity, Math.max(1, capacity / 100), (capacity - Math.max(1, capacity / 100)) * 4 / 5,
+                RecencyOrder.empty(), RecencyOrder.empty(), RecencyOrder.empty(), FrequencySketch.forCapacity(capacity));
+    }
+
+    private TinyLfuPolicy(int capacity, int windowCapacity, int protectedCapacity, RecencyOrder<K> window,
+                          RecencyOrder<K> probation, RecencyOrder<K> protectedSegment, FrequencySketch sketch) {
+        this.capacity = capacity;
+        this.windowCapacity = windowCapacity;
+        this.protectedCapacity = protectedCapacity;
+        this.window = window;
+        this.probation = probation;
+        this.protectedSegment = protectedSegment;
+        this.sketch = sketch;
+    }
+
+    @Override
+    public Either<Throwable, Policy<K>> onAccess(K key) {
+        return sketch.increment(key).flatMap(newSketch -> onAccess(key, newSketch));
+    }
+
+    private Either<Throwable, Policy<K>> onAccess(K key, FrequencySketch newSketch) {
+        if (window.contains(key)) {
+            return window.touch(key).map(newWindow -> with(newWindow, probation, protectedSegment, newSketch));
+        }
+        if (protectedSegment.contains(key)) {
+            return protectedSegment.touch(key).map(newProtected -> with(window, probation, newProtected, newSketch));
+        }
+        if (!probation.contains(key)) return Either.right(with(window, probation, protectedSegment, newSketch));
+
+        return probation.remove(key).flatMap(newProbation -> protectedSegment.touch(key)
+                .flatMap(newProtected -> {
+                    if (newProtected.size() <= protectedCapacity) {
+                        return Either.right(with(window, newProbation, newProtected, newSketch));
+                    }
+                    K demoted = newProtected.eldest().get();
+                    return newProtected.remove(demoted).flatMap(p -> newProbation.touch(demoted)
+                            .map(q -> with(window, q, p, newSketch)));
+                }));
+    }
+
+    @Override
+    public Either<Throwable, Policy<K>> onMiss(K key) {
+        return sketch.increment(key).map(newSketch -> with(window, probation, protectedSegment, newSketch));
+    }
+
+    @Override
+    public Either<Throwable, Eviction<K>> onInsert(K key) {
+        return sketch.increment(key).flatMap(newSketch -> window.touch(key).flatMap(newWindow -> {
+            if (newWindow.size() <= windowCapacity) {
+                return Either.right(new Eviction<>(List.empty(), with(newWindow, probation, protectedSegment, newSketch)));
+            }
+
+            K candidate = newWindow.eldest().get();
+            return newWindow.remove(candidate).flatMap(w -> probation.touch(candidate)
+                    .flatMap(p -> with(w, p, protectedSegment, newSketch).evictFor(candidate)));
+        }));
+    }
+
+    @Override
+    public Either<Throwable, Policy<K>> onRemove(K key) {
+        return window.remove(key).flatMap(w -> probation.remove(key)
+                .flatMap(p -> protectedSegment.remove(key).map(q -> with(w, p, q, sketch))));
+    }
+
+    /**
+     * Restores the capacity after a candidate moved from the window to probation, by evicting
+     * either the candidate or the victim, whichever the sketch estimates to be less popular.
+     * Ties evict the candidate, which protects the main space from one-hit wonders.
+     */
+    private Either<Throwable, Eviction<K>> evictFor(K candidate) {
+        if (window.size() + probation.size() + protectedSegment.size() <= capacity) {
+            return Either.right(new Eviction<>(List.empty(), this));
+        }
+
+        K victim = probation.eldest().filter(k -> !k.equals(candidate))
+                .orElse(protectedSegment.eldest())
+                .getOrElse(candidate);
+        return sketch.frequency(candidate).flatMap(candidateFrequency -> sketch.frequency(victim).flatMap(victimFrequency -> {
+            K evicted = (candidateFrequency > victimFrequency) ? victim : candidate;
+            return onRemove(evicted).map(policy -> new Eviction<>(List.of(evicted), policy));
+        }));
+    }
+
+    private TinyLfuPolicy<K> with(RecencyOrder<K> window, RecencyOrder<K> probation,
+                                  RecencyOrder<K> protectedSegment, FrequencySketch sketch) {
+        return new TinyLfuPolicy<>(capacity, windowCapacity, protectedCapacity, window, probation,
+                protectedSegment, sketch);
+    }
+}
@@ -0,0 +1,288 @@
+package dev.schakr.list;
+
+import io.vavr.control.Option;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A persistent singly-linked list storing its elements in chunks of up to {@value #MAX_CHUNK}
+ * elements instead of one node per element. Chunks are filled from the back,
+ * so the head of the list is the lowest occupied slot of its first chunk, and traversal reads
+ * contiguous arrays with one pointer dereference per chunk.
+ * <p>
+ * Adding an element writes it into the free slot in front of the head if that slot is still
+ * unclaimed, and shares the chunk with the previous version. Each chunk tracks the lowest slot
+ * claimed by any version in a low-water mark, advanced by compare-and-set, so of several versions
+ * adding to the same list concurrently only one extends the shared chunk; the others start a new
+ * chunk pointing to the shared one. Slots are written once, before the version claiming them is
+ * published, and never change afterwards.
+ * <p>
+ * Two costs follow from sharing chunks. A slot claimed by a version that is then discarded is
+ * never released: its element stays reachable for as long as any version uses the chunk, and
+ * other versions branching from the same point cannot reuse the slot. And each branch starts a
+ * chunk of its own, so branch chunks are sized by their contents, starting at
+ * {@value #BRANCH_CHUNK} slots and doubling as the branch grows, to keep a list forked into many
+ * one-element versions from allocating a mostly empty chunk per version.
+ *
+ * @param <T> the type of elements in the list
+ */
+public final class ChunkedList<T> implements Iterable<T> {
+    static final int MIN_CHUNK = 8;
+    static final int BRANCH_CHUNK = 2;
+    static final int MAX_CHUNK = 32;
+
+    private static final ChunkedList<?> EMPTY = new ChunkedList<>(null, 0, 0);
+
+    private final Chunk chunk;
+    private final int offset;
+    private final int size;
+
+    private ChunkedList(Chunk chunk, int offset, int size) {
+        this.chunk = chunk;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty list.
+     *
+     * @return a list without elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ChunkedList<T> empty() {
+        return (ChunkedList<T>) EMPTY;
+    }
+
+    /**
+     * Creates a list holding the given values, the first of which is the head of the list.
+     *
+     * @param values the values of the list, from head to last
+     * @return a list holding the values
+     */
+    @SafeVarargs
+    public static <T> ChunkedList<T> of(T... values) {
+        ChunkedList<T> list = empty();
+        for (int i = values.length - 1; i >= 0; i--) list = list.add(values[i]);
+        return list;
+    }
+
+    /**
+     * Creates a list holding the given values in iteration order, the first of which is the head of the list.
+     *
+     * @param values the values of the list, from head to last
+     * @return a list holding the values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ChunkedList<T> ofAll(Iterable<? extends T> values) {
+        ArrayList<T> elements = new ArrayList<>();
+        values.forEach(elements::add);
+        return of((T[]) elements.toArray());
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     *
+     * @return true if the list contains no elements, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds an element at the head of the list in constant time. The first chunk of a list holds
+     * {@value #MIN_CHUNK} elements, and chunks double in size up to {@value #MAX_CHUNK} elements as
+     * long as the list grows from its head; a version branching off another one that already claimed
+     * the free slot starts over with a chunk of {@value #BRANCH_CHUNK}.
+     *
+     * @param value the element to be added
+     * @return a list with the element as its head, followed by the elements of this list
+     */
+    public ChunkedList<T> add(T value) {
+        if (chunk != null && offset > 0 && chunk.claim(offset)) {
+            chunk.items[offset - 1] = value;
+            return new ChunkedList<>(chunk, offset - 1, size + 1);
+        }
+
+        int capacity = (chunk == null) ? MIN_CHUNK :
+                (offset > 0) ? BRANCH_CHUNK : Math.min(MAX_CHUNK, 2 * chunk.items.length);
+        Chunk added = new Chunk(new Object[capacity], chunk, offset);
+        added.items[capacity - 1] = value;
+        return new ChunkedList<>(added, capacity - 1, size + 1);
+    }
+
+    /**
+     * Retrieves the head of the list.
+     *
+     * @return an {@code Option<T>} containing the head, or {@code Option.none()} if the list is empty
+     */
+    @SuppressWarnings("unchecked")
+    public Option<T> head() {
+        return isEmpty() ? Option.none() : Option.of((T) chunk.items[offset]);
+    }
+
+    /**
+     * Returns the list without its head in constant time.
+     *
+     * @return the elements following the head, or this list if it is empty
+     */
+    public ChunkedList<T> tail() {
+        if (isEmpty()) return this;
+        if (size == 1) return empty();
+        return (offset + 1 < chunk.items.length) ?
+                new ChunkedList<>(chunk, offset + 1, size - 1) :
+                new ChunkedList<>(chunk.next, chunk.nextOffset, size - 1);
+    }
+
+    /**
+     * Retrieves the element at the given index, skipping whole chunks on the way.
+     *
+     * @param index the index of the element, counted from the head
+     * @return an {@code Option<T>} containing the element, or {@code Option.none()} if the index is out of bounds
+     */
+    @SuppressWarnings("unchecked")
+    public Option<T> get(int index) {
+        if (index < 0 || index >= size) return Option.none();
+
+        Chunk current = chunk;
+        int position = offset + index;
+        while (position >= current.items.length) {
+            position -= current.items.length;
+            position += current.nextOffset;
+            current = current.next;
+        }
+        return Option.of((T) current.items[position]);
+    }
+
+    /**
+     * Checks whether the list contains an element equal to the given value.
+     *
+     * @param value the value to look for; can be null
+     * @return true if an element of the list equals the value, false otherwise
+     */
+    public boolean contains(T value) {
+        for (T element : this) {
+            if (Objects.equals(element, value)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Iterates the elements from the head of the list.
+     *
+     * @return an iterator over the elements of the list
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private Chunk current = chunk;
+            private Object[] items = (chunk == null) ? null : chunk.items;
+            private int position = offset;
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (remaining == 0) throw new NoSuchElementException();
+                if (position == items.length) {
+                    position = current.nextOffset;
+                    current = current.next;
+                    items = current.items;
+                }
+                remaining--;
+                return (T) items[position++];
+            }
+        };
+    }
+
+    /**
+     * Performs the given action for each element from the head of the list, looping over the
+     * array of every chunk directly.
+     *
+     * @param action the action to be performed for each element
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        Chunk current = chunk;
+        int position = offset;
+        for (int remaining = size; remaining > 0; ) {
+            Object[] items = current.items;
+            int end = Math.min(items.length, position + remaining);
+            for (int i = position; i < end; i++) action.accept((T) items[i]);
+            remaining -= end - position;
+            position = current.nextOffset;
+            current = current.next;
+        }
+    }
+
+    /**
+     * Returns the number of slots of the chunk holding the head, for tests to check chunk sizing.
+     */
+    int headChunkLength() {
+        return (chunk == null) ? 0 : chunk.items.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ChunkedList(");
+        Iterator<T> iterator = iterator();
+        while (iterator.hasNext()) builder.append(iterator.next()).append(iterator.hasNext() ? ", " : "");
+        return builder.append(')').toString();
+    }
+
+    /**
+     * An array of elements filled from the back, followed by the elements of {@code next} from
+     * {@code nextOffset} on. {@code low} is the lowest slot claimed by any list using the chunk.
+     */
+    private static final class Chunk {
+        final Object[] items;
+        final Chunk next;
+        final int nextOffset;
+        private volatile int low;
+
+        private static final VarHandle LOW;
+
+        static {
+            try {
+                LOW = MethodHandles.lookup().findVarHandle(Chunk.class, "low", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        Chunk(Object[] items, Chunk next, int nextOffset) {
+            this.items = items;
+            this.next = next;
+            this.nextOffset = nextOffset;
+            this.low = items.length - 1;
+        }
+
+        /**
+         * Claims the slot in front of the given offset, which succeeds only for the first list
+         * extending the chunk from that offset.
+         */
+        boolean claim(int offset) {
+            return low == offset && LOW.compareAndSet(this, offset, offset - 1);
+        }
+    }
+}
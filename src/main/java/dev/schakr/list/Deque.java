@@ -0,0 +1,513 @@
+package dev.schakr.list;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A persistent double-ended queue, implemented as a 2-3 finger tree annotated with sizes.
+ * Elements can be pushed and popped at both ends in O(log n) worst-case time, so a FIFO queue
+ * never pays for reversing a list, and every version can be shared between threads without
+ * copying. Two deques are concatenated, and a deque is split at an index, in logarithmic time.
+ * <p>
+ * The middle of the tree is built eagerly, so the amortized bound of O(1) per push or pop only
+ * holds when each version is updated at most once, as with a deque used as a single lineage. A
+ * version whose digit is full, pushed to or popped from repeatedly, carries into its middle every
+ * time and pays O(log n) on each of those operations.
+ * <p>
+ * The tree keeps one to four elements, the digits, directly at each of its ends. The middle of the
+ * tree is a finger tree of 2-3 nodes, each caching the number of elements below it, so the ends
+ * are always close to the root while indexed access descends by size.
+ *
+ * @param <T> the type of elements in the deque
+ */
+public final class Deque<T> implements Iterable<T> {
+    private static final Deque<?> EMPTY = new Deque<>(Empty.INSTANCE);
+    private static final Object END = new Object();
+
+    private final Tree tree;
+
+    private Deque(Tree tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Returns the empty deque.
+     *
+     * @return a deque without elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Deque<T> empty() {
+        return (Deque<T>) EMPTY;
+    }
+
+    /**
+     * Creates a deque holding the given values, the first of which is at the front.
+     *
+     * @param values the values of the deque, from front to back
+     * @return a deque holding the values
+     */
+    @SafeVarargs
+    public static <T> Deque<T> of(T... values) {
+        Tree tree = Empty.INSTANCE;
+        for (T value : values) tree = pushBack(tree, value);
+        return new Deque<>(tree);
+    }
+
+    /**
+     * Creates a deque holding the given values in iteration order, the first of which is at the front.
+     *
+     * @param values the values of the deque, from front to back
+     * @return a deque holding the values
+     */
+    public static <T> Deque<T> ofAll(Iterable<? extends T> values) {
+        Tree tree = Empty.INSTANCE;
+        for (T value : values) tree = pushBack(tree, value);
+        return new Deque<>(tree);
+    }
+
+    /**
+     * Returns the number of elements in the deque.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * Checks if the deque is empty.
+     *
+     * @return true if the deque contains no elements, false otherwise
+     */
+    public boolean isEmpty() {
+        return tree == Empty.INSTANCE;
+    }
+
+    /**
+     * Adds an element at the front of the deque.
+     *
+     * @param value the element to be added
+     * @return a deque with the element at its front
+     */
+    public Deque<T> pushFront(T value) {
+        return new Deque<>(pushFront(tree, value));
+    }
+
+    /**
+     * Adds an element at the back of the deque.
+     *
+     * @param value the element to be added
+     * @return a deque with the element at its back
+     */
+    public Deque<T> pushBack(T value) {
+        return new Deque<>(pushBack(tree, value));
+    }
+
+    /**
+     * Retrieves the element at the front of the deque.
+     *
+     * @return an {@code Option<T>} containing the front element, or {@code Option.none()} if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public Option<T> peekFront() {
+        return switch (tree) {
+            case Empty _ -> Option.none();
+            case Single single -> Option.of((T) single.element);
+            case Deep deep -> Option.of((T) deep.prefix[0]);
+        };
+    }
+
+    /**
+     * Retrieves the element at the back of the deque.
+     *
+     * @return an {@code Option<T>} containing the back element, or {@code Option.none()} if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public Option<T> peekBack() {
+        return switch (tree) {
+            case Empty _ -> Option.none();
+            case Single single -> Option.of((T) single.element);
+            case Deep deep -> Option.of((T) deep.suffix[deep.suffix.length - 1]);
+        };
+    }
+
+    /**
+     * Removes the element at the front of the deque.
+     *
+     * @return an {@code Option} containing the front element and the deque without it, or
+     *         {@code Option.none()} if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public Option<Tuple2<T, Deque<T>>> popFront() {
+        View view = viewFront(tree);
+        return (view == null) ? Option.none() : Option.of(Tuple.of((T) view.element, new Deque<>(view.rest)));
+    }
+
+    /**
+     * Removes the element at the back of the deque.
+     *
+     * @return an {@code Option} containing the back element and the deque without it, or
+     *         {@code Option.none()} if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public Option<Tuple2<T, Deque<T>>> popBack() {
+        View view = viewBack(tree);
+        return (view == null) ? Option.none() : Option.of(Tuple.of((T) view.element, new Deque<>(view.rest)));
+    }
+
+    /**
+     * Retrieves the element at the given index, counted from the front, in logarithmic time.
+     *
+     * @param index the index of the element
+     * @return an {@code Option<T>} containing the element, or {@code Option.none()} if the index is out of bounds
+     */
+    @SuppressWarnings("unchecked")
+    public Option<T> get(int index) {
+        if (index < 0 || index >= size()) return Option.none();
+
+        Tree current = tree;
+        int[] position = { index };
+        Object element;
+        while (current instanceof Deep deep) {
+            int prefixSize = size(deep.prefix);
+            int middleSize = deep.middle.size();
+            if (position[0] >= prefixSize && position[0] < prefixSize + middleSize) {
+                position[0] -= prefixSize;
+                current = deep.middle;
+                continue;
+            }
+            if (position[0] < prefixSize) {
+                element = locate(deep.prefix, position);
+            } else {
+                position[0] -= prefixSize + middleSize;
+                element = locate(deep.suffix, position);
+            }
+            while (element instanceof Branch branch) element = locate(branch.items, position);
+            return Option.of((T) element);
+        }
+        element = ((Single) current).element;
+        while (element instanceof Branch branch) element = locate(branch.items, position);
+        return Option.of((T) element);
+    }
+
+    /**
+     * Concatenates another deque to the back of this one in time logarithmic in the size of the
+     * smaller deque.
+     *
+     * @param other the deque whose elements follow the elements of this one
+     * @return a deque holding the elements of this deque followed by the elements of the other
+     */
+    public Deque<T> concat(Deque<T> other) {
+        if (other.isEmpty()) return this;
+        if (isEmpty()) return other;
+        return new Deque<>(concat(tree, new Object[0], other.tree));
+    }
+
+    /**
+     * Splits the deque at the given index in logarithmic time.
+     *
+     * @param index the index of the first element of the second deque; between 0 and {@link #size()}
+     * @return an {@code Either<Throwable, Tuple2<Deque<T>, Deque<T>>>} where the right side contains the elements
+     *         before the index and the elements from the index on, or the left side contains a {@code Throwable}
+     *         if the index is out of bounds
+     */
+    public Either<Throwable, Tuple2<Deque<T>, Deque<T>>> split(int index) {
+        if (index < 0 || index > size())
+            return Either.left(new IndexOutOfBoundsException("Split index " + index + " out of bounds for size " + size()));
+        if (index == size()) return Either.right(Tuple.of(this, empty()));
+
+        Split split = split(tree, index);
+        return Either.right(Tuple.of(new Deque<>(split.left), new Deque<>(pushFront(split.right, split.element))));
+    }
+
+    /**
+     * Iterates the elements from front to back.
+     *
+     * @return an iterator over the elements of the deque
+     */
+    @Override
+    public Iterator<T> iterator() {
+        ArrayList<Object> stack = new ArrayList<>();
+        stack.add(tree);
+        return new Iterator<>() {
+            private Object next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != END;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (next == END) throw new NoSuchElementException();
+                Object element = next;
+                next = advance();
+                return (T) element;
+            }
+
+            /**
+             * Expands trees, digits and nodes on the stack until an element is on top, and pops it.
+             */
+            private Object advance() {
+                while (!stack.isEmpty()) {
+                    Object top = stack.removeLast();
+                    switch (top) {
+                        case Empty _ -> {}
+                        case Single single -> stack.add(single.element);
+                        case Deep deep -> {
+                            pushAll(deep.suffix);
+                            stack.add(deep.middle);
+                            pushAll(deep.prefix);
+                        }
+                        case Branch branch -> pushAll(branch.items);
+                        case null, default -> {
+                            return top;
+                        }
+                    }
+                }
+                return END;
+            }
+
+            private void pushAll(Object[] items) {
+                for (int i = items.length - 1; i >= 0; i--) stack.add(items[i]);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Deque(");
+        Iterator<T> iterator = iterator();
+        while (iterator.hasNext()) builder.append(iterator.next()).append(iterator.hasNext() ? ", " : "");
+        return builder.append(')').toString();
+    }
+
+
+    private sealed interface Tree permits Empty, Single, Deep {
+        int size();
+    }
+
+    private enum Empty implements Tree {
+        INSTANCE;
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    }
+
+    private record Single(Object element, int size) implements Tree {}
+
+    private record Deep(int size, Object[] prefix, Tree middle, Object[] suffix) implements Tree {}
+
+    /** A 2-3 node of the middle of a tree, caching the number of elements below it. */
+    private record Branch(int size, Object[] items) {}
+
+    private record View(Object element, Tree rest) {}
+
+    private record Split(Tree left, Object element, Tree right) {}
+
+    private static int measure(Object element) {
+        return (element instanceof Branch branch) ? branch.size : 1;
+    }
+
+    private static int size(Object[] digit) {
+        int size = 0;
+        for (Object element : digit) size += measure(element);
+        return size;
+    }
+
+    private static Tree single(Object element) {
+        return new Single(element, measure(element));
+    }
+
+    private static Tree deep(Object[] prefix, Tree middle, Object[] suffix) {
+        return new Deep(size(prefix) + middle.size() + size(suffix), prefix, middle, suffix);
+    }
+
+    private static Branch branch(Object... items) {
+        return new Branch(size(items), items);
+    }
+
+    private static Tree pushFront(Tree tree, Object element) {
+        return switch (tree) {
+            case Empty _ -> single(element);
+            case Single single -> deep(new Object[] { element }, Empty.INSTANCE, new Object[] { single.element });
+            case Deep deep when deep.prefix.length == 4 -> deep(new Object[] { element, deep.prefix[0] },
+                    pushFront(deep.middle, branch(deep.prefix[1], deep.prefix[2], deep.prefix[3])), deep.suffix);
+            case Deep deep -> deep(prepend(element, deep.prefix), deep.middle, deep.suffix);
+        };
+    }
+
+    private static Tree pushBack(Tree tree, Object element) {
+        return switch (tree) {
+            case Empty _ -> single(element);
+            case Single single -> deep(new Object[] { single.element }, Empty.INSTANCE, new Object[] { element });
+            case Deep deep when deep.suffix.length == 4 -> deep(deep.prefix,
+                    pushBack(deep.middle, branch(deep.suffix[0], deep.suffix[1], deep.suffix[2])),
+                    new Object[] { deep.suffix[3], element });
+            case Deep deep -> deep(deep.prefix, deep.middle, append(deep.suffix, element));
+        };
+    }
+
+    private static View viewFront(Tree tree) {
+        return switch (tree) {
+            case Empty _ -> null;
+            case Single single -> new View(single.element, Empty.INSTANCE);
+            case Deep deep -> new View(deep.prefix[0],
+                    deepFront(Arrays.copyOfRange(deep.prefix, 1, deep.prefix.length), deep.middle, deep.suffix));
+        };
+    }
+
+    private static View viewBack(Tree tree) {
+        return switch (tree) {
+            case Empty _ -> null;
+            case Single single -> new View(single.element, Empty.INSTANCE);
+            case Deep deep -> new View(deep.suffix[deep.suffix.length - 1],
+                    deepBack(deep.prefix, deep.middle, Arrays.copyOf(deep.suffix, deep.suffix.length - 1)));
+        };
+    }
+
+    /**
+     * Builds a tree from a prefix that may be empty, refilling it from the first node of the middle.
+     */
+    private static Tree deepFront(Object[] prefix, Tree middle, Object[] suffix) {
+        if (prefix.length > 0) return deep(prefix, middle, suffix);
+        View view = viewFront(middle);
+        return (view == null) ? toTree(suffix) : deep(((Branch) view.element).items, view.rest, suffix);
+    }
+
+    /**
+     * Builds a tree from a suffix that may be empty, refilling it from the last node of the middle.
+     */
+    private static Tree deepBack(Object[] prefix, Tree middle, Object[] suffix) {
+        if (suffix.length > 0) return deep(prefix, middle, suffix);
+        View view = viewBack(middle);
+        return (view == null) ? toTree(prefix) : deep(prefix, view.rest, ((Branch) view.element).items);
+    }
+
+    private static Tree toTree(Object[] digit) {
+        Tree tree = Empty.INSTANCE;
+        for (Object element : digit) tree = pushBack(tree, element);
+        return tree;
+    }
+
+    /**
+     * Concatenates two trees with up to four elements of the same level between them. Where both
+     * trees are deep, the inner digits and the elements in between are packed into 2-3 nodes and
+     * concatenated recursively with the middles.
+     */
+    private static Tree concat(Tree left, Object[] between, Tree right) {
+        if (left == Empty.INSTANCE) {
+            Tree tree = right;
+            for (int i = between.length - 1; i >= 0; i--) tree = pushFront(tree, between[i]);
+            return tree;
+        }
+        if (right == Empty.INSTANCE) {
+            Tree tree = left;
+            for (Object element : between) tree = pushBack(tree, element);
+            return tree;
+        }
+        if (left instanceof Single single) return pushFront(concat(Empty.INSTANCE, between, right), single.element);
+        if (right instanceof Single single) return pushBack(concat(left, between, Empty.INSTANCE), single.element);
+
+        Deep l = (Deep) left;
+        Deep r = (Deep) right;
+        Object[] inner = new Object[l.suffix.length + between.length + r.prefix.length];
+        System.arraycopy(l.suffix, 0, inner, 0, l.suffix.length);
+        System.arraycopy(between, 0, inner, l.suffix.length, between.length);
+        System.arraycopy(r.prefix, 0, inner, l.suffix.length + between.length, r.prefix.length);
+        return deep(l.prefix, concat(l.middle, nodes(inner), r.middle), r.suffix);
+    }
+
+    /**
+     * Packs 2 to 12 elements into as few 2-3 nodes as possible.
+     */
+    private static Object[] nodes(Object[] elements) {
+        Object[] nodes = new Object[(elements.length + 2) / 3];
+        int count = 0;
+        int i = 0;
+        while (i < elements.length) {
+            int remaining = elements.length - i;
+            int take = (remaining == 2 || remaining == 4) ? 2 : 3;
+            nodes[count++] = branch(Arrays.copyOfRange(elements, i, i + take));
+            i += take;
+        }
+        return Arrays.copyOf(nodes, count);
+    }
+
+    /**
+     * Splits a non-empty tree around the element holding the given index, which must be smaller
+     * than the size of the tree.
+     */
+    private static Split split(Tree tree, int index) {
+        return switch (tree) {
+            case Empty _ -> throw new IllegalStateException("Cannot split an empty tree");
+            case Single single -> new Split(Empty.INSTANCE, single.element, Empty.INSTANCE);
+            case Deep deep -> {
+                int prefixSize = size(deep.prefix);
+                if (index < prefixSize) {
+                    int at = indexOf(deep.prefix, index);
+                    yield new Split(toTree(Arrays.copyOf(deep.prefix, at)), deep.prefix[at],
+                            deepFront(Arrays.copyOfRange(deep.prefix, at + 1, deep.prefix.length), deep.middle, deep.suffix));
+                }
+                int middleSize = deep.middle.size();
+                if (index < prefixSize + middleSize) {
+                    Split middle = split(deep.middle, index - prefixSize);
+                    Object[] items = ((Branch) middle.element).items;
+                    int at = indexOf(items, index - prefixSize - middle.left.size());
+                    yield new Split(deepBack(deep.prefix, middle.left, Arrays.copyOf(items, at)), items[at],
+                            deepFront(Arrays.copyOfRange(items, at + 1, items.length), middle.right, deep.suffix));
+                }
+                int at = indexOf(deep.suffix, index - prefixSize - middleSize);
+                yield new Split(deepBack(deep.prefix, deep.middle, Arrays.copyOf(deep.suffix, at)), deep.suffix[at],
+                        toTree(Arrays.copyOfRange(deep.suffix, at + 1, deep.suffix.length)));
+            }
+        };
+    }
+
+    /**
+     * Finds the position of the element holding the given index within a digit or node.
+     */
+    private static int indexOf(Object[] items, int index) {
+        for (int i = 0; i < items.length; i++) {
+            index -= measure(items[i]);
+            if (index < 0) return i;
+        }
+        throw new IllegalStateException("Index exceeds the size of the digit");
+    }
+
+    /**
+     * Returns the element holding the index in {@code position[0]} within a digit or node, and
+     * leaves the index relative to that element in {@code position[0]}.
+     */
+    private static Object locate(Object[] items, int[] position) {
+        for (Object item : items) {
+            int size = measure(item);
+            if (position[0] < size) return item;
+            position[0] -= size;
+        }
+        throw new IllegalStateException("Index exceeds the size of the digit");
+    }
+
+    private static Object[] prepend(Object element, Object[] items) {
+        Object[] result = new Object[items.length + 1];
+        result[0] = element;
+        System.arraycopy(items, 0, result, 1, items.length);
+        return result;
+    }
+
+    private static Object[] append(Object[] items, Object element) {
+        Object[] result = Arrays.copyOf(items, items.length + 1);
+        result[items.length] = element;
+        return result;
+    }
+}
@@ -0,0 +1,312 @@
+package dev.schakr.list;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.control.Option;
+
+import java.io.BufferedReader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * A persistent singly-linked list whose cells are computed on first access and memoized. Several
+ * consumers can share one list and every element is computed once, no matter how many of them
+ * read it or from which threads; a cell is evaluated under its own lock, so concurrent readers
+ * wait for the first one instead of computing it again.
+ * <p>
+ * {@code map}, {@code filter}, {@code take} and {@code zip} return immediately and compute their
+ * cells from the cells of their sources when those are accessed. Evaluating a cell uses stack
+ * depth proportional to the number of chained operations, never to the number of elements, so
+ * filters skipping millions of elements do not overflow the stack.
+ * <p>
+ * Lists built from an {@link Iterator}, a {@link Stream} or a {@link BufferedReader} pull one
+ * element per evaluated cell. Evaluated cells stay reachable from every reference to an earlier
+ * cell, so to stream inputs larger than memory, traverse them with {@link #iterator()} or
+ * {@link #forEach} and do not hold on to the head of the list.
+ * <p>
+ * If computing a cell throws, the exception is memoized and rethrown on every later access.
+ *
+ * @param <T> the type of elements in the list
+ */
+public final class LazyList<T> implements Iterable<T> {
+    private static final LazyList<?> EMPTY = new LazyList<>(Nil.INSTANCE);
+
+    private volatile Cell<T> cell;
+
+    private LazyList(Cell<T> cell) {
+        this.cell = cell;
+    }
+
+    private LazyList(Supplier<Cell<T>> thunk) {
+        this.cell = new Unevaluated<>(thunk);
+    }
+
+    private sealed interface Cell<T> permits Unevaluated, Cons, Nil, Failed {}
+
+    private record Unevaluated<T>(Supplier<Cell<T>> thunk) implements Cell<T> {}
+
+    private record Cons<T>(T head, LazyList<T> tail) implements Cell<T> {}
+
+    private record Failed<T>(RuntimeException exception) implements Cell<T> {}
+
+    private enum Nil implements Cell<Object> {
+        INSTANCE
+    }
+
+    /**
+     * A mutable reference to a list, which unlike a local or anonymous class holds no reference to
+     * the list that created it.
+     */
+    private static final class Cursor<T> {
+        LazyList<T> list;
+
+        Cursor(LazyList<T> list) {
+            this.list = list;
+        }
+    }
+
+    /**
+     * Returns the empty list.
+     *
+     * @return a list without elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> LazyList<T> empty() {
+        return (LazyList<T>) EMPTY;
+    }
+
+    /**
+     * Creates a list holding the given values, the first of which is the head of the list.
+     *
+     * @param values the values of the list, from head to last
+     * @return a list holding the values
+     */
+    @SafeVarargs
+    public static <T> LazyList<T> of(T... values) {
+        LazyList<T> list = empty();
+        for (int i = values.length - 1; i >= 0; i--) list = new LazyList<>(new Cons<>(values[i], list));
+        return list;
+    }
+
+    /**
+     * Creates a list pulling its elements from the given iterator as its cells are evaluated. The
+     * iterator must not be used by anyone else afterwards.
+     *
+     * @param iterator the source of the elements
+     * @return a list holding the remaining elements of the iterator
+     */
+    public static <T> LazyList<T> ofAll(Iterator<? extends T> iterator) {
+        return new LazyList<>(() -> iterator.hasNext() ? new Cons<>(iterator.next(), ofAll(iterator)) : nil());
+    }
+
+    /**
+     * Creates a list pulling its elements from the given stream as its cells are evaluated. The
+     * stream is consumed lazily and must not be used by anyone else afterwards.
+     *
+     * @param stream the source of the elements
+     * @return a list holding the elements of the stream
+     */
+    public static <T> LazyList<T> ofAll(Stream<? extends T> stream) {
+        return ofAll(stream.iterator());
+    }
+
+    /**
+     * Creates a list of the lines of the given reader, reading one line per evaluated cell. An
+     * {@code IOException} while reading surfaces as an {@code UncheckedIOException} when the cell
+     * is evaluated, as with {@link BufferedReader#lines()}. The reader is not closed by the list.
+     *
+     * @param reader the reader to read lines from
+     * @return a list of the lines of the reader, without line terminators
+     */
+    public static LazyList<String> lines(BufferedReader reader) {
+        return ofAll(reader.lines());
+    }
+
+    /**
+     * Creates an infinite list starting with the seed, each element computed from the previous one.
+     *
+     * @param seed the head of the list
+     * @param next the function computing an element from its predecessor
+     * @return an infinite list of {@code seed, next(seed), next(next(seed)), ...}
+     */
+    public static <T> LazyList<T> iterate(T seed, UnaryOperator<T> next) {
+        return new LazyList<>(new Cons<>(seed, new LazyList<>(() -> iterate(next.apply(seed), next).evaluate())));
+    }
+
+    /**
+     * Adds an element at the head of the list without evaluating the list.
+     *
+     * @param value the element to be added
+     * @return a list with the element as its head, followed by the elements of this list
+     */
+    public LazyList<T> prepend(T value) {
+        return new LazyList<>(new Cons<>(value, this));
+    }
+
+    /**
+     * Checks if the list is empty, evaluating its first cell.
+     *
+     * @return true if the list contains no elements, false otherwise
+     */
+    public boolean isEmpty() {
+        return evaluate() == Nil.INSTANCE;
+    }
+
+    /**
+     * Retrieves the head of the list, evaluating its first cell.
+     *
+     * @return an {@code Option<T>} containing the head, or {@code Option.none()} if the list is empty
+     */
+    public Option<T> head() {
+        return (evaluate() instanceof Cons<T> cons) ? Option.of(cons.head) : Option.none();
+    }
+
+    /**
+     * Returns the list without its head, evaluating only its first cell.
+     *
+     * @return the elements following the head, or this list if it is empty
+     */
+    public LazyList<T> tail() {
+        return (evaluate() instanceof Cons<T> cons) ? cons.tail : this;
+    }
+
+    /**
+     * Applies a function to every element as its cell is evaluated.
+     *
+     * @param mapper the function to apply to each element
+     * @return a list of the results, in the order of this list
+     */
+    public <R> LazyList<R> map(Function<? super T, ? extends R> mapper) {
+        return new LazyList<>(() -> (evaluate() instanceof Cons<T> cons) ?
+                new Cons<>(mapper.apply(cons.head), cons.tail.map(mapper)) :
+                nil());
+    }
+
+    /**
+     * Keeps the elements matching a predicate. Evaluating a cell of the result evaluates the cells
+     * of this list up to the next match, iteratively.
+     *
+     * @param predicate the condition elements must satisfy to be kept
+     * @return a list of the matching elements, in the order of this list
+     */
+    public LazyList<T> filter(Predicate<? super T> predicate) {
+        // The thunk advances its own reference to the source, so that skipped cells are not kept
+        // reachable from it while a long run of non-matching elements is evaluated.
+        Cursor<T> source = new Cursor<>(this);
+        return new LazyList<>(() -> {
+            Cell<T> current = source.list.evaluate();
+            while (current instanceof Cons<T> cons) {
+                if (predicate.test(cons.head)) return new Cons<>(cons.head, cons.tail.filter(predicate));
+                source.list = cons.tail;
+                current = cons.tail.evaluate();
+            }
+            return nil();
+        });
+    }
+
+    /**
+     * Keeps at most the given number of elements from the head of the list, which makes infinite
+     * lists finite. No cell beyond the kept elements is ever evaluated.
+     *
+     * @param count the maximum number of elements to keep
+     * @return a list of the first {@code count} elements, or all elements if there are fewer
+     */
+    public LazyList<T> take(int count) {
+        if (count <= 0) return empty();
+        return new LazyList<>(() -> (evaluate() instanceof Cons<T> cons) ?
+                new Cons<T>(cons.head, cons.tail.take(count - 1)) :
+                nil());
+    }
+
+    /**
+     * Pairs the elements of this list with the elements of another list at the same position.
+     *
+     * @param that the list providing the second element of each pair
+     * @return a list of pairs, as long as the shorter of both lists
+     */
+    public <U> LazyList<Tuple2<T, U>> zip(LazyList<? extends U> that) {
+        return new LazyList<>(() -> {
+            if (!(evaluate() instanceof Cons<T> cons)) return nil();
+            if (!(that.evaluate() instanceof Cons<? extends U> other)) return nil();
+            return new Cons<>(Tuple.<T, U>of(cons.head, other.head()), cons.tail.zip(other.tail()));
+        });
+    }
+
+    /**
+     * Iterates the elements from the head of the list, evaluating each cell when it is reached.
+     * The iterator only references the current cell, so elements it passed can be garbage collected
+     * unless the list is referenced elsewhere.
+     *
+     * @return an iterator over the elements of the list
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private LazyList<T> current = LazyList.this;
+
+            @Override
+            public boolean hasNext() {
+                return current.evaluate() instanceof Cons;
+            }
+
+            @Override
+            public T next() {
+                if (!(current.evaluate() instanceof Cons<T> cons)) throw new NoSuchElementException();
+                current = cons.tail;
+                return cons.head;
+            }
+        };
+    }
+
+    /**
+     * Shows the elements evaluated so far without evaluating any more of them; an unevaluated
+     * remainder is shown as {@code ?}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("LazyList(");
+        Cell<T> current = cell;
+        String separator = "";
+        while (current instanceof Cons<T> cons) {
+            builder.append(separator).append(cons.head);
+            separator = ", ";
+            current = cons.tail.cell;
+        }
+        if (current instanceof Unevaluated || current instanceof Failed) builder.append(separator).append('?');
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Evaluates the first cell of the list if necessary. The thunk is dropped once it has run, so
+     * the sources it captured can be garbage collected.
+     */
+    private Cell<T> evaluate() {
+        Cell<T> current = cell;
+        if (current instanceof Unevaluated) {
+            synchronized (this) {
+                current = cell;
+                if (current instanceof Unevaluated<T> unevaluated) {
+                    try {
+                        current = Objects.requireNonNull(unevaluated.thunk.get());
+                    } catch (RuntimeException e) {
+                        current = new Failed<>(e);
+                    }
+                    cell = current;
+                }
+            }
+        }
+        if (current instanceof Failed<T> failed) throw failed.exception;
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Cell<T> nil() {
+        return (Cell<T>) Nil.INSTANCE;
+    }
+}
@@ -0,0 +1,674 @@
+package dev.schakr.map;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable sorted map, implemented as a persistent B+-tree with up to {@value #MAX_KEYS} entries
+ * per leaf and {@value #MAX_KEYS} children per branch. Keys and values are stored in flat, sorted
+ * arrays, so lookups binary-search a few contiguous arrays instead of chasing a pointer per key
+ * as a red-black tree does, and ordered scans read whole leaves at a time.
+ * <p>
+ * Updates copy the nodes along the path to the changed leaf and share everything else with the
+ * previous version. Nodes other than the root hold at least {@value #MIN_KEYS} entries or children;
+ * removals restore this by redistributing or merging siblings.
+ *
+ * @param <K> the type of keys, ordered by the comparator of the map
+ * @param <V> the type of values associated with the keys
+ */
+public final class BTreeMap<K, V> {
+    static final int MAX_KEYS = 32;
+    static final int MIN_KEYS = MAX_KEYS / 2;
+
+    private final Comparator<? super K> comparator;
+    private final BNode<K, V> root;
+    private final int size;
+
+    private BTreeMap(Comparator<? super K> comparator, BNode<K, V> root, int size) {
+        this.comparator = comparator;
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Creates an empty BTreeMap ordering its keys by their natural order.
+     *
+     * @return an empty BTreeMap
+     */
+    public static <K extends Comparable<? super K>, V> BTreeMap<K, V> empty() {
+        return empty(Comparator.naturalOrder());
+    }
+
+    /**
+     * Creates an empty BTreeMap ordering its keys by the given comparator.
+     *
+     * @param comparator the comparator defining the order of the keys
+     * @return an empty BTreeMap
+     */
+    public static <K, V> BTreeMap<K, V> empty(Comparator<? super K> comparator) {
+        return new BTreeMap<>(comparator, Leaf.empty(), 0);
+    }
+
+    /**
+     * Builds a BTreeMap from entries sorted by the natural order of their keys.
+     *
+     * @param entries the entries, sorted by strictly increasing keys
+     * @return an {@code Either<Throwable, BTreeMap<K, V>>} where the right side contains the map, or the left
+     *         side contains a {@code Throwable} if the keys are not strictly increasing
+     * @see #ofSorted(Comparator, Iterable)
+     */
+    public static <K extends Comparable<? super K>, V> Either<Throwable, BTreeMap<K, V>> ofSorted(
+            Iterable<? extends Tuple2<? extends K, ? extends V>> entries) {
+        return ofSorted(Comparator.naturalOrder(), entries);
+    }
+
+    /**
+     * Builds a BTreeMap from sorted entries in a single bottom-up pass, without any comparisons
+     * beyond checking the order of the input. Leaves and branches are packed full, except for the
+     * last two nodes of every level, which share their entries evenly.
+     *
+     * @param comparator the comparator defining the order of the keys
+     * @param entries the entries, sorted by strictly increasing keys
+     * @return an {@code Either<Throwable, BTreeMap<K, V>>} where the right side contains the map, or the left
+     *         side contains a {@code Throwable} if the keys are not strictly increasing
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Either<Throwable, BTreeMap<K, V>> ofSorted(Comparator<? super K> comparator,
+                                                                   Iterable<? extends Tuple2<? extends K, ? extends V>> entries) {
+        ArrayList<K> keys = new ArrayList<>();
+        ArrayList<V> vals = new ArrayList<>();
+        for (Tuple2<? extends K, ? extends V> entry : entries) {
+            if (!keys.isEmpty() && comparator.compare(keys.getLast(), entry._1) >= 0)
+                return Either.left(new IllegalArgumentException("Keys are not strictly increasing at " + entry._1));
+            keys.add(entry._1);
+            vals.add(entry._2);
+        }
+        if (keys.isEmpty()) return Either.right(empty(comparator));
+
+        ArrayList<BNode<K, V>> level = new ArrayList<>();
+        ArrayList<K> lowKeys = new ArrayList<>();
+        for (int[] chunk : chunks(keys.size())) {
+            level.add(new Leaf<>((K[]) keys.subList(chunk[0], chunk[1]).toArray(),
+                    (V[]) vals.subList(chunk[0], chunk[1]).toArray()));
+            lowKeys.add(keys.get(chunk[0]));
+        }
+
+        while (level.size() > 1) {
+            ArrayList<BNode<K, V>> parents = new ArrayList<>();
+            ArrayList<K> parentLowKeys = new ArrayList<>();
+            for (int[] chunk : chunks(level.size())) {
+                BNode<K, V>[] children = level.subList(chunk[0], chunk[1]).toArray(newNodes(0));
+                K[] separators = (K[]) lowKeys.subList(chunk[0] + 1, chunk[1]).toArray();
+                parents.add(new Branch<>(separators, children));
+                parentLowKeys.add(lowKeys.get(chunk[0]));
+            }
+            level = parents;
+            lowKeys = parentLowKeys;
+        }
+        return Either.right(new BTreeMap<>(comparator, level.getFirst(), keys.size()));
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return the number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return true if the map contains no entries, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether the specified key is present in the map.
+     *
+     * @param key the key whose presence in the map is to be tested
+     * @return true if the map contains the specified key, false otherwise
+     */
+    public boolean containsKey(K key) {
+        return get(key).isDefined();
+    }
+
+    /**
+     * Retrieves the value associated with the specified key, if it exists in the map.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return an {@code Option<V>} containing the value associated with the key if it exists,
+     *         or {@code Option.none()} if the key is not found
+     */
+    public Option<V> get(K key) {
+        BNode<K, V> node = root;
+        while (node instanceof Branch<K, V> branch) node = branch.children[branch.childIndex(key, comparator)];
+
+        Leaf<K, V> leaf = (Leaf<K, V>) node;
+        int index = leaf.indexOf(key, comparator);
+        return (index >= 0) ? Option.of(leaf.vals[index]) : Option.none();
+    }
+
+    /**
+     * Associates the specified value with the specified key, splitting the nodes along the path
+     * that overflow. If the key is already associated with the identical value, this map itself is
+     * returned.
+     *
+     * @param key the key to be added to the map
+     * @param value the value associated with the specified key
+     * @return an {@code Either<Throwable, BTreeMap<K, V>>} where the right side contains the updated map
+     *         if the addition was successful, or the left side contains a {@code Throwable} if an error occurred,
+     *         such as the comparator throwing
+     */
+    @SuppressWarnings("unchecked")
+    public Either<Throwable, BTreeMap<K, V>> put(K key, V value) {
+        return Try.of(() -> root.insert(key, value, comparator)).toEither().map(update -> {
+            if (update.node == root) return this;
+            int newSize = update.added ? size + 1 : size;
+            if (update.right == null) return new BTreeMap<>(comparator, update.node, newSize);
+
+            BNode<K, V>[] children = newNodes(2);
+            children[0] = update.node;
+            children[1] = update.right;
+            BNode<K, V> newRoot = new Branch<>((K[]) new Object[] { update.separator }, children);
+            return new BTreeMap<>(comparator, newRoot, newSize);
+        });
+    }
+
+    /**
+     * Removes the entry associated with the specified key, if it exists, rebalancing the nodes
+     * along the path that underflow.
+     *
+     * @param key the key whose entry is to be removed
+     * @return an {@code Either<Throwable, BTreeMap<K, V>>} where the right side contains the updated map
+     *         if the removal was successful, or the left side contains a {@code Throwable} if an error occurred,
+     *         such as the comparator throwing
+     */
+    public Either<Throwable, BTreeMap<K, V>> remove(K key) {
+        return Try.of(() -> root.delete(key, comparator)).toEither().map(newRoot -> {
+            if (newRoot == root) return this;
+            BNode<K, V> collapsed = (newRoot instanceof Branch<K, V> branch && branch.children.length == 1) ?
+                    branch.children[0] : newRoot;
+            return new BTreeMap<>(comparator, collapsed, size - 1);
+        });
+    }
+
+    /**
+     * Finds the entry with the greatest key less than or equal to the given key.
+     *
+     * @param key the key to search for
+     * @return an {@code Option} containing the entry, or {@code Option.none()} if there is none
+     */
+    public Option<Tuple2<K, V>> floor(K key) {
+        return root.floor(key, comparator);
+    }
+
+    /**
+     * Finds the entry with the least key greater than or equal to the given key.
+     *
+     * @param key the key to search for
+     * @return an {@code Option} containing the entry, or {@code Option.none()} if there is none
+     */
+    public Option<Tuple2<K, V>> ceiling(K key) {
+        return root.ceiling(key, comparator);
+    }
+
+    /**
+     * Returns the entry with the least key, if the map is not empty.
+     *
+     * @return an {@code Option} containing the first entry, or {@code Option.none()} if the map is empty
+     */
+    public Option<Tuple2<K, V>> first() {
+        return isEmpty() ? Option.none() : Option.of(root.first());
+    }
+
+    /**
+     * Returns the entry with the greatest key, if the map is not empty.
+     *
+     * @return an {@code Option} containing the last entry, or {@code Option.none()} if the map is empty
+     */
+    public Option<Tuple2<K, V>> last() {
+        return isEmpty() ? Option.none() : Option.of(root.last());
+    }
+
+    /**
+     * Iterates all entries in ascending order of their keys.
+     *
+     * @return an iterator over the entries of the map
+     */
+    public Iterator<Tuple2<K, V>> iterator() {
+        return new RangeIterator<>(root, comparator, null, false, null);
+    }
+
+    /**
+     * Iterates the entries with keys greater than or equal to {@code from} in ascending order.
+     *
+     * @param from the lowest key of the iteration, inclusive
+     * @return an iterator over the entries from the given key on
+     */
+    public Iterator<Tuple2<K, V>> iteratorFrom(K from) {
+        return new RangeIterator<>(root, comparator, from, true, null);
+    }
+
+    /**
+     * Iterates the entries with keys in {@code [from, to)} in ascending order. The iterator
+     * descends once to the first entry and then reads the leaves in order.
+     *
+     * @param from the lowest key of the range, inclusive
+     * @param to the highest key of the range, exclusive
+     * @return an iterator over the entries in the range
+     */
+    public Iterator<Tuple2<K, V>> range(K from, K to) {
+        return new RangeIterator<>(root, comparator, from, true, to);
+    }
+
+    /**
+     * Performs the given action for each entry, in ascending order of the keys.
+     *
+     * @param action the action to be performed for each key and value
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach(action);
+    }
+
+    /**
+     * Splits {@code count} elements into chunks of at most {@value #MAX_KEYS}, all full except the
+     * last two, which are balanced so that neither holds fewer than {@value #MIN_KEYS} elements.
+     */
+    private static ArrayList<int[]> chunks(int count) {
+        ArrayList<int[]> chunks = new ArrayList<>();
+        for (int start = 0; start < count; start += MAX_KEYS) chunks.add(new int[] { start, Math.min(count, start + MAX_KEYS) });
+
+        int[] last = chunks.getLast();
+        if (chunks.size() > 1 && last[1] - last[0] < MIN_KEYS) {
+            int[] previous = chunks.get(chunks.size() - 2);
+            int middle = previous[0] + (last[1] - previous[0]) / 2;
+            previous[1] = middle;
+            last[0] = middle;
+        }
+        return chunks;
+    }
+
+    /**
+     * The result of inserting into a node: the updated node, and, if the node overflowed, the
+     * separator and the right half it was split into.
+     */
+    private record Update<K, V>(BNode<K, V> node, K separator, BNode<K, V> right, boolean added) {}
+
+    /**
+     * The result of rebalancing two adjacent siblings: one or two nodes, and the separator between
+     * them if there are two.
+     */
+    private record Rebalanced<K, V>(BNode<K, V>[] nodes, K[] separators) {
+        @SuppressWarnings("unchecked")
+        static <K, V> Rebalanced<K, V> of(BNode<K, V> node) {
+            BNode<K, V>[] nodes = newNodes(1);
+            nodes[0] = node;
+            return new Rebalanced<>(nodes, (K[]) new Object[0]);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <K, V> Rebalanced<K, V> of(BNode<K, V> left, K separator, BNode<K, V> right) {
+            BNode<K, V>[] nodes = newNodes(2);
+            nodes[0] = left;
+            nodes[1] = right;
+            return new Rebalanced<>(nodes, (K[]) new Object[] { separator });
+        }
+    }
+
+    /**
+     * Creates an array of nodes of the given length, which Java cannot create for a generic type
+     * without an unchecked cast.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> BNode<K, V>[] newNodes(int length) {
+        return (BNode<K, V>[]) new BNode[length];
+    }
+
+    private sealed interface BNode<K, V> permits Leaf, Branch {
+        int width();
+        Update<K, V> insert(K key, V value, Comparator<? super K> comparator);
+        BNode<K, V> delete(K key, Comparator<? super K> comparator);
+        Option<Tuple2<K, V>> floor(K key, Comparator<? super K> comparator);
+        Option<Tuple2<K, V>> ceiling(K key, Comparator<? super K> comparator);
+        Tuple2<K, V> first();
+        Tuple2<K, V> last();
+        void forEach(BiConsumer<? super K, ? super V> action);
+    }
+
+    private static final class Leaf<K, V> implements BNode<K, V> {
+        private static final Leaf<?, ?> EMPTY = new Leaf<>(new Object[0], new Object[0]);
+
+        final K[] keys;
+        final V[] vals;
+
+        Leaf(K[] keys, V[] vals) {
+            this.keys = keys;
+            this.vals = vals;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <K, V> Leaf<K, V> empty() {
+            return (Leaf<K, V>) EMPTY;
+        }
+
+        @Override
+        public int width() {
+            return keys.length;
+        }
+
+        int indexOf(K key, Comparator<? super K> comparator) {
+            return Arrays.binarySearch(keys, key, comparator);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Update<K, V> insert(K key, V value, Comparator<? super K> comparator) {
+            int index = indexOf(key, comparator);
+            if (index >= 0) {
+                if (vals[index] == value) return new Update<>(this, null, null, false);
+                V[] newVals = vals.clone();
+                newVals[index] = value;
+                return new Update<>(new Leaf<>(keys, newVals), null, null, false);
+            }
+
+            int position = -index - 1;
+            K[] newKeys = (K[]) new Object[keys.length + 1];
+            V[] newVals = (V[]) new Object[vals.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(vals, 0, newVals, 0, position);
+            newKeys[position] = key;
+            newVals[position] = value;
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(vals, position, newVals, position + 1, vals.length - position);
+            if (newKeys.length <= MAX_KEYS) return new Update<>(new Leaf<>(newKeys, newVals), null, null, true);
+
+            int half = newKeys.length / 2;
+            Leaf<K, V> right = new Leaf<>(Arrays.copyOfRange(newKeys, half, newKeys.length),
+                    Arrays.copyOfRange(newVals, half, newVals.length));
+            return new Update<>(new Leaf<>(Arrays.copyOf(newKeys, half), Arrays.copyOf(newVals, half)),
+                    right.keys[0], right, true);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public BNode<K, V> delete(K key, Comparator<? super K> comparator) {
+            int index = indexOf(key, comparator);
+            if (index < 0) return this;
+
+            K[] newKeys = (K[]) new Object[keys.length - 1];
+            V[] newVals = (V[]) new Object[vals.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(vals, 0, newVals, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(vals, index + 1, newVals, index, vals.length - index - 1);
+            return new Leaf<>(newKeys, newVals);
+        }
+
+        @Override
+        public Option<Tuple2<K, V>> floor(K key, Comparator<? super K> comparator) {
+            int index = indexOf(key, comparator);
+            int floor = (index >= 0) ? index : -index - 2;
+            return (floor >= 0) ? Option.of(Tuple.of(keys[floor], vals[floor])) : Option.none();
+        }
+
+        @Override
+        public Option<Tuple2<K, V>> ceiling(K key, Comparator<? super K> comparator) {
+            int index = indexOf(key, comparator);
+            int ceiling = (index >= 0) ? index : -index - 1;
+            return (ceiling < keys.length) ? Option.of(Tuple.of(keys[ceiling], vals[ceiling])) : Option.none();
+        }
+
+        @Override
+        public Tuple2<K, V> first() {
+            return Tuple.of(keys[0], vals[0]);
+        }
+
+        @Override
+        public Tuple2<K, V> last() {
+            return Tuple.of(keys[keys.length - 1], vals[vals.length - 1]);
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            for (int i = 0; i < keys.length; i++) action.accept(keys[i], vals[i]);
+        }
+
+        /**
+         * Joins two adjacent leaves into one, or into two of even size if they don't fit into one.
+         */
+        static <K, V> Rebalanced<K, V> rebalance(Leaf<K, V> left, Leaf<K, V> right) {
+            K[] keys = Arrays.copyOf(left.keys, left.keys.length + right.keys.length);
+            V[] vals = Arrays.copyOf(left.vals, left.vals.length + right.vals.length);
+            System.arraycopy(right.keys, 0, keys, left.keys.length, right.keys.length);
+            System.arraycopy(right.vals, 0, vals, left.vals.length, right.vals.length);
+            if (keys.length <= MAX_KEYS) return Rebalanced.of(new Leaf<>(keys, vals));
+
+            int half = keys.length / 2;
+            return Rebalanced.of(new Leaf<>(Arrays.copyOf(keys, half), Arrays.copyOf(vals, half)), keys[half],
+                    new Leaf<>(Arrays.copyOfRange(keys, half, keys.length), Arrays.copyOfRange(vals, half, vals.length)));
+        }
+    }
+
+    /**
+     * A branch with {@code n} children and {@code n - 1} separators. The child at index {@code i}
+     * holds the keys between {@code keys[i - 1]} (inclusive) and {@code keys[i]} (exclusive).
+     */
+    private static final class Branch<K, V> implements BNode<K, V> {
+        final K[] keys;
+        final BNode<K, V>[] children;
+
+        Branch(K[] keys, BNode<K, V>[] children) {
+            this.keys = keys;
+            this.children = children;
+        }
+
+        @Override
+        public int width() {
+            return children.length;
+        }
+
+        int childIndex(K key, Comparator<? super K> comparator) {
+            int index = Arrays.binarySearch(keys, key, comparator);
+            return (index >= 0) ? index + 1 : -index - 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Update<K, V> insert(K key, V value, Comparator<? super K> comparator) {
+            int index = childIndex(key, comparator);
+            Update<K, V> update = children[index].insert(key, value, comparator);
+            if (update.node == children[index]) return new Update<>(this, null, null, false);
+
+            if (update.right == null) {
+                BNode<K, V>[] newChildren = children.clone();
+                newChildren[index] = update.node;
+                return new Update<>(new Branch<>(keys, newChildren), null, null, update.added);
+            }
+
+            K[] newKeys = (K[]) new Object[keys.length + 1];
+            BNode<K, V>[] newChildren = newNodes(children.length + 1);
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            newKeys[index] = update.separator;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newChildren[index] = update.node;
+            newChildren[index + 1] = update.right;
+            System.arraycopy(children, index + 1, newChildren, index + 2, children.length - index - 1);
+            if (newChildren.length <= MAX_KEYS) return new Update<>(new Branch<>(newKeys, newChildren), null, null, true);
+
+            int half = newChildren.length / 2;
+            Branch<K, V> right = new Branch<>(Arrays.copyOfRange(newKeys, half, newKeys.length),
+                    Arrays.copyOfRange(newChildren, half, newChildren.length));
+            return new Update<>(new Branch<>(Arrays.copyOf(newKeys, half - 1), Arrays.copyOf(newChildren, half)),
+                    newKeys[half - 1], right, true);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public BNode<K, V> delete(K key, Comparator<? super K> comparator) {
+            int index = childIndex(key, comparator);
+            BNode<K, V> child = children[index].delete(key, comparator);
+            if (child == children[index]) return this;
+
+            if (child.width() >= MIN_KEYS) {
+                BNode<K, V>[] newChildren = children.clone();
+                newChildren[index] = child;
+                return new Branch<>(keys, newChildren);
+            }
+
+            int left = (index > 0) ? index - 1 : index;
+            BNode<K, V> leftNode = (left == index) ? child : children[left];
+            BNode<K, V> rightNode = (left == index) ? children[index + 1] : child;
+            Rebalanced<K, V> result = (leftNode instanceof Leaf<K, V> leftLeaf) ?
+                    Leaf.rebalance(leftLeaf, (Leaf<K, V>) rightNode) :
+                    rebalance((Branch<K, V>) leftNode, keys[left], (Branch<K, V>) rightNode);
+            BNode<K, V>[] rebalanced = result.nodes();
+            K[] separators = result.separators();
+
+            K[] newKeys = (K[]) new Object[keys.length - 2 + rebalanced.length];
+            BNode<K, V>[] newChildren = newNodes(children.length - 2 + rebalanced.length);
+            System.arraycopy(keys, 0, newKeys, 0, left);
+            System.arraycopy(separators, 0, newKeys, left, separators.length);
+            System.arraycopy(keys, left + 1, newKeys, left + separators.length, keys.length - left - 1);
+            System.arraycopy(children, 0, newChildren, 0, left);
+            System.arraycopy(rebalanced, 0, newChildren, left, rebalanced.length);
+            System.arraycopy(children, left + 2, newChildren, left + rebalanced.length, children.length - left - 2);
+            return new Branch<>(newKeys, newChildren);
+        }
+
+        /**
+         * Joins two adjacent branches and the separator between them into one branch, or into two
+         * branches of even size if they don't fit into one.
+         *
+         */
+        @SuppressWarnings("unchecked")
+        private static <K, V> Rebalanced<K, V> rebalance(Branch<K, V> left, K separator, Branch<K, V> right) {
+            K[] keys = (K[]) new Object[left.keys.length + 1 + right.keys.length];
+            System.arraycopy(left.keys, 0, keys, 0, left.keys.length);
+            keys[left.keys.length] = separator;
+            System.arraycopy(right.keys, 0, keys, left.keys.length + 1, right.keys.length);
+            BNode<K, V>[] children = Arrays.copyOf(left.children, left.children.length + right.children.length);
+            System.arraycopy(right.children, 0, children, left.children.length, right.children.length);
+            if (children.length <= MAX_KEYS) return Rebalanced.of(new Branch<>(keys, children));
+
+            int half = children.length / 2;
+            return Rebalanced.of(new Branch<>(Arrays.copyOf(keys, half - 1), Arrays.copyOf(children, half)), keys[half - 1],
+                    new Branch<>(Arrays.copyOfRange(keys, half, keys.length), Arrays.copyOfRange(children, half, children.length)));
+        }
+
+        @Override
+        public Option<Tuple2<K, V>> floor(K key, Comparator<? super K> comparator) {
+            int index = childIndex(key, comparator);
+            Option<Tuple2<K, V>> floor = children[index].floor(key, comparator);
+            return (floor.isEmpty() && index > 0) ? Option.of(children[index - 1].last()) : floor;
+        }
+
+        @Override
+        public Option<Tuple2<K, V>> ceiling(K key, Comparator<? super K> comparator) {
+            int index = childIndex(key, comparator);
+            Option<Tuple2<K, V>> ceiling = children[index].ceiling(key, comparator);
+            return (ceiling.isEmpty() && index < children.length - 1) ? Option.of(children[index + 1].first()) : ceiling;
+        }
+
+        @Override
+        public Tuple2<K, V> first() {
+            return children[0].first();
+        }
+
+        @Override
+        public Tuple2<K, V> last() {
+            return children[children.length - 1].last();
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            for (BNode<K, V> child : children) child.forEach(action);
+        }
+    }
+
+    /**
+     * Iterates the entries of a range, keeping the branches on the path to the current leaf and the
+     * index of the next child of each on a stack.
+     */
+    private static final class RangeIterator<K, V> implements Iterator<Tuple2<K, V>> {
+        private final Comparator<? super K> comparator;
+        private final K to;
+        private final ArrayList<Branch<K, V>> branches = new ArrayList<>();
+        private final ArrayList<Integer> nextChild = new ArrayList<>();
+        private Leaf<K, V> leaf;
+        private int position;
+
+        RangeIterator(BNode<K, V> root, Comparator<? super K> comparator, K from, boolean bounded, K to) {
+            this.comparator = comparator;
+            this.to = to;
+
+            BNode<K, V> node = root;
+            while (node instanceof Branch<K, V> branch) {
+                int index = bounded ? branch.childIndex(from, comparator) : 0;
+                branches.add(branch);
+                nextChild.add(index + 1);
+                node = branch.children[index];
+            }
+            leaf = (Leaf<K, V>) node;
+            if (bounded) {
+                int index = leaf.indexOf(from, comparator);
+                position = (index >= 0) ? index : -index - 1;
+            }
+            skipExhaustedLeaves();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null && (to == null || comparator.compare(leaf.keys[position], to) < 0);
+        }
+
+        @Override
+        public Tuple2<K, V> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Tuple2<K, V> entry = Tuple.of(leaf.keys[position], leaf.vals[position]);
+            position++;
+            skipExhaustedLeaves();
+            return entry;
+        }
+
+        /**
+         * Moves to the first entry of the next leaf while the current leaf is exhausted, or clears
+         * the leaf if the tree is.
+         */
+        private void skipExhaustedLeaves() {
+            while (leaf != null && position == leaf.keys.length) {
+                int depth = branches.size() - 1;
+                while (depth >= 0 && nextChild.get(depth) == branches.get(depth).children.length) depth--;
+                if (depth < 0) {
+                    leaf = null;
+                    return;
+                }
+
+                BNode<K, V> node = branches.get(depth).children[nextChild.get(depth)];
+                nextChild.set(depth, nextChild.get(depth) + 1);
+                for (int level = depth + 1; level < branches.size(); level++) {
+                    Branch<K, V> branch = (Branch<K, V>) node;
+                    branches.set(level, branch);
+                    nextChild.set(level, 1);
+                    node = branch.children[0];
+                }
+                leaf = (Leaf<K, V>) node;
+                position = 0;
+            }
+        }
+    }
+}
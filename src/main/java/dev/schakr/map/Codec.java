@@ -0,0 +1,68 @@
+package dev.schakr.map;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Converts objects to and from their binary representation so that they can be stored
+ * outside the Java heap, e.g. in a memory-mapped file.
+ *
+ * @param <T> the type of the objects being encoded
+ */
+public interface Codec<T> {
+
+    /**
+     * Encodes the given object into bytes.
+     *
+     * @param value the object to encode
+     * @return the binary representation of the object
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decodes an object from the bytes previously produced by {@link #encode(Object)}.
+     *
+     * @param bytes the binary representation of the object
+     * @return the decoded object
+     */
+    T decode(byte[] bytes);
+
+    /**
+     * Creates a codec from a pair of encoding and decoding functions.
+     *
+     * @param encoder the function converting an object into bytes
+     * @param decoder the function converting bytes back into an object
+     * @return a codec delegating to the given functions
+     * @param <T> the type of the objects being encoded
+     */
+    static <T> Codec<T> of(Function<T, byte[]> encoder, Function<byte[], T> decoder) {
+        return new Codec<>() {
+            @Override
+            public byte[] encode(T value) {
+                return encoder.apply(value);
+            }
+
+            @Override
+            public T decode(byte[] bytes) {
+                return decoder.apply(bytes);
+            }
+        };
+    }
+
+    static Codec<String> utf8() {
+        return of(s -> s.getBytes(StandardCharsets.UTF_8), b -> new String(b, StandardCharsets.UTF_8));
+    }
+
+    static Codec<byte[]> bytes() {
+        return of(b -> b, b -> b);
+    }
+
+    static Codec<Integer> int32() {
+        return of(i -> ByteBuffer.allocate(Integer.BYTES).putInt(i).array(), b -> ByteBuffer.wrap(b).getInt());
+    }
+
+    static Codec<Long> int64() {
+        return of(l -> ByteBuffer.allocate(Long.BYTES).putLong(l).array(), b -> ByteBuffer.wrap(b).getLong());
+    }
+}
@@ -2,80 +2,95 @@ package dev.schakr.map;
 
 import io.vavr.control.Option;
 
+import java.util.Arrays;
+
 /**
  * CollisionNode is a data structure that implements the Node interface, designed to manage
- * key-value pairs with collision handling capabilities. This node type stores keys and their
- * associated values in arrays and enables operations such as insertion, deletion, retrieval,
- * and checking for key existence.
+ * key-value pairs with collision handling capabilities. This node type stores keys, their
+ * associated values and the full hashes of the keys in arrays and enables operations such as
+ * insertion, deletion, retrieval, and checking for key existence. The stored hashes are compared
+ * before the keys, so keys are only compared when their full hashes match.
+ * <p>
+ * The node is immutable: every modification copies the arrays it changes and shares the rest.
  *
  * @param <A> The type of the keys stored in the node.
  * @param <B> The type of the values associated with the keys.
  */
 public class CollisionNode<A, B> implements Node<A, B> {
-    A[] keys;
-    B[] vals;
-    int size;
-    int capacity;
+    final A[] keys;
+    final B[] vals;
+    final int[] hashes;
 
-    CollisionNode(A[] keys, B[] vals, int size, int capacity) {
+    CollisionNode(A[] keys, B[] vals, int[] hashes) {
         this.keys = keys;
         this.vals = vals;
-        this.size = size;
-        this.capacity = capacity;
+        this.hashes = hashes;
     }
 
     @SuppressWarnings("unchecked")
-    CollisionNode(LeafNode<A, B> node, A a, B b) {
-        capacity = 10;
-        size = 2;
-        keys = (A[]) new Object[capacity];
-        vals = (B[]) new Object[capacity];
-        keys[0] = node.key; vals[0] = node.value;
-        keys[1] = a; vals[1] = b;
+    CollisionNode(LeafNode<A, B> node, A a, B b, int hash) {
+        keys = (A[]) new Object[] { node.key, a };
+        vals = (B[]) new Object[] { node.value, b };
+        hashes = new int[] { node.hash, hash };
     }
 
     /**
      * Removes the entry corresponding to the specified key from the current node.
      * If the key does not exist in the node, the current node is returned unchanged.
-     * If the node becomes empty after removal, an empty node is returned.
+     * If a single entry remains after removal, it is returned as a leaf node.
      *
      * @param key the key to be removed from the node
+     * @param hash the full hash of the key
+     * @param strategy the strategy used to compare the keys
      * @return a new node with the specified key removed, or the current node if the key is not found
      */
-    Node<A, B> delete(A key) {
-        int index = indexOf(key);
+    @SuppressWarnings("unchecked")
+    Node<A, B> delete(A key, int hash, HashStrategy<A> strategy) {
+        int index = indexOf(key, hash, strategy);
 
         if (index == -1) return this;
-        if (size == 1) return Node.empty();
-
-        A[] newKeys = keys.clone();
-        B[] newVals = vals.clone();
-        for (int j = index; j < size - 1; j++) {
-            newKeys[j] = newKeys[j + 1];
-            newVals[j] = newVals[j + 1];
+        if (size() == 1) return Node.empty();
+        if (size() == 2) return new LeafNode<>(keys[1 - index], vals[1 - index], hashes[1 - index]);
+
+        A[] newKeys = (A[]) new Object[size() - 1];
+        B[] newVals = (B[]) new Object[size() - 1];
+        int[] newHashes = new int[size() - 1];
+        for (int i = 0, j = 0; i < size(); i++) {
+            if (i == index) continue;
+            newKeys[j] = keys[i];
+            newVals[j] = vals[i];
+            newHashes[j++] = hashes[i];
         }
-        newKeys[size - 1] = null;
-        newVals[size - 1] = null;
-
-        if (size == 2) return new LeafNode<>(newKeys[0], newVals[0]);
-        return new CollisionNode<>(newKeys, newVals, size - 1, capacity);
+        return new CollisionNode<>(newKeys, newVals, newHashes);
     }
 
     /**
-     * Inserts a key-value pair into the node. If the current node exceeds its capacity threshold,
-     * it resizes and inserts the pair in a resized node. Otherwise, it inserts
-     * the pair in a copy of the current node.
+     * Inserts a key-value pair into a copy of the node. If the key already exists, only the
+     * values are copied and the key and hash arrays are shared with the current node. If the key
+     * is already associated with the identical value, the current node is returned.
      *
      * @param key the key to be inserted into the node
      * @param value the value associated with the key to be inserted
+     * @param hash the full hash of the key
+     * @param strategy the strategy used to compare the keys
      * @return a new node containing the inserted key-value pair
      */
-    Node<A, B> insert(A key, B value) {
-        if (size >= capacity * 0.75d) {
-            return resize().insertMutable(key, value);
-        } else {
-            return copy().insertMutable(key, value);
+    Node<A, B> insert(A key, B value, int hash, HashStrategy<A> strategy) {
+        int index = indexOf(key, hash, strategy);
+        if (index != -1 && vals[index] == value) return this;
+        if (index != -1) {
+            B[] newVals = vals.clone();
+            newVals[index] = value;
+            return new CollisionNode<>(keys, newVals, hashes);
         }
+
+        A[] newKeys = Arrays.copyOf(keys, size() + 1);
+        B[] newVals = Arrays.copyOf(vals, size() + 1);
+        int[] newHashes = Arrays.copyOf(hashes, size() + 1);
+        newKeys[size()] = key;
+        newVals[size()] = value;
+        newHashes[size()] = hash;
+        return new CollisionNode<>(newKeys, newVals, newHashes);
     }
 
     /**
@@ -83,11 +98,13 @@ public class CollisionNode<A, B> implements Node<A, B> {
      * If the key is not present, an empty {@code Option} is returned.
      *
      * @param key the key whose associated value is to be retrieved
+     * @param hash the full hash of the key
+     * @param strategy the strategy used to compare the keys
      * @return an {@code Option} containing the value associated with the specified key,
      *         or {@code Option.none()} if the key is not found
      */
-    Option<B> get(A key) {
-        int index = indexOf(key);
+    Option<B> get(A key, int hash, HashStrategy<A> strategy) {
+        int index = indexOf(key, hash, strategy);
         if (index == -1) return Option.none();
         return Option.of(vals[index]);
     }
@@ -96,49 +113,31 @@ public class CollisionNode<A, B> implements Node<A, B> {
      * Checks if the specified key exists in the current node.
      *
      * @param key the key to check for presence in the node
+     * @param hash the full hash of the key
+     * @param strategy the strategy used to compare the keys
      * @return true if the key is found in the node, false otherwise
      */
-    boolean contains(A key) {
-        return indexOf(key) != -1;
-    }
-
-    /**
-     * Determines if the current collision node is empty.
-     *
-     * @return true if the node contains no elements, false otherwise
-     */
-    @Override
-    public boolean isEmpty() {
-        return size > 0;
+    boolean contains(A key, int hash, HashStrategy<A> strategy) {
+        return indexOf(key, hash, strategy) != -1;
     }
 
     /**
-     * Creates and returns a copy of the current collision node.
+     * Returns the number of entries stored in the node.
      *
-     * @return a new CollisionNode containing the same keys, values, size, and capacity as the current one
+     * @return the number of entries in the node
      */
-    private CollisionNode<A, B> copy() {
-        return new CollisionNode<>(keys, vals, size, capacity);
+    int size() {
+        return keys.length;
     }
 
     /**
-     * Inserts a key-value pair into the current collision node. If the key already exists,
-     * the corresponding value is updated. If the key does not exist, it is added to the node.
-     * The insertion or update is performed in a mutable manner without creating a new node.
+     * Determines if the current collision node is empty.
      *
-     * @param key the key to be inserted or updated in the node
-     * @param value the value associated with the key to be inserted or updated
-     * @return the current collision node after the key-value pair has been inserted or updated
+     * @return true if the node contains no elements, false otherwise
      */
-    private CollisionNode<A, B> insertMutable(A key, B value) {
-        int keyIndex = indexOf(key);
-        if (keyIndex == -1) {
-            keys[size] = key; vals[size] = value;
-            size++;
-        } else {
-            vals[keyIndex] = value;
-        }
-        return this;
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
     }
 
     /**
@@ -146,42 +145,15 @@ public class CollisionNode<A, B> implements Node<A, B> {
      * If the key is found, returns its index. If the key is not found, returns -1.
      *
      * @param key the key whose index is to be determined in the node
+     * @param hash the full hash of the key
+     * @param strategy the strategy used to compare the keys
      * @return the index of the specified key if it exists in the node, or -1 if the key is not present
      */
-    private int indexOf(A key) {
-        if (size == 0) return -1;
-        int ecountered = 0;
-        for (int i = 0; i < capacity; i++) {
-            if (keys[i] != null) {
-                ecountered++;
-                if (keys[i].equals(key)) return i;
-            }
-            if (ecountered == size) return -1;
+    private int indexOf(A key, int hash, HashStrategy<A> strategy) {
+        for (int i = 0; i < keys.length; i++) {
+            if (hashes[i] == hash && strategy.equals(keys[i], key)) return i;
         }
         return -1;
     }
 
-    /**
-     * Resizes the current collision node by doubling its capacity.
-     * This method creates new key and value arrays with updated capacity,
-     * transfers the existing keys and values into the new arrays, and
-     * returns a new collision node with the updated capacity.
-     *
-     * @return a new CollisionNode instance with increased capacity and copied contents
-     */
-    @SuppressWarnings("unchecked")
-    private CollisionNode<A, B> resize() {
-        int newCapacity = capacity * 2;
-        A[] newKeys = (A[]) new Object[newCapacity];
-        B[] newVals = (B[]) new Object[newCapacity];
-        for (int i = 0; i < capacity; i++) {
-            if (keys[i] != null) {
-                newKeys[i] = keys[i];
-                newVals[i] = vals[i];
-            }
-        }
-
-        return new CollisionNode<>(newKeys, newVals, size, newCapacity);
-    }
-
 }
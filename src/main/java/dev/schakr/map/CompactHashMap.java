@@ -0,0 +1,406 @@
+package dev.schakr.map;
+
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map with the same trie shape as {@link HashMap}, but a compact node layout in the
+ * style of CHAMP (Compressed Hash-Array Mapped Prefix-tree). Instead of wrapping every entry in a leaf
+ * object held by a list of children, each node keeps its entries inline in a single array,
+ * {@code [k0, v0, k1, v1, ..., subnodeN, ..., subnode0]}, with one bitmap marking the slots holding
+ * entries and another the slots holding subnodes. A map of n entries thus needs no per-entry objects
+ * at all, and a lookup reads the key and value from the same array as the bitmap that located them.
+ * <p>
+ * Removing an entry that leaves a subnode with a single entry moves that entry back into the parent,
+ * so removals do not leave chains of single-entry nodes behind. Keys whose full hashes collide are
+ * kept in a collision bucket below the deepest level of the trie.
+ * <p>
+ * HashMap keeps its node layout, which its views, statistics, merges and on-disk format depend on;
+ * this map trades those features for a smaller footprint and is meant for large, read-mostly maps.
+ *
+ * @param <A> the type of keys used in this map
+ * @param <B> the type of values associated with the keys in this map
+ */
+public final class CompactHashMap<A, B> {
+    private static final int BITS = 5;
+    private static final int HASH_BITS = 32;
+
+    private final CompactNode<A, B> root;
+    private final HashStrategy<A> strategy;
+    private final int size;
+
+    private CompactHashMap(CompactNode<A, B> root, HashStrategy<A> strategy, int size) {
+        this.root = root;
+        this.strategy = strategy;
+        this.size = size;
+    }
+
+    /**
+     * Creates an empty CompactHashMap using the keys' own {@code hashCode} and {@code equals}.
+     *
+     * @return an empty CompactHashMap
+     */
+    public static <A, B> CompactHashMap<A, B> empty() {
+        return empty(HashStrategy.natural());
+    }
+
+    /**
+     * Creates an empty CompactHashMap hashing and comparing its keys according to the given strategy.
+     *
+     * @param strategy the strategy used to hash and compare keys
+     * @return an empty CompactHashMap
+     */
+    public static <A, B> CompactHashMap<A, B> empty(HashStrategy<A> strategy) {
+        return new CompactHashMap<>(BitmapNode.empty(), strategy, 0);
+    }
+
+    /**
+     * Copies the entries of a HashMap into a CompactHashMap with the same strategy.
+     *
+     * @param map the map whose entries are to be copied
+     * @return a CompactHashMap holding the entries of the given map
+     */
+    public static <A, B> CompactHashMap<A, B> of(HashMap<A, B> map) {
+        class Builder {
+            CompactNode<A, B> root = BitmapNode.empty();
+        }
+
+        Builder builder = new Builder();
+        int[] added = new int[1];
+        map.forEach((key, value) -> builder.root = builder.root.put(key, value, map.strategy.hash(key), 0, map.strategy, added));
+        return new CompactHashMap<>(builder.root, map.strategy, map.size());
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return the number of key-value pairs in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return true if the map contains no entries, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether the specified key is present in the map.
+     *
+     * @param key the key whose presence in the map is to be tested
+     * @return true if the map contains the specified key, false otherwise
+     */
+    public boolean containsKey(A key) {
+        return get(key).isDefined();
+    }
+
+    /**
+     * Retrieves the value associated with the specified key. The descent is iterative and reads the
+     * key and value of a matching entry directly from the array of the node holding it.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return an {@code Option<B>} containing the value associated with the key if it exists,
+     *         or {@code Option.none()} if the key is not found
+     */
+    @SuppressWarnings("unchecked")
+    public Option<B> get(A key) {
+        int keyHash = strategy.hash(key);
+        CompactNode<A, B> node = root;
+        for (int shift = 0; ; shift += BITS) {
+            switch (node) {
+                case BitmapNode<A, B> bitmapNode -> {
+                    int bit = bit(keyHash, shift);
+                    if ((bitmapNode.dataMap & bit) != 0) {
+                        int index = 2 * bitmapNode.dataIndex(bit);
+                        return strategy.equals((A) bitmapNode.content[index], key) ?
+                                Option.some((B) bitmapNode.content[index + 1]) : Option.none();
+                    }
+                    if ((bitmapNode.nodeMap & bit) == 0) return Option.none();
+                    node = bitmapNode.nodeAt(bit);
+                }
+                case CollisionBucket<A, B> collisionBucket -> {
+                    int index = collisionBucket.indexOf(key, strategy);
+                    return (index < 0) ? Option.none() : Option.some((B) collisionBucket.content[index + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a key-value pair to the map. If the key is already associated with the identical value,
+     * this map itself is returned.
+     *
+     * @param key the key to be added to the map; can be null
+     * @param value the value associated with the specified key; can be null
+     * @return an {@code Either<Throwable, CompactHashMap<A, B>>} where the right side contains the updated map
+     *         if the addition was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, CompactHashMap<A, B>> put(A key, B value) {
+        int[] added = new int[1];
+        return Either.<Throwable, CompactNode<A, B>>right(root.put(key, value, strategy.hash(key), 0, strategy, added))
+                .map(newRoot -> (newRoot == root) ? this : new CompactHashMap<>(newRoot, strategy, size + added[0]));
+    }
+
+    /**
+     * Removes the entry associated with the specified key from the map, if it exists.
+     *
+     * @param key the key whose associated entry is to be removed
+     * @return an {@code Either<Throwable, CompactHashMap<A, B>>} where the right side contains the updated map,
+     *         or this map if the key is not present, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, CompactHashMap<A, B>> remove(A key) {
+        return Either.<Throwable, CompactNode<A, B>>right(root.remove(key, strategy.hash(key), 0, strategy))
+                .map(newRoot -> (newRoot == root) ? this : new CompactHashMap<>(newRoot, strategy, size - 1));
+    }
+
+    /**
+     * Performs the given action for each entry in the map, in the order of the trie.
+     *
+     * @param action the action to be performed for each key and value
+     */
+    public void forEach(BiConsumer<? super A, ? super B> action) {
+        root.forEach(action);
+    }
+
+    private static int bit(int keyHash, int shift) {
+        return 1 << ((keyHash >>> shift) & 0x1f);
+    }
+
+    private sealed interface CompactNode<A, B> permits BitmapNode, CollisionBucket {
+        CompactNode<A, B> put(A key, B value, int keyHash, int shift, HashStrategy<A> strategy, int[] added);
+
+        /**
+         * Removes the key from this node, returning this node if the key is absent. Nodes below the
+         * root are never left with fewer than two entries; a node shrinking to a single entry is
+         * returned as a singleton for its parent to inline.
+         */
+        CompactNode<A, B> remove(A key, int keyHash, int shift, HashStrategy<A> strategy);
+
+        void forEach(BiConsumer<? super A, ? super B> action);
+    }
+
+    /**
+     * A trie node holding up to 32 slots. The entries of the slots set in {@code dataMap} are stored in
+     * pairs at the front of {@code content}, the subnodes of the slots set in {@code nodeMap} in reverse
+     * order at its back, so both can be located by counting the lower bits of their bitmap.
+     */
+    private static final class BitmapNode<A, B> implements CompactNode<A, B> {
+        private static final BitmapNode<?, ?> EMPTY = new BitmapNode<>(0, 0, new Object[0]);
+
+        final int dataMap;
+        final int nodeMap;
+        final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <A, B> BitmapNode<A, B> empty() {
+            return (BitmapNode<A, B>) EMPTY;
+        }
+
+        int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        int nodeIndex(int bit) {
+            return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        @SuppressWarnings("unchecked")
+        CompactNode<A, B> nodeAt(int bit) {
+            return (CompactNode<A, B>) content[nodeIndex(bit)];
+        }
+
+        boolean isSingleton() {
+            return nodeMap == 0 && Integer.bitCount(dataMap) == 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public CompactNode<A, B> put(A key, B value, int keyHash, int shift, HashStrategy<A> strategy, int[] added) {
+            int bit = bit(keyHash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = 2 * dataIndex(bit);
+                A existing = (A) content[index];
+                if (strategy.equals(existing, key)) {
+                    if (content[index + 1] == value) return this;
+                    Object[] copy = content.clone();
+                    copy[index + 1] = value;
+                    return new BitmapNode<>(dataMap, nodeMap, copy);
+                }
+                added[0] = 1;
+                CompactNode<A, B> child = pair(existing, (B) content[index + 1], strategy.hash(existing),
+                        key, value, keyHash, shift + BITS);
+                return migrateToNode(bit, index, child);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                CompactNode<A, B> child = (CompactNode<A, B>) content[index];
+                CompactNode<A, B> newChild = child.put(key, value, keyHash, shift + BITS, strategy, added);
+                if (newChild == child) return this;
+                Object[] copy = content.clone();
+                copy[index] = newChild;
+                return new BitmapNode<>(dataMap, nodeMap, copy);
+            }
+            added[0] = 1;
+            int index = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, index);
+            copy[index] = key;
+            copy[index + 1] = value;
+            System.arraycopy(content, index, copy, index + 2, content.length - index);
+            return new BitmapNode<>(dataMap | bit, nodeMap, copy);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public CompactNode<A, B> remove(A key, int keyHash, int shift, HashStrategy<A> strategy) {
+            int bit = bit(keyHash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = 2 * dataIndex(bit);
+                if (!strategy.equals((A) content[index], key)) return this;
+                if (shift > 0 && nodeMap == 0 && Integer.bitCount(dataMap) == 2) {
+                    int other = (index == 0) ? 2 : 0;
+                    A otherKey = (A) content[other];
+                    return new BitmapNode<>(bit(strategy.hash(otherKey), 0), 0, new Object[]{otherKey, content[other + 1]});
+                }
+                Object[] copy = new Object[content.length - 2];
+                System.arraycopy(content, 0, copy, 0, index);
+                System.arraycopy(content, index + 2, copy, index, content.length - index - 2);
+                return new BitmapNode<>(dataMap ^ bit, nodeMap, copy);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                CompactNode<A, B> child = (CompactNode<A, B>) content[index];
+                CompactNode<A, B> newChild = child.remove(key, keyHash, shift + BITS, strategy);
+                if (newChild == child) return this;
+                if (newChild instanceof BitmapNode<A, B> singleton && singleton.isSingleton()) {
+                    if (shift > 0 && dataMap == 0 && Integer.bitCount(nodeMap) == 1) return singleton;
+                    return migrateToInline(bit, index, singleton.content[0], singleton.content[1]);
+                }
+                Object[] copy = content.clone();
+                copy[index] = newChild;
+                return new BitmapNode<>(dataMap, nodeMap, copy);
+            }
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEach(BiConsumer<? super A, ? super B> action) {
+            int entries = 2 * Integer.bitCount(dataMap);
+            for (int i = 0; i < entries; i += 2) action.accept((A) content[i], (B) content[i + 1]);
+            for (int i = entries; i < content.length; i++) ((CompactNode<A, B>) content[i]).forEach(action);
+        }
+
+        /**
+         * Replaces the entry at the given slot with a subnode holding it and the entry being added.
+         */
+        private BitmapNode<A, B> migrateToNode(int bit, int dataIndex, CompactNode<A, B> child) {
+            int nodeIndex = content.length - 2 - Integer.bitCount(nodeMap & (bit - 1));
+            Object[] copy = new Object[content.length - 1];
+            System.arraycopy(content, 0, copy, 0, dataIndex);
+            System.arraycopy(content, dataIndex + 2, copy, dataIndex, nodeIndex - dataIndex);
+            copy[nodeIndex] = child;
+            System.arraycopy(content, nodeIndex + 2, copy, nodeIndex + 1, content.length - nodeIndex - 2);
+            return new BitmapNode<>(dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        /**
+         * Replaces the subnode at the given slot with the single entry left in it.
+         */
+        private BitmapNode<A, B> migrateToInline(int bit, int nodeIndex, Object key, Object value) {
+            int dataIndex = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 1];
+            System.arraycopy(content, 0, copy, 0, dataIndex);
+            copy[dataIndex] = key;
+            copy[dataIndex + 1] = value;
+            System.arraycopy(content, dataIndex, copy, dataIndex + 2, nodeIndex - dataIndex);
+            System.arraycopy(content, nodeIndex + 1, copy, nodeIndex + 2, content.length - nodeIndex - 1);
+            return new BitmapNode<>(dataMap | bit, nodeMap ^ bit, copy);
+        }
+
+        /**
+         * Creates the smallest subtree holding two entries with distinct keys, pushing them down as long
+         * as their hash fragments agree and falling back to a collision bucket once the hash is exhausted.
+         */
+        private static <A, B> CompactNode<A, B> pair(A key0, B value0, int hash0, A key1, B value1, int hash1, int shift) {
+            if (shift >= HASH_BITS) return new CollisionBucket<>(hash0, new Object[]{key0, value0, key1, value1});
+            int bit0 = bit(hash0, shift);
+            int bit1 = bit(hash1, shift);
+            if (bit0 == bit1)
+                return new BitmapNode<>(0, bit0, new Object[]{pair(key0, value0, hash0, key1, value1, hash1, shift + BITS)});
+            return new BitmapNode<>(bit0 | bit1, 0, (Integer.compareUnsigned(bit0, bit1) < 0) ?
+                    new Object[]{key0, value0, key1, value1} : new Object[]{key1, value1, key0, value0});
+        }
+    }
+
+    /**
+     * Holds the entries of keys sharing the same full hash, as key-value pairs in a single array.
+     */
+    private static final class CollisionBucket<A, B> implements CompactNode<A, B> {
+        final int hash;
+        final Object[] content;
+
+        CollisionBucket(int hash, Object[] content) {
+            this.hash = hash;
+            this.content = content;
+        }
+
+        @SuppressWarnings("unchecked")
+        int indexOf(A key, HashStrategy<A> strategy) {
+            for (int i = 0; i < content.length; i += 2) {
+                if (strategy.equals((A) content[i], key)) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public CompactNode<A, B> put(A key, B value, int keyHash, int shift, HashStrategy<A> strategy, int[] added) {
+            int index = indexOf(key, strategy);
+            if (index >= 0) {
+                if (content[index + 1] == value) return this;
+                Object[] copy = content.clone();
+                copy[index + 1] = value;
+                return new CollisionBucket<>(hash, copy);
+            }
+            added[0] = 1;
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, content.length);
+            copy[content.length] = key;
+            copy[content.length + 1] = value;
+            return new CollisionBucket<>(hash, copy);
+        }
+
+        @Override
+        public CompactNode<A, B> remove(A key, int keyHash, int shift, HashStrategy<A> strategy) {
+            int index = indexOf(key, strategy);
+            if (index < 0) return this;
+            if (content.length == 4) {
+                int other = (index == 0) ? 2 : 0;
+                return new BitmapNode<>(bit(hash, 0), 0, new Object[]{content[other], content[other + 1]});
+            }
+            Object[] copy = new Object[content.length - 2];
+            System.arraycopy(content, 0, copy, 0, index);
+            System.arraycopy(content, index + 2, copy, index, content.length - index - 2);
+            return new CollisionBucket<>(hash, copy);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEach(BiConsumer<? super A, ? super B> action) {
+            for (int i = 0; i < content.length; i += 2) action.accept((A) content[i], (B) content[i + 1]);
+        }
+    }
+}
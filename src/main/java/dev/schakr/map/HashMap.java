@@ -6,34 +6,176 @@ import io.vavr.collection.List;
 import io.vavr.control.Either;
 import io.vavr.control.Option;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
 /**
  * Represents a high-performance, immutable HashMap implementation that supports
  * key-value mapping while ensuring structural sharing and efficient updates.
  * The HashMap provides a series of operations for insertion, removal, and retrieval
  * of key-value pairs. Modelled after the Hash Array Mapped Trie (HAMT) data structure.
+ * Keys are hashed and compared according to a {@link HashStrategy}, which defaults to
+ * the keys' own {@code hashCode} and {@code equals}.
+ * <p>
+ * For read-mostly maps, {@link #withLookupCache(int)} adds a small front cache of recently hit
+ * leaves to a version, letting lookups of hot keys skip the descent through the trie.
+ * <p>
+ * Maps of up to {@value #SMALL_MAP_SIZE} entries are not stored in a trie but in a flat array of
+ * alternating keys and values, searched linearly without hashing the key. Putting the entry past
+ * that size moves the entries into a trie, and removals move them back into an array once no more
+ * than half as many entries are left, so that a map hovering around the threshold does not switch
+ * on every update. Small maps thus cost a single array besides the map itself, instead of a root
+ * node, a list of children and a leaf per entry.
  *
  * @param <A> the type of keys used in this HashMap
  * @param <B> the type of values associated with the keys in this HashMap
  */
 public class HashMap<A, B> {
-    private final IndirectionNode<A, B> root;
-    private final int MAX_DEPTH = 6;
+    /** The trie of the map, or null if the map is small and stored in {@link #entries}. */
+    final IndirectionNode<A, B> root;
+    /** The alternating keys and values of a small map, or null if the map is stored in its trie. */
+    final Object[] entries;
+    final HashStrategy<A> strategy;
+    /**
+     * The front cache of recently hit leaves, allocated by the first cached lookup of this version and
+     * published without synchronization, or null until then or if the cache is disabled.
+     */
+    LeafNode<A, B>[] lookupCache;
+    /** The number of cache slots of this version and of the versions derived from it, or 0 if disabled. */
+    private final int lookupCacheSlots;
+    private final int size;
+    static final int MAX_DEPTH = 6;
+    static final int SMALL_MAP_SIZE = 8;
+    private static final int MAX_LOOKUP_CACHE_SLOTS = 1 << 20;
+    private static final Object[] NO_ENTRIES = new Object[0];
 
     HashMap(IndirectionNode<A, B> root) {
+        this(root, HashStrategy.natural());
+    }
+
+    HashMap(IndirectionNode<A, B> root, HashStrategy<A> strategy) {
+        this(root, strategy, count(root));
+    }
+
+    /**
+     * Creates a small HashMap holding the given alternating keys and values, which must be distinct
+     * keys and no more than {@value #SMALL_MAP_SIZE} entries.
+     */
+    HashMap(Object[] entries, HashStrategy<A> strategy) {
+        this(null, entries, strategy, entries.length / 2, 0);
+    }
+
+    /**
+     * Creates a HashMap from a trie holding the given number of entries, moving them into an array
+     * if they are few enough.
+     */
+    private HashMap(IndirectionNode<A, B> root, HashStrategy<A> strategy, int size) {
+        this((size <= SMALL_MAP_SIZE) ? null : root, (size <= SMALL_MAP_SIZE) ? flatten(root, size) : null, strategy, size, 0);
+    }
+
+    private HashMap(IndirectionNode<A, B> root, Object[] entries, HashStrategy<A> strategy, int size, int lookupCacheSlots) {
         this.root = root;
+        this.entries = entries;
+        this.strategy = strategy;
+        this.size = size;
+        this.lookupCacheSlots = lookupCacheSlots;
+    }
+
+    /**
+     * Creates an array of leaves of the given length, which Java cannot create for a generic type
+     * without an unchecked cast.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <A, B> LeafNode<A, B>[] newLeaves(int length) {
+        return (LeafNode<A, B>[]) new LeafNode[length];
     }
 
     public HashMap() {
-        root = IndirectionNode.empty();
+        this(HashStrategy.natural());
     };
 
+    /**
+     * Creates an empty HashMap hashing and comparing its keys according to the given strategy.
+     * All versions derived from this map share the same strategy.
+     *
+     * @param strategy the strategy used to hash and compare keys
+     */
+    public HashMap(HashStrategy<A> strategy) {
+        this(null, NO_ENTRIES, strategy, 0, 0);
+    }
+
+    /**
+     * Returns a {@code Collector} accumulating elements into a HashMap, with the keys and values
+     * computed by the given functions. If several elements map to the same key, the value of the
+     * last element in encounter order is kept. Parallel streams accumulate partial maps which are
+     * combined with {@link #merge(HashMap, BinaryOperator)}.
+     *
+     * @param keyMapper the function computing the key of an element
+     * @param valueMapper the function computing the value of an element
+     * @return a collector producing a HashMap of the computed keys and values
+     */
+    public static <T, A, B> Collector<T, ?, HashMap<A, B>> toImmutableHashMap(Function<? super T, ? extends A> keyMapper,
+                                                                            Function<? super T, ? extends B> valueMapper) {
+        return toImmutableHashMap(keyMapper, valueMapper, (_, later) -> later);
+    }
+
+    /**
+     * Returns a {@code Collector} accumulating elements into a HashMap, with the keys and values
+     * computed by the given functions, resolving values of duplicate keys with the given function.
+     * Parallel streams accumulate partial maps which are combined with {@link #merge(HashMap, BinaryOperator)}.
+     *
+     * @param keyMapper the function computing the key of an element
+     * @param valueMapper the function computing the value of an element
+     * @param resolve the function combining the earlier and the later value of a duplicate key
+     * @return a collector producing a HashMap of the computed keys and values
+     */
+    public static <T, A, B> Collector<T, ?, HashMap<A, B>> toImmutableHashMap(Function<? super T, ? extends A> keyMapper,
+                                                                            Function<? super T, ? extends B> valueMapper,
+                                                                            BinaryOperator<B> resolve) {
+        class Accumulator {
+            HashMap<A, B> map = new HashMap<>();
+        }
+
+        return Collector.of(
+                Accumulator::new,
+                (acc, element) -> {
+                    A key = keyMapper.apply(element);
+                    B value = valueMapper.apply(element);
+                    acc.map = acc.map.put(key, acc.map.get(key).map(earlier -> resolve.apply(earlier, value)).getOrElse(value))
+                            .getOrElseThrow(t -> new IllegalStateException("Failed to collect element", t));
+                },
+                (left, right) -> {
+                    left.map = left.map.merge(right.map, resolve)
+                            .getOrElseThrow(t -> new IllegalStateException("Failed to combine partial maps", t));
+                    return left;
+                },
+                acc -> acc.map);
+    }
+
+    /**
+     * Returns the number of entries in the HashMap.
+     *
+     * @return the number of key-value pairs in the HashMap
+     */
+    public int size() {
+        return size;
+    }
+
     /**
      * Checks if the HashMap is empty.
      *
      * @return true if the HashMap contains no entries, false otherwise.
      */
     public boolean isEmpty() {
-        return root.isEmpty();
+        return size == 0;
     }
 
     /**
@@ -43,7 +185,7 @@ public class HashMap<A, B> {
      * @return true if the HashMap contains the specified key, false otherwise
      */
     public boolean containsKey(A key) {
-        return find(key, 0, root).isDefined();
+        return get(key).isDefined();
     }
 
     /**
@@ -53,13 +195,128 @@ public class HashMap<A, B> {
      * @return an {@code Option<B>} containing the value associated with the key if it exists,
      *         or {@code Option.none()} if the key is not found
      */
+    @SuppressWarnings("unchecked")
     public Option<B> get(A key) {
-        return find(key, 0, root);
+        if (entries != null) {
+            int index = indexOf(key);
+            return (index < 0) ? Option.none() : Option.of((B) entries[index + 1]);
+        }
+        int keyHash = hash(key);
+        return (lookupCacheSlots == 0) ? find(key, keyHash, 0, root) : findCached(key, keyHash);
+    }
+
+    /**
+     * Performs the given action for each entry in the HashMap, in the order of the trie.
+     *
+     * @param action the action to be performed for each key and value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super A, ? super B> action) {
+        if (entries == null) forEach(root, action);
+        else for (int i = 0; i < entries.length; i += 2) action.accept((A) entries[i], (B) entries[i + 1]);
+    }
+
+    /**
+     * Returns a read-only {@code java.util.Map} backed directly by the trie of this HashMap, for
+     * passing it to code expecting a {@code java.util.Map} without copying the entries. Lookups go
+     * through the trie and iteration walks it; all mutating methods throw
+     * {@code UnsupportedOperationException}.
+     *
+     * @return a read-only {@code java.util.Map} view of this HashMap
+     */
+    public java.util.Map<A, B> asJavaMap() {
+        return new JavaMapView<>(this);
+    }
+
+    /**
+     * Merges another HashMap into this one by combining the two tries node by node, rather than
+     * inserting the entries of the other map one at a time. Subtrees present in only one of the
+     * maps are taken over as they are, so merging maps with disjoint key ranges is proportional
+     * to the number of nodes where both tries overlap.
+     *
+     * @param other the HashMap to be merged into this one
+     * @param resolve the function combining the value of this map and the value of the other map
+     *                for keys present in both
+     * @return an {@code Either<Throwable, HashMap<A, B>>} where the right side contains the merged HashMap
+     *         if the merge was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, HashMap<A, B>> merge(HashMap<A, B> other, BinaryOperator<B> resolve) {
+        if (other.isEmpty()) return Either.right(this);
+        if (isEmpty() && strategy.equals(other.strategy)) return Either.right(other);
+        if (!strategy.equals(other.strategy)) {
+            Either<Throwable, HashMap<A, B>> merged = Either.right(this);
+            for (java.util.Map.Entry<A, B> entry : other.asJavaMap().entrySet()) {
+                merged = merged.flatMap(m -> m.put(entry.getKey(), m.get(entry.getKey())
+                        .map(mine -> resolve.apply(mine, entry.getValue())).getOrElse(entry.getValue())));
+            }
+            return merged;
+        }
+
+        if (other.entries != null) return putAll(this, other, false, resolve);
+        if (entries != null) return putAll(other, this, true, resolve);
+
+        int[] duplicates = new int[1];
+        return mergeIndirection(root, other.root, 0, resolve, duplicates)
+                .map(merged -> new HashMap<>(merged, strategy, size + other.size - duplicates[0]));
+    }
+
+    /**
+     * Returns a lazy view of this HashMap, on which transforms can be chained without copying the trie.
+     *
+     * @return a view retaining every entry of this HashMap unchanged
+     */
+    public HashMapView<A, B> view() {
+        return HashMapView.of(this);
+    }
+
+    /**
+     * Returns a lazy view of this HashMap applying the given function to its values on access.
+     *
+     * @param mapper the function applied to every value
+     * @return a lazy view with mapped values
+     * @see HashMapView#force()
+     */
+    public <C> HashMapView<A, C> mapValues(Function<? super B, ? extends C> mapper) {
+        return view().mapValues(mapper);
+    }
+
+    /**
+     * Returns a lazy view of this HashMap retaining only the keys that satisfy the given predicate.
+     *
+     * @param predicate the predicate tested against every key
+     * @return a lazy view with filtered keys
+     * @see HashMapView#force()
+     */
+    public HashMapView<A, B> filterKeys(Predicate<? super A> predicate) {
+        return view().filterKeys(predicate);
+    }
+
+    /**
+     * Returns a version of this HashMap, sharing all of its entries, that remembers recently hit leaves
+     * in a direct-mapped front cache indexed by the full hash of their keys. Lookups hitting the cache
+     * skip the descent through the trie, which pays off for read-mostly maps with skewed access.
+     * <p>
+     * Since the entries of a version never change, the cache is never invalidated. Versions derived
+     * by {@code put} or {@code remove} get a cache of the same size, which is only allocated by their
+     * first lookup, so that updating a cached map costs no more than updating any other. The cache is
+     * allocated and filled by unsynchronized writes, which is safe because leaves are immutable:
+     * concurrent readers either see a complete leaf, verified against the key before use, an older
+     * entry of the slot, or an empty slot of a cache allocated by another thread, whose entries are lost.
+     * <p>
+     * Small maps are searched without hashing and have no leaves to cache, so they never allocate one.
+     *
+     * @param slots the number of cache slots, rounded up to a power of two; zero or less disables the cache
+     * @return a version of this HashMap with an empty front cache of the requested size
+     */
+    public HashMap<A, B> withLookupCache(int slots) {
+        int size = (slots <= 0) ? 0 : Math.min(MAX_LOOKUP_CACHE_SLOTS, 1 << (32 - Integer.numberOfLeadingZeros(slots - 1)));
+        return new HashMap<>(root, entries, strategy, this.size, size);
     }
 
     /**
      * Adds a key-value pair to the HashMap, potentially modifying its internal structure,
      * and returns the updated HashMap wrapped in an Either object indicating success or failure.
+     * If the key is already associated with the identical value, this HashMap itself is returned.
      *
      * @param key the key to be added to the HashMap; must not be null
      * @param value the value associated with the specified key; can be null
@@ -67,7 +324,10 @@ public class HashMap<A, B> {
      *         if the addition was successful, or the left side contains a {@code Throwable} if an error occurred
      */
     public Either<Throwable, HashMap<A, B>> put(A key, B value) {
-        return insertAtLevel(key, value, 0, root).map(v -> new HashMap<>((IndirectionNode<A, B>) v));
+        PathCopyEvent event = PathCopyEvent.start();
+        if (entries != null) return event.end("put", this, putEntry(key, value));
+        return event.end("put", this, insertAtLevel(key, value, hash(key), 0, root)
+                .map(t -> (t._1 == root) ? this : derive((IndirectionNode<A, B>) t._1, t._2 ? size + 1 : size)));
     }
 
 
@@ -80,52 +340,483 @@ public class HashMap<A, B> {
      *         if the removal was successful, or the left side contains a {@code Throwable} if an error occurred
      */
     public Either<Throwable, HashMap<A, B>> remove(A key) {
-        return containsKey(key) ?
-                removeAtLevel(key, 0, root).map(t -> t._2 ?
-                        new HashMap<>((IndirectionNode<A, B>) t._1) : this) :
-                Either.right(this);
+        PathCopyEvent event = PathCopyEvent.start();
+        if (entries != null) return event.end("remove", this, Either.right(removeEntry(key)));
+        int keyHash = hash(key);
+        return event.end("remove", this, find(key, keyHash, 0, root).isDefined() ?
+                removeAtLevel(key, keyHash, 0, root).map(t -> !t._2 ? this : (size - 1 <= SMALL_MAP_SIZE / 2) ?
+                        withEntries(flatten(t._1, size - 1), size - 1) :
+                        derive((IndirectionNode<A, B>) t._1, size - 1)) :
+                Either.right(this));
+    }
+
+    /**
+     * Replaces the nodes of this HashMap with the canonical nodes of an interner, so that it shares
+     * every subtree it holds in common with the other maps interned there. A small map has no nodes,
+     * and its array of entries is replaced with the canonical array holding the same entries.
+     *
+     * @param interner the interner holding the canonical nodes
+     * @return an {@code Either<Throwable, HashMap<A, B>>} where the right side contains a HashMap with the same
+     *         entries made of canonical nodes, or the left side contains a {@code Throwable} if the interner
+     *         uses a different strategy
+     */
+    public Either<Throwable, HashMap<A, B>> intern(HashMapInterner<A, B> interner) {
+        if (entries != null)
+            return interner.internEntries(this).map(newEntries -> (newEntries == entries) ? this : withEntries(newEntries, size));
+        return interner.internRoot(this).map(newRoot -> (newRoot == root) ? this : derive(newRoot, size));
     }
 
     /**
-     * Computes a hash value for the given key at a specified level.
+     * Compares the entries of this HashMap with those of another object. Two HashMaps are equal if they
+     * use equal strategies and hold equal values for the same keys. Subtrees shared by both maps are
+     * skipped after a pointer comparison, so versions derived from each other, or interned by the same
+     * {@link HashMapInterner}, are compared in time proportional to the paths where they differ.
      *
-     * @param key the input key for which the hash value is to be computed
-     * @param level the level used to adjust the hash computation
-     * @return the computed hash value for the given key at the specified level
+     * @param o the object to be compared with this HashMap
+     * @return true if the object is a HashMap with an equal strategy and the same entries, false otherwise
      */
-    private int hashAtLevel(A key, int level) {
-        return (hash(key) >> (5 * level)) & 0x11111;
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HashMap<?, ?> other) || !other.strategy.equals(strategy) || other.size != size) return false;
+        // Maps of equal size are either both tries, or both small, one of them possibly held in a trie.
+        if (entries == null && other.entries == null) return sameEntries(root, ((HashMap<A, B>) other).root);
+        return sameEntries(entries(), other.entries());
     }
 
     /**
-     * Computes a hash value for the given key using its hashCode and an additional
-     * transformation to distribute hash codes more evenly.
+     * Computes a hash code from all entries, consistent with {@link #equals(Object)}.
+     *
+     * The key hashes stored in the trie are reused, so only the keys of a small map are hashed again.
+     *
+     * @return the sum over all entries of the key hash, as computed by the strategy, xor the value hash
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int hashCode() {
+        if (entries == null) return hashCode(root);
+        int hashCode = 0;
+        for (int i = 0; i < entries.length; i += 2) hashCode += hash((A) entries[i]) ^ Objects.hashCode(entries[i + 1]);
+        return hashCode;
+    }
+
+    private static int hashCode(Node<?, ?> node) {
+        return switch (node) {
+            case IndirectionNode<?, ?> indirectionNode -> {
+                int hashCode = 0;
+                for (Node<?, ?> child : indirectionNode.nodes) hashCode += hashCode(child);
+                yield hashCode;
+            }
+            case LeafNode<?, ?> leafNode -> leafNode.hash ^ Objects.hashCode(leafNode.value);
+            case CollisionNode<?, ?> collisionNode -> {
+                int hashCode = 0;
+                for (int i = 0; i < collisionNode.size(); i++)
+                    hashCode += collisionNode.hashes[i] ^ Objects.hashCode(collisionNode.vals[i]);
+                yield hashCode;
+            }
+            default -> 0;
+        };
+    }
+
+    /**
+     * Compares two nodes at the same position of both tries. Identical nodes are equal, pairs of
+     * indirection nodes are compared child by child, and any other pair is compared entry by entry,
+     * which only happens where at least one side is a leaf or a collision node.
+     */
+    private boolean sameEntries(Node<A, B> left, Node<A, B> right) {
+        if (left == right) return true;
+        if (left instanceof IndirectionNode<A, B> l && right instanceof IndirectionNode<A, B> r) {
+            if (l.bitmap != r.bitmap) return false;
+            Iterator<Node<A, B>> rightChildren = r.nodes.iterator();
+            for (Node<A, B> leftChild : l.nodes) {
+                if (!sameEntries(leftChild, rightChildren.next())) return false;
+            }
+            return true;
+        }
+        if (count(left) != count(right)) return false;
+
+        ArrayList<LeafNode<A, B>> rightEntries = new ArrayList<>();
+        forEachLeaf(right, rightEntries::add);
+        boolean[] same = { true };
+        forEachLeaf(left, entry -> same[0] &= rightEntries.stream().anyMatch(candidate ->
+                candidate.matches(entry.key, entry.hash, strategy) && Objects.equals(candidate.value, entry.value)));
+        return same[0];
+    }
+
+    /**
+     * Returns the alternating keys and values of this HashMap, as stored for a small map or copied
+     * from the trie otherwise.
+     *
+     * @return the entries of this HashMap
+     */
+    Object[] entries() {
+        return (entries != null) ? entries : flatten(root, size);
+    }
+
+    /**
+     * Merges the entries of a small map into another map one at a time.
+     *
+     * @param base the map the entries are put into
+     * @param small the small map whose entries are put
+     * @param smallIsThis whether the small map is this HashMap, whose values come first in {@code resolve}
+     * @param resolve the function combining the value of this map and the value of the other map
+     * @return an {@code Either<Throwable, HashMap<A, B>>} containing the merged HashMap, or a {@code Throwable}
+     */
+    @SuppressWarnings("unchecked")
+    private static <A, B> Either<Throwable, HashMap<A, B>> putAll(HashMap<A, B> base, HashMap<A, B> small, boolean smallIsThis,
+                                                                 BinaryOperator<B> resolve) {
+        Either<Throwable, HashMap<A, B>> merged = Either.right(base);
+        for (int i = 0; i < small.entries.length; i += 2) {
+            A key = (A) small.entries[i];
+            B value = (B) small.entries[i + 1];
+            merged = merged.flatMap(m -> m.put(key, m.get(key)
+                    .map(existing -> smallIsThis ? resolve.apply(value, existing) : resolve.apply(existing, value))
+                    .getOrElse(value)));
+        }
+        return merged;
+    }
+
+    /**
+     * Compares the entries of two small maps of the same size by a linear scan of both arrays.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean sameEntries(Object[] left, Object[] right) {
+        if (left == right) return true;
+        for (int i = 0; i < left.length; i += 2) {
+            int index = indexOf(right, (A) left[i]);
+            if (index < 0 || !Objects.equals(left[i + 1], right[index + 1])) return false;
+        }
+        return true;
+    }
+
+    private static <A, B> void forEachLeaf(Node<A, B> node, Consumer<LeafNode<A, B>> action) {
+        switch (node) {
+            case IndirectionNode<A, B> indirectionNode -> {
+                for (Node<A, B> child : indirectionNode.nodes) forEachLeaf(child, action);
+            }
+            case LeafNode<A, B> leafNode -> action.accept(leafNode);
+            case CollisionNode<A, B> collisionNode -> {
+                for (int i = 0; i < collisionNode.size(); i++)
+                    action.accept(new LeafNode<>(collisionNode.keys[i], collisionNode.vals[i], collisionNode.hashes[i]));
+            }
+            default -> {}
+        }
+    }
+
+    /**
+     * Extracts the 5-bit fragment of a full key hash that selects the branch at a specified level.
+     *
+     * @param keyHash the full hash of the key, as computed by {@link HashStrategy#hash(Object)}
+     * @param level the level used to select the fragment of the hash
+     * @return the branch index in the range [0, 32) for the given hash at the specified level
+     */
+    static int hashAtLevel(int keyHash, int level) {
+        return (keyHash >>> (5 * level)) & 0x1f;
+    }
+
+    /**
+     * Computes the full hash of the given key according to the strategy of this HashMap.
      *
      * @param key the key for which the hash is to be calculated; can be null
-     * @return the hash value, or 0 if the key is null
+     * @return the hash value of the key
      */
     private int hash(A key) {
-        int h = key.hashCode();
-        return (key == null) ? 0 : h ^ (h >> 16);
+        return strategy.hash(key);
+    }
+
+    /**
+     * Creates a new version of this HashMap with the given root, keeping the strategy and the size of
+     * the lookup cache, if any.
+     *
+     * @param newRoot the root of the new version
+     * @param newSize the number of entries of the new version
+     * @return a HashMap with the given root and an empty lookup cache
+     */
+    private HashMap<A, B> derive(IndirectionNode<A, B> newRoot, int newSize) {
+        return new HashMap<>(newRoot, null, strategy, newSize, lookupCacheSlots);
+    }
+
+    /**
+     * Creates a new version of this HashMap stored as a small map, keeping the strategy and the size
+     * of the lookup cache, if any.
+     *
+     * @param newEntries the alternating keys and values of the new version
+     * @param newSize the number of entries of the new version
+     * @return a small HashMap holding the given entries
+     */
+    private HashMap<A, B> withEntries(Object[] newEntries, int newSize) {
+        return new HashMap<>(null, newEntries, strategy, newSize, lookupCacheSlots);
+    }
+
+    /**
+     * Returns the trie of this HashMap. A small map has none, so a trie holding its entries is built
+     * on every call, which hashes every key; only callers that need the trie layout itself, such as
+     * the digests or the mapped file format, use this rather than {@link #entries()}.
+     *
+     * @return the root of the trie holding the entries of this HashMap
+     */
+    IndirectionNode<A, B> root() {
+        return (entries == null) ? root :
+                toTrie(entries).getOrElseThrow(t -> new IllegalStateException("Failed to build the trie of a small map", t));
+    }
+
+    /**
+     * Puts an entry into a small map: replaces the value of a present key, appends a new key while
+     * the map stays small, or moves all entries into a trie otherwise.
+     *
+     * @param key the key to be added to the HashMap
+     * @param value the value associated with the specified key; can be null
+     * @return an {@code Either<Throwable, HashMap<A, B>>} containing the updated HashMap, or a {@code Throwable}
+     */
+    @SuppressWarnings("unchecked")
+    private Either<Throwable, HashMap<A, B>> putEntry(A key, B value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            if (entries[index + 1] == value) return Either.right(this);
+            Object[] newEntries = entries.clone();
+            newEntries[index + 1] = value;
+            return Either.right(withEntries(newEntries, size));
+        }
+        if (size < SMALL_MAP_SIZE) {
+            Object[] newEntries = Arrays.copyOf(entries, entries.length + 2);
+            newEntries[entries.length] = key;
+            newEntries[entries.length + 1] = value;
+            return Either.right(withEntries(newEntries, size + 1));
+        }
+        return toTrie(entries)
+                .flatMap(trie -> insertAtLevel(key, value, hash(key), 0, trie))
+                .map(t -> derive((IndirectionNode<A, B>) t._1, size + 1));
+    }
+
+    /**
+     * Removes an entry from a small map, which stays small.
+     *
+     * @param key the key whose entry is to be removed
+     * @return the HashMap without the key, or this HashMap if the key is not present
+     */
+    private HashMap<A, B> removeEntry(A key) {
+        int index = indexOf(key);
+        if (index < 0) return this;
+        Object[] newEntries = new Object[entries.length - 2];
+        System.arraycopy(entries, 0, newEntries, 0, index);
+        System.arraycopy(entries, index + 2, newEntries, index, entries.length - index - 2);
+        return withEntries(newEntries, size - 1);
+    }
+
+    private int indexOf(A key) {
+        return indexOf(entries, key);
+    }
+
+    /**
+     * Finds a key in the alternating keys and values of a small map by a linear scan. References are
+     * compared in a first pass, since callers mostly look up the very key objects they put, so that
+     * only lookups with other key objects pay for calls to the strategy.
+     *
+     * @param entries the entries of a small map
+     * @param key the key to look up
+     * @return the index of the key in the array, or -1 if the key is not present
+     */
+    @SuppressWarnings("unchecked")
+    private int indexOf(Object[] entries, A key) {
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i] == key) return i;
+        }
+        for (int i = 0; i < entries.length; i += 2) {
+            if (strategy.equals((A) entries[i], key)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Builds a trie holding the entries of a small map.
+     *
+     * @param entries the alternating keys and values of a small map
+     * @return an {@code Either<Throwable, IndirectionNode<A, B>>} containing the root of the trie, or a {@code Throwable}
+     */
+    @SuppressWarnings("unchecked")
+    private Either<Throwable, IndirectionNode<A, B>> toTrie(Object[] entries) {
+        Either<Throwable, IndirectionNode<A, B>> trie = Either.right(IndirectionNode.empty());
+        for (int i = 0; i < entries.length; i += 2) {
+            A key = (A) entries[i];
+            B value = (B) entries[i + 1];
+            trie = trie.flatMap(node -> insertAtLevel(key, value, hash(key), 0, node).map(t -> (IndirectionNode<A, B>) t._1));
+        }
+        return trie;
+    }
+
+    /**
+     * Copies the entries of a trie into the alternating keys and values of a small map.
+     *
+     * @param node the root of the trie
+     * @param size the number of entries in the trie
+     * @return the entries of the trie, in the order of the trie
+     */
+    private static Object[] flatten(Node<?, ?> node, int size) {
+        Object[] entries = new Object[2 * size];
+        int[] index = new int[1];
+        forEach(node, (key, value) -> {
+            entries[index[0]++] = key;
+            entries[index[0]++] = value;
+        });
+        return entries;
+    }
+
+    /**
+     * Counts the entries of a trie, for HashMaps created from an existing root.
+     *
+     * @param node the node whose entries are to be counted
+     * @return the number of entries in the subtree of the node
+     */
+    private static int count(Node<?, ?> node) {
+        return switch (node) {
+            case IndirectionNode<?, ?> indirectionNode -> indirectionNode.nodes.map(HashMap::count).sum().intValue();
+            case LeafNode<?, ?> _ -> 1;
+            case CollisionNode<?, ?> collisionNode -> collisionNode.size();
+            default -> 0;
+        };
+    }
+
+    private static <A, B> void forEach(Node<A, B> node, BiConsumer<? super A, ? super B> action) {
+        switch (node) {
+            case IndirectionNode<A, B> indirectionNode -> {
+                for (Node<A, B> child : indirectionNode.nodes) forEach(child, action);
+            }
+            case LeafNode<A, B> leafNode -> action.accept(leafNode.key, leafNode.value);
+            case CollisionNode<A, B> collisionNode -> {
+                for (int i = 0; i < collisionNode.size(); i++) action.accept(collisionNode.keys[i], collisionNode.vals[i]);
+            }
+            default -> {}
+        }
+    }
+
+    /**
+     * Merges two indirection nodes at the same level. Children present on one side only are shared,
+     * children that are indirection nodes on both sides are merged recursively, and any other pair of
+     * children is merged entry by entry.
+     *
+     * @param left the node of this HashMap
+     * @param right the node of the other HashMap
+     * @param level the level of both nodes
+     * @param resolve the function combining the values of keys present in both nodes
+     * @param duplicates a counter of the keys present in both nodes
+     * @return an {@code Either<Throwable, IndirectionNode<A, B>>} containing the merged node, or a {@code Throwable}
+     */
+    private Either<Throwable, IndirectionNode<A, B>> mergeIndirection(IndirectionNode<A, B> left, IndirectionNode<A, B> right,
+                                                                     int level, BinaryOperator<B> resolve, int[] duplicates) {
+        Iterator<Node<A, B>> leftChildren = left.nodes.iterator();
+        Iterator<Node<A, B>> rightChildren = right.nodes.iterator();
+        ArrayList<Node<A, B>> merged = new ArrayList<>(Integer.bitCount(left.bitmap | right.bitmap));
+
+        for (int hash = 0; hash < 32; hash++) {
+            Node<A, B> l = left.containsHash(hash) ? leftChildren.next() : null;
+            Node<A, B> r = right.containsHash(hash) ? rightChildren.next() : null;
+            if (l == null && r == null) continue;
+
+            Either<Throwable, Node<A, B>> child = (l == null) ? Either.right(r) : (r == null) ? Either.right(l) :
+                    (l instanceof IndirectionNode<A, B> li && r instanceof IndirectionNode<A, B> ri) ?
+                            Either.narrow(mergeIndirection(li, ri, level + 1, resolve, duplicates)) :
+                            mergeEntries(l, r, hash, level, resolve, duplicates);
+            if (child.isLeft()) return Either.left(child.getLeft());
+            merged.add(child.get());
+        }
+        return Either.right(new IndirectionNode<>(List.ofAll(merged), left.bitmap | right.bitmap));
+    }
+
+    /**
+     * Merges two children found at the same slot of their parents, at least one of which is a leaf or
+     * a collision node. The entries of that node are inserted into the other one, which is wrapped in a
+     * single-child parent so that the regular insertion can fork leaves and create collision nodes.
+     *
+     * @param left the child of this HashMap
+     * @param right the child of the other HashMap
+     * @param hash the slot of both children in their parents
+     * @param level the level of the parents
+     * @param resolve the function combining the values of keys present in both children
+     * @param duplicates a counter of the keys present in both children
+     * @return an {@code Either<Throwable, Node<A, B>>} containing the merged child, or a {@code Throwable}
+     */
+    private Either<Throwable, Node<A, B>> mergeEntries(Node<A, B> left, Node<A, B> right, int hash, int level,
+                                                       BinaryOperator<B> resolve, int[] duplicates) {
+        boolean rightIsBase = (right instanceof IndirectionNode<A, B>);
+        Node<A, B> inserted = rightIsBase ? left : right;
+        Either<Throwable, IndirectionNode<A, B>> parent =
+                Either.right(new IndirectionNode<>(List.of(rightIsBase ? right : left), 1 << hash));
+
+        ArrayList<LeafNode<A, B>> entries = new ArrayList<>();
+        switch (inserted) {
+            case LeafNode<A, B> leafNode -> entries.add(leafNode);
+            case CollisionNode<A, B> collisionNode -> {
+                for (int i = 0; i < collisionNode.size(); i++)
+                    entries.add(new LeafNode<>(collisionNode.keys[i], collisionNode.vals[i], collisionNode.hashes[i]));
+            }
+            default -> {}
+        }
+
+        for (LeafNode<A, B> entry : entries) {
+            parent = parent.flatMap(p -> {
+                Option<B> existing = find(entry.key, entry.hash, level, p);
+                if (existing.isDefined()) duplicates[0]++;
+                B value = existing.map(v -> rightIsBase ? resolve.apply(entry.value, v) : resolve.apply(v, entry.value))
+                        .getOrElse(entry.value);
+                return insertAtLevel(entry.key, value, entry.hash, level, p).map(t -> (IndirectionNode<A, B>) t._1);
+            });
+        }
+        return parent.map(p -> p.nodes.head());
+    }
+
+    /**
+     * Finds the value for the specified key through the lookup cache, falling back to an iterative
+     * descent of the trie on a miss and caching the leaf it ends at. Keys held by collision nodes
+     * are never cached.
+     *
+     * @param key The key to look up.
+     * @param keyHash The full hash of the key.
+     * @return An {@code Option<B>} containing the value associated with the key if found,
+     *         or {@code Option.none()} if the key is not found.
+     */
+    private Option<B> findCached(A key, int keyHash) {
+        LeafNode<A, B>[] cache = lookupCache;
+        if (cache == null) lookupCache = cache = newLeaves(lookupCacheSlots);
+        int slot = keyHash & (cache.length - 1);
+        LeafNode<A, B> cached = cache[slot];
+        if (cached != null && cached.matches(key, keyHash, strategy)) return Option.of(cached.value);
+
+        Node<A, B> node = root;
+        for (int level = 0; node instanceof IndirectionNode<A, B> indirectionNode; level++) {
+            int hash = hashAtLevel(keyHash, level);
+            if (!indirectionNode.containsHash(hash)) return Option.none();
+            node = indirectionNode.nodes.get(indirectionNode.getIndex(hash, true));
+        }
+
+        return switch (node) {
+            case LeafNode<A, B> leafNode when leafNode.matches(key, keyHash, strategy) -> {
+                cache[slot] = leafNode;
+                yield Option.of(leafNode.value);
+            }
+            case CollisionNode<A, B> collisionNode -> collisionNode.get(key, keyHash, strategy);
+            default -> Option.none();
+        };
     }
 
     /**
      * Finds the corresponding value for the specified key in the provided node structure.
      *
      * @param key The key to look up in the node.
+     * @param keyHash The full hash of the key, computed once per lookup.
      * @param level The current level of the hash table being searched.
      * @param node The node in which the key is being searched.
      * @return An {@code Option<B>} containing the value associated with the key if found,
      *         or {@code Option.none()} if the key is not found.
      */
-    private Option<B> find(A key, int level, Node<A, B> node) {
+    private Option<B> find(A key, int keyHash, int level, Node<A, B> node) {
         if (node.isEmpty()) return Option.none();
-        int hash = hashAtLevel(key, level);
+        int hash = hashAtLevel(keyHash, level);
         return switch (node) {
             case IndirectionNode<A, B> indirectionNode -> indirectionNode.findNode(hash)
-                    .flatMap(n -> find(key, level + 1, n));
-            case LeafNode<A, B> leafNode -> leafNode.key.equals(key) ? Option.of(leafNode.value) : Option.none();
-            case CollisionNode<A, B> collisionNode -> collisionNode.get(key);
+                    .flatMap(n -> find(key, keyHash, level + 1, n));
+            case LeafNode<A, B> leafNode -> leafNode.matches(key, keyHash, strategy) ? Option.of(leafNode.value) : Option.none();
+            case CollisionNode<A, B> collisionNode -> collisionNode.get(key, keyHash, strategy);
             default -> Option.none();
         };
     }
@@ -139,28 +830,39 @@ public class HashMap<A, B> {
      *
      * @param key the key to be added, which determines the position in the structure; must not be null
      * @param value the value associated with the provided key; can be null
+     * @param keyHash the full hash of the key, computed once per insertion
      * @param level the current level in the hierarchical structure where the insertion is performed
      * @param parent the {@code IndirectionNode<A, B>} serving as the parent node where the insertion is applied
-     * @return an {@code Either<Throwable, Node<A, B>>} where the right side contains the resulting updated
-     *         node structure if the operation is successful, or the left side contains a {@code Throwable}
-     *         if an error occurs during the operation
+     * @return an {@code Either<Throwable, Tuple2<Node<A, B>, Boolean>>} where:
+     *         - The right side contains a tuple with the updated parent node and a boolean indicating if the key was added
+     *         - The left side contains a {@code Throwable} if an error occurred during the operation
      */
-    private Either<Throwable, Node<A, B>> insertAtLevel(A key, B value, int level, IndirectionNode<A, B> parent) {
-        int hash = hashAtLevel(key, level);
+    private Either<Throwable, Tuple2<Node<A, B>, Boolean>> insertAtLevel(A key, B value, int keyHash, int level,
+                                                                         IndirectionNode<A, B> parent) {
+        int hash = hashAtLevel(keyHash, level);
 
         return parent.findNode(hash).fold(
-                () -> insertNode(parent, new LeafNode<>(key, value), hash),
+                () -> insertNode(parent, new LeafNode<>(key, value, keyHash), hash).map(n -> Tuple.of(n, true)),
                 (Node<A, B> node) -> switch (node) {
                     case IndirectionNode<A, B> indirectionNode ->
-                            insertAtLevel(key, value, level + 1, indirectionNode)
-                                    .flatMap(a -> updateNode(parent, a, hash));
-                    case CollisionNode<A, B> collisionNode -> Either.right(collisionNode.insert(key, value));
-                    case LeafNode<A, B> leafNode -> (level == MAX_DEPTH - 1) ?
-                            updateNode(parent, extendLeaf(leafNode, key, value), hash) :
-                            forkLeaf(leafNode, key, value, level + 1)
-                                    .flatMap(n -> updateNode(parent, n, hash));
+                            insertAtLevel(key, value, keyHash, level + 1, indirectionNode)
+                                    .flatMap(t -> updateNode(parent, t._1, hash).map(n -> Tuple.of(n, t._2)));
+                    case CollisionNode<A, B> collisionNode -> {
+                        Node<A, B> updated = collisionNode.insert(key, value, keyHash, strategy);
+                        boolean added = ((CollisionNode<A, B>) updated).size() > collisionNode.size();
+                        yield updateNode(parent, updated, hash).map(n -> Tuple.of(n, added));
+                    }
+                    case LeafNode<A, B> leafNode -> {
+                        boolean added = !leafNode.matches(key, keyHash, strategy);
+                        yield ((level == MAX_DEPTH - 1) ?
+                                updateNode(parent, extendLeaf(leafNode, key, value, keyHash), hash) :
+                                forkLeaf(leafNode, key, value, keyHash, level + 1)
+                                        .flatMap(n -> updateNode(parent, n, hash)))
+                                .map(n -> Tuple.of(n, added));
+                    }
 
-                    case Node.EmptyNode<?, ?> _ -> insertNode(parent, new LeafNode<>(key, value), hash);
+                    case Node.EmptyNode<?, ?> _ ->
+                            insertNode(parent, new LeafNode<>(key, value, keyHash), hash).map(n -> Tuple.of(n, true));
 
                     default -> Either.left(new IllegalStateException(
                             "Encountered unexpected parent type: " + node.getClass().getSimpleName()));
@@ -175,6 +877,7 @@ public class HashMap<A, B> {
      * If successful, it produces an updated version of the parent node with the change applied.
      *
      * @param key the key to be removed from the specified level; must not be null
+     * @param keyHash the full hash of the key, computed once per removal
      * @param level the current level within the hierarchy where the removal operation is performed; must be non-negative
      * @param parent the {@code IndirectionNode<A, B>} containing the nodes being traversed and potentially modified
      * @return an {@code Either<Throwable, Tuple2<Node<A, B>, Boolean>>} where:
@@ -182,23 +885,23 @@ public class HashMap<A, B> {
      *         - The left side contains a {@code Throwable} if an error occurred during the operation
      */
     @SuppressWarnings("unchecked")
-    private Either<Throwable, Tuple2<Node<A, B>, Boolean>> removeAtLevel(A key, int level,
+    private Either<Throwable, Tuple2<Node<A, B>, Boolean>> removeAtLevel(A key, int keyHash, int level,
                                                                          IndirectionNode<A, B> parent) {
-        int hash = hashAtLevel(key, level);
+        int hash = hashAtLevel(keyHash, level);
         return parent.findNode(hash).fold(
                 () -> Either.right(Tuple.of(parent, false)),
                 (Node<A, B> node) -> switch (node) {
-                    case IndirectionNode<A, B> indirectionNode -> removeAtLevel(key, level + 1, indirectionNode)
+                    case IndirectionNode<A, B> indirectionNode -> removeAtLevel(key, keyHash, level + 1, indirectionNode)
                             .flatMap(t -> t._2 ?
                                     updateNode(parent, t._1, hash).map(n -> Tuple.of(n, true)) :
                                     Either.right(Tuple.of(parent, false)));
 
-                    case LeafNode<A, B> leafNode -> leafNode.key.equals(key) ?
+                    case LeafNode<A, B> leafNode -> leafNode.matches(key, keyHash, strategy) ?
                             updateNode(parent, Node.empty(), hash).map(n -> Tuple.of(n, true)) :
                             Either.right(Tuple.of(parent, false));
 
-                    case CollisionNode<A, B> collisionNode -> (collisionNode.contains(key)) ?
-                            updateNode(parent, collisionNode.delete(key), hash).map(a -> Tuple.of(a, true)) :
+                    case CollisionNode<A, B> collisionNode -> (collisionNode.contains(key, keyHash, strategy)) ?
+                            updateNode(parent, collisionNode.delete(key, keyHash, strategy), hash).map(a -> Tuple.of(a, true)) :
                             Either.right(Tuple.of(parent, false));
 
                     case Node.EmptyNode<?, ?> emptyNode -> updateNode(parent, (Node<A, B>) emptyNode, hash)
@@ -215,6 +918,8 @@ public class HashMap<A, B> {
      * If the hash value corresponds to an invalid index, an {@code Either} containing a {@code Throwable} is returned.
      * If the child node is empty, the method removes the corresponding node from the parent and updates its bitmap.
      * Otherwise, it replaces the child at the specified location, updates the bitmap, and returns the modified parent node.
+     * If the child is the very node already at that location, the parent itself is returned, so that
+     * unchanged subtrees stay shared all the way up to the root.
      *
      * @param parent the {@code IndirectionNode<A, B>} that contains the child node to be updated
      * @param child the {@code Node<A, B>} representing the new child node to update within the parent
@@ -226,6 +931,7 @@ public class HashMap<A, B> {
         int index = parent.getIndex(hash, true);
         if (index < 0 || index >= parent.nodes.size())
             return Either.left(new IndexOutOfBoundsException("Invalid update index: " + index));
+        if (parent.nodes.get(index) == child) return Either.right(parent);
 
         if (child.isEmpty()) {
             List<Node<A, B>> updatedNodes = parent.nodes.removeAt(index);
@@ -270,34 +976,51 @@ public class HashMap<A, B> {
      * @param node the existing {@code LeafNode<A, B>} to extend; must not be null
      * @param key the key to be added or updated in the node; must not be null
      * @param value the value associated with the provided key; can be null
-     * @return a {@code Node<A, B>} instance that is either a new {@code LeafNode<A, B>}
+     * @param keyHash the full hash of the provided key
+     * @return a {@code Node<A, B>} instance that is either a {@code LeafNode<A, B>} holding the key
      *         or a {@code CollisionNode<A, B>} containing both key-value pairs
      */
-    private Node<A, B> extendLeaf(LeafNode<A, B> node, A key, B value) {
-        if (node.key.equals(key)) return new LeafNode<>(key, value);
-        return new CollisionNode<>(node, key, value);
+    private Node<A, B> extendLeaf(LeafNode<A, B> node, A key, B value, int keyHash) {
+        if (node.matches(key, keyHash, strategy)) return replaceValue(node, key, value);
+        return new CollisionNode<>(node, key, value, keyHash);
     }
 
 
+    /**
+     * Replaces the value of a leaf holding the given key. The leaf itself is returned if it already
+     * holds the identical value, so that putting an unchanged entry copies nothing.
+     *
+     * @param leaf the leaf holding the key
+     * @param key the key being put
+     * @param value the new value of the key
+     * @return the given leaf if its value is identical to the new value, or a new leaf otherwise
+     */
+    private LeafNode<A, B> replaceValue(LeafNode<A, B> leaf, A key, B value) {
+        return (leaf.value == value) ? leaf : new LeafNode<>(key, value, leaf.hash);
+    }
+
     /**
      * Attempts to fork the structure of the given leaf node in the hierarchy by creating
      * a new node that represents a split at a specified level. This method ensures
      * that the new key-value pair is either stored in a new leaf or appropriately added
-     * to the hierarchy, creating intermediate nodes as necessary.
+     * to the hierarchy, creating intermediate nodes as necessary. The original leaf is
+     * reused as-is and positioned using its stored hash.
      *
      * @param leaf the original {@code LeafNode<A, B>} that needs to be forked
      * @param key the key to be added to the structure; must not be null
      * @param value the value associated with the provided key; can be null
+     * @param keyHash the full hash of the provided key
      * @param level the current level in the hierarchy where the operation is being performed
      * @return an {@code Either<Throwable, Node<A, B>>} where the right side contains the updated node
      *         structure if the operation succeeds, or the left side contains a {@code Throwable}
      *         if an error occurs during the operation
      */
-    private Either<Throwable, Node<A, B>> forkLeaf(LeafNode<A, B> leaf, A key, B value, int level) {
-        if (leaf.key.equals(key)) return Either.right(new LeafNode<>(key, value));
+    private Either<Throwable, Node<A, B>> forkLeaf(LeafNode<A, B> leaf, A key, B value, int keyHash, int level) {
+        if (leaf.matches(key, keyHash, strategy)) return Either.right(replaceValue(leaf, key, value));
 
-        return insertAtLevel(leaf.key, leaf.value, level, IndirectionNode.empty())
-                .flatMap(node -> insertAtLevel(key, value, level, (IndirectionNode<A, B>) node));
+        return insertNode(IndirectionNode.empty(), leaf, hashAtLevel(leaf.hash, level))
+                .flatMap(node -> insertAtLevel(key, value, keyHash, level, (IndirectionNode<A, B>) node))
+                .map(t -> t._1);
     }
 
 }
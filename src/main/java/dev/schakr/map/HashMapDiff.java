@@ -0,0 +1,226 @@
+package dev.schakr.map;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * The entry-level changes between two versions of a HashMap. The changes are computed by walking
+ * both tries in parallel and skipping every subtree the versions share, so diffing a version
+ * against one derived from it by a few updates costs time proportional to the updated paths, not
+ * to the size of the map.
+ *
+ * @param <A> the type of keys of the compared maps
+ * @param <B> the type of values of the compared maps
+ */
+public final class HashMapDiff<A, B> {
+    private final HashMap<A, B> from;
+    private final HashMap<A, B> to;
+    private final List<Change<A, B>> changes;
+
+    /**
+     * A change of a single key. A key that was added has no value {@code before}, a key that was
+     * removed has no value {@code after}, and a key that was updated has both.
+     *
+     * @param key the changed key
+     * @param before the value of the key in the earlier version, if any
+     * @param after the value of the key in the later version, if any
+     */
+    public record Change<A, B>(A key, Option<B> before, Option<B> after) {
+        /**
+         * Checks whether the key is new in the later version.
+         *
+         * @return true if the key was added, false if it was removed or updated
+         */
+        public boolean isAddition() {
+            return before.isEmpty();
+        }
+
+        /**
+         * Checks whether the key is missing from the later version.
+         *
+         * @return true if the key was removed, false if it was added or updated
+         */
+        public boolean isRemoval() {
+            return after.isEmpty();
+        }
+    }
+
+    private HashMapDiff(HashMap<A, B> from, HashMap<A, B> to, List<Change<A, B>> changes) {
+        this.from = from;
+        this.to = to;
+        this.changes = changes;
+    }
+
+    /**
+     * Computes the changes turning one version of a map into another. Values are compared with
+     * {@code equals}, so putting an equal value does not count as a change. A key holding a null
+     * value is present, so its value {@code before} or {@code after} is {@code Some(null)}.
+     *
+     * @param from the earlier version
+     * @param to the later version
+     * @return an {@code Either<Throwable, HashMapDiff<A, B>>} where the right side contains the changes, or the
+     *         left side contains a {@code Throwable} if the maps use different hash strategies
+     */
+    public static <A, B> Either<Throwable, HashMapDiff<A, B>> between(HashMap<A, B> from, HashMap<A, B> to) {
+        if (!from.strategy.equals(to.strategy))
+            return Either.left(new IllegalArgumentException("Maps with different hash strategies cannot be compared"));
+
+        ArrayList<Change<A, B>> changes = new ArrayList<>();
+        walk(from, to, changes, new int[1]);
+        return Either.right(new HashMapDiff<>(from, to, List.ofAll(changes)));
+    }
+
+    /**
+     * Diffs two versions using the same strategy and returns the number of node pairs the walk
+     * compared after skipping the subtrees they share, to let tests check that the work follows the
+     * changed paths.
+     */
+    static <A, B> int visitedNodes(HashMap<A, B> from, HashMap<A, B> to) {
+        int[] visited = new int[1];
+        walk(from, to, new ArrayList<>(), visited);
+        return visited[0];
+    }
+
+    private static <A, B> void walk(HashMap<A, B> from, HashMap<A, B> to, ArrayList<Change<A, B>> changes, int[] visited) {
+        if (from.entries == null && to.entries == null) diff(from.root, to.root, from.strategy, changes, visited);
+        else if (from.entries != to.entries) diff(from.entries(), to.entries(), from.strategy, changes);
+    }
+
+    /**
+     * Returns the earlier of the compared versions.
+     *
+     * @return the version the changes apply to
+     */
+    public HashMap<A, B> from() {
+        return from;
+    }
+
+    /**
+     * Returns the later of the compared versions.
+     *
+     * @return the version the changes lead to
+     */
+    public HashMap<A, B> to() {
+        return to;
+    }
+
+    /**
+     * Returns the changes in the order of the trie.
+     *
+     * @return the changed keys with their values before and after
+     */
+    public List<Change<A, B>> changes() {
+        return changes;
+    }
+
+    /**
+     * Checks whether both versions hold equal entries.
+     *
+     * @return true if no key changed, false otherwise
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Returns the number of changed keys.
+     *
+     * @return the number of changes
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * Compares two nodes at the same position of both tries. Identical nodes are skipped, pairs of
+     * indirection nodes are compared slot by slot, and any other pair is compared entry by entry,
+     * which only happens where at least one side is a leaf or a collision node.
+     */
+    private static <A, B> void diff(Node<A, B> left, Node<A, B> right, HashStrategy<A> strategy,
+                                    ArrayList<Change<A, B>> changes, int[] visited) {
+        if (left == right) return;
+        visited[0]++;
+        if (left instanceof IndirectionNode<A, B> l && right instanceof IndirectionNode<A, B> r) {
+            Iterator<Node<A, B>> leftChildren = l.nodes.iterator();
+            Iterator<Node<A, B>> rightChildren = r.nodes.iterator();
+            for (int hash = 0; hash < 32; hash++) {
+                Node<A, B> leftChild = l.containsHash(hash) ? leftChildren.next() : Node.empty();
+                Node<A, B> rightChild = r.containsHash(hash) ? rightChildren.next() : Node.empty();
+                diff(leftChild, rightChild, strategy, changes, visited);
+            }
+            return;
+        }
+
+        ArrayList<LeafNode<A, B>> before = new ArrayList<>();
+        ArrayList<LeafNode<A, B>> after = new ArrayList<>();
+        collect(left, before);
+        collect(right, after);
+        boolean[] matched = new boolean[after.size()];
+        for (LeafNode<A, B> entry : before) {
+            int index = indexOf(after, entry, strategy);
+            if (index < 0) {
+                changes.add(new Change<>(entry.key, Option.some(entry.value), Option.none()));
+                continue;
+            }
+            matched[index] = true;
+            B value = after.get(index).value;
+            if (!Objects.equals(entry.value, value))
+                changes.add(new Change<>(entry.key, Option.some(entry.value), Option.some(value)));
+        }
+        for (int i = 0; i < after.size(); i++) {
+            if (!matched[i]) changes.add(new Change<>(after.get(i).key, Option.none(), Option.some(after.get(i).value)));
+        }
+    }
+
+    /**
+     * Compares the alternating keys and values of two maps, at least one of which is small, by
+     * linear scans of the entries after the change.
+     */
+    @SuppressWarnings("unchecked")
+    private static <A, B> void diff(Object[] before, Object[] after, HashStrategy<A> strategy,
+                                    ArrayList<Change<A, B>> changes) {
+        boolean[] matched = new boolean[after.length / 2];
+        for (int i = 0; i < before.length; i += 2) {
+            A key = (A) before[i];
+            B value = (B) before[i + 1];
+            int index = 0;
+            while (index < after.length && !strategy.equals((A) after[index], key)) index += 2;
+            if (index == after.length) {
+                changes.add(new Change<>(key, Option.some(value), Option.none()));
+                continue;
+            }
+            matched[index / 2] = true;
+            if (!Objects.equals(value, after[index + 1]))
+                changes.add(new Change<>(key, Option.some(value), Option.some((B) after[index + 1])));
+        }
+        for (int i = 0; i < after.length; i += 2) {
+            if (!matched[i / 2]) changes.add(new Change<>((A) after[i], Option.none(), Option.some((B) after[i + 1])));
+        }
+    }
+
+    private static <A, B> int indexOf(ArrayList<LeafNode<A, B>> entries, LeafNode<A, B> entry, HashStrategy<A> strategy) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).matches(entry.key, entry.hash, strategy)) return i;
+        }
+        return -1;
+    }
+
+    private static <A, B> void collect(Node<A, B> node, ArrayList<LeafNode<A, B>> entries) {
+        switch (node) {
+            case IndirectionNode<A, B> indirectionNode -> {
+                for (Node<A, B> child : indirectionNode.nodes) collect(child, entries);
+            }
+            case LeafNode<A, B> leafNode -> entries.add(leafNode);
+            case CollisionNode<A, B> collisionNode -> {
+                for (int i = 0; i < collisionNode.size(); i++)
+                    entries.add(new LeafNode<>(collisionNode.keys[i], collisionNode.vals[i], collisionNode.hashes[i]));
+            }
+            default -> {}
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package dev.schakr.map;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Try;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Merkle digests of the subtrees of a HashMap, and a protocol built on them that brings one replica
+ * of a map up to date with another by exchanging only the subtrees whose digests differ.
+ * <p>
+ * A subtree is identified by a {@link TriePath}, the hash fragments leading to it from the root. Its
+ * digest is the sum of 64-bit digests of its entries, each computed from the encoded key and value.
+ * Since the sum does not depend on how the entries are arranged, equal contents have equal digests
+ * even if the tries of both replicas were shaped differently by their update histories.
+ * <p>
+ * The digest of every indirection node is memoized on the node the first time it is needed. A new
+ * version of a map shares all nodes off the updated paths with its predecessor, so computing its
+ * digests after a few updates only visits the copied nodes, as if the digests had been maintained
+ * during the path copy, while maps whose digests are never asked for pay nothing. Versions digested
+ * through {@link #forVersion(HashMap)} share one digest function and thus the memoized digests.
+ * <p>
+ * Finding the differences between two replicas with {@link #pullFrom(HashMapReplica)} compares the digests
+ * of both roots, then the 32 child digests of every differing subtree, descending while the local
+ * subtree is an indirection node. The entries of the smallest differing subtrees are then fetched and
+ * applied. The number of round trips is thus proportional to the number of changes times the depth
+ * of the trie, and the transferred entries are those of the leaf-level subtrees that changed.
+ *
+ * @param <A> the type of keys in the map
+ * @param <B> the type of values in the map
+ */
+public final class HashMapDigests<A, B> implements HashMapReplica<A, B> {
+    private static final int WIDTH = 32;
+
+    private final HashMap<A, B> map;
+    /** The trie of the map, built once here if the map is small, so that its digests are memoized too. */
+    private final IndirectionNode<A, B> root;
+    private final Codec<A> keyCodec;
+    private final Codec<B> valueCodec;
+    private final Object function;
+
+    /**
+     * A digest memoized on an indirection node, together with the token of the digest function that
+     * computed it.
+     */
+    record SubtreeDigest(Object function, long value) {}
+
+    private HashMapDigests(HashMap<A, B> map, Codec<A> keyCodec, Codec<B> valueCodec, Object function) {
+        this.map = map;
+        this.root = map.root();
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.function = function;
+    }
+
+    /**
+     * Creates the digests of a map, computed from the encoded keys and values. Both replicas of a map
+     * must use codecs producing the same bytes for equal keys and values, and the same hash strategy.
+     *
+     * @param map the map to be digested
+     * @param keyCodec the codec encoding the keys
+     * @param valueCodec the codec encoding the values
+     * @return the digests of the map
+     */
+    public static <A, B> HashMapDigests<A, B> of(HashMap<A, B> map, Codec<A> keyCodec, Codec<B> valueCodec) {
+        return new HashMapDigests<>(map, keyCodec, valueCodec, new Object());
+    }
+
+    /**
+     * Creates the digests of another version of the map with the same digest function, reusing the
+     * digests memoized for the subtrees both versions share.
+     *
+     * @param version the version to be digested
+     * @return the digests of the version
+     */
+    public HashMapDigests<A, B> forVersion(HashMap<A, B> version) {
+        return new HashMapDigests<>(version, keyCodec, valueCodec, function);
+    }
+
+    /**
+     * Returns the digested map.
+     *
+     * @return the version of the map these digests describe
+     */
+    public HashMap<A, B> map() {
+        return map;
+    }
+
+    /**
+     * Returns the digest of the whole map.
+     *
+     * @return the digest of the root, or 0 if the map is empty
+     */
+    public long digest() {
+        return digestAt(TriePath.root());
+    }
+
+    @Override
+    public long digestAt(TriePath path) {
+        Node<A, B> node = nodeAt(path);
+        if (node instanceof IndirectionNode<A, B> indirectionNode) return digest(indirectionNode);
+
+        long digest = 0;
+        for (LeafNode<A, B> entry : entries(node, path)) digest += entryDigest(entry.key, entry.value);
+        return digest;
+    }
+
+    @Override
+    public long[] childrenDigests(TriePath path) {
+        long[] digests = new long[WIDTH];
+        Node<A, B> node = nodeAt(path);
+        if (node instanceof IndirectionNode<A, B> indirectionNode) {
+            Iterator<Node<A, B>> children = indirectionNode.nodes.iterator();
+            for (int slot = 0; slot < WIDTH; slot++) {
+                if (indirectionNode.containsHash(slot)) digests[slot] = digest(children.next());
+            }
+            return digests;
+        }
+
+        for (LeafNode<A, B> entry : entries(node, path))
+            digests[HashMap.hashAtLevel(entry.hash, path.depth())] += entryDigest(entry.key, entry.value);
+        return digests;
+    }
+
+    @Override
+    public List<Tuple2<A, B>> subtreeEntries(TriePath path) {
+        return List.ofAll(entries(nodeAt(path), path)).map(entry -> Tuple.of(entry.key, entry.value));
+    }
+
+    /**
+     * Brings this version up to date with a replica, fetching only the entries of the subtrees whose
+     * digests differ. The replica must answer all requests from the same version of its map.
+     *
+     * @param remote the replica whose content is to be copied
+     * @return an {@code Either<Throwable, HashMap<A, B>>} where the right side contains a version of this
+     *         map holding the same entries as the replica, or the left side contains a {@code Throwable}
+     *         if a request or an update failed
+     */
+    public Either<Throwable, HashMap<A, B>> pullFrom(HashMapReplica<A, B> remote) {
+        return Try.of(() -> (digest() == remote.digestAt(TriePath.root())) ?
+                map :
+                reconcile(remote, TriePath.root(), map)).toEither();
+    }
+
+    /**
+     * Reconciles a subtree whose digests are known to differ, descending into the differing children
+     * while the local subtree is an indirection node, and replacing the entries of the subtree otherwise.
+     */
+    private HashMap<A, B> reconcile(HashMapReplica<A, B> remote, TriePath path, HashMap<A, B> target) throws Throwable {
+        if (nodeAt(path) instanceof IndirectionNode<A, B> && path.depth() < HashMap.MAX_DEPTH) {
+            long[] remoteDigests = remote.childrenDigests(path);
+            long[] localDigests = childrenDigests(path);
+            for (int slot = 0; slot < WIDTH; slot++) {
+                if (remoteDigests[slot] != localDigests[slot])
+                    target = reconcile(remote, path.child(slot).getOrElseThrow(t -> t), target);
+            }
+            return target;
+        }
+
+        List<Tuple2<A, B>> fetched = remote.subtreeEntries(path);
+        HashMap<A, B> remoteEntries = new HashMap<>(map.strategy);
+        for (Tuple2<A, B> entry : fetched) remoteEntries = remoteEntries.put(entry._1, entry._2).getOrElseThrow(t -> t);
+        for (LeafNode<A, B> entry : entries(nodeAt(path), path)) {
+            if (!remoteEntries.containsKey(entry.key)) target = target.remove(entry.key).getOrElseThrow(t -> t);
+        }
+        for (Tuple2<A, B> entry : fetched) {
+            if (!target.containsKey(entry._1) || !Objects.equals(target.get(entry._1).getOrNull(), entry._2))
+                target = target.put(entry._1, entry._2).getOrElseThrow(t -> t);
+        }
+        return target;
+    }
+
+    /**
+     * Walks down the fragments of the path while the nodes on the way are indirection nodes. The
+     * result is the indirection node at the path, or the leaf, collision or empty node above or at
+     * the path whose entries include those of the subtree.
+     */
+    private Node<A, B> nodeAt(TriePath path) {
+        Node<A, B> node = root;
+        for (int level = 0; level < path.depth() && node instanceof IndirectionNode<A, B> indirectionNode; level++)
+            node = indirectionNode.findNode(HashMap.hashAtLevel(path.prefix(), level)).getOrElse(Node.empty());
+        return node;
+    }
+
+    private long digest(Node<A, B> node) {
+        return switch (node) {
+            case IndirectionNode<A, B> indirectionNode -> {
+                SubtreeDigest memoized = indirectionNode.digest;
+                if (memoized != null && memoized.function == function) yield memoized.value;
+
+                long digest = 0;
+                for (Node<A, B> child : indirectionNode.nodes) digest += digest(child);
+                indirectionNode.digest = new SubtreeDigest(function, digest);
+                yield digest;
+            }
+            case LeafNode<A, B> leafNode -> entryDigest(leafNode.key, leafNode.value);
+            case CollisionNode<A, B> collisionNode -> {
+                long digest = 0;
+                for (int i = 0; i < collisionNode.size(); i++) digest += entryDigest(collisionNode.keys[i], collisionNode.vals[i]);
+                yield digest;
+            }
+            default -> 0;
+        };
+    }
+
+    /**
+     * Collects the entries below a node that belong to the subtree at the given path.
+     */
+    private static <A, B> ArrayList<LeafNode<A, B>> entries(Node<A, B> node, TriePath path) {
+        ArrayList<LeafNode<A, B>> entries = new ArrayList<>();
+        collect(node, path, entries);
+        return entries;
+    }
+
+    private static <A, B> void collect(Node<A, B> node, TriePath path, ArrayList<LeafNode<A, B>> entries) {
+        switch (node) {
+            case IndirectionNode<A, B> indirectionNode -> {
+                for (Node<A, B> child : indirectionNode.nodes) collect(child, path, entries);
+            }
+            case LeafNode<A, B> leafNode -> {
+                if (path.contains(leafNode.hash)) entries.add(leafNode);
+            }
+            case CollisionNode<A, B> collisionNode -> {
+                for (int i = 0; i < collisionNode.size(); i++) {
+                    if (path.contains(collisionNode.hashes[i]))
+                        entries.add(new LeafNode<>(collisionNode.keys[i], collisionNode.vals[i], collisionNode.hashes[i]));
+                }
+            }
+            default -> {}
+        }
+    }
+
+    private long entryDigest(A key, B value) {
+        return mix(hash(keyCodec.encode(key)) * 0x9e3779b97f4a7c15L + hash(valueCodec.encode(value)));
+    }
+
+    /**
+     * Hashes bytes with 64-bit FNV-1a, finished by {@link #mix(long)} to spread the bits.
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L ^ bytes.length;
+        for (byte b : bytes) hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        return mix(hash);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, so that digests of similar entries differ in about half their bits.
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
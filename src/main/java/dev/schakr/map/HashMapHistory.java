@@ -0,0 +1,205 @@
+package dev.schakr.map;
+
+import io.vavr.collection.List;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeMap;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An immutable history of HashMap versions, retaining either the last N committed versions or the
+ * versions committed within a maximum age. Every committed map is assigned the next version number
+ * and the commit time of the clock of the history, and can be looked up by version or by time for
+ * time-travel queries.
+ * <p>
+ * Consecutive versions of a HashMap share most of their structure, so the memory retained by the
+ * history is far below the sum of the sizes of its versions. {@link #uniqueBytes()} reports, for
+ * every version, the estimated bytes that releasing it would free, i.e. the nodes shared with
+ * neither of its retained neighbours; {@link #retainedBytes()} estimates the history as a whole.
+ *
+ * @param <A> the type of keys of the versioned maps
+ * @param <B> the type of values of the versioned maps
+ */
+public final class HashMapHistory<A, B> {
+    private final TreeMap<Long, Snapshot<A, B>> snapshots;
+    private final long nextVersion;
+    private final int maxVersions;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    /**
+     * A retained version of a HashMap.
+     *
+     * @param version the version number assigned on commit
+     * @param committedAt the time of the commit, according to the clock of the history
+     * @param map the committed map
+     */
+    public record Snapshot<A, B>(long version, Instant committedAt, HashMap<A, B> map) {}
+
+    private HashMapHistory(TreeMap<Long, Snapshot<A, B>> snapshots, long nextVersion, int maxVersions,
+                           Duration maxAge, Clock clock) {
+        this.snapshots = snapshots;
+        this.nextVersion = nextVersion;
+        this.maxVersions = maxVersions;
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates an empty history retaining the last {@code versions} committed versions.
+     *
+     * @param versions the number of versions to retain; must be positive
+     * @return an {@code Either<Throwable, HashMapHistory<A, B>>} where the right side contains the empty history,
+     *         or the left side contains a {@code Throwable} if the number of versions is not positive
+     */
+    public static <A, B> Either<Throwable, HashMapHistory<A, B>> keepingLast(int versions) {
+        if (versions <= 0) return Either.left(new IllegalArgumentException("Number of retained versions must be positive"));
+        return Either.right(new HashMapHistory<>(TreeMap.empty(), 1, versions, null, Clock.systemUTC()));
+    }
+
+    /**
+     * Creates an empty history retaining the versions committed within the given age. The latest
+     * version is always retained, however old it is.
+     *
+     * @param age the maximum age of retained versions; must be positive
+     * @param clock the clock used to timestamp commits and to expire versions
+     * @return an {@code Either<Throwable, HashMapHistory<A, B>>} where the right side contains the empty history,
+     *         or the left side contains a {@code Throwable} if the age is not positive
+     */
+    public static <A, B> Either<Throwable, HashMapHistory<A, B>> keepingFor(Duration age, Clock clock) {
+        if (age.isNegative() || age.isZero()) return Either.left(new IllegalArgumentException("Retention age must be positive"));
+        return Either.right(new HashMapHistory<>(TreeMap.empty(), 1, Integer.MAX_VALUE, age, clock));
+    }
+
+    /**
+     * Commits a map as the next version of the history, releasing the versions that fall out of
+     * the retention bounds.
+     *
+     * @param map the map to be committed
+     * @return the history including the committed version
+     */
+    public HashMapHistory<A, B> commit(HashMap<A, B> map) {
+        Snapshot<A, B> snapshot = new Snapshot<>(nextVersion, clock.instant(), map);
+        return with(snapshots.put(nextVersion, snapshot), nextVersion + 1).expire();
+    }
+
+    /**
+     * Releases the versions that fall out of the retention bounds at the current time of the clock.
+     * Commits expire versions automatically; this method only needs to be called to bound the age
+     * of a history that is not committed to.
+     *
+     * @return the history without the expired versions
+     */
+    public HashMapHistory<A, B> expire() {
+        TreeMap<Long, Snapshot<A, B>> retained = snapshots;
+        while (retained.size() > maxVersions) retained = retained.tail();
+        if (maxAge != null) {
+            Instant cutoff = clock.instant().minus(maxAge);
+            while (retained.size() > 1 && retained.head()._2.committedAt().isBefore(cutoff)) retained = retained.tail();
+        }
+        return with(retained, nextVersion);
+    }
+
+    /**
+     * Releases a single version. Releasing a version that is not retained has no effect.
+     *
+     * @param version the version to be released
+     * @return the history without the version
+     */
+    public HashMapHistory<A, B> release(long version) {
+        return with(snapshots.remove(version), nextVersion);
+    }
+
+    /**
+     * Releases all versions older than the given one.
+     *
+     * @param version the oldest version to be retained
+     * @return the history without the older versions
+     */
+    public HashMapHistory<A, B> releaseBefore(long version) {
+        return with(snapshots.dropWhile(entry -> entry._1 < version), nextVersion);
+    }
+
+    /**
+     * Retrieves the map committed as the given version, if it is still retained.
+     *
+     * @param version the version number of the map
+     * @return an {@code Option} containing the map, or {@code Option.none()} if the version is not retained
+     */
+    public Option<HashMap<A, B>> at(long version) {
+        return snapshots.get(version).map(Snapshot::map);
+    }
+
+    /**
+     * Retrieves the version that was the latest at the given time, if it is still retained.
+     *
+     * @param instant the time of the query
+     * @return an {@code Option} containing the latest snapshot committed at or before the given time,
+     *         or {@code Option.none()} if there is none
+     */
+    public Option<Snapshot<A, B>> asOf(Instant instant) {
+        return snapshots.values().filter(snapshot -> !snapshot.committedAt().isAfter(instant)).lastOption();
+    }
+
+    /**
+     * Retrieves the latest committed version, if any.
+     *
+     * @return an {@code Option} containing the latest snapshot, or {@code Option.none()} if the history is empty
+     */
+    public Option<Snapshot<A, B>> latest() {
+        return snapshots.isEmpty() ? Option.none() : Option.of(snapshots.last()._2);
+    }
+
+    /**
+     * Returns the version numbers of the retained versions.
+     *
+     * @return the retained version numbers, in ascending order
+     */
+    public SortedSet<Long> versions() {
+        return snapshots.keySet();
+    }
+
+    /**
+     * Estimates, for every retained version, the bytes held by nodes shared with neither its
+     * predecessor nor its successor in the history. This is the memory that releasing the version
+     * would free.
+     *
+     * @return the estimated unique bytes per retained version
+     */
+    public SortedMap<Long, Long> uniqueBytes() {
+        List<Snapshot<A, B>> retained = snapshots.values().toList();
+        SortedMap<Long, Long> unique = TreeMap.empty();
+        for (int i = 0; i < retained.size(); i++) {
+            List<HashMap<A, B>> neighbours = List.empty();
+            if (i > 0) neighbours = neighbours.prepend(retained.get(i - 1).map());
+            if (i < retained.size() - 1) neighbours = neighbours.prepend(retained.get(i + 1).map());
+            unique = unique.put(retained.get(i).version(), HashMapStats.sharing(retained.get(i).map(), neighbours).uniqueBytes());
+        }
+        return unique;
+    }
+
+    /**
+     * Estimates the bytes retained by all versions together, counting every shared node once.
+     *
+     * @return the estimated bytes retained by the history
+     */
+    public long retainedBytes() {
+        List<Snapshot<A, B>> retained = snapshots.values().toList();
+        if (retained.isEmpty()) return 0;
+
+        long bytes = HashMapStats.of(retained.head().map()).estimatedBytes();
+        for (int i = 1; i < retained.size(); i++) {
+            bytes += HashMapStats.sharing(retained.get(i).map(), retained.get(i - 1).map()).uniqueBytes();
+        }
+        return bytes;
+    }
+
+    private HashMapHistory<A, B> with(TreeMap<Long, Snapshot<A, B>> snapshots, long nextVersion) {
+        return new HashMapHistory<>(snapshots, nextVersion, maxVersions, maxAge, clock);
+    }
+}
@@ -0,0 +1,264 @@
+package dev.schakr.map;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+/**
+ * A weak canonicalization table for the nodes of HashMaps, so that maps built independently share
+ * every subtree they hold in common. Interning a map replaces each of its nodes, bottom-up, with the
+ * first structurally equal node the interner has seen: leaves with an equal key, value and hash,
+ * collision nodes with equal entries in the same order, and indirection nodes with the same bitmap and
+ * the same canonical children. Since children are interned before their parents, comparing two
+ * indirection nodes only takes pointer comparisons of their children.
+ * <p>
+ * Maps with equal contents end up with the same root, so {@link HashMap#equals(Object)} between
+ * them returns after a single pointer comparison, and maps that differ in a few entries share all
+ * other subtrees, so their comparison only descends into the differing paths.
+ * <p>
+ * Small maps keep their entries in a single array instead of nodes; interning one replaces the array
+ * with the first array the interner has seen holding equal entries, in whichever order. Small maps
+ * therefore share their array with equal small maps only, not with maps holding some of their entries.
+ * <p>
+ * The table references its nodes weakly, so nodes no interned map uses any more are collected.
+ * Values are compared with {@code equals}, keys with the strategy of the interner. Interning is
+ * opt-in and the interner is thread-safe; maps not passed to it keep their own nodes.
+ *
+ * @param <A> the type of keys of the interned maps
+ * @param <B> the type of values of the interned maps
+ */
+public final class HashMapInterner<A, B> {
+    private final HashStrategy<A> strategy;
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private Canonical<A, B>[] table = newTable(64);
+    private int size;
+
+    /**
+     * A weakly referenced canonical node or entries array in the chain of its bucket, remembering its
+     * structural hash to find the bucket once the referent has been collected.
+     */
+    private static final class Canonical<A, B> extends WeakReference<Object> {
+        final int hash;
+        Canonical<A, B> next;
+
+        Canonical(Object referent, int hash, Canonical<A, B> next, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private HashMapInterner(HashStrategy<A> strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Creates an interner for maps using the keys' own {@code hashCode} and {@code equals}.
+     *
+     * @return an empty interner
+     */
+    public static <A, B> HashMapInterner<A, B> create() {
+        return create(HashStrategy.natural());
+    }
+
+    /**
+     * Creates an interner for maps using the given strategy.
+     *
+     * @param strategy the strategy of the maps to be interned
+     * @return an empty interner
+     */
+    public static <A, B> HashMapInterner<A, B> create(HashStrategy<A> strategy) {
+        return new HashMapInterner<>(strategy);
+    }
+
+    /**
+     * Returns a map with the same entries as the given one, made of canonical nodes. Equivalent to
+     * {@code map.intern(interner)}.
+     *
+     * @param map the map to be interned
+     * @return an {@code Either<Throwable, HashMap<A, B>>} where the right side contains the interned map, or the
+     *         left side contains a {@code Throwable} if the map uses a different strategy than the interner
+     */
+    public Either<Throwable, HashMap<A, B>> intern(HashMap<A, B> map) {
+        return map.intern(this);
+    }
+
+    /**
+     * Interns the nodes of a map bottom-up and returns its canonical root.
+     */
+    synchronized Either<Throwable, IndirectionNode<A, B>> internRoot(HashMap<A, B> map) {
+        if (!map.strategy.equals(strategy))
+            return Either.left(new IllegalArgumentException("Interned maps must use the strategy of the interner"));
+
+        expunge();
+        return Either.right((IndirectionNode<A, B>) intern((Node<A, B>) map.root));
+    }
+
+    /**
+     * Returns the canonical array holding the same entries as the array of a small map.
+     */
+    synchronized Either<Throwable, Object[]> internEntries(HashMap<A, B> map) {
+        if (!map.strategy.equals(strategy))
+            return Either.left(new IllegalArgumentException("Interned maps must use the strategy of the interner"));
+
+        expunge();
+        return Either.right((Object[]) canonical(map.entries));
+    }
+
+    /**
+     * Returns the number of canonical nodes and arrays currently in the table, including collected
+     * ones whose entries have not been removed yet.
+     *
+     * @return the number of entries in the table
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<A, B> intern(Node<A, B> node) {
+        Node<A, B> candidate = switch (node) {
+            case IndirectionNode<A, B> indirectionNode -> {
+                List<Node<A, B>> children = indirectionNode.nodes.map(this::intern);
+                boolean unchanged = children.corresponds(indirectionNode.nodes, (a, b) -> a == b);
+                yield unchanged ? indirectionNode : new IndirectionNode<>(children, indirectionNode.bitmap);
+            }
+            default -> node;
+        };
+        if (candidate instanceof Node.EmptyNode) return candidate;
+        return (Node<A, B>) canonical(candidate);
+    }
+
+    /**
+     * Returns the first node or entries array in the table structurally equal to the candidate, adding
+     * the candidate if there is none.
+     */
+    private Object canonical(Object candidate) {
+        int hash = structuralHash(candidate);
+        for (Canonical<A, B> canonical = table[index(hash, table.length)]; canonical != null; canonical = canonical.next) {
+            Object existing = canonical.get();
+            if (canonical.hash == hash && existing != null && sameStructure(existing, candidate)) return existing;
+        }
+        if (++size > table.length * 3 / 4) resize();
+        int index = index(hash, table.length);
+        table[index] = new Canonical<>(candidate, hash, table[index], collected);
+        return candidate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean sameStructure(Object existing, Object candidate) {
+        if (existing instanceof Object[] left) return candidate instanceof Object[] right && sameEntries(left, right);
+        return existing instanceof Node && candidate instanceof Node && shallowEquals((Node<A, B>) existing, (Node<A, B>) candidate);
+    }
+
+    private void resize() {
+        Canonical<A, B>[] resized = newTable(table.length * 2);
+        for (Canonical<A, B> head : table) {
+            for (Canonical<A, B> canonical = head, next; canonical != null; canonical = next) {
+                next = canonical.next;
+                int index = index(canonical.hash, resized.length);
+                canonical.next = resized[index];
+                resized[index] = canonical;
+            }
+        }
+        table = resized;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <A, B> Canonical<A, B>[] newTable(int length) {
+        return (Canonical<A, B>[]) new Canonical[length];
+    }
+
+    private static int index(int hash, int length) {
+        return (hash ^ (hash >>> 16)) & (length - 1);
+    }
+
+    /**
+     * Removes the entries of collected nodes from the table.
+     */
+    @SuppressWarnings("unchecked")
+    private void expunge() {
+        for (Canonical<A, B> canonical; (canonical = (Canonical<A, B>) collected.poll()) != null; ) {
+            int index = index(canonical.hash, table.length);
+            if (table[index] == canonical) {
+                table[index] = canonical.next;
+                size--;
+                continue;
+            }
+            for (Canonical<A, B> previous = table[index]; previous != null; previous = previous.next) {
+                if (previous.next == canonical) {
+                    previous.next = canonical.next;
+                    size--;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes a node whose children are canonical, using the identity of the children, or an entries
+     * array regardless of the order of its entries.
+     */
+    @SuppressWarnings("unchecked")
+    private int structuralHash(Object node) {
+        return switch (node) {
+            case IndirectionNode<?, ?> indirectionNode -> {
+                int hash = indirectionNode.bitmap;
+                for (Node<?, ?> child : indirectionNode.nodes) hash = 31 * hash + System.identityHashCode(child);
+                yield hash;
+            }
+            case LeafNode<?, ?> leafNode -> 31 * leafNode.hash + Objects.hashCode(leafNode.value);
+            case CollisionNode<?, ?> collisionNode -> {
+                int hash = 17;
+                for (int i = 0; i < collisionNode.size(); i++)
+                    hash = 31 * (31 * hash + collisionNode.hashes[i]) + Objects.hashCode(collisionNode.vals[i]);
+                yield hash;
+            }
+            case Object[] entries -> {
+                int hash = entries.length;
+                for (int i = 0; i < entries.length; i += 2)
+                    hash += strategy.hash((A) entries[i]) ^ Objects.hashCode(entries[i + 1]);
+                yield hash;
+            }
+            default -> 0;
+        };
+    }
+
+    /**
+     * Compares two nodes whose children are canonical, comparing the children by identity.
+     */
+    private boolean shallowEquals(Node<A, B> left, Node<A, B> right) {
+        return switch (left) {
+            case IndirectionNode<A, B> l when right instanceof IndirectionNode<A, B> r ->
+                    l.bitmap == r.bitmap && l.nodes.corresponds(r.nodes, (a, b) -> a == b);
+            case LeafNode<A, B> l when right instanceof LeafNode<A, B> r ->
+                    l.hash == r.hash && strategy.equals(l.key, r.key) && Objects.equals(l.value, r.value);
+            case CollisionNode<A, B> l when right instanceof CollisionNode<A, B> r -> {
+                if (l.size() != r.size()) yield false;
+                for (int i = 0; i < l.size(); i++) {
+                    if (l.hashes[i] != r.hashes[i] || !strategy.equals(l.keys[i], r.keys[i]) || !Objects.equals(l.vals[i], r.vals[i]))
+                        yield false;
+                }
+                yield true;
+            }
+            default -> false;
+        };
+    }
+
+    /**
+     * Compares the entries arrays of two small maps regardless of the order of their entries.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean sameEntries(Object[] left, Object[] right) {
+        if (left.length != right.length) return false;
+        for (int i = 0; i < left.length; i += 2) {
+            int j = 0;
+            while (j < right.length && !strategy.equals((A) left[i], (A) right[j])) j += 2;
+            if (j == right.length || !Objects.equals(left[i + 1], right[j + 1])) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,417 @@
+package dev.schakr.map;
+
+import io.vavr.control.Either;
+import io.vavr.control.Try;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * A durability layer for a lineage of HashMaps. Every {@code put} and {@code remove} applied
+ * through the journal produces the next version of the map and appends a record of the change
+ * to an append-only log, so the cost of persisting a version scales with the rate of changes
+ * rather than with the size of the map.
+ * <p>
+ * Records are buffered in memory and written to the log in batches with a single gathering
+ * write followed by a single {@code force}. Callers requiring durability call {@link #sync()};
+ * concurrent callers are grouped, i.e. a caller whose records were already forced by another
+ * thread returns without touching the disk.
+ * <p>
+ * A checkpoint writes the current version as a {@link MappedHashMap} snapshot and truncates the
+ * log. Recovery opens the last checkpoint and replays the log on top of it. A torn record at the
+ * end of the log (e.g. after a crash mid-write) is detected by its checksum and discarded.
+ * <p>
+ * Log record layout (big-endian):
+ * <pre>
+ * int length, int crc32, byte operation, int keyLength, byte[] key, [int valueLength, byte[] value]
+ * </pre>
+ *
+ * @param <A> the type of keys in the map
+ * @param <B> the type of values in the map
+ */
+public final class HashMapJournal<A, B> implements AutoCloseable {
+    static final String LOG_FILE = "journal.log";
+    static final String CHECKPOINT_FILE = "checkpoint.hamt";
+
+    private static final int DEFAULT_GROUP_SIZE = 256;
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 1 << 20;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final Codec<A> keyCodec;
+    private final Codec<B> valueCodec;
+    private final FileChannel log;
+    private final int groupSize;
+    private final int checkpointInterval;
+    private final Object ioLock = new Object();
+    private final Runnable afterSnapshot;
+
+    private HashMap<A, B> current;
+    private ArrayList<ByteBuffer> pending = new ArrayList<>();
+    private long appended;
+    private long durable;
+    private long sinceCheckpoint;
+    private long logEnd;
+
+    private HashMapJournal(Path directory, Codec<A> keyCodec, Codec<B> valueCodec, FileChannel log,
+                           int groupSize, int checkpointInterval, HashMap<A, B> current, long sinceCheckpoint,
+                           long logEnd, Runnable afterSnapshot) {
+        this.directory = directory;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.log = log;
+        this.groupSize = groupSize;
+        this.checkpointInterval = checkpointInterval;
+        this.current = current;
+        this.sinceCheckpoint = sinceCheckpoint;
+        this.logEnd = logEnd;
+        this.afterSnapshot = afterSnapshot;
+    }
+
+    /**
+     * Opens the journal stored in the given directory with the default group size and checkpoint
+     * interval, recovering the latest version of the map from it.
+     *
+     * @param directory the directory holding the checkpoint and the log; created if it does not exist
+     * @param keyCodec the codec used to encode the keys of the map
+     * @param valueCodec the codec used to encode the values of the map
+     * @return an {@code Either<Throwable, HashMapJournal<A, B>>} where the right side contains the opened journal
+     *         if the recovery was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public static <A, B> Either<Throwable, HashMapJournal<A, B>> open(Path directory, Codec<A> keyCodec,
+                                                                     Codec<B> valueCodec) {
+        return open(directory, keyCodec, valueCodec, DEFAULT_GROUP_SIZE, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Opens the journal stored in the given directory, recovering the latest version of the map from it.
+     *
+     * @param directory the directory holding the checkpoint and the log; created if it does not exist
+     * @param keyCodec the codec used to encode the keys of the map
+     * @param valueCodec the codec used to encode the values of the map
+     * @param groupSize the number of buffered records after which a batch is written and forced to disk
+     * @param checkpointInterval the number of logged records after which a checkpoint is taken
+     * @return an {@code Either<Throwable, HashMapJournal<A, B>>} where the right side contains the opened journal
+     *         if the recovery was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public static <A, B> Either<Throwable, HashMapJournal<A, B>> open(Path directory, Codec<A> keyCodec,
+                                                                     Codec<B> valueCodec, int groupSize,
+                                                                     int checkpointInterval) {
+        return open(directory, keyCodec, valueCodec, groupSize, checkpointInterval, HashStrategy.natural());
+    }
+
+    /**
+     * Opens the journal stored in the given directory, recovering the latest version of the map from it
+     * using the given strategy for its keys.
+     *
+     * @param directory the directory holding the checkpoint and the log; created if it does not exist
+     * @param keyCodec the codec used to encode the keys of the map
+     * @param valueCodec the codec used to encode the values of the map
+     * @param groupSize the number of buffered records after which a batch is written and forced to disk
+     * @param checkpointInterval the number of logged records after which a checkpoint is taken
+     * @param strategy the strategy used to hash and compare the keys of the map
+     * @return an {@code Either<Throwable, HashMapJournal<A, B>>} where the right side contains the opened journal
+     *         if the recovery was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public static <A, B> Either<Throwable, HashMapJournal<A, B>> open(Path directory, Codec<A> keyCodec,
+                                                                     Codec<B> valueCodec, int groupSize,
+                                                                     int checkpointInterval,
+                                                                     HashStrategy<A> strategy) {
+        return open(directory, keyCodec, valueCodec, groupSize, checkpointInterval, strategy, () -> {});
+    }
+
+    /**
+     * Opens the journal like {@link #open(Path, Codec, Codec, int, int, HashStrategy)}, running the given
+     * hook whenever a checkpoint has taken its snapshot, so that tests can append concurrently with it.
+     */
+    static <A, B> Either<Throwable, HashMapJournal<A, B>> open(Path directory, Codec<A> keyCodec, Codec<B> valueCodec,
+                                                              int groupSize, int checkpointInterval,
+                                                              HashStrategy<A> strategy, Runnable afterSnapshot) {
+        if (groupSize <= 0 || checkpointInterval <= 0)
+            return Either.left(new IllegalArgumentException("Group size and checkpoint interval must be positive"));
+
+        return Try.of(() -> {
+            Files.createDirectories(directory);
+            HashMap<A, B> map = recoverCheckpoint(directory.resolve(CHECKPOINT_FILE), keyCodec, valueCodec, strategy);
+
+            FileChannel log = FileChannel.open(directory.resolve(LOG_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                long replayed = 0;
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+                long position = 0;
+                while (true) {
+                    header.clear();
+                    if (readFully(log, header, position).hasRemaining()) break;
+                    int length = header.getInt(0);
+                    if (length <= 0 || position + RECORD_HEADER + length > log.size()) break;
+
+                    ByteBuffer payload = readFully(log, ByteBuffer.allocate(length), position + RECORD_HEADER);
+                    if (checksum(payload.array()) != header.getInt(Integer.BYTES)) break;
+
+                    map = replay(map, payload.flip(), keyCodec, valueCodec);
+                    position += RECORD_HEADER + length;
+                    replayed++;
+                }
+
+                log.truncate(position);
+                log.position(position);
+                return new HashMapJournal<>(directory, keyCodec, valueCodec, log, groupSize, checkpointInterval,
+                        map, replayed, position, afterSnapshot);
+            } catch (Throwable t) {
+                log.close();
+                throw t;
+            }
+        }).toEither();
+    }
+
+    /**
+     * Returns the latest version of the map in the lineage, including changes not yet forced to disk.
+     *
+     * @return the latest version of the map
+     */
+    public synchronized HashMap<A, B> current() {
+        return current;
+    }
+
+    /**
+     * Adds a key-value pair to the latest version of the map and logs the change.
+     *
+     * @param key the key to be added to the map
+     * @param value the value associated with the specified key
+     * @return an {@code Either<Throwable, HashMap<A, B>>} where the right side contains the new version of the map
+     *         if the operation was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, HashMap<A, B>> put(A key, B value) {
+        return append(PUT, key, value);
+    }
+
+    /**
+     * Removes the entry associated with the specified key from the latest version of the map and logs the change.
+     *
+     * @param key the key whose associated entry is to be removed
+     * @return an {@code Either<Throwable, HashMap<A, B>>} where the right side contains the new version of the map
+     *         if the operation was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, HashMap<A, B>> remove(A key) {
+        return append(REMOVE, key, null);
+    }
+
+    /**
+     * Writes all buffered records to the log and forces them to disk. If another thread already
+     * forced every record appended before this call, no I/O is performed.
+     *
+     * @return an {@code Either<Throwable, Long>} where the right side contains the number of records durably
+     *         logged if the operation was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, Long> sync() {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+
+        return Try.of(() -> {
+            synchronized (ioLock) {
+                if (durable < target) flush();
+                if (sinceCheckpoint >= checkpointInterval) writeCheckpoint();
+                return durable;
+            }
+        }).toEither();
+    }
+
+    /**
+     * Forces all buffered records to disk, writes the latest version of the map as a new checkpoint,
+     * and truncates the log.
+     *
+     * @return an {@code Either<Throwable, HashMap<A, B>>} where the right side contains the checkpointed version
+     *         if the operation was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, HashMap<A, B>> checkpoint() {
+        return Try.of(() -> {
+            synchronized (ioLock) {
+                return writeCheckpoint();
+            }
+        }).toEither();
+    }
+
+    /**
+     * Forces all buffered records to disk and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (ioLock) {
+            try {
+                flush();
+            } finally {
+                log.close();
+            }
+        }
+    }
+
+    private Either<Throwable, HashMap<A, B>> append(byte operation, A key, B value) {
+        boolean full;
+        HashMap<A, B> next;
+        synchronized (this) {
+            Either<Throwable, HashMap<A, B>> result = (operation == PUT) ? current.put(key, value) : current.remove(key);
+            if (result.isLeft()) return result;
+
+            next = result.get();
+            pending.add(encode(operation, key, value));
+            current = next;
+            appended++;
+            full = pending.size() >= groupSize;
+        }
+        return full ? sync().map(_ -> next) : Either.right(next);
+    }
+
+    /**
+     * Writes the buffered batch with a single gathering write and forces it to disk. Must be called
+     * while holding the I/O lock.
+     */
+    private void flush() throws IOException {
+        ArrayList<ByteBuffer> batch;
+        long upTo;
+        synchronized (this) {
+            batch = pending;
+            upTo = appended;
+            pending = new ArrayList<>();
+        }
+        write(batch, upTo);
+    }
+
+    /**
+     * Writes a batch drained from the buffer, holding all records up to the given sequence number
+     * that are not durable yet, and forces it to disk. If the write or the force fails, the batch is
+     * put back at the head of the buffer, and the next batch overwrites whatever part of it reached
+     * the log, so that the records are neither lost nor reported as durable before they are forced.
+     * Must be called while holding the I/O lock.
+     */
+    private void write(ArrayList<ByteBuffer> batch, long upTo) throws IOException {
+        if (batch.isEmpty()) return;
+
+        ByteBuffer[] buffers = batch.toArray(ByteBuffer[]::new);
+        ByteBuffer last = buffers[buffers.length - 1];
+        try {
+            if (log.size() > logEnd) log.truncate(logEnd);
+            log.position(logEnd);
+            while (last.hasRemaining()) log.write(buffers);
+            log.force(false);
+        } catch (IOException e) {
+            for (ByteBuffer buffer : buffers) buffer.rewind();
+            synchronized (this) {
+                batch.addAll(pending);
+                pending = batch;
+            }
+            throw e;
+        }
+        logEnd = log.position();
+        sinceCheckpoint += batch.size();
+        durable = upTo;
+    }
+
+    /**
+     * Snapshots the latest version to a temporary file, atomically replaces the previous checkpoint
+     * with it, and truncates the log. The snapshot is taken together with draining the records it
+     * contains, which are forced to the log first, so that the log never loses a record before the
+     * checkpoint holding it is in place. Records appended concurrently stay buffered and are logged
+     * after the truncation. Must be called while holding the I/O lock.
+     */
+    private HashMap<A, B> writeCheckpoint() throws Throwable {
+        HashMap<A, B> snapshot;
+        ArrayList<ByteBuffer> batch;
+        long upTo;
+        synchronized (this) {
+            snapshot = current;
+            batch = pending;
+            upTo = appended;
+            pending = new ArrayList<>();
+        }
+        afterSnapshot.run();
+        write(batch, upTo);
+
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        MappedHashMap.write(snapshot, temporary, keyCodec, valueCodec).getOrElseThrow(t -> t);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        log.truncate(0);
+        log.force(true);
+        logEnd = 0;
+        sinceCheckpoint = 0;
+        return snapshot;
+    }
+
+    private ByteBuffer encode(byte operation, A key, B value) {
+        byte[] keyBytes = keyCodec.encode(key);
+        byte[] valueBytes = (operation == PUT) ? valueCodec.encode(value) : null;
+        int length = 1 + Integer.BYTES + keyBytes.length +
+                ((valueBytes == null) ? 0 : Integer.BYTES + valueBytes.length);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+        record.putInt(length).putInt(0).put(operation).putInt(keyBytes.length).put(keyBytes);
+        if (valueBytes != null) record.putInt(valueBytes.length).put(valueBytes);
+        record.putInt(Integer.BYTES, checksum(record.array(), RECORD_HEADER, length));
+        return record.flip();
+    }
+
+    private static <A, B> HashMap<A, B> recoverCheckpoint(Path checkpoint, Codec<A> keyCodec, Codec<B> valueCodec,
+                                                          HashStrategy<A> strategy) throws Throwable {
+        if (!Files.exists(checkpoint)) return new HashMap<>(strategy);
+
+        try (MappedHashMap<A, B> mapped = MappedHashMap.open(checkpoint, keyCodec, valueCodec, strategy)
+                .getOrElseThrow(t -> t)) {
+            AtomicReference<HashMap<A, B>> map = new AtomicReference<>(new HashMap<>(strategy));
+            mapped.forEach((key, value) -> map.set(map.get().put(key, value)
+                    .getOrElseThrow(t -> new IllegalStateException("Failed to recover checkpoint", t))));
+            return map.get();
+        }
+    }
+
+    private static <A, B> HashMap<A, B> replay(HashMap<A, B> map, ByteBuffer payload, Codec<A> keyCodec,
+                                               Codec<B> valueCodec) throws Throwable {
+        byte operation = payload.get();
+        A key = keyCodec.decode(read(payload));
+        return switch (operation) {
+            case PUT -> map.put(key, valueCodec.decode(read(payload))).getOrElseThrow(t -> t);
+            case REMOVE -> map.remove(key).getOrElseThrow(t -> t);
+            default -> throw new IOException("Encountered unexpected log operation: " + operation);
+        };
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) break;
+        }
+        return buffer;
+    }
+
+    private static byte[] read(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static int checksum(byte[] bytes) {
+        return checksum(bytes, 0, bytes.length);
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,215 @@
+package dev.schakr.map;
+
+import io.vavr.control.Either;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link Flow.Publisher} of the changes between successive published versions of a HashMap.
+ * Every subscriber first receives the entries of the version current at the time it subscribed,
+ * as a diff against the empty map, and then one {@link HashMapDiff} per delivered version.
+ * <p>
+ * Subscribers are never buffered for: a subscription only remembers the last version it has
+ * delivered. Whenever the subscriber has outstanding demand, it receives the diff from that version
+ * to the latest published one. A subscriber keeping up receives one diff per published version,
+ * while a slow subscriber receives a single diff coalescing all versions published since its last
+ * delivery. Versions whose entries equal the last delivered ones are skipped without consuming demand.
+ * <p>
+ * Diffs are computed by walking the tries of both versions and skipping shared subtrees, and the
+ * most recent diff is shared by all subscribers that are at the same pair of versions. Signals,
+ * including {@code onSubscribe}, are delivered on the executor of the publisher, serially per
+ * subscriber, so a subscriber requesting diffs from {@code onSubscribe} receives none before it returns.
+ *
+ * @param <A> the type of keys of the published maps
+ * @param <B> the type of values of the published maps
+ */
+public final class HashMapPublisher<A, B> implements Flow.Publisher<HashMapDiff<A, B>>, AutoCloseable {
+    private final Executor executor;
+    private final HashMap<A, B> empty;
+    private final CopyOnWriteArrayList<DiffSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicReference<HashMapDiff<A, B>> lastDiff = new AtomicReference<>();
+    private volatile HashMap<A, B> latest;
+    private volatile boolean closed;
+
+    private HashMapPublisher(HashMap<A, B> initial, Executor executor) {
+        this.executor = executor;
+        this.empty = new HashMap<>(initial.strategy);
+        this.latest = initial;
+    }
+
+    /**
+     * Creates a publisher delivering to its subscribers on the common fork-join pool.
+     *
+     * @param initial the version current before anything is published
+     * @return a publisher whose subscribers start from the initial version
+     */
+    public static <A, B> HashMapPublisher<A, B> of(HashMap<A, B> initial) {
+        return of(initial, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a publisher delivering to its subscribers on the given executor.
+     *
+     * @param initial the version current before anything is published
+     * @param executor the executor running the deliveries to subscribers
+     * @return a publisher whose subscribers start from the initial version
+     */
+    public static <A, B> HashMapPublisher<A, B> of(HashMap<A, B> initial, Executor executor) {
+        return new HashMapPublisher<>(initial, executor);
+    }
+
+    /**
+     * Publishes the next version of the map and signals every subscriber with outstanding demand.
+     *
+     * @param version the version to be published; must use the strategy of the initial version
+     * @return an {@code Either<Throwable, HashMap<A, B>>} where the right side contains the published version,
+     *         or the left side contains a {@code Throwable} if the publisher is closed or the strategy differs
+     */
+    public Either<Throwable, HashMap<A, B>> publish(HashMap<A, B> version) {
+        if (!version.strategy.equals(empty.strategy))
+            return Either.left(new IllegalArgumentException("Published versions must use the strategy of the initial version"));
+
+        synchronized (this) {
+            if (closed) return Either.left(new IllegalStateException("Publisher is closed"));
+            latest = version;
+        }
+        subscriptions.forEach(DiffSubscription::signal);
+        return Either.right(version);
+    }
+
+    /**
+     * Returns the latest published version.
+     *
+     * @return the latest published version, or the initial version if none has been published
+     */
+    public HashMap<A, B> current() {
+        return latest;
+    }
+
+    /**
+     * Returns the number of current subscribers.
+     *
+     * @return the number of subscriptions that are neither cancelled nor completed
+     */
+    public int subscribers() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super HashMapDiff<A, B>> subscriber) {
+        DiffSubscription subscription = new DiffSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscription.signal();
+    }
+
+    /**
+     * Rejects further versions and completes every subscriber once it has received the latest version.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        subscriptions.forEach(DiffSubscription::signal);
+    }
+
+    /**
+     * Computes the diff between two versions, reusing the most recently computed diff if it covers
+     * the same pair of versions.
+     */
+    private Either<Throwable, HashMapDiff<A, B>> diff(HashMap<A, B> from, HashMap<A, B> to) {
+        HashMapDiff<A, B> last = lastDiff.get();
+        if (last != null && last.from() == from && last.to() == to) return Either.right(last);
+        return HashMapDiff.between(from, to).peek(lastDiff::set);
+    }
+
+    private final class DiffSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super HashMapDiff<A, B>> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger signals = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private boolean subscribed;
+        private HashMap<A, B> delivered = empty;
+
+        DiffSubscription(Flow.Subscriber<? super HashMapDiff<A, B>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) error = new IllegalArgumentException("Requested a non-positive number of diffs: " + n);
+            else demand.getAndUpdate(d -> (d + n < 0) ? Long.MAX_VALUE : d + n);
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Schedules a delivery on the executor, unless one is already running, in which case that one
+         * is told to check for further work before it returns.
+         */
+        void signal() {
+            if (signals.getAndIncrement() == 0) executor.execute(this::deliver);
+        }
+
+        private void deliver() {
+            int missed = 1;
+            do {
+                if (!subscribed) {
+                    // Calls onSubscribe from the drain, so that demand it requests is only served after it returns.
+                    subscribed = true;
+                    try {
+                        subscriber.onSubscribe(this);
+                    } catch (Throwable t) {
+                        cancel();
+                    }
+                }
+                while (!cancelled) {
+                    if (error != null) {
+                        cancel();
+                        subscriber.onError(error);
+                        break;
+                    }
+
+                    boolean completing = closed;
+                    HashMap<A, B> target = latest;
+                    if (target == delivered) {
+                        if (completing) {
+                            cancel();
+                            subscriber.onComplete();
+                        }
+                        break;
+                    }
+                    if (demand.get() == 0) break;
+
+                    Either<Throwable, HashMapDiff<A, B>> diff = diff(delivered, target);
+                    if (diff.isLeft()) {
+                        error = diff.getLeft();
+                        continue;
+                    }
+                    delivered = target;
+                    if (diff.get().isEmpty()) continue;
+
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(diff.get());
+                    } catch (Throwable t) {
+                        cancel();
+                    }
+                }
+                missed = signals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
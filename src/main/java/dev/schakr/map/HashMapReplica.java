@@ -0,0 +1,38 @@
+package dev.schakr.map;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+/**
+ * The side of the sync protocol of {@link HashMapDigests} answering the requests of a replica being
+ * brought up to date. A remote replica is typically reached through a network stub forwarding these
+ * calls to the {@code HashMapDigests} of the remote process.
+ *
+ * @param <A> the type of keys in the map
+ * @param <B> the type of values in the map
+ */
+public interface HashMapReplica<A, B> {
+    /**
+     * Returns the digest of the subtree at the given path.
+     *
+     * @param path the path of the subtree
+     * @return the digest of the entries in the subtree, or 0 if it holds no entries
+     */
+    long digestAt(TriePath path);
+
+    /**
+     * Returns the digests of the 32 subtrees below the given path.
+     *
+     * @param path the path of the parent subtree
+     * @return the digests of the child subtrees indexed by their hash fragment, 0 for empty ones
+     */
+    long[] childrenDigests(TriePath path);
+
+    /**
+     * Returns the entries of the subtree at the given path.
+     *
+     * @param path the path of the subtree
+     * @return the keys and values in the subtree, in the order of the trie
+     */
+    List<Tuple2<A, B>> subtreeEntries(TriePath path);
+}
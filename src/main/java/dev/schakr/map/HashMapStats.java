@@ -0,0 +1,189 @@
+package dev.schakr.map;
+
+import io.vavr.collection.List;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.TreeMap;
+
+/**
+ * A snapshot of the internal structure of a HashMap, useful for telling apart slowdowns caused by
+ * badly distributed hashes, deep tries or large collision buckets.
+ * <p>
+ * Byte estimates assume a 64-bit JVM with compressed references (12 byte object headers, 4 byte
+ * references, 8 byte alignment). They cover the nodes of the trie only; keys and values are
+ * not included.
+ * <p>
+ * Small maps, which keep their entries in an array instead of a trie, have no nodes: their entries
+ * are counted at depth 0, and the estimated bytes are those of the array.
+ *
+ * @param entries the number of key-value pairs in the map
+ * @param leafNodes the number of {@code LeafNode}s in the trie
+ * @param indirectionNodes the number of {@code IndirectionNode}s in the trie, including the root
+ * @param collisionNodes the number of {@code CollisionNode}s in the trie
+ * @param depthHistogram the number of entries per depth, where entries held directly by the root are at depth 1
+ * @param fanOutHistogram the number of {@code IndirectionNode}s per number of children
+ * @param collisionSizeHistogram the number of {@code CollisionNode}s per number of entries
+ * @param estimatedBytes the estimated number of bytes retained by the nodes of the trie, or by the array of a small map
+ */
+public record HashMapStats(long entries, long leafNodes, long indirectionNodes, long collisionNodes,
+                           SortedMap<Integer, Long> depthHistogram, SortedMap<Integer, Long> fanOutHistogram,
+                           SortedMap<Integer, Long> collisionSizeHistogram, long estimatedBytes) {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    /**
+     * Describes how much of the structure of a HashMap is shared with another version.
+     *
+     * @param sharedNodes the number of nodes that are also reachable from the other version
+     * @param sharedBytes the estimated number of bytes retained by the shared nodes
+     * @param uniqueNodes the number of nodes that are only reachable from this version
+     * @param uniqueBytes the estimated number of bytes retained by the unique nodes
+     */
+    public record Sharing(long sharedNodes, long sharedBytes, long uniqueNodes, long uniqueBytes) {}
+
+    /**
+     * Walks the trie of the given map and collects its statistics.
+     *
+     * @param map the map to be inspected
+     * @return the statistics of the map
+     */
+    public static <A, B> HashMapStats of(HashMap<A, B> map) {
+        if (map.entries != null) {
+            SortedMap<Integer, Long> depths = map.isEmpty() ? TreeMap.empty() : TreeMap.of(0, (long) map.size());
+            return new HashMapStats(map.size(), 0, 0, 0, depths, TreeMap.empty(), TreeMap.empty(), arrayBytes(map.entries));
+        }
+        Collector collector = new Collector();
+        collector.visit(map.root, 0);
+        return new HashMapStats(collector.entries, collector.leafNodes, collector.indirectionNodes,
+                collector.collisionNodes, collector.depths, collector.fanOuts, collector.collisionSizes,
+                collector.bytes);
+    }
+
+    /**
+     * Determines how much of the trie of a map is shared with the trie of another map, e.g. a
+     * previous or later version of it. Since versions share structure by reusing the nodes along
+     * unchanged paths, nodes are compared by identity at the same position in both tries.
+     *
+     * @param map the map whose nodes are to be classified as shared or unique
+     * @param other the map to compare against
+     * @return the sharing of {@code map} with {@code other}
+     */
+    public static <A, B> Sharing sharing(HashMap<A, B> map, HashMap<A, B> other) {
+        return sharing(map, List.of(other));
+    }
+
+    /**
+     * Determines how much of the trie of a map is shared with the tries of several other maps, e.g.
+     * its neighbours in a history of versions. A node is shared if it is reachable from any of the
+     * other maps at the same position, so the unique part is what releasing all other maps would
+     * not free. The array of a small map counts as a single node, shared if another map holds the
+     * same array.
+     *
+     * @param map the map whose nodes are to be classified as shared or unique
+     * @param others the maps to compare against
+     * @return the sharing of {@code map} with {@code others}
+     */
+    public static <A, B> Sharing sharing(HashMap<A, B> map, Iterable<HashMap<A, B>> others) {
+        long[] counters = new long[4];
+        if (map.entries != null) {
+            boolean shared = List.ofAll(others).exists(other -> other.entries == map.entries);
+            counters[shared ? 0 : 2]++;
+            counters[shared ? 1 : 3] += arrayBytes(map.entries);
+            return new Sharing(counters[0], counters[1], counters[2], counters[3]);
+        }
+        share(map.root, List.ofAll(others).filter(other -> other.entries == null).map(other -> (Node<A, B>) other.root), counters);
+        return new Sharing(counters[0], counters[1], counters[2], counters[3]);
+    }
+
+    /**
+     * Estimates the number of bytes retained by the given node alone, excluding its children.
+     */
+    static long shallowBytes(Node<?, ?> node) {
+        return switch (node) {
+            case IndirectionNode<?, ?> indirectionNode ->
+                    align(OBJECT_HEADER + REFERENCE + Integer.BYTES) +
+                    (long) indirectionNode.nodes.size() * align(OBJECT_HEADER + 2 * REFERENCE + Integer.BYTES);
+            case LeafNode<?, ?> _ -> align(OBJECT_HEADER + 2 * REFERENCE + Integer.BYTES);
+            case CollisionNode<?, ?> collisionNode ->
+                    align(OBJECT_HEADER + 3 * REFERENCE) +
+                    2 * align(ARRAY_HEADER + (long) REFERENCE * collisionNode.size()) +
+                    align(ARRAY_HEADER + (long) Integer.BYTES * collisionNode.size());
+            default -> 0;
+        };
+    }
+
+    private static long arrayBytes(Object[] array) {
+        return align(ARRAY_HEADER + (long) REFERENCE * array.length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Walks {@code node} and the nodes at the same position in {@code others} in parallel, adding
+     * shared nodes and bytes to counters 0 and 1, and unique nodes and bytes to counters 2 and 3.
+     */
+    private static <A, B> void share(Node<A, B> node, List<Node<A, B>> others, long[] counters) {
+        if (others.exists(other -> other == node)) {
+            Collector collector = new Collector();
+            collector.visit(node, 0);
+            counters[0] += collector.leafNodes + collector.indirectionNodes + collector.collisionNodes;
+            counters[1] += collector.bytes;
+            return;
+        }
+
+        counters[2]++;
+        counters[3] += shallowBytes(node);
+        if (node instanceof IndirectionNode<A, B> indirectionNode) {
+            List<IndirectionNode<A, B>> otherNodes = others.filter(other -> other instanceof IndirectionNode<A, B>)
+                    .map(other -> (IndirectionNode<A, B>) other);
+            int index = 0;
+            for (int hash = 0; hash < 32; hash++) {
+                if (!indirectionNode.containsHash(hash)) continue;
+                Node<A, B> child = indirectionNode.nodes.get(index++);
+                int slot = hash;
+                share(child, otherNodes.flatMap(other -> other.findNode(slot)), counters);
+            }
+        }
+    }
+
+    private static final class Collector {
+        long entries;
+        long leafNodes;
+        long indirectionNodes;
+        long collisionNodes;
+        long bytes;
+        SortedMap<Integer, Long> depths = TreeMap.empty();
+        SortedMap<Integer, Long> fanOuts = TreeMap.empty();
+        SortedMap<Integer, Long> collisionSizes = TreeMap.empty();
+
+        void visit(Node<?, ?> node, int depth) {
+            bytes += shallowBytes(node);
+            switch (node) {
+                case IndirectionNode<?, ?> indirectionNode -> {
+                    indirectionNodes++;
+                    fanOuts = increment(fanOuts, indirectionNode.nodes.size(), 1);
+                    for (Node<?, ?> child : indirectionNode.nodes) visit(child, depth + 1);
+                }
+                case LeafNode<?, ?> _ -> {
+                    leafNodes++;
+                    entries++;
+                    depths = increment(depths, depth, 1);
+                }
+                case CollisionNode<?, ?> collisionNode -> {
+                    collisionNodes++;
+                    entries += collisionNode.size();
+                    depths = increment(depths, depth, collisionNode.size());
+                    collisionSizes = increment(collisionSizes, collisionNode.size(), 1);
+                }
+                default -> {}
+            }
+        }
+
+        private static SortedMap<Integer, Long> increment(SortedMap<Integer, Long> histogram, int bucket, long count) {
+            return histogram.put(bucket, histogram.get(bucket).getOrElse(0L) + count);
+        }
+    }
+}
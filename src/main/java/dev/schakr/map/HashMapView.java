@@ -0,0 +1,203 @@
+package dev.schakr.map;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A lazy view of a {@link HashMap}, transforming its entries on access. Chaining transforms composes
+ * their functions instead of copying the trie, so a pipeline of transforms over a large map costs
+ * nothing until keys are read, and reading a key only applies the transforms to that key.
+ * <p>
+ * The functions of the view are applied on every access, and must therefore be side-effect free.
+ * {@link #force()} applies them to every entry once and builds the resulting HashMap in a single
+ * bottom-up pass over the trie of the source map, keeping the position of every surviving entry.
+ *
+ * @param <A> the type of keys of the view
+ * @param <B> the type of values of the view
+ */
+public final class HashMapView<A, B> {
+    private final HashMap<A, Object> source;
+    private final BiFunction<A, Object, Option<B>> transform;
+
+    private HashMapView(HashMap<A, Object> source, BiFunction<A, Object, Option<B>> transform) {
+        this.source = source;
+        this.transform = transform;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B> HashMapView<A, B> of(HashMap<A, B> map) {
+        return new HashMapView<>((HashMap<A, Object>) map, (_, value) -> Option.some((B) value));
+    }
+
+    /**
+     * Checks whether the specified key is present in the view.
+     *
+     * @param key the key whose presence in the view is to be tested
+     * @return true if the source map contains the key and the view retains it, false otherwise
+     */
+    public boolean containsKey(A key) {
+        return get(key).isDefined();
+    }
+
+    /**
+     * Retrieves the transformed value associated with the specified key, applying the functions of the
+     * view to the entry of the source map.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return an {@code Option<B>} containing the transformed value if the key is retained by the view,
+     *         or {@code Option.none()} otherwise
+     */
+    public Option<B> get(A key) {
+        return source.get(key).flatMap(value -> transform.apply(key, value));
+    }
+
+    /**
+     * Returns a view applying the given function to the values of this view.
+     *
+     * @param mapper the function applied to every value
+     * @return a lazy view with mapped values
+     */
+    public <C> HashMapView<A, C> mapValues(Function<? super B, ? extends C> mapper) {
+        return new HashMapView<>(source, (key, value) -> transform.apply(key, value).map(mapper));
+    }
+
+    /**
+     * Returns a view retaining only the keys of this view that satisfy the given predicate.
+     *
+     * @param predicate the predicate tested against every key
+     * @return a lazy view with filtered keys
+     */
+    public HashMapView<A, B> filterKeys(Predicate<? super A> predicate) {
+        return new HashMapView<>(source, (key, value) -> predicate.test(key) ? transform.apply(key, value) : Option.none());
+    }
+
+    /**
+     * Returns a view retaining only the entries of this view that satisfy the given predicate.
+     *
+     * @param predicate the predicate tested against every key and transformed value
+     * @return a lazy view with filtered entries
+     */
+    public HashMapView<A, B> filter(BiPredicate<? super A, ? super B> predicate) {
+        return new HashMapView<>(source, (key, value) -> transform.apply(key, value).filter(v -> predicate.test(key, v)));
+    }
+
+    /**
+     * Performs the given action for each entry retained by the view.
+     *
+     * @param action the action to be performed for each key and transformed value
+     */
+    public void forEach(BiConsumer<? super A, ? super B> action) {
+        source.forEach((key, value) -> transform.apply(key, value).forEach(v -> action.accept(key, v)));
+    }
+
+    /**
+     * Applies the functions of the view to every entry of the source map and builds the resulting
+     * HashMap. The new trie is built bottom-up in a single pass: every node of the source trie is
+     * rebuilt from its transformed children, and nodes left without entries are dropped.
+     * <p>
+     * Subtrees in which every entry is retained with the identical value are not rebuilt but shared
+     * with the source map, so a transform changing few entries costs memory only for the paths to
+     * them. If no entry changes at all, the source map itself is returned.
+     *
+     * @return a HashMap holding the entries retained by the view, using the strategy of the source map
+     */
+    @SuppressWarnings("unchecked")
+    public HashMap<A, B> force() {
+        if (source.entries != null) return forceEntries();
+        Node<A, B> root = force(source.root);
+        if (root == source.root) return (HashMap<A, B>) (HashMap<A, ?>) source;
+        return new HashMap<>(root.isEmpty() ? IndirectionNode.empty() : (IndirectionNode<A, B>) root, source.strategy);
+    }
+
+    /**
+     * Forces the view of a small source map into a new array of alternating keys and values, or
+     * returns the source map itself if all of its entries are retained with identical values.
+     */
+    @SuppressWarnings("unchecked")
+    private HashMap<A, B> forceEntries() {
+        Object[] entries = source.entries;
+        Object[] forced = new Object[entries.length];
+        int retained = 0;
+        boolean unchanged = true;
+        for (int i = 0; i < entries.length; i += 2) {
+            Option<B> value = transform.apply((A) entries[i], entries[i + 1]);
+            unchanged &= value.isDefined() && value.get() == entries[i + 1];
+            if (value.isEmpty()) continue;
+            forced[retained++] = entries[i];
+            forced[retained++] = value.get();
+        }
+        if (unchanged) return (HashMap<A, B>) (HashMap<A, ?>) source;
+        return new HashMap<>(Arrays.copyOf(forced, retained), source.strategy);
+    }
+
+    /**
+     * Forces the given node of the source trie, returning the node itself, cast to the value type of
+     * the view, if all of its entries are retained with identical values.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<A, B> force(Node<A, Object> node) {
+        return switch (node) {
+            case IndirectionNode<A, Object> indirectionNode -> {
+                ArrayList<Node<A, B>> children = new ArrayList<>(indirectionNode.nodes.size());
+                int remaining = indirectionNode.bitmap;
+                int bitmap = 0;
+                boolean unchanged = true;
+                for (Node<A, Object> child : indirectionNode.nodes) {
+                    int bit = Integer.lowestOneBit(remaining);
+                    remaining &= remaining - 1;
+                    Node<A, B> forced = force(child);
+                    unchanged &= (forced == child);
+                    if (forced.isEmpty()) continue;
+                    children.add(forced);
+                    bitmap |= bit;
+                }
+                if (unchanged) yield reuse(indirectionNode);
+                yield (bitmap == 0) ? Node.empty() : new IndirectionNode<>(List.ofAll(children), bitmap);
+            }
+            case LeafNode<A, Object> leafNode -> transform.apply(leafNode.key, leafNode.value)
+                    .map(v -> (v == leafNode.value) ? HashMapView.<A, B>reuse(leafNode) : new LeafNode<>(leafNode.key, v, leafNode.hash))
+                    .getOrElse(Node.empty());
+            case CollisionNode<A, Object> collisionNode -> {
+                int size = collisionNode.size();
+                A[] keys = (A[]) new Object[size];
+                B[] vals = (B[]) new Object[size];
+                int[] hashes = new int[size];
+                int retained = 0;
+                boolean unchanged = true;
+                for (int i = 0; i < size; i++) {
+                    Option<B> value = transform.apply(collisionNode.keys[i], collisionNode.vals[i]);
+                    unchanged &= value.isDefined() && value.get() == collisionNode.vals[i];
+                    if (value.isEmpty()) continue;
+                    keys[retained] = collisionNode.keys[i];
+                    vals[retained] = value.get();
+                    hashes[retained++] = collisionNode.hashes[i];
+                }
+                if (unchanged) yield reuse(collisionNode);
+                yield switch (retained) {
+                    case 0 -> Node.empty();
+                    case 1 -> new LeafNode<>(keys[0], vals[0], hashes[0]);
+                    default -> new CollisionNode<>(Arrays.copyOf(keys, retained),
+                            Arrays.copyOf(vals, retained), Arrays.copyOf(hashes, retained));
+                };
+            }
+            default -> Node.empty();
+        };
+    }
+
+    /**
+     * Reuses a node of the source trie in the forced trie. Only valid for nodes whose values are all
+     * identical to the values the view maps them to.
+     */
+    @SuppressWarnings("unchecked")
+    private static <A, B> Node<A, B> reuse(Node<A, ?> node) {
+        return (Node<A, B>) node;
+    }
+}
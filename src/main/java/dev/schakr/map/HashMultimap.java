@@ -0,0 +1,283 @@
+package dev.schakr.map;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable multimap associating each key with a set of distinct values, built on a
+ * {@link HashMap} from keys to their value groups. The representation of a group depends on its size:
+ * <ul>
+ *     <li>a single value is stored directly as the value of the key's trie entry,</li>
+ *     <li>up to {@value #SMALL_GROUP} values are stored in a flat array searched linearly,</li>
+ *     <li>larger groups are stored in a {@link CompactHashMap} used as a persistent set.</li>
+ * </ul>
+ * Keys with one value, typically the majority, thus cost no more than an entry of a HashMap, and
+ * no key pays for an inner trie until it holds more values than a linear scan handles well.
+ * Adding a value copies the path to the key's entry and, for large groups, one path of the inner set.
+ * <p>
+ * Both the number of values of a key and the total number of key-value pairs are kept up to date by
+ * every update, so {@link #valueCount(Object)} and {@link #size()} are constant time. Values are
+ * compared with {@code equals} and must not be null.
+ *
+ * @param <A> the type of keys used in this multimap
+ * @param <B> the type of values associated with the keys in this multimap
+ */
+public final class HashMultimap<A, B> {
+    static final int SMALL_GROUP = 8;
+
+    private final HashMap<A, Object> groups;
+    private final int size;
+
+    /**
+     * Up to {@value #SMALL_GROUP} distinct values of a key, in insertion order.
+     */
+    private static final class SmallGroup {
+        final Object[] values;
+
+        SmallGroup(Object[] values) {
+            this.values = values;
+        }
+    }
+
+    /**
+     * The distinct values of a key holding more than {@value #SMALL_GROUP} of them.
+     */
+    private static final class LargeGroup {
+        final CompactHashMap<Object, Boolean> values;
+
+        LargeGroup(CompactHashMap<Object, Boolean> values) {
+            this.values = values;
+        }
+    }
+
+    private HashMultimap(HashMap<A, Object> groups, int size) {
+        this.groups = groups;
+        this.size = size;
+    }
+
+    /**
+     * Creates an empty HashMultimap using the keys' own {@code hashCode} and {@code equals}.
+     *
+     * @return an empty HashMultimap
+     */
+    public static <A, B> HashMultimap<A, B> empty() {
+        return empty(HashStrategy.natural());
+    }
+
+    /**
+     * Creates an empty HashMultimap hashing and comparing its keys according to the given strategy.
+     *
+     * @param strategy the strategy used to hash and compare keys
+     * @return an empty HashMultimap
+     */
+    public static <A, B> HashMultimap<A, B> empty(HashStrategy<A> strategy) {
+        return new HashMultimap<>(new HashMap<>(strategy), 0);
+    }
+
+    /**
+     * Returns the number of key-value pairs in the multimap.
+     *
+     * @return the total number of values over all keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct keys in the multimap.
+     *
+     * @return the number of keys with at least one value
+     */
+    public int keyCount() {
+        return groups.size();
+    }
+
+    /**
+     * Checks if the multimap is empty.
+     *
+     * @return true if the multimap contains no values, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether the specified key has at least one value.
+     *
+     * @param key the key whose presence is to be tested
+     * @return true if the key is present, false otherwise
+     */
+    public boolean containsKey(A key) {
+        return groups.containsKey(key);
+    }
+
+    /**
+     * Checks whether the specified value is associated with the specified key.
+     *
+     * @param key the key to look up
+     * @param value the value to look for
+     * @return true if the key holds the value, false otherwise
+     */
+    public boolean containsEntry(A key, B value) {
+        return groups.get(key).map(group -> contains(group, value)).getOrElse(false);
+    }
+
+    /**
+     * Returns the number of values associated with the specified key, in constant time.
+     *
+     * @param key the key to look up
+     * @return the number of values of the key, or 0 if the key is not present
+     */
+    public int valueCount(A key) {
+        return groups.get(key).map(HashMultimap::count).getOrElse(0);
+    }
+
+    /**
+     * Retrieves the values associated with the specified key.
+     *
+     * @param key the key to look up
+     * @return the values of the key in no particular order, or an empty list if the key is not present
+     */
+    public List<B> get(A key) {
+        return groups.get(key).map(this::values).getOrElse(List.empty());
+    }
+
+    /**
+     * Associates a value with the specified key. If the key already holds an equal value, this
+     * multimap itself is returned.
+     *
+     * @param key the key to which the value is to be added
+     * @param value the value to be added; must not be null
+     * @return an {@code Either<Throwable, HashMultimap<A, B>>} where the right side contains the updated multimap,
+     *         or the left side contains a {@code Throwable} if the value is null or an error occurred
+     */
+    public Either<Throwable, HashMultimap<A, B>> put(A key, B value) {
+        if (value == null) return Either.left(new IllegalArgumentException("Values of a HashMultimap must not be null"));
+
+        Object group = groups.get(key).getOrNull();
+        if (group == null) return groups.put(key, value).map(updated -> new HashMultimap<>(updated, size + 1));
+        if (contains(group, value)) return Either.right(this);
+
+        Either<Throwable, Object> added = switch (group) {
+            case SmallGroup small when small.values.length == SMALL_GROUP -> {
+                CompactHashMap<Object, Boolean> values = CompactHashMap.empty();
+                Either<Throwable, CompactHashMap<Object, Boolean>> result = values.put(value, true);
+                for (Object existing : small.values) result = result.flatMap(set -> set.put(existing, true));
+                yield result.map(LargeGroup::new);
+            }
+            case SmallGroup small -> {
+                Object[] values = Arrays.copyOf(small.values, small.values.length + 1);
+                values[small.values.length] = value;
+                yield Either.right(new SmallGroup(values));
+            }
+            case LargeGroup large -> large.values.put(value, true).map(LargeGroup::new);
+            default -> Either.right(new SmallGroup(new Object[] { group, value }));
+        };
+        return added.flatMap(updated -> groups.put(key, updated)).map(updated -> new HashMultimap<>(updated, size + 1));
+    }
+
+    /**
+     * Removes a value from the specified key, and the key itself once it holds no more values.
+     * If the key does not hold the value, this multimap itself is returned.
+     *
+     * @param key the key from which the value is to be removed
+     * @param value the value to be removed
+     * @return an {@code Either<Throwable, HashMultimap<A, B>>} where the right side contains the updated multimap,
+     *         or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, HashMultimap<A, B>> remove(A key, B value) {
+        Object group = groups.get(key).getOrNull();
+        if (group == null || !contains(group, value)) return Either.right(this);
+
+        Either<Throwable, HashMap<A, Object>> removed = switch (group) {
+            case SmallGroup small when small.values.length == 2 ->
+                    groups.put(key, Objects.equals(small.values[0], value) ? small.values[1] : small.values[0]);
+            case SmallGroup small -> {
+                Object[] values = new Object[small.values.length - 1];
+                int index = 0;
+                for (Object existing : small.values) {
+                    if (!Objects.equals(existing, value)) values[index++] = existing;
+                }
+                yield groups.put(key, new SmallGroup(values));
+            }
+            case LargeGroup large -> large.values.remove(value).flatMap(values -> {
+                if (values.size() > SMALL_GROUP / 2) return groups.put(key, new LargeGroup(values));
+                ArrayList<Object> remaining = new ArrayList<>(values.size());
+                values.forEach((existing, present) -> remaining.add(existing));
+                return groups.put(key, new SmallGroup(remaining.toArray()));
+            });
+            default -> groups.remove(key);
+        };
+        return removed.map(updated -> new HashMultimap<>(updated, size - 1));
+    }
+
+    /**
+     * Removes the specified key with all its values.
+     *
+     * @param key the key to be removed
+     * @return an {@code Either<Throwable, HashMultimap<A, B>>} where the right side contains the updated multimap,
+     *         or this multimap if the key is not present, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, HashMultimap<A, B>> removeAll(A key) {
+        int count = valueCount(key);
+        if (count == 0) return Either.right(this);
+        return groups.remove(key).map(updated -> new HashMultimap<>(updated, size - count));
+    }
+
+    /**
+     * Performs the given action for each key-value pair, grouped by key in the order of the trie.
+     *
+     * @param action the action to be performed for each key and value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super A, ? super B> action) {
+        groups.forEach((key, group) -> {
+            switch (group) {
+                case SmallGroup small -> {
+                    for (Object value : small.values) action.accept(key, (B) value);
+                }
+                case LargeGroup large -> large.values.forEach((value, present) -> action.accept(key, (B) value));
+                default -> action.accept(key, (B) group);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<B> values(Object group) {
+        return switch (group) {
+            case SmallGroup small -> (List<B>) (List<?>) List.of(small.values);
+            case LargeGroup large -> {
+                ArrayList<B> values = new ArrayList<>(large.values.size());
+                large.values.forEach((value, present) -> values.add((B) value));
+                yield List.ofAll(values);
+            }
+            default -> List.of((B) group);
+        };
+    }
+
+    private static int count(Object group) {
+        return switch (group) {
+            case SmallGroup small -> small.values.length;
+            case LargeGroup large -> large.values.size();
+            default -> 1;
+        };
+    }
+
+    private static boolean contains(Object group, Object value) {
+        return switch (group) {
+            case SmallGroup small -> {
+                for (Object existing : small.values) {
+                    if (Objects.equals(existing, value)) yield true;
+                }
+                yield false;
+            }
+            case LargeGroup large -> large.values.containsKey(value);
+            default -> Objects.equals(group, value);
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package dev.schakr.map;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The built-in strategies and hash functions backing the factories of {@link HashStrategy}.
+ */
+final class HashStrategies {
+    static final HashStrategy<Object> NATURAL = new HashStrategy<>() {
+        @Override
+        public int hash(Object key) {
+            if (key == null) return 0;
+            int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object a, Object b) {
+            return Objects.equals(a, b);
+        }
+    };
+
+    static final HashStrategy<Object> IDENTITY = new HashStrategy<>() {
+        @Override
+        public int hash(Object key) {
+            int h = System.identityHashCode(key);
+            return h ^ (h >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object a, Object b) {
+            return a == b;
+        }
+    };
+
+    static final HashStrategy<String> CASE_INSENSITIVE = new HashStrategy<>() {
+        @Override
+        public int hash(String key) {
+            if (key == null) return 0;
+            int h = 0;
+            for (int i = 0; i < key.length(); i++) {
+                h = 31 * h + Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+            }
+            return h ^ (h >>> 16);
+        }
+
+        @Override
+        public boolean equals(String a, String b) {
+            return (a == null) ? b == null : a.equalsIgnoreCase(b);
+        }
+    };
+
+    static final HashStrategy<byte[]> BYTE_ARRAY = new HashStrategy<>() {
+        @Override
+        public int hash(byte[] key) {
+            int h = Arrays.hashCode(key);
+            return h ^ (h >>> 16);
+        }
+
+        @Override
+        public boolean equals(byte[] a, byte[] b) {
+            return Arrays.equals(a, b);
+        }
+    };
+
+    /**
+     * Mixes the hashes of a delegate strategy with a seed. Being a record, it is equal to every
+     * other instance seeding an equal delegate with the same seed.
+     */
+    record Seeded<A>(HashStrategy<A> delegate, int seed) implements HashStrategy<A> {
+        @Override
+        public int hash(A key) {
+            return fmix32(delegate.hash(key) ^ seed);
+        }
+
+        @Override
+        public boolean equals(A a, A b) {
+            return delegate.equals(a, b);
+        }
+    }
+
+    /**
+     * Hashes the characters of strings with the seeded murmur3 hash function, equal to every other
+     * instance with the same seed.
+     */
+    record SeededStrings(int seed) implements HashStrategy<String> {
+        @Override
+        public int hash(String key) {
+            return (key == null) ? 0 : murmur3(key, seed);
+        }
+
+        @Override
+        public boolean equals(String a, String b) {
+            return Objects.equals(a, b);
+        }
+    }
+
+    private HashStrategies() {}
+
+    /**
+     * The finalization mix of murmur3, forcing all bits of a hash to avalanche.
+     */
+    static int fmix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * The 32-bit murmur3 hash of the UTF-16 code units of a string, two code units per block.
+     */
+    static int murmur3(String key, int seed) {
+        int h = seed;
+        int length = key.length();
+        for (int i = 1; i < length; i += 2) {
+            h = mixH1(h, mixK1(key.charAt(i - 1) | (key.charAt(i) << 16)));
+        }
+        if ((length & 1) == 1) h ^= mixK1(key.charAt(length - 1));
+        return fmix32(h ^ (2 * length));
+    }
+
+    private static int mixK1(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        return k * 0x1b873593;
+    }
+
+    private static int mixH1(int h, int k) {
+        h ^= k;
+        h = Integer.rotateLeft(h, 13);
+        return h * 5 + 0xe6546b64;
+    }
+}
@@ -0,0 +1,123 @@
+package dev.schakr.map;
+
+import java.security.SecureRandom;
+
+/**
+ * Defines how a HashMap hashes and compares its keys. A strategy allows keys to be matched by
+ * something other than their own {@code hashCode} and {@code equals}, e.g. by identity, ignoring
+ * case, or by the contents of an array, and allows weakly distributed hash codes to be mixed
+ * before they are used to select branches in the trie.
+ * <p>
+ * Implementations must be consistent: keys that are equal according to {@link #equals(Object, Object)}
+ * must have the same {@link #hash(Object)}.
+ * <p>
+ * Maps can only be merged, compared and diffed node by node if their strategies are equal according
+ * to {@link Object#equals(Object)}. The built-in strategies are either singletons or equal whenever
+ * they are created with equal arguments, so e.g. two calls of {@link #murmur3(HashStrategy)} on the
+ * natural strategy return equal strategies. Custom strategies are only equal to themselves unless
+ * they override {@code equals(Object)} and {@code hashCode()}.
+ *
+ * @param <A> the type of keys hashed and compared by this strategy
+ */
+public interface HashStrategy<A> {
+
+    /**
+     * Computes the full 32-bit hash of the given key.
+     *
+     * @param key the key to be hashed; can be null
+     * @return the hash of the key
+     */
+    int hash(A key);
+
+    /**
+     * Checks whether two keys are equivalent under this strategy.
+     *
+     * @param a the first key; can be null
+     * @param b the second key; can be null
+     * @return true if the keys are equivalent, false otherwise
+     */
+    boolean equals(A a, A b);
+
+    /**
+     * Uses the keys' own {@code hashCode} and {@code equals}. The upper half of the hash code is
+     * folded into the lower half, since the lowest bits select the branch at the root of the trie.
+     */
+    @SuppressWarnings("unchecked")
+    static <A> HashStrategy<A> natural() {
+        return (HashStrategy<A>) HashStrategies.NATURAL;
+    }
+
+    /**
+     * Compares keys by reference and hashes them with {@link System#identityHashCode(Object)}.
+     */
+    @SuppressWarnings("unchecked")
+    static <A> HashStrategy<A> identity() {
+        return (HashStrategy<A>) HashStrategies.IDENTITY;
+    }
+
+    /**
+     * Compares strings ignoring case, in the same way as {@link String#equalsIgnoreCase(String)}.
+     */
+    static HashStrategy<String> caseInsensitive() {
+        return HashStrategies.CASE_INSENSITIVE;
+    }
+
+    /**
+     * Compares byte arrays by their contents rather than by reference.
+     */
+    static HashStrategy<byte[]> byteArray() {
+        return HashStrategies.BYTE_ARRAY;
+    }
+
+    /**
+     * Mixes the hashes of the given strategy with the murmur3 finalizer, so that every bit of the
+     * original hash affects every bit of the mixed hash. Useful for keys whose hash codes only
+     * differ in a few (e.g. the upper) bits.
+     *
+     * @param strategy the strategy whose hashes are to be mixed
+     * @return a strategy comparing keys like the given one, with mixed hashes
+     */
+    static <A> HashStrategy<A> murmur3(HashStrategy<A> strategy) {
+        return seeded(strategy, 0);
+    }
+
+    /**
+     * Mixes the hashes of the given strategy with a seed before applying the murmur3 finalizer.
+     * The position of a key in the trie then depends on the seed, so an attacker not knowing the
+     * seed cannot choose keys that pile up along the same path. Keys whose hash codes fully
+     * collide under the given strategy still collide; use {@link #seededStrings(int)} to defend
+     * string keys against such collisions.
+     *
+     * @param strategy the strategy whose hashes are to be mixed
+     * @param seed the seed mixed into every hash
+     * @return a strategy comparing keys like the given one, with seeded hashes
+     */
+    static <A> HashStrategy<A> seeded(HashStrategy<A> strategy, int seed) {
+        return new HashStrategies.Seeded<>(strategy, seed);
+    }
+
+    /**
+     * Seeds the given strategy with a random seed. Note that maps built with a randomized strategy
+     * lay out their tries differently in every JVM, so they cannot be shared through a
+     * {@link MappedHashMap} file unless the same strategy is used to read it.
+     *
+     * @param strategy the strategy whose hashes are to be mixed
+     * @return a strategy comparing keys like the given one, with randomly seeded hashes
+     */
+    static <A> HashStrategy<A> randomized(HashStrategy<A> strategy) {
+        return seeded(strategy, new SecureRandom().nextInt());
+    }
+
+    /**
+     * Hashes the characters of strings with the seeded murmur3 hash function instead of
+     * {@link String#hashCode()}. Unlike {@link #seeded(HashStrategy, int)}, strings with colliding
+     * hash codes are spread out as well, which protects maps keyed by untrusted strings against
+     * hash-flooding.
+     *
+     * @param seed the seed of the hash function
+     * @return a strategy comparing strings by their contents, with seeded hashes
+     */
+    static HashStrategy<String> seededStrings(int seed) {
+        return new HashStrategies.SeededStrings(seed);
+    }
+}
@@ -14,6 +14,12 @@ class IndirectionNode<A, B> implements Node<A, B> {
     final List<Node<A, B>> nodes;
     final int bitmap;
 
+    /**
+     * The digest of this subtree, memoized by {@link HashMapDigests} on first use. Nodes are never
+     * modified, so the digest stays valid for as long as it was computed by the same digest function.
+     */
+    HashMapDigests.SubtreeDigest digest;
+
     final static IndirectionNode<?, ?> EMPTY = new IndirectionNode<>();
 
     @SuppressWarnings("unchecked")
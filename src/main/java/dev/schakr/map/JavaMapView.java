@@ -0,0 +1,170 @@
+package dev.schakr.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A read-only {@code java.util.Map} backed by the trie of a {@link HashMap}, or by the array of a
+ * small one. Lookups and iteration read the trie or the array directly, so creating the view and passing it around copies no entries. Mutating
+ * methods inherited from {@code AbstractMap} throw {@code UnsupportedOperationException}.
+ * <p>
+ * Keys of the wrong type are reported as absent, rather than failing inside the hash strategy.
+ *
+ * @param <A> the type of keys of the view
+ * @param <B> the type of values of the view
+ */
+final class JavaMapView<A, B> extends AbstractMap<A, B> {
+    private final HashMap<A, B> map;
+    private Set<Map.Entry<A, B>> entrySet;
+
+    JavaMapView(HashMap<A, B> map) {
+        this.map = map;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsKey(Object key) {
+        try {
+            return map.containsKey((A) key);
+        } catch (ClassCastException e) {
+            return false;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public B get(Object key) {
+        try {
+            return map.get((A) key).getOrNull();
+        } catch (ClassCastException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super A, ? super B> action) {
+        map.forEach(action);
+    }
+
+    @Override
+    public Set<Map.Entry<A, B>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<A, B>> iterator() {
+                    return (map.entries != null) ? new ArrayIterator<>(map.entries) : new EntryIterator<>(map.root);
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Iterates the alternating keys and values of a small map.
+     */
+    private static final class ArrayIterator<A, B> implements Iterator<Map.Entry<A, B>> {
+        private final Object[] entries;
+        private int index;
+
+        ArrayIterator(Object[] entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < entries.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<A, B> next() {
+            if (index == entries.length) throw new NoSuchElementException();
+            Map.Entry<A, B> entry = new SimpleImmutableEntry<>((A) entries[index], (B) entries[index + 1]);
+            index += 2;
+            return entry;
+        }
+    }
+
+    /**
+     * Iterates the entries of a trie depth-first, keeping the iterators of the indirection nodes on
+     * the path to the current node on a stack.
+     */
+    private static final class EntryIterator<A, B> implements Iterator<Map.Entry<A, B>> {
+        private final ArrayDeque<Iterator<Node<A, B>>> path = new ArrayDeque<>();
+        private CollisionNode<A, B> collision;
+        private int collisionIndex;
+        private LeafNode<A, B> next;
+
+        EntryIterator(IndirectionNode<A, B> root) {
+            path.push(root.nodes.iterator());
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null || collision != null;
+        }
+
+        @Override
+        public Map.Entry<A, B> next() {
+            if (collision != null) {
+                Map.Entry<A, B> entry = new SimpleImmutableEntry<>(collision.keys[collisionIndex], collision.vals[collisionIndex]);
+                if (++collisionIndex == collision.size()) {
+                    collision = null;
+                    advance();
+                }
+                return entry;
+            }
+            if (next == null) throw new NoSuchElementException();
+
+            Map.Entry<A, B> entry = new SimpleImmutableEntry<>(next.key, next.value);
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            next = null;
+            while (!path.isEmpty()) {
+                Iterator<Node<A, B>> children = path.peek();
+                if (!children.hasNext()) {
+                    path.pop();
+                    continue;
+                }
+                switch (children.next()) {
+                    case IndirectionNode<A, B> indirectionNode -> path.push(indirectionNode.nodes.iterator());
+                    case LeafNode<A, B> leafNode -> {
+                        next = leafNode;
+                        return;
+                    }
+                    case CollisionNode<A, B> collisionNode -> {
+                        collision = collisionNode;
+                        collisionIndex = 0;
+                        return;
+                    }
+                    default -> {}
+                }
+            }
+        }
+    }
+}
@@ -4,7 +4,9 @@ package dev.schakr.map;
  * Represents a leaf node in a tree-like structure, holding a key and its associated value.
  *
  * This class is a concrete implementation of the {@code Node} interface and is used
- * to store key-value pairs. A leaf node is not considered empty.
+ * to store key-value pairs. A leaf node is not considered empty. The full hash of the key
+ * is stored alongside it, so that splits and comparisons never need to call
+ * {@code hashCode()} on the key again.
  *
  * @param <A> the type of the key
  * @param <B> the type of the value
@@ -12,10 +14,28 @@ package dev.schakr.map;
 class LeafNode<A, B> implements Node<A, B> {
     final A key;
     final B value;
+    final int hash;
 
     LeafNode(A a, B b) {
+        this(a, b, HashStrategy.<A>natural().hash(a));
+    }
+
+    LeafNode(A a, B b, int hash) {
         this.key = a;
         this.value = b;
+        this.hash = hash;
+    }
+
+    /**
+     * Checks whether this leaf holds the given key, comparing the stored hashes before the keys.
+     *
+     * @param key the key to compare against
+     * @param keyHash the full hash of the given key
+     * @param strategy the strategy used to compare the keys
+     * @return true if this leaf holds the given key, false otherwise
+     */
+    boolean matches(A key, int keyHash, HashStrategy<A> strategy) {
+        return hash == keyHash && strategy.equals(this.key, key);
     }
 
     @Override
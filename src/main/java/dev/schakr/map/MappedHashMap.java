@@ -0,0 +1,370 @@
+package dev.schakr.map;
+
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * A read-only view of a HashMap backed by a memory-mapped file. The trie layout of the
+ * original HashMap is kept in place on disk, so lookups walk the bitmaps and child offsets
+ * in the mapped memory without deserializing any nodes into the Java heap. Only the value
+ * of a matching entry is decoded.
+ * <p>
+ * Opening a map is constant time regardless of its size, and since the mapping is read-only,
+ * the same file can be shared across JVMs through the operating system page cache.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * header      : int magic, int version
+ * indirection : byte tag, int bitmap, long[bitCount(bitmap)] childOffsets
+ * leaf        : byte tag, int hash, int keyLength, int valueLength, byte[] key, byte[] value
+ * collision   : byte tag, int count, leaf[count]
+ * trailer     : long rootOffset
+ * </pre>
+ * Children are written before their parents, so every offset points backwards in the file.
+ * <p>
+ * The layout depends on the {@link HashStrategy} of the written map, so the file must be opened
+ * with an equivalent strategy. Keys are first compared by their encoded bytes; if the strategy is
+ * not the natural one, candidates with a matching hash are also decoded and compared by the strategy.
+ *
+ * @param <A> the type of keys in the map
+ * @param <B> the type of values in the map
+ */
+public final class MappedHashMap<A, B> implements AutoCloseable {
+    private static final int MAGIC = 0x48414D54;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final byte INDIRECTION = 1;
+    private static final byte LEAF = 2;
+    private static final byte COLLISION = 3;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final Codec<A> keyCodec;
+    private final Codec<B> valueCodec;
+    private final HashStrategy<A> strategy;
+    private final long root;
+
+    private MappedHashMap(Arena arena, MemorySegment segment, Codec<A> keyCodec, Codec<B> valueCodec,
+                          HashStrategy<A> strategy, long root) {
+        this.arena = arena;
+        this.segment = segment;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.strategy = strategy;
+        this.root = root;
+    }
+
+    /**
+     * Writes the trie of the given HashMap to the specified file, replacing any existing content.
+     *
+     * @param map the HashMap to be written
+     * @param path the file to write the map to
+     * @param keyCodec the codec used to encode the keys of the map
+     * @param valueCodec the codec used to encode the values of the map
+     * @return an {@code Either<Throwable, Path>} where the right side contains the written path
+     *         if the operation was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public static <A, B> Either<Throwable, Path> write(HashMap<A, B> map, Path path,
+                                                       Codec<A> keyCodec, Codec<B> valueCodec) {
+        return Try.of(() -> {
+            try (CountingOutputStream counter = new CountingOutputStream(Files.newOutputStream(path));
+                 DataOutputStream out = new DataOutputStream(counter)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                long rootOffset = writeNode(map.root(), out, counter, keyCodec, valueCodec);
+                out.writeLong(rootOffset);
+            }
+            return path;
+        }).toEither();
+    }
+
+    /**
+     * Maps the specified file into memory and returns a read-only view over it. The file must
+     * have been created by {@link #write(HashMap, Path, Codec, Codec)} using equivalent codecs.
+     *
+     * @param path the file containing the map
+     * @param keyCodec the codec used to encode the keys of the map
+     * @param valueCodec the codec used to decode the values of the map
+     * @return an {@code Either<Throwable, MappedHashMap<A, B>>} where the right side contains the mapped view
+     *         if the operation was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public static <A, B> Either<Throwable, MappedHashMap<A, B>> open(Path path, Codec<A> keyCodec,
+                                                                    Codec<B> valueCodec) {
+        return open(path, keyCodec, valueCodec, HashStrategy.natural());
+    }
+
+    /**
+     * Maps the specified file into memory and returns a read-only view over it. The file must
+     * have been created by {@link #write(HashMap, Path, Codec, Codec)} from a map using an
+     * equivalent strategy, and using equivalent codecs.
+     *
+     * @param path the file containing the map
+     * @param keyCodec the codec used to encode the keys of the map
+     * @param valueCodec the codec used to decode the values of the map
+     * @param strategy the strategy used to hash and compare the keys of the map
+     * @return an {@code Either<Throwable, MappedHashMap<A, B>>} where the right side contains the mapped view
+     *         if the operation was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public static <A, B> Either<Throwable, MappedHashMap<A, B>> open(Path path, Codec<A> keyCodec,
+                                                                    Codec<B> valueCodec, HashStrategy<A> strategy) {
+        Arena arena = Arena.ofShared();
+        return Try.of(() -> {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_SIZE + Long.BYTES)
+                    throw new IOException("File is too small to contain a mapped HashMap: " + path);
+
+                MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+                if (segment.get(INT, 0) != MAGIC || segment.get(INT, Integer.BYTES) != VERSION)
+                    throw new IOException("File does not contain a mapped HashMap: " + path);
+
+                long root = segment.get(LONG, size - Long.BYTES);
+                return new MappedHashMap<>(arena, segment, keyCodec, valueCodec, strategy, root);
+            }
+        }).onFailure(_ -> arena.close()).toEither();
+    }
+
+    /**
+     * Checks if the mapped HashMap is empty.
+     *
+     * @return true if the map contains no entries, false otherwise
+     */
+    public boolean isEmpty() {
+        return segment.get(ValueLayout.JAVA_BYTE, root) == INDIRECTION && segment.get(INT, root + 1) == 0;
+    }
+
+    /**
+     * Checks whether the specified key is present in the mapped HashMap.
+     *
+     * @param key the key whose presence in the map is to be tested
+     * @return true if the map contains the specified key, false otherwise
+     */
+    public boolean containsKey(A key) {
+        return findLeaf(key) >= 0;
+    }
+
+    /**
+     * Retrieves the value associated with the specified key, if it exists in the mapped HashMap.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return an {@code Option<B>} containing the value associated with the key if it exists,
+     *         or {@code Option.none()} if the key is not found
+     */
+    public Option<B> get(A key) {
+        long leaf = findLeaf(key);
+        if (leaf < 0) return Option.none();
+
+        int keyLength = segment.get(INT, leaf + 5);
+        int valueLength = segment.get(INT, leaf + 9);
+        long valueOffset = leaf + 13 + keyLength;
+        return Option.of(valueCodec.decode(segment.asSlice(valueOffset, valueLength).toArray(ValueLayout.JAVA_BYTE)));
+    }
+
+    /**
+     * Performs the given action for each entry in the mapped HashMap, decoding every key and value.
+     *
+     * @param action the action to be performed for each entry
+     */
+    public void forEach(BiConsumer<? super A, ? super B> action) {
+        forEach(root, action);
+    }
+
+    /**
+     * Unmaps the underlying file. Any further access to this map will fail.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Walks the mapped trie along the hash of the given key and returns the offset of the leaf
+     * record holding the key.
+     *
+     * @param key the key to look up
+     * @return the offset of the matching leaf record, or -1 if the key is not present
+     */
+    private long findLeaf(A key) {
+        MemorySegment probe = MemorySegment.ofArray(keyCodec.encode(key));
+        int hash = strategy.hash(key);
+        long offset = root;
+
+        for (int level = 0; ; level++) {
+            switch (segment.get(ValueLayout.JAVA_BYTE, offset)) {
+                case INDIRECTION -> {
+                    int bitmap = segment.get(INT, offset + 1);
+                    int levelHash = HashMap.hashAtLevel(hash, level);
+                    if (((bitmap >> levelHash) & 1) == 0) return -1;
+                    int index = Integer.bitCount(bitmap & ((1 << levelHash) - 1));
+                    offset = segment.get(LONG, offset + 5 + (long) Long.BYTES * index);
+                }
+                case LEAF -> {
+                    return matchesLeaf(offset, key, hash, probe) ? offset : -1;
+                }
+                case COLLISION -> {
+                    int count = segment.get(INT, offset + 1);
+                    long leaf = offset + 5;
+                    for (int i = 0; i < count; i++) {
+                        if (matchesLeaf(leaf, key, hash, probe)) return leaf;
+                        leaf += 13 + segment.get(INT, leaf + 5) + segment.get(INT, leaf + 9);
+                    }
+                    return -1;
+                }
+                default -> throw new IllegalStateException("Encountered unexpected record tag at offset " + offset);
+            }
+        }
+    }
+
+    private void forEach(long offset, BiConsumer<? super A, ? super B> action) {
+        switch (segment.get(ValueLayout.JAVA_BYTE, offset)) {
+            case INDIRECTION -> {
+                int children = Integer.bitCount(segment.get(INT, offset + 1));
+                for (int i = 0; i < children; i++)
+                    forEach(segment.get(LONG, offset + 5 + (long) Long.BYTES * i), action);
+            }
+            case LEAF -> decodeLeaf(offset, action);
+            case COLLISION -> {
+                int count = segment.get(INT, offset + 1);
+                long leaf = offset + 5;
+                for (int i = 0; i < count; i++) leaf = decodeLeaf(leaf, action);
+            }
+            default -> throw new IllegalStateException("Encountered unexpected record tag at offset " + offset);
+        }
+    }
+
+    /**
+     * Decodes the leaf record at the given offset and passes its entry to the given action.
+     *
+     * @return the offset of the record directly following the leaf
+     */
+    private long decodeLeaf(long offset, BiConsumer<? super A, ? super B> action) {
+        int keyLength = segment.get(INT, offset + 5);
+        int valueLength = segment.get(INT, offset + 9);
+        long keyOffset = offset + 13;
+        A key = keyCodec.decode(segment.asSlice(keyOffset, keyLength).toArray(ValueLayout.JAVA_BYTE));
+        B value = valueCodec.decode(segment.asSlice(keyOffset + keyLength, valueLength).toArray(ValueLayout.JAVA_BYTE));
+        action.accept(key, value);
+        return keyOffset + keyLength + valueLength;
+    }
+
+    /**
+     * Compares the leaf record at the given offset against a key, checking the stored hash
+     * before the key bytes. The stored key is only decoded if the bytes differ and the
+     * strategy of the map may still consider the keys equivalent.
+     *
+     * @param offset the offset of the leaf record
+     * @param key the probed key
+     * @param hash the full hash of the probed key
+     * @param probe the encoded probed key
+     * @return true if the leaf holds the probed key, false otherwise
+     */
+    private boolean matchesLeaf(long offset, A key, int hash, MemorySegment probe) {
+        if (segment.get(INT, offset + 1) != hash) return false;
+        int keyLength = segment.get(INT, offset + 5);
+        long keyOffset = offset + 13;
+        if (keyLength == probe.byteSize() &&
+                MemorySegment.mismatch(segment, keyOffset, keyOffset + keyLength, probe, 0, keyLength) == -1)
+            return true;
+        if (strategy == HashStrategy.natural()) return false;
+
+        A stored = keyCodec.decode(segment.asSlice(keyOffset, keyLength).toArray(ValueLayout.JAVA_BYTE));
+        return strategy.equals(stored, key);
+    }
+
+    /**
+     * Writes the given node and all of its descendants in post-order.
+     *
+     * @return the offset at which the given node was written
+     */
+    private static <A, B> long writeNode(Node<A, B> node, DataOutputStream out, CountingOutputStream counter,
+                                         Codec<A> keyCodec, Codec<B> valueCodec) throws IOException {
+        switch (node) {
+            case IndirectionNode<A, B> indirectionNode -> {
+                long[] offsets = new long[indirectionNode.nodes.size()];
+                int i = 0;
+                for (Node<A, B> child : indirectionNode.nodes) {
+                    offsets[i++] = writeNode(child, out, counter, keyCodec, valueCodec);
+                }
+
+                long offset = counter.count;
+                out.writeByte(INDIRECTION);
+                out.writeInt(indirectionNode.bitmap);
+                for (long childOffset : offsets) out.writeLong(childOffset);
+                return offset;
+            }
+            case LeafNode<A, B> leafNode -> {
+                long offset = counter.count;
+                writeLeaf(leafNode.key, leafNode.value, leafNode.hash, out, keyCodec, valueCodec);
+                return offset;
+            }
+            case CollisionNode<A, B> collisionNode -> {
+                long offset = counter.count;
+                out.writeByte(COLLISION);
+                out.writeInt(collisionNode.size());
+                for (int i = 0; i < collisionNode.size(); i++) {
+                    writeLeaf(collisionNode.keys[i], collisionNode.vals[i], collisionNode.hashes[i],
+                            out, keyCodec, valueCodec);
+                }
+                return offset;
+            }
+            default -> throw new IllegalStateException(
+                    "Encountered unexpected node type: " + node.getClass().getSimpleName());
+        }
+    }
+
+    private static <A, B> void writeLeaf(A key, B value, int hash, DataOutputStream out,
+                                         Codec<A> keyCodec, Codec<B> valueCodec) throws IOException {
+        byte[] keyBytes = keyCodec.encode(key);
+        byte[] valueBytes = valueCodec.encode(value);
+        out.writeByte(LEAF);
+        out.writeInt(hash);
+        out.writeInt(keyBytes.length);
+        out.writeInt(valueBytes.length);
+        out.write(keyBytes);
+        out.write(valueBytes);
+    }
+
+    /**
+     * An output stream keeping track of the number of bytes written as a {@code long}, since
+     * {@link DataOutputStream#size()} overflows for files larger than 2GB.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(new BufferedOutputStream(out, 1 << 16));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.schakr.map;
+
+import io.vavr.control.Either;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recording the path copy of a single HashMap update. The event is disabled unless a
+ * recording enables {@code dev.schakr.map.PathCopy}, in which case counting the copied nodes costs
+ * a walk along the changed path of the trie.
+ */
+@Name("dev.schakr.map.PathCopy")
+@Label("HashMap Path Copy")
+@Category({ "ReinventingImmutable", "HashMap" })
+@Description("Nodes allocated by a HashMap update")
+class PathCopyEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Nodes Copied")
+    int nodesCopied;
+
+    @Label("Bytes Copied")
+    @DataAmount
+    long bytesCopied;
+
+    /**
+     * Creates an event and starts timing the operation it describes.
+     *
+     * @return the started event
+     */
+    static PathCopyEvent start() {
+        PathCopyEvent event = new PathCopyEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Completes the event with the nodes copied from {@code before} to the resulting map and commits it,
+     * if the event is enabled and the operation succeeded.
+     *
+     * @param operation the name of the operation
+     * @param before the map the operation was applied to
+     * @param result the result of the operation
+     * @return the given result
+     */
+    <A, B> Either<Throwable, HashMap<A, B>> end(String operation, HashMap<A, B> before,
+                                               Either<Throwable, HashMap<A, B>> result) {
+        end();
+        if (result.isRight() && shouldCommit()) {
+            HashMapStats.Sharing sharing = HashMapStats.sharing(result.get(), before);
+            this.operation = operation;
+            this.nodesCopied = (int) sharing.uniqueNodes();
+            this.bytesCopied = sharing.uniqueBytes();
+            commit();
+        }
+        return result;
+    }
+}
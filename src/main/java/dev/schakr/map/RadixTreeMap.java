@@ -0,0 +1,654 @@
+package dev.schakr.map;
+
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map keyed by byte strings, stored in a persistent adaptive radix tree (ART). Keys are
+ * encoded with a {@link Codec}, e.g. {@link Codec#utf8()} for strings, and looked up byte by byte
+ * instead of being hashed, so a lookup reads the key once and stops at the first byte that leaves
+ * the tree.
+ * <p>
+ * Each inner node branches on one byte and adapts its layout to its number of children: up to 4 and
+ * up to 16 children are kept in sorted arrays of key bytes and children, up to 48 in a 256-entry
+ * index into an array of children, and more in a direct array of 256 children. Chains of nodes with a
+ * single child are collapsed into a prefix stored in the next node, and every leaf stores only the
+ * bytes of its key below its parent. A prefix shared by many keys, such as the scheme and host of
+ * URLs, is therefore stored once, and no key object is kept at all.
+ * <p>
+ * Entries are visited in the unsigned lexicographic order of the encoded keys, which for UTF-8 is
+ * the order of code points. Inner nodes count their entries, so {@link #withPrefix(Object)} returns
+ * the entries under a prefix, with their size, in time proportional to the length of the prefix.
+ * Updates copy the nodes on the path to the key and share all others with the previous version.
+ *
+ * @param <K> the type of keys used in this map
+ * @param <V> the type of values associated with the keys in this map
+ */
+public final class RadixTreeMap<K, V> {
+    private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final Object NO_VALUE = new Object();
+
+    private final Node root;
+    private final Codec<K> codec;
+
+    private RadixTreeMap(Node root, Codec<K> codec) {
+        this.root = root;
+        this.codec = codec;
+    }
+
+    /**
+     * Creates an empty RadixTreeMap encoding its keys with the given codec.
+     *
+     * @param codec the codec encoding keys into the bytes they are ordered and looked up by
+     * @return an empty RadixTreeMap
+     */
+    public static <K, V> RadixTreeMap<K, V> empty(Codec<K> codec) {
+        return new RadixTreeMap<>(null, codec);
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return the number of key-value pairs in the map
+     */
+    public int size() {
+        return (root == null) ? 0 : root.size();
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return true if the map contains no entries, false otherwise
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Checks whether the specified key is present in the map.
+     *
+     * @param key the key whose presence is to be tested
+     * @return true if the map contains the key, false otherwise
+     */
+    public boolean containsKey(K key) {
+        return find(codec.encode(key)) != NO_VALUE;
+    }
+
+    /**
+     * Retrieves the value associated with the specified key, if it exists in the map.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return an {@code Option<V>} containing the value associated with the key if it exists,
+     *         or {@code Option.none()} if the key is not found
+     */
+    @SuppressWarnings("unchecked")
+    public Option<V> get(K key) {
+        Object value = find(codec.encode(key));
+        return (value == NO_VALUE) ? Option.none() : Option.of((V) value);
+    }
+
+    /**
+     * Adds a key-value pair to the map. If the key is already associated with the identical value,
+     * this map itself is returned.
+     *
+     * @param key the key to be added to the map
+     * @param value the value associated with the specified key; can be null
+     * @return an {@code Either<Throwable, RadixTreeMap<K, V>>} where the right side contains the updated map
+     *         if the addition was successful, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, RadixTreeMap<K, V>> put(K key, V value) {
+        return Either.<Throwable, Node>right(put(root, codec.encode(key), 0, value))
+                .map(newRoot -> (newRoot == root) ? this : new RadixTreeMap<>(newRoot, codec));
+    }
+
+    /**
+     * Removes the entry associated with the specified key from the map, if it exists.
+     *
+     * @param key the key whose associated entry is to be removed
+     * @return an {@code Either<Throwable, RadixTreeMap<K, V>>} where the right side contains the updated map,
+     *         or this map if the key is not present, or the left side contains a {@code Throwable} if an error occurred
+     */
+    public Either<Throwable, RadixTreeMap<K, V>> remove(K key) {
+        if (root == null) return Either.right(this);
+        return Either.<Throwable, Node>right(remove(root, codec.encode(key), 0))
+                .map(newRoot -> (newRoot == root) ? this : new RadixTreeMap<>(newRoot, codec));
+    }
+
+    /**
+     * Returns the entries whose encoded keys start with the encoded prefix, as a map sharing its nodes
+     * with this one. Only the nodes on the path to the prefix are visited, so the size of the result is
+     * known without visiting its entries.
+     *
+     * @param prefix the prefix of the keys to be kept
+     * @return a map of the entries under the prefix, or an empty map if there are none
+     */
+    public RadixTreeMap<K, V> withPrefix(K prefix) {
+        byte[] bytes = codec.encode(prefix);
+        Node node = root;
+        int depth = 0;
+        while (node != null) {
+            byte[] part = (node instanceof Inner inner) ? inner.prefix : ((Leaf) node).suffix;
+            int remaining = bytes.length - depth;
+            int common = commonPrefix(part, bytes, depth);
+            if (common < Math.min(part.length, remaining)) return empty(codec);
+            if (remaining <= part.length) return new RadixTreeMap<>(withPath(node, Arrays.copyOf(bytes, depth)), codec);
+
+            depth += part.length;
+            if (!(node instanceof Inner inner)) return empty(codec);
+            node = inner.child(bytes[depth] & 0xff);
+            depth++;
+        }
+        return empty(codec);
+    }
+
+    /**
+     * Performs the given action for each entry in the map, in the order of the encoded keys.
+     *
+     * @param action the action to be performed for each key and value
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) forEach(root, new byte[16], 0, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEach(Node node, byte[] path, int length, BiConsumer<? super K, ? super V> action) {
+        switch (node) {
+            case Leaf leaf -> {
+                byte[] key = Arrays.copyOf(path, length + leaf.suffix.length);
+                System.arraycopy(leaf.suffix, 0, key, length, leaf.suffix.length);
+                action.accept(codec.decode(key), (V) leaf.value);
+            }
+            case Inner inner -> {
+                byte[] extended = path;
+                if (length + inner.prefix.length + 1 > path.length)
+                    extended = Arrays.copyOf(path, Math.max(2 * path.length, length + inner.prefix.length + 1));
+                System.arraycopy(inner.prefix, 0, extended, length, inner.prefix.length);
+                int childLength = length + inner.prefix.length;
+                if (inner.terminal != NO_VALUE) action.accept(codec.decode(Arrays.copyOf(extended, childLength)), (V) inner.terminal);
+                for (int b = inner.nextByte(0); b >= 0; b = inner.nextByte(b + 1)) {
+                    extended[childLength] = (byte) b;
+                    forEach(inner.child(b), extended, childLength + 1, action);
+                }
+            }
+        }
+    }
+
+    private Object find(byte[] key) {
+        Node node = root;
+        int depth = 0;
+        while (node instanceof Inner inner) {
+            if (commonPrefix(inner.prefix, key, depth) < inner.prefix.length) return NO_VALUE;
+            depth += inner.prefix.length;
+            if (depth == key.length) return inner.terminal;
+            node = inner.child(key[depth] & 0xff);
+            depth++;
+        }
+        if (node instanceof Leaf leaf && leaf.suffix.length == key.length - depth &&
+                commonPrefix(leaf.suffix, key, depth) == leaf.suffix.length) return leaf.value;
+        return NO_VALUE;
+    }
+
+    private static Node put(Node node, byte[] key, int depth, Object value) {
+        return switch (node) {
+            case null -> new Leaf(Arrays.copyOfRange(key, depth, key.length), value);
+            case Leaf leaf -> {
+                int common = commonPrefix(leaf.suffix, key, depth);
+                if (common == leaf.suffix.length && depth + common == key.length)
+                    yield (leaf.value == value) ? leaf : new Leaf(leaf.suffix, value);
+
+                Inner split = Node4.EMPTY.withHeader(Arrays.copyOf(leaf.suffix, common), NO_VALUE, 0);
+                split = place(split, leaf.suffix, common, leaf.value);
+                yield place(split, key, depth + common, value);
+            }
+            case Inner inner -> {
+                int common = commonPrefix(inner.prefix, key, depth);
+                if (common < inner.prefix.length) {
+                    Inner split = Node4.EMPTY.withHeader(Arrays.copyOf(inner.prefix, common), NO_VALUE, inner.size);
+                    Inner lowered = inner.withHeader(Arrays.copyOfRange(inner.prefix, common + 1, inner.prefix.length),
+                            inner.terminal, inner.size);
+                    split = split.with(inner.prefix[common] & 0xff, lowered, inner.size);
+                    yield place(split, key, depth + common, value);
+                }
+
+                int end = depth + inner.prefix.length;
+                if (end == key.length) {
+                    if (inner.terminal == value) yield inner;
+                    yield inner.withHeader(inner.prefix, value, inner.size + ((inner.terminal == NO_VALUE) ? 1 : 0));
+                }
+                int b = key[end] & 0xff;
+                Node child = inner.child(b);
+                Node updated = put(child, key, end + 1, value);
+                if (updated == child) yield inner;
+                yield inner.with(b, updated, inner.size - size(child) + updated.size());
+            }
+        };
+    }
+
+    /**
+     * Adds a key that is not yet present below a new split node, either as its terminal value if
+     * the key ends at the node, or as a new leaf.
+     */
+    private static Inner place(Inner split, byte[] key, int end, Object value) {
+        if (end == key.length) return split.withHeader(split.prefix, value, split.size + 1);
+        return split.with(key[end] & 0xff, new Leaf(Arrays.copyOfRange(key, end + 1, key.length), value), split.size + 1);
+    }
+
+    private static Node remove(Node node, byte[] key, int depth) {
+        return switch (node) {
+            case Leaf leaf -> (leaf.suffix.length == key.length - depth &&
+                    commonPrefix(leaf.suffix, key, depth) == leaf.suffix.length) ? null : leaf;
+            case Inner inner -> {
+                if (commonPrefix(inner.prefix, key, depth) < inner.prefix.length) yield inner;
+                int end = depth + inner.prefix.length;
+                if (end == key.length) {
+                    if (inner.terminal == NO_VALUE) yield inner;
+                    yield collapse(inner.withHeader(inner.prefix, NO_VALUE, inner.size - 1));
+                }
+
+                int b = key[end] & 0xff;
+                Node child = inner.child(b);
+                if (child == null) yield inner;
+                Node updated = remove(child, key, end + 1);
+                if (updated == child) yield inner;
+                yield collapse((updated == null) ? inner.without(b, inner.size - 1) : inner.with(b, updated, inner.size - 1));
+            }
+        };
+    }
+
+    /**
+     * Restores path compression after a removal: a node without children becomes a leaf holding its
+     * terminal value, and a node with a single child and no terminal value is merged into the child.
+     */
+    private static Node collapse(Inner inner) {
+        if (inner.childCount() == 0) return (inner.terminal == NO_VALUE) ? null : new Leaf(inner.prefix, inner.terminal);
+        if (inner.childCount() > 1 || inner.terminal != NO_VALUE) return inner;
+
+        int b = inner.nextByte(0);
+        byte[] path = Arrays.copyOf(inner.prefix, inner.prefix.length + 1);
+        path[inner.prefix.length] = (byte) b;
+        return withPath(inner.child(b), path);
+    }
+
+    /**
+     * Prepends the given bytes to the prefix of an inner node or to the suffix of a leaf.
+     */
+    private static Node withPath(Node node, byte[] path) {
+        if (path.length == 0) return node;
+        return switch (node) {
+            case Leaf leaf -> new Leaf(concat(path, leaf.suffix), leaf.value);
+            case Inner inner -> inner.withHeader(concat(path, inner.prefix), inner.terminal, inner.size);
+        };
+    }
+
+    private static int size(Node node) {
+        return (node == null) ? 0 : node.size();
+    }
+
+    /**
+     * Returns the length of the common prefix of {@code part} and the key bytes from {@code depth} on.
+     */
+    private static int commonPrefix(byte[] part, byte[] key, int depth) {
+        int length = Math.min(part.length, key.length - depth);
+        int mismatch = Arrays.mismatch(part, 0, length, key, depth, depth + length);
+        return (mismatch < 0) ? length : mismatch;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static abstract sealed class Node permits Leaf, Inner {
+        abstract int size();
+    }
+
+    /**
+     * A single entry, holding the bytes of its key below its parent.
+     */
+    private static final class Leaf extends Node {
+        final byte[] suffix;
+        final Object value;
+
+        Leaf(byte[] suffix, Object value) {
+            this.suffix = suffix;
+            this.value = value;
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+    }
+
+    /**
+     * A node branching on the byte following its prefix. The terminal value belongs to the key ending
+     * right after the prefix, if any, and the size counts all entries below the node.
+     */
+    private static abstract sealed class Inner extends Node permits SortedInner, Node48, Node256 {
+        final byte[] prefix;
+        final Object terminal;
+        final int size;
+
+        Inner(byte[] prefix, Object terminal, int size) {
+            this.prefix = prefix;
+            this.terminal = terminal;
+            this.size = size;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        abstract int childCount();
+
+        /**
+         * Returns the child for the given byte, or null if there is none.
+         */
+        abstract Node child(int b);
+
+        /**
+         * Returns the smallest byte of a child that is at least {@code from}, or -1 if there is none.
+         */
+        abstract int nextByte(int from);
+
+        /**
+         * Returns a node with the same children and the given prefix, terminal value and size.
+         */
+        abstract Inner withHeader(byte[] prefix, Object terminal, int size);
+
+        /**
+         * Returns a node with the child for the given byte added or replaced, growing into a larger
+         * node type if this one is full.
+         */
+        abstract Inner with(int b, Node child, int size);
+
+        /**
+         * Returns a node without the child for the given byte, shrinking into a smaller node type once
+         * the children fit into it with some room to spare.
+         */
+        abstract Inner without(int b, int size);
+    }
+
+    /**
+     * A node keeping the bytes of its children in a sorted array, searched linearly.
+     */
+    private static abstract sealed class SortedInner extends Inner permits Node4, Node16 {
+        final byte[] keys;
+        final Node[] children;
+
+        SortedInner(byte[] prefix, Object terminal, int size, byte[] keys, Node[] children) {
+            super(prefix, terminal, size);
+            this.keys = keys;
+            this.children = children;
+        }
+
+        abstract int capacity();
+
+        abstract Inner create(byte[] prefix, Object terminal, int size, byte[] keys, Node[] children);
+
+        @Override
+        int childCount() {
+            return keys.length;
+        }
+
+        @Override
+        Node child(int b) {
+            for (int i = 0; i < keys.length; i++) {
+                if ((keys[i] & 0xff) == b) return children[i];
+            }
+            return null;
+        }
+
+        @Override
+        int nextByte(int from) {
+            for (byte key : keys) {
+                if ((key & 0xff) >= from) return key & 0xff;
+            }
+            return -1;
+        }
+
+        @Override
+        Inner withHeader(byte[] prefix, Object terminal, int size) {
+            return create(prefix, terminal, size, keys, children);
+        }
+
+        @Override
+        Inner with(int b, Node child, int size) {
+            int index = 0;
+            while (index < keys.length && (keys[index] & 0xff) < b) index++;
+            if (index < keys.length && (keys[index] & 0xff) == b) {
+                Node[] newChildren = children.clone();
+                newChildren[index] = child;
+                return create(prefix, terminal, size, keys, newChildren);
+            }
+            if (keys.length == capacity()) return grow().with(b, child, size);
+
+            byte[] newKeys = new byte[keys.length + 1];
+            Node[] newChildren = new Node[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newKeys[index] = (byte) b;
+            newChildren[index] = child;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, keys.length - index);
+            return create(prefix, terminal, size, newKeys, newChildren);
+        }
+
+        @Override
+        Inner without(int b, int size) {
+            int index = 0;
+            while ((keys[index] & 0xff) != b) index++;
+            byte[] newKeys = new byte[keys.length - 1];
+            Node[] newChildren = new Node[keys.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, newKeys.length - index);
+            System.arraycopy(children, index + 1, newChildren, index, newKeys.length - index);
+            return (this instanceof Node16 && newKeys.length <= 3) ?
+                    new Node4(prefix, terminal, size, newKeys, newChildren) :
+                    create(prefix, terminal, size, newKeys, newChildren);
+        }
+
+        /**
+         * Converts this full node into the next larger node type with the same children.
+         */
+        private Inner grow() {
+            if (this instanceof Node4) return new Node16(prefix, terminal, size, keys, children);
+            byte[] index = new byte[256];
+            Node[] slots = new Node[48];
+            for (int i = 0; i < keys.length; i++) {
+                index[keys[i] & 0xff] = (byte) (i + 1);
+                slots[i] = children[i];
+            }
+            return new Node48(prefix, terminal, size, index, slots, keys.length);
+        }
+    }
+
+    private static final class Node4 extends SortedInner {
+        static final Node4 EMPTY = new Node4(EMPTY_BYTES, NO_VALUE, 0, EMPTY_BYTES, new Node[0]);
+
+        Node4(byte[] prefix, Object terminal, int size, byte[] keys, Node[] children) {
+            super(prefix, terminal, size, keys, children);
+        }
+
+        @Override
+        int capacity() {
+            return 4;
+        }
+
+        @Override
+        Inner create(byte[] prefix, Object terminal, int size, byte[] keys, Node[] children) {
+            return new Node4(prefix, terminal, size, keys, children);
+        }
+    }
+
+    private static final class Node16 extends SortedInner {
+        Node16(byte[] prefix, Object terminal, int size, byte[] keys, Node[] children) {
+            super(prefix, terminal, size, keys, children);
+        }
+
+        @Override
+        int capacity() {
+            return 16;
+        }
+
+        @Override
+        Inner create(byte[] prefix, Object terminal, int size, byte[] keys, Node[] children) {
+            return new Node16(prefix, terminal, size, keys, children);
+        }
+    }
+
+    /**
+     * A node mapping each byte to a slot of its 48 children, through an index where 0 marks a missing
+     * child and {@code i + 1} the child in slot {@code i}.
+     */
+    private static final class Node48 extends Inner {
+        final byte[] index;
+        final Node[] slots;
+        final int count;
+
+        Node48(byte[] prefix, Object terminal, int size, byte[] index, Node[] slots, int count) {
+            super(prefix, terminal, size);
+            this.index = index;
+            this.slots = slots;
+            this.count = count;
+        }
+
+        @Override
+        int childCount() {
+            return count;
+        }
+
+        @Override
+        Node child(int b) {
+            int slot = index[b];
+            return (slot == 0) ? null : slots[slot - 1];
+        }
+
+        @Override
+        int nextByte(int from) {
+            for (int b = from; b < 256; b++) {
+                if (index[b] != 0) return b;
+            }
+            return -1;
+        }
+
+        @Override
+        Inner withHeader(byte[] prefix, Object terminal, int size) {
+            return new Node48(prefix, terminal, size, index, slots, count);
+        }
+
+        @Override
+        Inner with(int b, Node child, int size) {
+            Node[] newSlots = slots.clone();
+            if (index[b] != 0) {
+                newSlots[index[b] - 1] = child;
+                return new Node48(prefix, terminal, size, index, newSlots, count);
+            }
+            if (count == 48) {
+                Node[] children = new Node[256];
+                for (int key = 0; key < 256; key++) {
+                    if (index[key] != 0) children[key] = slots[index[key] - 1];
+                }
+                children[b] = child;
+                return new Node256(prefix, terminal, size, children, count + 1);
+            }
+
+            int free = 0;
+            while (newSlots[free] != null) free++;
+            newSlots[free] = child;
+            byte[] newIndex = index.clone();
+            newIndex[b] = (byte) (free + 1);
+            return new Node48(prefix, terminal, size, newIndex, newSlots, count + 1);
+        }
+
+        @Override
+        Inner without(int b, int size) {
+            if (count - 1 <= 12) {
+                byte[] keys = new byte[count - 1];
+                Node[] children = new Node[count - 1];
+                int i = 0;
+                for (int key = nextByte(0); key >= 0; key = nextByte(key + 1)) {
+                    if (key == b) continue;
+                    keys[i] = (byte) key;
+                    children[i++] = child(key);
+                }
+                return new Node16(prefix, terminal, size, keys, children);
+            }
+
+            Node[] newSlots = slots.clone();
+            newSlots[index[b] - 1] = null;
+            byte[] newIndex = index.clone();
+            newIndex[b] = 0;
+            return new Node48(prefix, terminal, size, newIndex, newSlots, count - 1);
+        }
+    }
+
+    /**
+     * A node holding a direct array of 256 children, one per byte.
+     */
+    private static final class Node256 extends Inner {
+        final Node[] children;
+        final int count;
+
+        Node256(byte[] prefix, Object terminal, int size, Node[] children, int count) {
+            super(prefix, terminal, size);
+            this.children = children;
+            this.count = count;
+        }
+
+        @Override
+        int childCount() {
+            return count;
+        }
+
+        @Override
+        Node child(int b) {
+            return children[b];
+        }
+
+        @Override
+        int nextByte(int from) {
+            for (int b = from; b < 256; b++) {
+                if (children[b] != null) return b;
+            }
+            return -1;
+        }
+
+        @Override
+        Inner withHeader(byte[] prefix, Object terminal, int size) {
+            return new Node256(prefix, terminal, size, children, count);
+        }
+
+        @Override
+        Inner with(int b, Node child, int size) {
+            Node[] newChildren = children.clone();
+            newChildren[b] = child;
+            return new Node256(prefix, terminal, size, newChildren, (children[b] == null) ? count + 1 : count);
+        }
+
+        @Override
+        Inner without(int b, int size) {
+            if (count - 1 <= 37) {
+                byte[] index = new byte[256];
+                Node[] slots = new Node[48];
+                int slot = 0;
+                for (int key = 0; key < 256; key++) {
+                    if (children[key] == null || key == b) continue;
+                    slots[slot] = children[key];
+                    index[key] = (byte) ++slot;
+                }
+                return new Node48(prefix, terminal, size, index, slots, count - 1);
+            }
+
+            Node[] newChildren = children.clone();
+            newChildren[b] = null;
+            return new Node256(prefix, terminal, size, newChildren, count - 1);
+        }
+    }
+}
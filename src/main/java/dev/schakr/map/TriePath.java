@@ -0,0 +1,106 @@
+package dev.schakr.map;
+
+import io.vavr.control.Either;
+
+/**
+ * The position of a subtree in a trie, given by its depth and the hash fragments on the way to it
+ * from the root, as used by the sync protocol of {@link HashMapDigests}. The fragments occupy the
+ * low {@code 5 * depth} bits of the prefix, in the same positions as in the hashes of the keys below
+ * the subtree.
+ */
+public final class TriePath {
+    private static final TriePath ROOT = new TriePath(0, 0);
+
+    private final int depth;
+    private final int prefix;
+
+    private TriePath(int depth, int prefix) {
+        this.depth = depth;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Returns the path of the whole trie.
+     *
+     * @return the path of depth 0
+     */
+    public static TriePath root() {
+        return ROOT;
+    }
+
+    /**
+     * Creates a path from its depth and prefix, e.g. when receiving it from a remote replica.
+     *
+     * @param depth the number of hash fragments, at most the depth of the deepest indirection level
+     * @param prefix the hash fragments of the path
+     * @return an {@code Either<Throwable, TriePath>} where the right side contains the path, or the left
+     *         side contains a {@code Throwable} if the depth is out of range or the prefix has bits beyond it
+     */
+    public static Either<Throwable, TriePath> of(int depth, int prefix) {
+        if (depth < 0 || depth > HashMap.MAX_DEPTH)
+            return Either.left(new IllegalArgumentException("Path depth must be between 0 and " + HashMap.MAX_DEPTH + ": " + depth));
+        if ((prefix & ~mask(depth)) != 0)
+            return Either.left(new IllegalArgumentException("Prefix " + prefix + " has bits beyond depth " + depth));
+        return Either.right(new TriePath(depth, prefix));
+    }
+
+    /**
+     * Returns the path of a child of this subtree.
+     *
+     * @param slot the hash fragment selecting the child, between 0 and 31
+     * @return an {@code Either<Throwable, TriePath>} where the right side contains the path of the child,
+     *         or the left side contains a {@code Throwable} if the slot or the resulting depth is out of range
+     */
+    public Either<Throwable, TriePath> child(int slot) {
+        if (slot < 0 || slot >= 32)
+            return Either.left(new IllegalArgumentException("Slot must be between 0 and " + 31 + ": " + slot));
+        return of(depth + 1, prefix | slot << (5 * depth));
+    }
+
+    /**
+     * Returns the number of hash fragments of the path.
+     *
+     * @return the depth of the subtree
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the hash fragments of the path.
+     *
+     * @return the low {@code 5 * depth} bits shared by the hashes of all keys in the subtree
+     */
+    public int prefix() {
+        return prefix;
+    }
+
+    /**
+     * Checks whether a key with the given hash belongs to the subtree.
+     *
+     * @param keyHash the full hash of the key
+     * @return true if the hash starts with the fragments of the path, false otherwise
+     */
+    public boolean contains(int keyHash) {
+        return (keyHash & mask(depth)) == prefix;
+    }
+
+    private static int mask(int depth) {
+        return (int) ((1L << Math.min(Integer.SIZE, 5 * depth)) - 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TriePath path && path.depth == depth && path.prefix == prefix;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * depth + prefix;
+    }
+
+    @Override
+    public String toString() {
+        return "TriePath(depth=" + depth + ", prefix=" + Integer.toHexString(prefix) + ")";
+    }
+}
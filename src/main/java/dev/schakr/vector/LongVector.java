@@ -0,0 +1,153 @@
+package dev.schakr.vector;
+
+import io.vavr.control.Either;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.function.LongConsumer;
+
+/**
+ * A persistent vector of {@code long} values, stored unboxed in a trie whose leaves are
+ * {@code long[]} arrays of 32 elements. Indexed access and updates take a few steps down the trie,
+ * appends are amortized constant time, and updates copy one path while sharing the rest of the
+ * trie with the previous version.
+ * <p>
+ * The bulk operations {@link #toArray()}, {@link #sum()} and {@link #forEach(LongConsumer)} look up
+ * each leaf once and then run a plain loop over its array, which the JIT can unroll and, for
+ * {@link #sum()}, vectorize.
+ */
+public final class LongVector extends PrimitiveVector<LongVector> {
+    private static final LongVector EMPTY = new LongVector(0, BITS, new Object[WIDTH], new long[0]);
+
+    private LongVector(int size, int shift, Object[] root, Object tail) {
+        super(size, shift, root, tail);
+    }
+
+    private LongVector(int size, Object[] leaves, long[] tail) {
+        super(size, leaves, tail);
+    }
+
+    @Override
+    LongVector create(int size, int shift, Object[] root, Object tail) {
+        return new LongVector(size, shift, root, tail);
+    }
+
+    /**
+     * Returns the empty vector.
+     *
+     * @return a vector without elements
+     */
+    public static LongVector empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a vector holding a copy of the given values, filling the leaves of the trie directly.
+     *
+     * @param values the values of the vector, in index order
+     * @return a vector holding the values
+     */
+    public static LongVector of(long... values) {
+        if (values.length == 0) return EMPTY;
+        int tailOffset = ((values.length - 1) >>> BITS) << BITS;
+        Object[] leaves = new Object[tailOffset >>> BITS];
+        for (int i = 0; i < leaves.length; i++) leaves[i] = Arrays.copyOfRange(values, i << BITS, (i + 1) << BITS);
+        return new LongVector(values.length, leaves, Arrays.copyOfRange(values, tailOffset, values.length));
+    }
+
+    /**
+     * Retrieves the element at the given index.
+     *
+     * @param index the index of the element
+     * @return an {@code OptionalLong} containing the element, or an empty one if the index is out of bounds
+     */
+    public OptionalLong get(int index) {
+        if (index < 0 || index >= size) return OptionalLong.empty();
+        return OptionalLong.of(((long[]) leafFor(index))[index & MASK]);
+    }
+
+    /**
+     * Appends an element at the end of the vector.
+     *
+     * @param value the element to be appended
+     * @return a vector with the elements of this vector followed by the value
+     */
+    public LongVector append(long value) {
+        long[] tail = (long[]) this.tail;
+        if (tail.length == WIDTH) return pushTail(new long[] { value });
+
+        long[] newTail = Arrays.copyOf(tail, tail.length + 1);
+        newTail[tail.length] = value;
+        return new LongVector(size + 1, shift, root, newTail);
+    }
+
+    /**
+     * Replaces the element at the given index.
+     *
+     * @param index the index of the element to be replaced
+     * @param value the new value of the element
+     * @return an {@code Either<Throwable, LongVector>} where the right side contains the updated vector,
+     *         or the left side contains a {@code Throwable} if the index is out of bounds
+     */
+    public Either<Throwable, LongVector> set(int index, long value) {
+        if (index < 0 || index >= size)
+            return Either.left(new IllegalArgumentException("Index " + index + " is out of bounds for size " + size));
+
+        if (index >= tailOffset()) {
+            long[] newTail = ((long[]) tail).clone();
+            newTail[index & MASK] = value;
+            return Either.right(new LongVector(size, shift, root, newTail));
+        }
+        return Either.right(new LongVector(size, shift, updateLeaf(index, leaf -> {
+            long[] copy = ((long[]) leaf).clone();
+            copy[index & MASK] = value;
+            return copy;
+        }), tail));
+    }
+
+    /**
+     * Copies the elements into a new array, one leaf at a time.
+     *
+     * @return an array of the elements in index order
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        for (int i = 0; i < size; i += WIDTH) {
+            long[] leaf = (long[]) leafFor(i);
+            System.arraycopy(leaf, 0, result, i, leaf.length);
+        }
+        return result;
+    }
+
+    /**
+     * Adds up the elements, overflowing like {@code LongStream.sum()}. The loop over each leaf is
+     * a plain reduction that the JIT vectorizes.
+     *
+     * @return the sum of the elements, or 0 if the vector is empty
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i += WIDTH) {
+            for (long value : (long[]) leafFor(i)) sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * Performs the given action for each element in index order.
+     *
+     * @param action the action to be performed for each element
+     */
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i += WIDTH) {
+            for (long value : (long[]) leafFor(i)) action.accept(value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("LongVector(");
+        forEach(value -> builder.append(builder.length() > 11 ? ", " : "").append(value));
+        return builder.append(')').toString();
+    }
+}
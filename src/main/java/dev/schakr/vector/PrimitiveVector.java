@@ -0,0 +1,143 @@
+package dev.schakr.vector;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * The trie shared by the primitive vectors: a persistent vector trie with 32-way interior nodes
+ * whose leaves are primitive arrays of {@value #WIDTH} elements. The last 1 to {@value #WIDTH}
+ * elements are kept in a separate tail array sized to its content, so appending copies at most
+ * the tail and, once every {@value #WIDTH} appends, one path of the trie.
+ * <p>
+ * Leaves and the tail are typed {@code Object} here and cast to their array type by the
+ * subclasses, which implement the element access and the bulk operations, one leaf array at a time.
+ *
+ * @param <V> the type of the vector
+ */
+abstract sealed class PrimitiveVector<V extends PrimitiveVector<V>> permits IntVector, LongVector, DoubleVector {
+    static final int BITS = 5;
+    static final int WIDTH = 1 << BITS;
+    static final int MASK = WIDTH - 1;
+
+    final int size;
+    final int shift;
+    final Object[] root;
+    final Object tail;
+
+    PrimitiveVector(int size, int shift, Object[] root, Object tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Builds the trie bottom-up from full leaves, grouping every 32 nodes of a level under a new
+     * node until a single root is left.
+     */
+    PrimitiveVector(int size, Object[] leaves, Object tail) {
+        Object[] nodes = leaves;
+        int levels = BITS;
+        while (nodes.length > WIDTH) {
+            Object[] parents = new Object[(nodes.length + MASK) >>> BITS];
+            for (int i = 0; i < parents.length; i++) {
+                Object[] parent = new Object[WIDTH];
+                System.arraycopy(nodes, i << BITS, parent, 0, Math.min(WIDTH, nodes.length - (i << BITS)));
+                parents[i] = parent;
+            }
+            nodes = parents;
+            levels += BITS;
+        }
+        Object[] root = new Object[WIDTH];
+        System.arraycopy(nodes, 0, root, 0, nodes.length);
+
+        this.size = size;
+        this.shift = levels;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Creates a vector of the subclass type from the given trie.
+     */
+    abstract V create(int size, int shift, Object[] root, Object tail);
+
+    /**
+     * Returns the number of elements in the vector.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the vector is empty.
+     *
+     * @return true if the vector contains no elements, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements stored in the trie, i.e. the index of the first tail element.
+     */
+    final int tailOffset() {
+        return (size == 0) ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Returns the leaf array holding the element at the given index, which is the tail for indexes
+     * from {@link #tailOffset()} on. Iterating with a step of {@value #WIDTH} visits every leaf once.
+     */
+    final Object leafFor(int index) {
+        if (index >= tailOffset()) return tail;
+        Object[] node = root;
+        for (int level = shift; level > BITS; level -= BITS) node = (Object[]) node[(index >>> level) & MASK];
+        return node[(index >>> BITS) & MASK];
+    }
+
+    /**
+     * Moves the full tail into the trie and starts a new tail.
+     */
+    final V pushTail(Object newTail) {
+        if ((size >>> BITS) > (1 << shift)) {
+            Object[] newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            return create(size + 1, shift + BITS, newRoot, newTail);
+        }
+        return create(size + 1, shift, pushTail(shift, root, tail), newTail);
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object leaf) {
+        int index = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) copy[index] = leaf;
+        else if (parent[index] == null) copy[index] = newPath(level - BITS, leaf);
+        else copy[index] = pushTail(level - BITS, (Object[]) parent[index], leaf);
+        return copy;
+    }
+
+    private static Object newPath(int level, Object leaf) {
+        if (level == 0) return leaf;
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    /**
+     * Copies the path to the leaf holding the given index, which must lie before the tail, and
+     * replaces that leaf with the result of the update.
+     */
+    final Object[] updateLeaf(int index, UnaryOperator<Object> update) {
+        return updateLeaf(shift, root, index, update);
+    }
+
+    private static Object[] updateLeaf(int level, Object[] node, int index, UnaryOperator<Object> update) {
+        Object[] copy = node.clone();
+        int slot = (index >>> level) & MASK;
+        copy[slot] = (level == BITS) ? update.apply(node[slot]) : updateLeaf(level - BITS, (Object[]) node[slot], index, update);
+        return copy;
+    }
+}
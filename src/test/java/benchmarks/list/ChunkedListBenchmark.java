@@ -0,0 +1,96 @@
+package benchmarks.list;
+
+import dev.schakr.list.ChunkedList;
+import io.vavr.collection.List;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the chunked list against a cons list with one node per element (vavr's {@code List},
+ * which has the same layout as {@code dev.schakr.list.List}) for prepending, iteration and indexed access.
+ * {@code _Prepend} adds to the same shared version on every call, the worst case for the chunked list,
+ * while {@code _Build} grows a list from its head.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ChunkedListBenchmark {
+    static final int BUILD_SIZE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class ListState {
+        @Param({"1000", "1000000"})
+        public int size;
+
+        List<Integer> consList;
+        ChunkedList<Integer> chunkedList;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            consList = List.empty();
+            chunkedList = ChunkedList.empty();
+            for (int i = 0; i < size; i++) {
+                consList = consList.prepend(i);
+                chunkedList = chunkedList.add(i);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Integer> Cons_Prepend(ListState state) {
+        return state.consList.prepend(-1);
+    }
+
+    @Benchmark
+    public ChunkedList<Integer> Chunked_Prepend(ListState state) {
+        return state.chunkedList.add(-1);
+    }
+
+    @Benchmark
+    public List<Integer> Cons_Build(ListState state) {
+        List<Integer> list = List.empty();
+        for (int i = 0; i < BUILD_SIZE; i++) list = list.prepend(i);
+        return list;
+    }
+
+    @Benchmark
+    public ChunkedList<Integer> Chunked_Build(ListState state) {
+        ChunkedList<Integer> list = ChunkedList.empty();
+        for (int i = 0; i < BUILD_SIZE; i++) list = list.add(i);
+        return list;
+    }
+
+    @Benchmark
+    public long Cons_Iterate(ListState state) {
+        long sum = 0;
+        for (Integer value : state.consList) sum += value;
+        return sum;
+    }
+
+    @Benchmark
+    public long Chunked_Iterate(ListState state) {
+        long sum = 0;
+        for (Integer value : state.chunkedList) sum += value;
+        return sum;
+    }
+
+    @Benchmark
+    public long Chunked_ForEach(ListState state) {
+        long[] sum = new long[1];
+        state.chunkedList.forEach(value -> sum[0] += value);
+        return sum[0];
+    }
+
+    @Benchmark
+    public Integer Cons_GetMiddle(ListState state) {
+        return state.consList.get(state.size / 2);
+    }
+
+    @Benchmark
+    public Integer Chunked_GetMiddle(ListState state) {
+        return state.chunkedList.get(state.size / 2).get();
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks.map;
+
+import dev.schakr.map.BTreeMap;
+import io.vavr.Tuple2;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the persistent {@link BTreeMap}, mirroring {@link TreeMapBenchmark}. Range scans read
+ * {@link #SCAN_LENGTH} entries in order, starting from a present key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BTreeMapBenchmark {
+    static final int SCAN_LENGTH = 100;
+
+    @SuppressWarnings("unchecked")
+    static final Comparator<Object> NATURAL_ORDER = (Comparator<Object>) (Comparator<?>) Comparator.naturalOrder();
+
+    @State(Scope.Benchmark)
+    public static class MapState extends BenchmarkKeys {
+        BTreeMap<Object, Object> map;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generateKeys();
+            map = BTreeMap.empty(NATURAL_ORDER);
+            for (Object key : keys) map = map.put(key, key).get();
+        }
+    }
+
+    @Benchmark
+    public Either<Throwable, BTreeMap<Object, Object>> BTree_Insertions(MapState state) {
+        Object key = state.nextAbsent();
+        return state.map.put(key, key);
+    }
+
+    @Benchmark
+    public Option<Object> BTree_Queries(MapState state) {
+        return state.map.get(state.nextPresent());
+    }
+
+    @Benchmark
+    public Option<Object> BTree_MissedQueries(MapState state) {
+        return state.map.get(state.nextAbsent());
+    }
+
+    @Benchmark
+    public Either<Throwable, BTreeMap<Object, Object>> BTree_Deletes(MapState state) {
+        return state.map.remove(state.nextPresent());
+    }
+
+    @Benchmark
+    public void BTree_RangeScans(MapState state, Blackhole blackhole) {
+        Iterator<Tuple2<Object, Object>> iterator = state.map.iteratorFrom(state.nextPresent());
+        for (int i = 0; i < SCAN_LENGTH && iterator.hasNext(); i++) blackhole.consume(iterator.next());
+    }
+
+    @Benchmark
+    public Object BTree_Mixed(MapState state, ReadMix mix) {
+        Object key = state.nextPresent();
+        if (mix.nextIsRead()) return state.map.get(key);
+        state.map = state.map.put(key, mix.cursor).get();
+        return state.map;
+    }
+}
@@ -0,0 +1,147 @@
+package benchmarks.map;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Deterministic key generation shared by all map benchmarks. Keys are generated once per trial,
+ * so that the measured operations only pick the next key from a precomputed array.
+ * <p>
+ * Subclasses are {@code @State} objects parameterized by map size and key type. Every trial holds
+ * {@code size} keys present in the map (in shuffled order for lookups) and {@link #ABSENT} keys that
+ * are guaranteed not to be in it.
+ */
+@State(Scope.Benchmark)
+public abstract class BenchmarkKeys {
+    static final int ABSENT = 1 << 16;
+    private static final long SEED = 0x5EED_CAFEL;
+
+    public enum KeyType { STRING, INTEGER, POOR_HASH }
+
+    /**
+     * A key whose record-generated hash code ({@code 31 * x + y}) collides heavily for keys drawn from
+     * a grid, as is common for composite keys built from small coordinates or ids.
+     */
+    public record PoorHashKey(int x, int y) implements Comparable<PoorHashKey> {
+        @Override
+        public int compareTo(PoorHashKey other) {
+            int cmp = Integer.compare(x, other.x);
+            return (cmp != 0) ? cmp : Integer.compare(y, other.y);
+        }
+    }
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"STRING", "INTEGER", "POOR_HASH"})
+    public KeyType keyType;
+
+    /** Keys inserted into the map, in insertion order. */
+    Object[] keys;
+    /** The keys inserted into the map, shuffled to defeat any locality of the insertion order. */
+    Object[] present;
+    /** Keys that are not in the map. */
+    Object[] absent;
+    /** Keys in the map, drawn from a Zipfian distribution to model skewed lookup traffic. */
+    Object[] hot;
+
+    private int presentCursor;
+    private int absentCursor;
+    private int hotCursor;
+
+    /**
+     * Generates the keys of the trial. Must be called before the map is populated.
+     */
+    protected void generateKeys() {
+        Object[] all = generate(keyType, size + ABSENT);
+        keys = new Object[size];
+        absent = new Object[ABSENT];
+        System.arraycopy(all, 0, keys, 0, size);
+        System.arraycopy(all, size, absent, 0, ABSENT);
+
+        present = keys.clone();
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = present.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object tmp = present[i];
+            present[i] = present[j];
+            present[j] = tmp;
+        }
+        hot = zipfian(present, random);
+        presentCursor = 0;
+        absentCursor = 0;
+        hotCursor = 0;
+    }
+
+    Object nextPresent() {
+        Object key = present[presentCursor];
+        if (++presentCursor == present.length) presentCursor = 0;
+        return key;
+    }
+
+    Object nextAbsent() {
+        Object key = absent[absentCursor];
+        absentCursor = (absentCursor + 1) & (ABSENT - 1);
+        return key;
+    }
+
+    Object nextHot() {
+        Object key = hot[hotCursor];
+        hotCursor = (hotCursor + 1) & (ABSENT - 1);
+        return key;
+    }
+
+    /**
+     * Draws {@link #ABSENT} keys from a Zipfian distribution (exponent 1) over the ranks of the
+     * first {@code min(keys.length, ABSENT)} keys.
+     */
+    private static Object[] zipfian(Object[] keys, SplittableRandom random) {
+        int ranks = Math.min(keys.length, ABSENT);
+        double[] cumulative = new double[ranks];
+        double total = 0;
+        for (int rank = 0; rank < ranks; rank++) cumulative[rank] = total += 1.0 / (rank + 1);
+
+        Object[] drawn = new Object[ABSENT];
+        for (int i = 0; i < drawn.length; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            drawn[i] = keys[Math.min((rank < 0) ? -rank - 1 : rank, ranks - 1)];
+        }
+        return drawn;
+    }
+
+    /**
+     * Generates {@code count} distinct keys of the given type.
+     */
+    static Object[] generate(KeyType type, int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Object[] keys = new Object[count];
+        int side = (int) Math.ceil(Math.sqrt(count));
+        int salt = random.nextInt();
+        for (int i = 0; i < count; i++) {
+            keys[i] = switch (type) {
+                case STRING -> new UUID(random.nextLong(), random.nextLong()).toString();
+                case INTEGER -> scramble(i ^ salt);
+                case POOR_HASH -> new PoorHashKey(i / side, i % side);
+            };
+        }
+        return keys;
+    }
+
+    /**
+     * A bijective integer mix (the murmur3 finalizer), producing distinct, randomly distributed
+     * integers from distinct inputs.
+     */
+    private static int scramble(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
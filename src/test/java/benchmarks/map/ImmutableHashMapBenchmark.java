@@ -1,141 +1,92 @@
 package benchmarks.map;
 
+import dev.schakr.map.CompactHashMap;
 import dev.schakr.map.HashMap;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
 import org.openjdk.jmh.annotations.*;
 
-import java.util.HashSet;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
 public class ImmutableHashMapBenchmark {
     @State(Scope.Benchmark)
-    public static class InsertionState {
-        HashMap<String, String> map;
-        String key;
-        String value;
+    public static class MapState extends BenchmarkKeys {
+        HashMap<Object, Object> map;
+        HashMap<Object, Object> cachedMap;
+        CompactHashMap<Object, Object> compactMap;
 
         @Setup(Level.Trial)
         public void setUp() {
+            generateKeys();
             map = new HashMap<>();
-
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
-
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map = map.put(key, value).getOrElse(map);
-            }
-        }
-
-        @Setup(Level.Invocation)
-        public void onEach() {
-            key = UUID.randomUUID().toString();
-            value = UUID.randomUUID().toString();
+            for (Object key : keys) map = map.put(key, key).get();
+            cachedMap = map.withLookupCache(1024);
+            compactMap = CompactHashMap.of(map);
         }
     }
 
-    @State(Scope.Benchmark)
-    public static class QueryState {
-        HashMap<String, String> map;
-        HashSet<String> keys;
-        String key;
-
-        @Setup(Level.Trial)
-        public void setUp() {
-            map = new HashMap<>();
-            keys = new HashSet<>();
-
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
+    @Benchmark
+    public Either<Throwable, HashMap<Object, Object>> HAMT_Insertions(MapState state) {
+        Object key = state.nextAbsent();
+        return state.map.put(key, key);
+    }
 
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map = map.put(key, value).getOrElse(map);
-                keys.add(key);
-            }
-        }
+    @Benchmark
+    public Option<Object> HAMT_Queries(MapState state) {
+        return state.map.get(state.nextPresent());
+    }
 
-        @Setup(Level.Invocation)
-        public void onEach() {
-            key = keys.stream().findAny().get();
-        }
+    @Benchmark
+    public Option<Object> HAMT_MissedQueries(MapState state) {
+        return state.map.get(state.nextAbsent());
     }
 
-    @State(Scope.Benchmark)
-    public static class DeleteState {
-        HashMap<String, String> map;
-        HashSet<String> keys;
-        String key;
+    @Benchmark
+    public Option<Object> HAMT_HotQueries(MapState state) {
+        return state.map.get(state.nextHot());
+    }
 
-        @Setup(Level.Trial)
-        public void setUp() {
-            map = new HashMap<>();
-            keys = new HashSet<>();
+    @Benchmark
+    public Option<Object> HAMT_CachedHotQueries(MapState state) {
+        return state.cachedMap.get(state.nextHot());
+    }
 
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
+    @Benchmark
+    public Either<Throwable, HashMap<Object, Object>> HAMT_Deletes(MapState state) {
+        return state.map.remove(state.nextPresent());
+    }
 
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map = map.put(key, value).getOrElse(map);
-                keys.add(key);
-            }
-        }
+    @Benchmark
+    public Either<Throwable, CompactHashMap<Object, Object>> CHAMP_Insertions(MapState state) {
+        Object key = state.nextAbsent();
+        return state.compactMap.put(key, key);
+    }
 
-        @Setup(Level.Invocation)
-        public void onEach() {
-            key = keys.stream().findAny().get();
-        }
+    @Benchmark
+    public Option<Object> CHAMP_Queries(MapState state) {
+        return state.compactMap.get(state.nextPresent());
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void HAMT_Insertions(InsertionState state) {
-        state.map.put(state.key, state.value);
+    public Option<Object> CHAMP_MissedQueries(MapState state) {
+        return state.compactMap.get(state.nextAbsent());
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void HAMT_Queries(QueryState state) {
-        state.map.get(state.key);
+    public Either<Throwable, CompactHashMap<Object, Object>> CHAMP_Deletes(MapState state) {
+        return state.compactMap.remove(state.nextPresent());
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void HAMT_Deletes(DeleteState state) {
-        state.map.remove(state.key);
+    public Object HAMT_Mixed(MapState state, ReadMix mix) {
+        Object key = state.nextPresent();
+        if (mix.nextIsRead()) return state.map.get(key);
+        state.map = state.map.put(key, mix.cursor).get();
+        return state.map;
     }
 }
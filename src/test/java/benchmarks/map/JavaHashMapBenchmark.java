@@ -3,143 +3,58 @@ package benchmarks.map;
 import org.openjdk.jmh.annotations.*;
 
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Benchmarks for the mutable {@code java.util.HashMap}. To keep the map at its parameterized size, insertions
+ * remove the inserted key again and deletions put the removed key back, so both measure a round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
 public class JavaHashMapBenchmark {
     @State(Scope.Benchmark)
-    public static class InsertionState {
-        HashMap<String, String> map;
-        String key;
-        String value;
+    public static class MapState extends BenchmarkKeys {
+        HashMap<Object, Object> map;
 
         @Setup(Level.Trial)
         public void setUp() {
+            generateKeys();
             map = new HashMap<>();
-
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
-
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map.put(key, value);
-            }
-        }
-
-        @Setup(Level.Invocation)
-        public void onEach() {
-            key = UUID.randomUUID().toString();
-            value = UUID.randomUUID().toString();
+            for (Object key : keys) map.put(key, key);
         }
     }
 
-    @State(Scope.Benchmark)
-    public static class QueryState {
-        HashMap<String, String> map;
-        HashSet<String> keys;
-        String key;
-
-        @Setup(Level.Trial)
-        public void setUp() {
-            map = new HashMap<>();
-            keys = new HashSet<>();
-
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
-
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map.put(key, value);
-                keys.add(key);
-            }
-        }
-
-        @Setup(Level.Invocation)
-        public void onEach() {
-            key = keys.stream().findAny().get();
-        }
+    @Benchmark
+    public Object Java_Insertions(MapState state) {
+        Object key = state.nextAbsent();
+        state.map.put(key, key);
+        return state.map.remove(key);
     }
 
-    @State(Scope.Benchmark)
-    public static class DeleteState {
-        HashMap<String, String> map;
-        HashSet<String> keys;
-        String key;
-
-        @Setup(Level.Trial)
-        public void setUp() {
-            map = new HashMap<>();
-            keys = new HashSet<>();
-
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
-
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map.put(key, value);
-                keys.add(key);
-            }
-        }
-
-        @Setup(Level.Invocation)
-        public void onEach() {
-            String newKey = UUID.randomUUID().toString();
-            map.put(newKey, UUID.randomUUID().toString());
-            keys.add(newKey);
-            key = keys.stream().findAny().get();
-            keys.remove(key);
-        }
+    @Benchmark
+    public Object Java_Queries(MapState state) {
+        return state.map.get(state.nextPresent());
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void Java_Insertions(InsertionState state) {
-        state.map.put(state.key, state.value);
+    public Object Java_MissedQueries(MapState state) {
+        return state.map.get(state.nextAbsent());
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void Java_Queries(QueryState state) {
-        state.map.get(state.key);
+    public Object Java_Deletes(MapState state) {
+        Object key = state.nextPresent();
+        Object value = state.map.remove(key);
+        return state.map.put(key, value);
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void Java_Deletes(DeleteState state) {
-        state.map.remove(state.key);
+    public Object Java_Mixed(MapState state, ReadMix mix) {
+        Object key = state.nextPresent();
+        if (mix.nextIsRead()) return state.map.get(key);
+        return state.map.put(key, mix.cursor);
     }
 }
@@ -0,0 +1,90 @@
+package benchmarks.map;
+
+import dev.schakr.map.Codec;
+import dev.schakr.map.HashMap;
+import dev.schakr.map.RadixTreeMap;
+import io.vavr.control.Option;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lookups in a {@link RadixTreeMap} and a {@link HashMap} keyed by URL-like strings sharing
+ * long prefixes, and measures prefix queries on the radix tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RadixTreeMapBenchmark {
+    static final int MASK = (1 << 16) - 1;
+
+    @State(Scope.Benchmark)
+    public static class MapState {
+        @Param({"100000"})
+        public int size;
+
+        RadixTreeMap<String, Integer> radixTree;
+        HashMap<String, Integer> hashMap;
+        String[] present;
+        String[] absent;
+        String[] prefixes;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            radixTree = RadixTreeMap.empty(Codec.utf8());
+            hashMap = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                String key = url(i);
+                radixTree = radixTree.put(key, i).get();
+                hashMap = hashMap.put(key, i).get();
+            }
+
+            SplittableRandom random = new SplittableRandom(0x5EED);
+            present = new String[MASK + 1];
+            absent = new String[MASK + 1];
+            prefixes = new String[MASK + 1];
+            for (int i = 0; i <= MASK; i++) {
+                present[i] = url(random.nextInt(size));
+                absent[i] = url(size + random.nextInt(size));
+                prefixes[i] = "https://example.com/catalog/" + random.nextInt(100) + "/";
+            }
+        }
+
+        static String url(int i) {
+            return "https://example.com/catalog/" + (i % 100) + "/items/" + i;
+        }
+
+        int next() {
+            return cursor = (cursor + 1) & MASK;
+        }
+    }
+
+    @Benchmark
+    public Option<Integer> RadixTree_Queries(MapState state) {
+        return state.radixTree.get(state.present[state.next()]);
+    }
+
+    @Benchmark
+    public Option<Integer> RadixTree_MissedQueries(MapState state) {
+        return state.radixTree.get(state.absent[state.next()]);
+    }
+
+    @Benchmark
+    public int RadixTree_PrefixCounts(MapState state) {
+        return state.radixTree.withPrefix(state.prefixes[state.next()]).size();
+    }
+
+    @Benchmark
+    public Option<Integer> HashMap_Queries(MapState state) {
+        return state.hashMap.get(state.present[state.next()]);
+    }
+
+    @Benchmark
+    public Option<Integer> HashMap_MissedQueries(MapState state) {
+        return state.hashMap.get(state.absent[state.next()]);
+    }
+}
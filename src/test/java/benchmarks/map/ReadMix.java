@@ -0,0 +1,33 @@
+package benchmarks.map;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+
+/**
+ * The read/write mix shared by the mixed benchmarks of all maps. Whether each operation is a read
+ * or a write is drawn once per trial, so that every map sees the same sequence of operations and the
+ * measured operations only step through a precomputed array.
+ */
+@State(Scope.Benchmark)
+public class ReadMix {
+    @Param({"90"})
+    public int readPercent;
+
+    private boolean[] reads;
+    /** The position of the current operation, also written as the value by mixed benchmarks. */
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reads = new boolean[BenchmarkKeys.ABSENT];
+        SplittableRandom random = new SplittableRandom(readPercent);
+        for (int i = 0; i < reads.length; i++) reads[i] = random.nextInt(100) < readPercent;
+        cursor = 0;
+    }
+
+    boolean nextIsRead() {
+        cursor = (cursor + 1) & (BenchmarkKeys.ABSENT - 1);
+        return reads[cursor];
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks.map;
+
+import dev.schakr.map.HashMap;
+import io.vavr.control.Option;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for HashMaps holding a handful of entries, such as the attributes of a request, which
+ * are built, read a few times and dropped.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SmallHashMapBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class MapState {
+        @Param({"4", "8"})
+        public int size;
+
+        String[] keys;
+        String[] equalKeys;
+        HashMap<String, String> map;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            keys = new String[size];
+            equalKeys = new String[size];
+            map = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                keys[i] = "attribute-" + i;
+                equalKeys[i] = new String(keys[i]);
+                map = map.put(keys[i], "value-" + i).get();
+            }
+        }
+
+        String nextKey() {
+            cursor = (cursor + 1 == size) ? 0 : cursor + 1;
+            return keys[cursor];
+        }
+
+        String nextEqualKey() {
+            cursor = (cursor + 1 == size) ? 0 : cursor + 1;
+            return equalKeys[cursor];
+        }
+    }
+
+    @Benchmark
+    public HashMap<String, String> SmallMap_Build(MapState state) {
+        HashMap<String, String> map = new HashMap<>();
+        for (String key : state.keys) map = map.put(key, key).get();
+        return map;
+    }
+
+    @Benchmark
+    public Option<String> SmallMap_Queries(MapState state) {
+        return state.map.get(state.nextKey());
+    }
+
+    @Benchmark
+    public Option<String> SmallMap_EqualKeyQueries(MapState state) {
+        return state.map.get(state.nextEqualKey());
+    }
+
+    @Benchmark
+    public HashMap<String, String> SmallMap_Update(MapState state) {
+        return state.map.put(state.nextKey(), "updated").get();
+    }
+}
@@ -1,141 +1,55 @@
 package benchmarks.map;
 
 import io.vavr.collection.HashMap;
+import io.vavr.control.Option;
 import org.openjdk.jmh.annotations.*;
 
-import java.util.HashSet;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
 public class VavrHashMapBenchmark {
-
     @State(Scope.Benchmark)
-    public static class InsertionState {
-        HashMap<String, String> map;
-        String key;
-        String value;
+    public static class MapState extends BenchmarkKeys {
+        HashMap<Object, Object> map;
 
         @Setup(Level.Trial)
         public void setUp() {
+            generateKeys();
             map = HashMap.empty();
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
-
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map = map.put(key, value);
-            }
-        }
-
-        @Setup(Level.Invocation)
-        public void onEach() {
-            key = UUID.randomUUID().toString();
-            value = UUID.randomUUID().toString();
+            for (Object key : keys) map = map.put(key, key);
         }
     }
 
-    @State(Scope.Benchmark)
-    public static class QueryState {
-        HashMap<String, String> map;
-        HashSet<String> keys;
-        String key;
-
-        @Setup(Level.Trial)
-        public void setUp() {
-            map = HashMap.empty();
-            keys = new HashSet<>();
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
-
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map = map.put(key, value);
-                keys.add(key);
-            }
-        }
-
-        @Setup(Level.Invocation)
-        public void onEach() {
-            key = keys.stream().findAny().get();
-        }
+    @Benchmark
+    public HashMap<Object, Object> Vavr_Insertions(MapState state) {
+        Object key = state.nextAbsent();
+        return state.map.put(key, key);
     }
 
-    @State(Scope.Benchmark)
-    public static class DeleteState {
-        HashMap<String, String> map;
-        HashSet<String> keys;
-        String key;
-
-        @Setup(Level.Trial)
-        public void setUp() {
-            map = HashMap.empty();
-            keys = new HashSet<>();
-
-//            Increase map size as you test different capacities for benchmarking.
-            initializeMap(1000);
-//            initializeMap(10000);
-//            initializeMap(100000);
-//            initializeMap(1000000);
-//            initializeMap(10000000);
-        }
-
-        private void initializeMap(int size) {
-            for (int i = 0; i < size; i++) {
-                String key = UUID.randomUUID().toString();
-                String value = UUID.randomUUID().toString();
-                map = map.put(key, value);
-                keys.add(key);
-            }
-        }
-
-        @Setup(Level.Invocation)
-        public void onEach() {
-            key = keys.stream().findAny().get();
-        }
+    @Benchmark
+    public Option<Object> Vavr_Queries(MapState state) {
+        return state.map.get(state.nextPresent());
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void Vavr_Insertions(InsertionState state) {
-        state.map.put(state.key, state.value);
+    public Option<Object> Vavr_MissedQueries(MapState state) {
+        return state.map.get(state.nextAbsent());
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void Vavr_Queries(QueryState state) {
-        state.map.get(state.key);
+    public HashMap<Object, Object> Vavr_Deletes(MapState state) {
+        return state.map.remove(state.nextPresent());
     }
 
     @Benchmark
-    @OutputTimeUnit(TimeUnit.NANOSECONDS)
-    @BenchmarkMode(Mode.SingleShotTime)
-    @Fork(3)
-    @Threads(1)
-    @Measurement(iterations = 100000, timeUnit = TimeUnit.NANOSECONDS, batchSize = 1)
-    public void Vavr_Deletes(DeleteState state) {
-        state.map.remove(state.key);
+    public Object Vavr_Mixed(MapState state, ReadMix mix) {
+        Object key = state.nextPresent();
+        if (mix.nextIsRead()) return state.map.get(key);
+        state.map = state.map.put(key, mix.cursor);
+        return state.map;
     }
 }
-
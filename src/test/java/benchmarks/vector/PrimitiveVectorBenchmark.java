@@ -0,0 +1,100 @@
+package benchmarks.vector;
+
+import dev.schakr.vector.DoubleVector;
+import dev.schakr.vector.IntVector;
+import io.vavr.collection.Vector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares summing and indexed access of the primitive vectors against a vavr {@code Vector} of
+ * boxed values, with a plain array as the lower bound.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PrimitiveVectorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class VectorState {
+        @Param({"1000", "1000000"})
+        public int size;
+
+        double[] doubles;
+        int[] ints;
+        DoubleVector doubleVector;
+        IntVector intVector;
+        Vector<Double> boxedDoubles;
+        Vector<Integer> boxedInts;
+        int[] indexes;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(42);
+            doubles = random.doubles(size).toArray();
+            ints = random.ints(size).toArray();
+            doubleVector = DoubleVector.of(doubles);
+            intVector = IntVector.of(ints);
+            boxedDoubles = Vector.ofAll(Arrays.stream(doubles).boxed().toList());
+            boxedInts = Vector.ofAll(Arrays.stream(ints).boxed().toList());
+            indexes = random.ints(1000, 0, size).toArray();
+        }
+    }
+
+    @Benchmark
+    public double Array_SumDoubles(VectorState state) {
+        double sum = 0;
+        for (double value : state.doubles) sum += value;
+        return sum;
+    }
+
+    @Benchmark
+    public double DoubleVector_Sum(VectorState state) {
+        return state.doubleVector.sum();
+    }
+
+    @Benchmark
+    public double Boxed_SumDoubles(VectorState state) {
+        double sum = 0;
+        for (Double value : state.boxedDoubles) sum += value;
+        return sum;
+    }
+
+    @Benchmark
+    public int Array_SumInts(VectorState state) {
+        int sum = 0;
+        for (int value : state.ints) sum += value;
+        return sum;
+    }
+
+    @Benchmark
+    public int IntVector_Sum(VectorState state) {
+        return state.intVector.sum();
+    }
+
+    @Benchmark
+    public int Boxed_SumInts(VectorState state) {
+        int sum = 0;
+        for (Integer value : state.boxedInts) sum += value;
+        return sum;
+    }
+
+    @Benchmark
+    public double DoubleVector_Gets(VectorState state) {
+        double sum = 0;
+        for (int index : state.indexes) sum += state.doubleVector.get(index).getAsDouble();
+        return sum;
+    }
+
+    @Benchmark
+    public double Boxed_Gets(VectorState state) {
+        double sum = 0;
+        for (int index : state.indexes) sum += state.boxedDoubles.get(index);
+        return sum;
+    }
+}
@@ -0,0 +1,111 @@
+package dev.schakr.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CacheTest {
+
+    @Test
+    public void WHEN_creatingCacheWithoutCapacity_THEN_shouldFail() {
+        Assertions.assertTrue(Cache.create(EvictionPolicy.LRU, 0).isLeft());
+    }
+
+    @Test
+    public void WHEN_exceedingCapacityOfLruCache_THEN_shouldEvictLeastRecentlyUsed() {
+        var cache = Cache.<Integer, String>create(EvictionPolicy.LRU, 2).get()
+                .put(1, "a").flatMap(c -> c.put(2, "b")).get();
+        cache = cache.get(1).get()._2;
+        cache = cache.put(3, "c").get();
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(cache.containsKey(1));
+        Assertions.assertFalse(cache.containsKey(2));
+        Assertions.assertTrue(cache.containsKey(3));
+    }
+
+    @Test
+    public void WHEN_exceedingCapacityOfLfuCache_THEN_shouldEvictLeastFrequentlyUsed() {
+        var cache = Cache.<Integer, String>create(EvictionPolicy.LFU, 2).get()
+                .put(1, "a").flatMap(c -> c.put(2, "b")).get();
+        for (int i = 0; i < 3; i++) cache = cache.get(2).get()._2;
+        cache = cache.get(1).get()._2;
+        cache = cache.put(3, "c").get();
+
+        Assertions.assertFalse(cache.containsKey(1));
+        Assertions.assertTrue(cache.containsKey(2));
+        Assertions.assertTrue(cache.containsKey(3));
+    }
+
+    @Test
+    public void WHEN_scanningThroughTinyLfuCache_THEN_shouldKeepPopularEntries() {
+        var cache = Cache.<Integer, Integer>create(EvictionPolicy.TINY_LFU, 100).get();
+        for (int i = 0; i < 100; i++) cache = cache.put(i, i).get();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) cache = cache.get(i).get()._2;
+        }
+        for (int i = 1000; i < 2000; i++) cache = cache.put(i, i).get();
+
+        Assertions.assertEquals(100, cache.size());
+        for (int i = 0; i < 50; i++) Assertions.assertTrue(cache.containsKey(i), "Lost popular key " + i);
+    }
+
+    @Test
+    public void WHEN_evictingFromNewVersion_THEN_oldVersionShouldBeUnchanged() {
+        var snapshot = Cache.<Integer, Integer>create(EvictionPolicy.LRU, 10).get();
+        for (int i = 0; i < 10; i++) snapshot = snapshot.put(i, i).get();
+
+        var batch = snapshot;
+        for (int i = 10; i < 20; i++) batch = batch.put(i, i).get();
+
+        Assertions.assertFalse(batch.containsKey(0));
+        for (int i = 0; i < 10; i++) Assertions.assertEquals(i, snapshot.peek(i).get());
+
+        var retried = snapshot.put(10, 10).get();
+        Assertions.assertEquals(10, retried.peek(10).get());
+        Assertions.assertFalse(retried.containsKey(0));
+    }
+
+    @Test
+    public void WHEN_countingNullKey_THEN_shouldFail() {
+        var sketch = FrequencySketch.forCapacity(16);
+        Assertions.assertTrue(sketch.increment(null).getLeft() instanceof IllegalArgumentException);
+        Assertions.assertTrue(sketch.frequency(null).getLeft() instanceof IllegalArgumentException);
+        Assertions.assertEquals(1, sketch.increment("a").flatMap(s -> s.frequency("a")).get());
+
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            var cache = Cache.<String, String>create(policy, 16).get();
+            Assertions.assertTrue(cache.put(null, "a").getLeft() instanceof IllegalArgumentException);
+            Assertions.assertTrue(cache.get(null).getLeft() instanceof IllegalArgumentException);
+            Assertions.assertTrue(cache.remove(null).getLeft() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void WHEN_evictingRepeatedlyFromSnapshotWithRemovedKeys_THEN_shouldEvictEldestRemainingKey() {
+        var cache = Cache.<Integer, Integer>create(EvictionPolicy.LRU, 10).get();
+        for (int i = 0; i < 10; i++) cache = cache.put(i, i).get();
+        for (int i = 0; i < 5; i++) cache = cache.remove(i).get();
+        for (int i = 10; i < 15; i++) cache = cache.put(i, i).get();
+        var snapshot = cache;
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            var evicted = snapshot.put(15 + attempt, 0).get();
+            Assertions.assertFalse(evicted.containsKey(5));
+            for (int i = 6; i < 15; i++) Assertions.assertTrue(evicted.containsKey(i));
+            Assertions.assertEquals(10, evicted.size());
+        }
+    }
+
+    @Test
+    public void WHEN_sampleIsComplete_THEN_shouldHalveCountersOverFollowingIncrements() {
+        var sketch = FrequencySketch.forCapacity(16);
+        for (int i = 0; i < 15; i++) sketch = sketch.increment("a").get();
+        for (int i = 15; i < 160; i++) sketch = sketch.increment(i).get();
+        Assertions.assertEquals(15, sketch.frequency("a").get());
+
+        var completed = sketch;
+        for (int i = 0; i < 32; i++) sketch = sketch.increment(i).get();
+        Assertions.assertEquals(7, sketch.frequency("a").get());
+        Assertions.assertEquals(15, completed.frequency("a").get());
+    }
+}
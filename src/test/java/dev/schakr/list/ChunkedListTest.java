@@ -0,0 +1,93 @@
+package dev.schakr.list;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+public class ChunkedListTest {
+
+    private static <T> ArrayList<T> elements(ChunkedList<T> list) {
+        ArrayList<T> elements = new ArrayList<>();
+        list.forEach(elements::add);
+        return elements;
+    }
+
+    @Test
+    public void WHEN_addingElements_THEN_shouldIterateAndIndexFromHead() {
+        var list = ChunkedList.<Integer>empty();
+        var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            list = list.add(i);
+            expected.addFirst(i);
+        }
+
+        Assertions.assertEquals(expected, elements(list));
+        Assertions.assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) Assertions.assertEquals(expected.get(i), list.get(i).get());
+        Assertions.assertTrue(list.get(1000).isEmpty());
+        Assertions.assertTrue(list.contains(0));
+        Assertions.assertEquals(List.of(1, 2, 3), elements(ChunkedList.of(1, 2, 3)));
+        Assertions.assertEquals("ChunkedList(1, null)", ChunkedList.of(1, null).toString());
+    }
+
+    @Test
+    public void WHEN_addingToSameVersionTwice_THEN_shouldNotOverwriteSharedChunk() {
+        var base = ChunkedList.of(1, 2, 3);
+        var first = base.add(10);
+        var second = base.add(20);
+        var fromTail = first.tail().add(30);
+
+        Assertions.assertEquals(List.of(10, 1, 2, 3), elements(first));
+        Assertions.assertEquals(List.of(20, 1, 2, 3), elements(second));
+        Assertions.assertEquals(List.of(30, 1, 2, 3), elements(fromTail));
+        Assertions.assertEquals(List.of(1, 2, 3), elements(base));
+
+        var list = ChunkedList.<Integer>empty();
+        for (int i = 0; i < 100; i++) list = list.add(i);
+        while (list.size() > 1) list = list.tail();
+        Assertions.assertEquals(List.of(0), elements(list));
+        Assertions.assertTrue(list.tail().isEmpty());
+    }
+
+    @Test
+    public void WHEN_branchingFromClaimedSlot_THEN_shouldGrowBranchChunksFromSmallSize() {
+        var base = ChunkedList.of(1, 2, 3);
+        Assertions.assertEquals(ChunkedList.MIN_CHUNK, base.add(10).headChunkLength());
+
+        var branch = base.add(20);
+        Assertions.assertEquals(ChunkedList.BRANCH_CHUNK, branch.headChunkLength());
+        for (int i = 0; i < 6; i++) branch = branch.add(i);
+        Assertions.assertEquals(4 * ChunkedList.BRANCH_CHUNK, branch.headChunkLength());
+        Assertions.assertEquals(List.of(5, 4, 3, 2, 1, 0, 20, 1, 2, 3), elements(branch));
+    }
+
+    @Test
+    public void WHEN_threadsAddToSameVersion_THEN_eachShouldSeeItsOwnElement() throws InterruptedException {
+        var base = ChunkedList.of(0, 0, 0);
+        var start = new CountDownLatch(1);
+        var results = new ConcurrentLinkedQueue<Boolean>();
+        var threads = IntStream.range(0, 8).mapToObj(t -> new Thread(() -> {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (int i = 0; i < 10_000; i++) {
+                var list = base.add(t * 100_000 + i).add(i);
+                results.add(list.get(1).get() == t * 100_000 + i && list.get(0).get() == i && list.size() == 5);
+            }
+        })).toList();
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        Assertions.assertEquals(80_000, results.size());
+        Assertions.assertTrue(results.stream().allMatch(ok -> ok));
+        Assertions.assertEquals(List.of(0, 0, 0), elements(base));
+    }
+}
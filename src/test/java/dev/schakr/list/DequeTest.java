@@ -0,0 +1,84 @@
+package dev.schakr.list;
+
+import io.vavr.Tuple2;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class DequeTest {
+
+    private static <T> ArrayList<T> elements(Deque<T> deque) {
+        ArrayList<T> elements = new ArrayList<>();
+        deque.forEach(elements::add);
+        return elements;
+    }
+
+    @Test
+    public void WHEN_pushingAndPoppingAtBothEnds_THEN_shouldMatchArrayDeque() {
+        Random random = new Random(5);
+        var deque = Deque.<Integer>empty();
+        var expected = new ArrayDeque<Integer>();
+        for (int i = 0; i < 100_000; i++) {
+            switch (random.nextInt(4)) {
+                case 0 -> { deque = deque.pushFront(i); expected.addFirst(i); }
+                case 1 -> { deque = deque.pushBack(i); expected.addLast(i); }
+                case 2 -> {
+                    Assertions.assertEquals(expected.pollFirst(), deque.popFront().map(Tuple2::_1).getOrNull());
+                    deque = deque.popFront().map(Tuple2::_2).getOrElse(deque);
+                }
+                default -> {
+                    Assertions.assertEquals(expected.pollLast(), deque.popBack().map(Tuple2::_1).getOrNull());
+                    deque = deque.popBack().map(Tuple2::_2).getOrElse(deque);
+                }
+            }
+            Assertions.assertEquals(expected.size(), deque.size());
+            Assertions.assertEquals(expected.peekFirst(), deque.peekFront().getOrNull());
+            Assertions.assertEquals(expected.peekLast(), deque.peekBack().getOrNull());
+        }
+        Assertions.assertEquals(new ArrayList<>(expected), elements(deque));
+    }
+
+    @Test
+    public void WHEN_concatenatingAndSplitting_THEN_shouldKeepOrderAndIndexes() {
+        Random random = new Random(9);
+        var expected = new ArrayList<Integer>();
+        var deque = Deque.<Integer>empty();
+        for (int round = 0; round < 300; round++) {
+            int size = random.nextInt(200);
+            var part = new ArrayList<Integer>();
+            for (int i = 0; i < size; i++) part.add(random.nextInt());
+            if (random.nextBoolean()) {
+                deque = deque.concat(Deque.ofAll(part));
+                expected.addAll(part);
+            } else {
+                deque = Deque.ofAll(part).concat(deque);
+                expected.addAll(0, part);
+            }
+
+            int index = random.nextInt(deque.size() + 1);
+            var halves = deque.split(index).get();
+            Assertions.assertEquals(expected.subList(0, index), elements(halves._1));
+            Assertions.assertEquals(expected.subList(index, expected.size()), elements(halves._2));
+            deque = halves._1.concat(halves._2);
+            for (int i = 0; i < 20 && !expected.isEmpty(); i++) {
+                int at = random.nextInt(expected.size());
+                Assertions.assertEquals(expected.get(at), deque.get(at).get());
+            }
+        }
+        Assertions.assertTrue(deque.split(deque.size() + 1).isLeft());
+        Assertions.assertTrue(deque.get(deque.size()).isEmpty());
+    }
+
+    @Test
+    public void WHEN_modifyingVersion_THEN_previousVersionShouldBeUnchanged() {
+        var original = Deque.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        var modified = original.pushFront(0).pushBack(11).popFront().get()._2.popFront().get()._2;
+
+        Assertions.assertEquals(java.util.List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), elements(original));
+        Assertions.assertEquals(java.util.List.of(2, 3, 4, 5, 6, 7, 8, 9, 10, 11), elements(modified));
+        Assertions.assertEquals("Deque(1, null)", Deque.of(1, null).toString());
+    }
+}
@@ -0,0 +1,94 @@
+package dev.schakr.list;
+
+import io.vavr.Tuple;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class LazyListTest {
+
+    private static <T> ArrayList<T> elements(Iterable<T> list) {
+        ArrayList<T> elements = new ArrayList<>();
+        list.forEach(elements::add);
+        return elements;
+    }
+
+    @Test
+    public void WHEN_chainingOperations_THEN_shouldEvaluateOnlyWhatIsRead() {
+        AtomicInteger evaluated = new AtomicInteger();
+        var squares = LazyList.iterate(1, i -> i + 1).map(i -> {
+            evaluated.incrementAndGet();
+            return i * i;
+        });
+        Assertions.assertEquals(0, evaluated.get());
+
+        var odd = squares.filter(i -> i % 2 == 1).take(3);
+        Assertions.assertEquals(java.util.List.of(1, 9, 25), elements(odd));
+        Assertions.assertEquals(5, evaluated.get());
+        Assertions.assertEquals(java.util.List.of(1, 4, 9, 16, 25), elements(squares.take(5)));
+        Assertions.assertEquals(5, evaluated.get());
+        Assertions.assertEquals("LazyList(1, 4, 9, 16, 25, ?)", squares.toString());
+
+        var pairs = LazyList.of("a", "b").zip(squares);
+        Assertions.assertEquals(java.util.List.of(Tuple.of("a", 1), Tuple.of("b", 4)), elements(pairs));
+        Assertions.assertEquals("LazyList()", LazyList.empty().toString());
+        Assertions.assertTrue(LazyList.of(1, 2).take(0).isEmpty());
+    }
+
+    @Test
+    public void WHEN_traversingLongSequences_THEN_shouldUseConstantStackDepth() {
+        var numbers = LazyList.ofAll(IntStream.range(0, 3_000_000).boxed());
+        var last = numbers.map(i -> i + 1).filter(i -> i == 3_000_000).map(i -> -i);
+        Assertions.assertEquals(-3_000_000, last.head().get());
+        Assertions.assertTrue(last.tail().isEmpty());
+
+        long sum = 0;
+        for (int value : LazyList.iterate(0, i -> i + 1).take(2_000_000)) sum += value;
+        Assertions.assertEquals(1_999_999_000_000L, sum);
+    }
+
+    @Test
+    public void WHEN_consumersShareAPrefix_THEN_shouldReadEachLineOnce() throws Exception {
+        String text = IntStream.range(0, 10_000).mapToObj(Integer::toString).reduce((a, b) -> a + "\n" + b).orElseThrow();
+        AtomicInteger reads = new AtomicInteger();
+        var reader = new BufferedReader(new StringReader(text)) {
+            @Override
+            public String readLine() throws java.io.IOException {
+                reads.incrementAndGet();
+                return super.readLine();
+            }
+        };
+        var lines = LazyList.lines(reader).map(Integer::parseInt);
+
+        var consumers = new ArrayList<CompletableFuture<Long>>();
+        for (int i = 0; i < 8; i++) {
+            consumers.add(CompletableFuture.supplyAsync(() -> {
+                long sum = 0;
+                for (int value : lines) sum += value;
+                return sum;
+            }));
+        }
+        for (var consumer : consumers) Assertions.assertEquals(49_995_000L, consumer.get());
+        Assertions.assertEquals(10_001, reads.get());
+    }
+
+    @Test
+    public void WHEN_evaluationFails_THEN_shouldRethrowTheSameException() {
+        AtomicInteger attempts = new AtomicInteger();
+        var list = LazyList.of(1, 0, 2).map(i -> {
+            attempts.incrementAndGet();
+            return 2 / i;
+        });
+        Assertions.assertEquals(2, list.head().get());
+        var first = Assertions.assertThrows(ArithmeticException.class, () -> list.tail().head());
+        var second = Assertions.assertThrows(ArithmeticException.class, () -> list.tail().isEmpty());
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(2, attempts.get());
+    }
+}
@@ -0,0 +1,104 @@
+package dev.schakr.map;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class BTreeMapTest {
+
+    private static <K, V> ArrayList<Tuple2<K, V>> drain(Iterator<Tuple2<K, V>> iterator) {
+        ArrayList<Tuple2<K, V>> entries = new ArrayList<>();
+        iterator.forEachRemaining(entries::add);
+        return entries;
+    }
+
+    private static <K, V> ArrayList<Tuple2<K, V>> entries(java.util.SortedMap<K, V> map) {
+        ArrayList<Tuple2<K, V>> entries = new ArrayList<>();
+        map.forEach((k, v) -> entries.add(Tuple.of(k, v)));
+        return entries;
+    }
+
+    @Test
+    public void WHEN_applyingRandomOperations_THEN_shouldMatchTreeMap() {
+        Random random = new Random(7);
+        var map = BTreeMap.<Integer, Integer>empty();
+        var expected = new TreeMap<Integer, Integer>();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key).get();
+                expected.remove(key);
+            } else {
+                map = map.put(key, i).get();
+                expected.put(key, i);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), map.size());
+        Assertions.assertEquals(entries(expected), drain(map.iterator()));
+        for (int key = -1; key <= 5000; key++) {
+            Assertions.assertEquals(expected.get(key), map.get(key).getOrNull());
+            Assertions.assertEquals(expected.floorKey(key), map.floor(key).map(Tuple2::_1).getOrNull());
+            Assertions.assertEquals(expected.ceilingKey(key), map.ceiling(key).map(Tuple2::_1).getOrNull());
+        }
+    }
+
+    @Test
+    public void WHEN_scanningRange_THEN_shouldReturnEntriesInOrder() {
+        var map = BTreeMap.<Integer, String>empty();
+        for (int i = 0; i < 2000; i += 2) map = map.put(i, "v" + i).get();
+
+        var range = drain(map.range(101, 201));
+        Assertions.assertEquals(50, range.size());
+        Assertions.assertEquals(Tuple.of(102, "v102"), range.getFirst());
+        Assertions.assertEquals(Tuple.of(200, "v200"), range.getLast());
+        Assertions.assertTrue(drain(map.range(5000, 6000)).isEmpty());
+        Assertions.assertEquals(Tuple.of(0, "v0"), map.first().get());
+        Assertions.assertEquals(Tuple.of(1998, "v1998"), map.last().get());
+    }
+
+    @Test
+    public void WHEN_bulkLoading_THEN_shouldMatchIncrementalInsertion() {
+        var entries = new ArrayList<Tuple2<Integer, Integer>>();
+        for (int i = 0; i < 10_000; i++) entries.add(Tuple.of(i, i * i));
+        var loaded = BTreeMap.ofSorted(entries).get();
+
+        Assertions.assertEquals(10_000, loaded.size());
+        Assertions.assertEquals(entries, drain(loaded.iterator()));
+        for (int i = 0; i < 10_000; i += 2) loaded = loaded.remove(i).get();
+        Assertions.assertEquals(5000, loaded.size());
+        Assertions.assertEquals(9 * 9, loaded.get(9).get());
+        Assertions.assertTrue(BTreeMap.ofSorted(List.of(Tuple.of(2, 0), Tuple.of(1, 0))).isLeft());
+    }
+
+    @Test
+    public void WHEN_updatingMap_THEN_oldVersionShouldBeUnchanged() {
+        var map = BTreeMap.<String, Integer>empty();
+        for (int i = 0; i < 1000; i++) map = map.put("k" + i, i).get();
+        var updated = map.remove("k1").flatMap(m -> m.put("k2", -2)).get();
+
+        Assertions.assertEquals(1, map.get("k1").get());
+        Assertions.assertEquals(2, map.get("k2").get());
+        Assertions.assertTrue(updated.get("k1").isEmpty());
+        Assertions.assertEquals(-2, updated.get("k2").get());
+        Assertions.assertSame(map, map.put("k3", map.get("k3").get()).get());
+        Assertions.assertSame(map, map.remove("absent").get());
+    }
+
+    @Test
+    public void WHEN_comparatorThrows_THEN_updatesShouldReturnLeft() {
+        var map = BTreeMap.<String, Integer>empty(Comparator.comparing((String key) -> key.charAt(1))).put("ab", 1).get();
+
+        Assertions.assertTrue(map.put("a", 2).getLeft() instanceof StringIndexOutOfBoundsException);
+        Assertions.assertTrue(map.remove("a").getLeft() instanceof StringIndexOutOfBoundsException);
+        Assertions.assertEquals(1, map.get("ab").get());
+    }
+}
@@ -0,0 +1,93 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Random;
+
+public class CompactHashMapTest {
+
+    private static final HashStrategy<Integer> FOUR_HASHES = new HashStrategy<>() {
+        @Override
+        public int hash(Integer key) {
+            return key & 3;
+        }
+
+        @Override
+        public boolean equals(Integer a, Integer b) {
+            return a.equals(b);
+        }
+    };
+
+    private static void assertMatches(java.util.HashMap<Integer, Integer> expected, CompactHashMap<Integer, Integer> map) {
+        Assertions.assertEquals(expected.size(), map.size());
+        java.util.HashMap<Integer, Integer> visited = new java.util.HashMap<>();
+        map.forEach(visited::put);
+        Assertions.assertEquals(expected, visited);
+        for (int key = -1; key <= 5000; key++) Assertions.assertEquals(expected.get(key), map.get(key).getOrNull());
+    }
+
+    private static CompactHashMap<Integer, Integer> applyRandomOperations(CompactHashMap<Integer, Integer> map,
+                                                                         java.util.HashMap<Integer, Integer> expected) {
+        Random random = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key).get();
+                expected.remove(key);
+            } else {
+                map = map.put(key, i).get();
+                expected.put(key, i);
+            }
+        }
+        return map;
+    }
+
+    @Test
+    public void WHEN_applyingRandomOperations_THEN_shouldMatchJavaHashMap() {
+        var expected = new java.util.HashMap<Integer, Integer>();
+        assertMatches(expected, applyRandomOperations(CompactHashMap.empty(), expected));
+    }
+
+    @Test
+    public void WHEN_hashesCollide_THEN_shouldKeepAndRemoveEntriesInBuckets() {
+        var expected = new java.util.HashMap<Integer, Integer>();
+        var map = applyRandomOperations(CompactHashMap.empty(FOUR_HASHES), expected);
+        assertMatches(expected, map);
+
+        for (Integer key : new java.util.ArrayList<>(expected.keySet())) map = map.remove(key).get();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertTrue(map.get(0).isEmpty());
+    }
+
+    @Test
+    public void WHEN_puttingIdenticalValueOrRemovingAbsentKey_THEN_shouldReturnSameMap() {
+        String value = "value";
+        var map = CompactHashMap.<Integer, String>empty();
+        for (int i = 0; i < 1000; i++) map = map.put(i, value).get();
+
+        Assertions.assertSame(map, map.put(500, value).get());
+        Assertions.assertSame(map, map.remove(1000).get());
+        Assertions.assertNotSame(map, map.put(500, "other").get());
+        Assertions.assertEquals(1000, map.put(500, "other").get().size());
+    }
+
+    @Test
+    public void WHEN_measuringFootprint_THEN_shouldNeedFewerObjectsAndBytesThanHashMap() {
+        int entries = 100_000;
+        var hashMap = new HashMap<Integer, Integer>();
+        for (int i = 0; i < entries; i++) hashMap = hashMap.put(i, i).get();
+        var compactMap = CompactHashMap.of(hashMap);
+        Assertions.assertEquals(entries, compactMap.size());
+
+        GraphLayout hashMapLayout = GraphLayout.parseInstance(hashMap);
+        GraphLayout compactLayout = GraphLayout.parseInstance(compactMap);
+        String footprint = "HashMap: " + hashMapLayout.totalCount() + " objects, " + hashMapLayout.totalSize() +
+                " bytes; CompactHashMap: " + compactLayout.totalCount() + " objects, " + compactLayout.totalSize() + " bytes";
+
+        // Both graphs include the same boxed keys and values, so the difference is made up by the nodes.
+        Assertions.assertTrue(hashMapLayout.totalCount() - compactLayout.totalCount() >= entries, footprint);
+        Assertions.assertTrue(compactLayout.totalSize() < hashMapLayout.totalSize(), footprint);
+    }
+}
@@ -0,0 +1,108 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class HashMapDiffTest {
+
+    private static <A, B> java.util.HashMap<A, B> apply(java.util.HashMap<A, B> entries, HashMapDiff<A, B> diff) {
+        java.util.HashMap<A, B> applied = new java.util.HashMap<>(entries);
+        for (HashMapDiff.Change<A, B> change : diff.changes()) {
+            Assertions.assertEquals(applied.get(change.key()), change.before().getOrNull());
+            if (change.isRemoval()) applied.remove(change.key());
+            else applied.put(change.key(), change.after().get());
+        }
+        return applied;
+    }
+
+    private static <A, B> java.util.HashMap<A, B> entries(HashMap<A, B> map) {
+        java.util.HashMap<A, B> entries = new java.util.HashMap<>();
+        map.forEach(entries::put);
+        return entries;
+    }
+
+    @Test
+    public void WHEN_diffingRandomVersions_THEN_changesShouldTurnOneIntoTheOther() {
+        HashStrategy<Integer> sixteenHashes = new HashStrategy<>() {
+            @Override
+            public int hash(Integer key) {
+                return key & 15;
+            }
+
+            @Override
+            public boolean equals(Integer a, Integer b) {
+                return a.equals(b);
+            }
+        };
+        Random random = new Random(3);
+        var map = new HashMap<Integer, Integer>(sixteenHashes);
+        for (int round = 0; round < 200; round++) {
+            var next = map;
+            for (int i = random.nextInt(20); i >= 0; i--) {
+                int key = random.nextInt(300);
+                next = random.nextBoolean() ? next.put(key, random.nextInt(3)).get() : next.remove(key).get();
+            }
+
+            var diff = HashMapDiff.between(map, next).get();
+            Assertions.assertEquals(entries(next), apply(entries(map), diff));
+            map = next;
+        }
+    }
+
+    @Test
+    public void WHEN_diffingSmallMaps_THEN_shouldReportChangedKeys() {
+        var map = new HashMap<String, Integer>().put("a", 1).flatMap(m -> m.put("b", 2)).get();
+        var next = map.put("a", 3).flatMap(m -> m.remove("b")).flatMap(m -> m.put("c", 4)).get();
+        Assertions.assertNotNull(next.entries);
+
+        var diff = HashMapDiff.between(map, next).get();
+        Assertions.assertEquals(3, diff.size());
+        Assertions.assertEquals(entries(next), apply(entries(map), diff));
+        Assertions.assertTrue(HashMapDiff.between(map, map.put("a", 1).get()).get().isEmpty());
+    }
+
+    @Test
+    public void WHEN_valuesAreNull_THEN_shouldReportThemAsPresent() {
+        var small = new HashMap<String, Integer>().put("a", 1).get();
+        var large = new HashMap<String, Integer>();
+        for (int i = 0; i < 100; i++) large = large.put("key" + i, i).get();
+
+        for (var map : java.util.List.of(small, large)) {
+            var added = HashMapDiff.between(map, map.put("null", null).get()).get().changes().single();
+            Assertions.assertTrue(added.isAddition());
+            Assertions.assertFalse(added.isRemoval());
+            Assertions.assertTrue(added.after().isDefined());
+
+            var withNull = map.put("null", null).get();
+            var updated = HashMapDiff.between(withNull, withNull.put("null", 7).get()).get().changes().single();
+            Assertions.assertFalse(updated.isAddition());
+            Assertions.assertFalse(updated.isRemoval());
+            Assertions.assertEquals(7, updated.after().get());
+
+            var removed = HashMapDiff.between(withNull, map).get().changes().single();
+            Assertions.assertTrue(removed.isRemoval());
+            Assertions.assertFalse(removed.isAddition());
+        }
+    }
+
+    @Test
+    public void WHEN_diffingVersionsSharingStructure_THEN_shouldOnlyReportChangedKeys() {
+        var map = new HashMap<String, Integer>();
+        for (int i = 0; i < 10_000; i++) map = map.put("key" + i, i).get();
+        var next = map.put("key1", -1).flatMap(m -> m.remove("key2")).flatMap(m -> m.put("new", 0)).flatMap(m -> m.put("key3", 3)).get();
+
+        var diff = HashMapDiff.between(map, next).get();
+        var changes = diff.changes();
+        Assertions.assertEquals(3, changes.size());
+        // Only the pairs of nodes along the three changed paths are compared, not the whole trie.
+        int visited = HashMapDiff.visitedNodes(map, next);
+        Assertions.assertTrue(visited <= 3 * HashMap.MAX_DEPTH, "visited " + visited + " nodes");
+        Assertions.assertTrue(changes.exists(c -> c.key().equals("key1") && c.after().contains(-1)));
+        Assertions.assertTrue(changes.exists(c -> c.key().equals("key2") && c.isRemoval()));
+        Assertions.assertTrue(changes.exists(c -> c.key().equals("new") && c.isAddition()));
+        Assertions.assertTrue(HashMapDiff.between(next, next).get().isEmpty());
+        Assertions.assertTrue(HashMapDiff.between(map, new HashMap<>(HashStrategy.identity())).isLeft());
+    }
+}
@@ -0,0 +1,109 @@
+package dev.schakr.map;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class HashMapDigestsTest {
+
+    /**
+     * Forwards requests to another replica the way a network stub would, passing paths by their
+     * depth and prefix and entries by their encoded bytes, and counts the traffic.
+     */
+    private static final class LoopbackReplica implements HashMapReplica<Integer, String> {
+        private final HashMapDigests<Integer, String> remote;
+        int requests;
+        int entries;
+
+        LoopbackReplica(HashMapDigests<Integer, String> remote) {
+            this.remote = remote;
+        }
+
+        private TriePath received(TriePath path) {
+            requests++;
+            return TriePath.of(path.depth(), path.prefix()).get();
+        }
+
+        @Override
+        public long digestAt(TriePath path) {
+            return remote.digestAt(received(path));
+        }
+
+        @Override
+        public long[] childrenDigests(TriePath path) {
+            return remote.childrenDigests(received(path)).clone();
+        }
+
+        @Override
+        public List<Tuple2<Integer, String>> subtreeEntries(TriePath path) {
+            List<Tuple2<Integer, String>> sent = remote.subtreeEntries(received(path));
+            entries += sent.size();
+            return sent.map(entry -> entry
+                    .map1(key -> Codec.int32().decode(Codec.int32().encode(key)))
+                    .map2(value -> Codec.utf8().decode(Codec.utf8().encode(value))));
+        }
+    }
+
+    private static HashMap<Integer, String> put(HashMap<Integer, String> map, int key, String value) {
+        return map.put(key, value).get();
+    }
+
+    @Test
+    public void WHEN_contentIsEqual_THEN_digestsShouldMatchRegardlessOfHistory() {
+        HashMap<Integer, String> forward = new HashMap<>();
+        HashMap<Integer, String> backward = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            forward = put(forward, i, "v" + i);
+            backward = put(backward, 9999 - i, "v" + (9999 - i));
+        }
+        for (int i = 5000; i < 10_000; i++) forward = forward.remove(i - 5000).get();
+        for (int i = 0; i < 5000; i++) backward = backward.remove(i).get();
+        for (int i = 5000; i < 10_000; i++) forward = put(forward, i, "v" + i);
+
+        var forwardDigests = HashMapDigests.of(forward, Codec.int32(), Codec.utf8());
+        var backwardDigests = HashMapDigests.of(backward, Codec.int32(), Codec.utf8());
+        Assertions.assertEquals(forwardDigests.digest(), backwardDigests.digest());
+        Assertions.assertNotEquals(forwardDigests.digest(), forwardDigests.forVersion(put(forward, 7, "changed")).digest());
+        Assertions.assertEquals(0, HashMapDigests.of(new HashMap<Integer, String>(), Codec.int32(), Codec.utf8()).digest());
+
+        var path = TriePath.root().child(3).get();
+        long childrenSum = 0;
+        for (long digest : forwardDigests.childrenDigests(path)) childrenSum += digest;
+        Assertions.assertEquals(forwardDigests.digestAt(path), childrenSum);
+        Assertions.assertTrue(TriePath.root().child(32).isLeft());
+        Assertions.assertTrue(TriePath.of(1, 32).isLeft());
+    }
+
+    @Test
+    public void WHEN_pullingFromChangedReplica_THEN_shouldTransferOnlyChangedSubtrees() {
+        Random random = new Random(23);
+        HashMap<Integer, String> source = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) source = put(source, i, "v" + i);
+        HashMap<Integer, String> replica = source;
+        var replicaDigests = HashMapDigests.of(replica, Codec.int32(), Codec.utf8());
+        replicaDigests.digest();
+
+        // Removals of keys outside the replica leave the map unchanged, so fewer than 50 operations take effect.
+        for (int i = 0; i < 50; i++) {
+            int key = random.nextInt(300_000);
+            source = random.nextBoolean() ? put(source, key, "changed" + i) : source.remove(key).get();
+        }
+        int changes = HashMapDiff.between(replica, source).get().size();
+        Assertions.assertEquals(39, changes);
+
+        var loopback = new LoopbackReplica(replicaDigests.forVersion(source));
+        HashMap<Integer, String> synced = replicaDigests.pullFrom(loopback).get();
+
+        Assertions.assertTrue(HashMapDiff.between(synced, source).get().isEmpty());
+        Assertions.assertEquals(source.size(), synced.size());
+        Assertions.assertTrue(loopback.entries <= changes * 8, "transferred " + loopback.entries + " entries");
+        Assertions.assertTrue(loopback.requests <= changes * 5, "sent " + loopback.requests + " requests");
+
+        var again = new LoopbackReplica(replicaDigests.forVersion(source));
+        Assertions.assertSame(synced, replicaDigests.forVersion(synced).pullFrom(again).get());
+        Assertions.assertEquals(1, again.requests);
+    }
+}
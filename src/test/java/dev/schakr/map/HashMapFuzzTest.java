@@ -0,0 +1,178 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs long random sequences of put, remove and get against {@code java.util.HashMap} as an oracle,
+ * checking every result, the structure of the trie and that earlier versions never change.
+ * <p>
+ * Runs are deterministic for a seed. A failure reports the seed and the operation it occurred at;
+ * rerun it with {@code ./gradlew test --tests HashMapFuzzTest -PfuzzSeed=<seed>}, and run longer
+ * sequences with e.g. {@code -PfuzzOperations=5000000}.
+ */
+public class HashMapFuzzTest {
+    private static final long SEED = Long.getLong("fuzz.seed", 0x5eed_c0ffeeL);
+    private static final int OPERATIONS = Integer.getInteger("fuzz.operations", 100_000);
+    private static final int CHECK_INTERVAL = 4096;
+    private static final int SNAPSHOT_INTERVAL = 997;
+    private static final int MAX_SNAPSHOTS = 16;
+
+    /** Hashes to one of 8 values, so that every bucket holds large collision nodes. */
+    private static final HashStrategy<Integer> EIGHT_HASHES = strategy(key -> key & 7);
+
+    /**
+     * Shares the lowest 25 bits of every hash, so that all keys end up at the deepest level of the
+     * trie. Only 128 distinct hashes exist, so every full hash is shared by several keys.
+     */
+    private static final HashStrategy<Integer> DEEP_PATHS = strategy(key -> 0x0123_4567 & ((1 << 25) - 1) | (key & 127) << 25);
+
+    private static final String[] BLOCKS = { "Aa", "BB", "C" };
+
+    private record Snapshot<K>(HashMap<K, Integer> version, java.util.HashMap<K, Integer> expected, int operation) {}
+
+    private static HashStrategy<Integer> strategy(Function<Integer, Integer> hash) {
+        return new HashStrategy<>() {
+            @Override
+            public int hash(Integer key) {
+                return hash.apply(key);
+            }
+
+            @Override
+            public boolean equals(Integer a, Integer b) {
+                return Objects.equals(a, b);
+            }
+        };
+    }
+
+    @Test
+    public void WHEN_fuzzingIntegerKeys_THEN_shouldMatchJavaHashMap() {
+        fuzz("integers", HashStrategy.natural(), random -> (random.nextInt(64) == 0) ? null : random.nextInt(4096));
+    }
+
+    @Test
+    public void WHEN_fuzzingCollidingHashes_THEN_shouldMatchJavaHashMap() {
+        fuzz("collisions", EIGHT_HASHES, random -> random.nextInt(512));
+    }
+
+    @Test
+    public void WHEN_fuzzingKeysAtMaxDepth_THEN_shouldMatchJavaHashMap() {
+        fuzz("deep paths", DEEP_PATHS, random -> random.nextInt(512));
+    }
+
+    @Test
+    public void WHEN_fuzzingStringsWithCollidingHashCodes_THEN_shouldMatchJavaHashMap() {
+        fuzz("strings", HashStrategy.natural(), random -> {
+            StringBuilder key = new StringBuilder();
+            for (int i = random.nextInt(1, 6); i > 0; i--) key.append(BLOCKS[random.nextInt(BLOCKS.length)]);
+            return key.toString();
+        });
+    }
+
+    private static <K> void fuzz(String scenario, HashStrategy<K> strategy, Function<SplittableRandom, K> keys) {
+        long seed = SEED ^ scenario.hashCode();
+        SplittableRandom random = new SplittableRandom(seed);
+        HashMap<K, Integer> map = new HashMap<>(strategy);
+        java.util.HashMap<K, Integer> expected = new java.util.HashMap<>();
+        ArrayDeque<Snapshot<K>> snapshots = new ArrayDeque<>();
+
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            int current = operation;
+            Supplier<String> context = () -> scenario + " with -PfuzzSeed=" + SEED + ", operation " + current;
+            K key = keys.apply(random);
+            int choice = random.nextInt(10);
+
+            if (choice < 5) {
+                boolean identical = expected.containsKey(key) && random.nextBoolean();
+                Integer value = identical ? expected.get(key) : Integer.valueOf(operation);
+                HashMap<K, Integer> updated = map.put(key, value).getOrElseThrow(t -> new AssertionError(context.get(), t));
+                if (identical) Assertions.assertSame(map, updated, context);
+                expected.put(key, value);
+                map = updated;
+            } else if (choice < 8) {
+                boolean present = expected.containsKey(key);
+                HashMap<K, Integer> updated = map.remove(key).getOrElseThrow(t -> new AssertionError(context.get(), t));
+                if (!present) Assertions.assertSame(map, updated, context);
+                expected.remove(key);
+                map = updated;
+            }
+
+            Assertions.assertEquals(expected.get(key), map.get(key).getOrNull(), context);
+            Assertions.assertEquals(expected.containsKey(key), map.containsKey(key), context);
+            Assertions.assertEquals(expected.size(), map.size(), context);
+
+            if (operation % SNAPSHOT_INTERVAL == 0) {
+                snapshots.addLast(new Snapshot<>(map, new java.util.HashMap<>(expected), operation));
+                if (snapshots.size() > MAX_SNAPSHOTS) verify(snapshots.removeFirst(), context.get());
+            }
+            if (operation % CHECK_INTERVAL == 0) verify(new Snapshot<>(map, expected, operation), context.get());
+        }
+
+        verify(new Snapshot<>(map, expected, OPERATIONS), scenario);
+        for (Snapshot<K> snapshot : snapshots) verify(snapshot, scenario + " with -PfuzzSeed=" + SEED);
+    }
+
+    /**
+     * Checks that a version holds exactly the expected entries and that its trie is well-formed.
+     */
+    private static <K> void verify(Snapshot<K> snapshot, String context) {
+        String message = context + ", version of operation " + snapshot.operation;
+        HashMap<K, Integer> map = snapshot.version;
+
+        java.util.HashMap<K, Integer> visited = new java.util.HashMap<>();
+        map.forEach((key, value) -> Assertions.assertNull(visited.put(key, value), message + ": duplicate key " + key));
+        Assertions.assertEquals(snapshot.expected, visited, message);
+        Assertions.assertEquals(snapshot.expected.size(), map.size(), message);
+        for (K key : snapshot.expected.keySet())
+            Assertions.assertSame(snapshot.expected.get(key), map.get(key).getOrNull(), message + ": key " + key);
+
+        Assertions.assertEquals(map.size() == 0, map.isEmpty(), message);
+        checkStructure(map.root(), 0, 0, true, map.strategy, message);
+    }
+
+    /**
+     * Checks that every node is consistent with its bitmap and size, that no empty nodes are left
+     * in the trie, and that every entry sits at the path selected by its hash.
+     *
+     * @param prefix the hash fragments of the path to the node, as they appear in the hashes of its entries
+     */
+    private static <K> void checkStructure(Node<K, Integer> node, int level, int prefix, boolean isRoot,
+                                           HashStrategy<K> strategy, String message) {
+        int prefixMask = (level == 0) ? 0 : (int) ((1L << (5 * level)) - 1);
+        switch (node) {
+            case IndirectionNode<K, Integer> indirectionNode -> {
+                Assertions.assertTrue(level < HashMap.MAX_DEPTH, message + ": indirection node below MAX_DEPTH");
+                Assertions.assertEquals(Integer.bitCount(indirectionNode.bitmap), indirectionNode.nodes.size(),
+                        message + ": bitmap does not match children at level " + level);
+                Assertions.assertTrue(isRoot || !indirectionNode.isEmpty(), message + ": empty indirection node at level " + level);
+                int index = 0;
+                for (int hash = 0; hash < 32; hash++) {
+                    if (!indirectionNode.containsHash(hash)) continue;
+                    checkStructure(indirectionNode.nodes.get(index++), level + 1, prefix | hash << (5 * level),
+                            false, strategy, message);
+                }
+            }
+            case LeafNode<K, Integer> leafNode -> {
+                Assertions.assertEquals(strategy.hash(leafNode.key), leafNode.hash, message + ": stale hash of " + leafNode.key);
+                Assertions.assertEquals(prefix, leafNode.hash & prefixMask, message + ": misplaced key " + leafNode.key);
+            }
+            case CollisionNode<K, Integer> collisionNode -> {
+                Assertions.assertEquals(HashMap.MAX_DEPTH, level, message + ": collision node above MAX_DEPTH");
+                Assertions.assertTrue(collisionNode.size() >= 2, message + ": collision node with " + collisionNode.size() + " entries");
+                Assertions.assertFalse(collisionNode.isEmpty(), message);
+                for (int i = 0; i < collisionNode.size(); i++) {
+                    K key = collisionNode.keys[i];
+                    Assertions.assertEquals(strategy.hash(key), collisionNode.hashes[i], message + ": stale hash of " + key);
+                    Assertions.assertEquals(prefix, collisionNode.hashes[i] & prefixMask, message + ": misplaced key " + key);
+                }
+            }
+            default -> Assertions.fail(message + ": unexpected " + node.getClass().getSimpleName() + " at level " + level);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package dev.schakr.map;
+
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+public class HashMapHistoryTest {
+
+    static final class ManualClock extends Clock {
+        Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    public void WHEN_committingBeyondCapacity_THEN_shouldRetainLastVersions() {
+        var history = HashMapHistory.<Integer, Integer>keepingLast(3).get();
+        var map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 5; i++) {
+            map = map.put(i, i).get();
+            history = history.commit(map);
+        }
+
+        Assertions.assertEquals(List.of(3L, 4L, 5L), history.versions().toList());
+        Assertions.assertTrue(history.at(2).isEmpty());
+        Assertions.assertEquals(3, history.at(3).get().size());
+        Assertions.assertFalse(history.at(3).get().containsKey(3));
+        Assertions.assertTrue(history.release(4).at(4).isEmpty());
+        Assertions.assertEquals(1, history.releaseBefore(5).versions().size());
+        Assertions.assertTrue(HashMapHistory.keepingLast(0).isLeft());
+    }
+
+    @Test
+    public void WHEN_versionsAge_THEN_shouldExpireThemButKeepLatest() {
+        var clock = new ManualClock();
+        var history = HashMapHistory.<Integer, Integer>keepingFor(Duration.ofMinutes(10), clock).get();
+        var map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 4; i++) {
+            map = map.put(i, i).get();
+            history = history.commit(map);
+            clock.now = clock.now.plus(Duration.ofMinutes(4));
+        }
+
+        Assertions.assertEquals(3, history.versions().size());
+        Assertions.assertEquals(2L, history.asOf(Instant.parse("2024-01-01T00:05:00Z")).get().version());
+        Assertions.assertTrue(history.asOf(Instant.parse("2023-12-31T00:00:00Z")).isEmpty());
+
+        clock.now = clock.now.plus(Duration.ofHours(1));
+        Assertions.assertEquals(4L, history.expire().versions().single());
+    }
+
+    @Test
+    public void WHEN_versionsShareStructure_THEN_shouldReportSmallUniqueBytes() {
+        var history = HashMapHistory.<Integer, Integer>keepingLast(10).get();
+        var map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 10_000; i++) map = map.put(i, i).get();
+        history = history.commit(map);
+        for (int i = 0; i < 5; i++) {
+            map = map.put(i, -i - 1).get();
+            history = history.commit(map);
+        }
+
+        long full = HashMapStats.of(map).estimatedBytes();
+        Assertions.assertTrue(history.retainedBytes() < full * 2);
+        Assertions.assertTrue(history.retainedBytes() > full);
+        history.uniqueBytes().values().forEach(bytes -> Assertions.assertTrue(bytes < full / 10));
+    }
+}
@@ -0,0 +1,83 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class HashMapInternerTest {
+
+    /**
+     * Builds a tenant's map from scratch in a random order: the shared settings plus a few of its own.
+     */
+    private static HashMap<String, String> tenant(int id, Random random) {
+        ArrayList<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) keys.add(i);
+        java.util.Collections.shuffle(keys, random);
+
+        HashMap<String, String> map = new HashMap<>();
+        for (int key : keys) map = map.put("setting-" + key, "value-" + key).get();
+        for (int i = 0; i < 3; i++) map = map.put("tenant-" + id + "-" + i, "own-" + i).get();
+        return map;
+    }
+
+    @Test
+    public void WHEN_internedTenantsShareMostEntries_THEN_shouldShareTheirNodes() {
+        Random random = new Random(29);
+        var interner = HashMapInterner.<String, String>create();
+        var built = new ArrayList<HashMap<String, String>>();
+        var interned = new ArrayList<HashMap<String, String>>();
+        for (int id = 0; id < 20; id++) {
+            HashMap<String, String> map = tenant(id, random);
+            built.add(map);
+            interned.add(interner.intern(map).get());
+        }
+
+        for (int id = 0; id < built.size(); id++) {
+            Assertions.assertEquals(built.get(id), interned.get(id));
+            Assertions.assertEquals(built.get(id).size(), interned.get(id).size());
+        }
+        Assertions.assertNotEquals(interned.get(0), interned.get(1));
+
+        // Every tenant creates its own key and value strings, which interning the leaves deduplicates too.
+        long builtSize = GraphLayout.parseInstance(built.toArray()).totalSize();
+        long internedSize = GraphLayout.parseInstance(interned.toArray()).totalSize();
+        Assertions.assertTrue(internedSize * 10 < builtSize, "built: " + builtSize + " bytes, interned: " + internedSize + " bytes");
+    }
+
+    @Test
+    public void WHEN_contentIsEqual_THEN_internedMapsShouldShareTheirRoot() {
+        var interner = HashMapInterner.<String, String>create();
+        var first = tenant(1, new Random(1)).intern(interner).get();
+        var second = tenant(1, new Random(2)).intern(interner).get();
+
+        Assertions.assertSame(first.root, second.root);
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+        Assertions.assertSame(first, first.intern(interner).get());
+
+        var changed = second.put("setting-7", "changed").get();
+        Assertions.assertNotEquals(first, changed);
+        Assertions.assertEquals(first, changed.put("setting-7", "value-7").get());
+        Assertions.assertTrue(new HashMap<String, String>(HashStrategy.identity()).intern(interner).isLeft());
+    }
+
+    @Test
+    public void WHEN_smallMapsAreEqual_THEN_internedMapsShouldShareTheirEntries() {
+        var interner = HashMapInterner.<String, String>create();
+        var first = new HashMap<String, String>().put("a", "1").flatMap(m -> m.put("b", "2")).flatMap(m -> m.intern(interner)).get();
+        var second = new HashMap<String, String>().put("b", new String("2")).flatMap(m -> m.put(new String("a"), "1"))
+                .flatMap(m -> m.intern(interner)).get();
+
+        Assertions.assertNotNull(first.entries);
+        Assertions.assertSame(first.entries, second.entries);
+        Assertions.assertEquals(first, second);
+        Assertions.assertSame(first, first.intern(interner).get());
+
+        var changed = second.put("b", "3").flatMap(m -> m.intern(interner)).get();
+        Assertions.assertNotSame(first.entries, changed.entries);
+        Assertions.assertEquals("3", changed.get("b").get());
+    }
+}
@@ -0,0 +1,100 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class HashMapJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void WHEN_reopeningJournal_THEN_shouldReplayLog() throws Exception {
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8()).get()) {
+            journal.put("1", "a");
+            journal.put("2", "b");
+            journal.put("1", "c");
+            journal.remove("2");
+            Assertions.assertTrue(journal.sync().isRight());
+        }
+
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8()).get()) {
+            var map = journal.current();
+            Assertions.assertEquals("c", map.get("1").get());
+            Assertions.assertFalse(map.containsKey("2"));
+        }
+    }
+
+    @Test
+    public void WHEN_checkpointing_THEN_shouldTruncateLogAndRecoverFromSnapshot() throws Exception {
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8()).get()) {
+            journal.put("1", "a");
+            journal.put("2", "b");
+            Assertions.assertTrue(journal.checkpoint().isRight());
+            Assertions.assertEquals(0, Files.size(dir.resolve(HashMapJournal.LOG_FILE)));
+
+            journal.put("2", "c");
+            journal.remove("1");
+        }
+
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8()).get()) {
+            var map = journal.current();
+            Assertions.assertFalse(map.containsKey("1"));
+            Assertions.assertEquals("c", map.get("2").get());
+        }
+    }
+
+    @Test
+    public void WHEN_exceedingCheckpointInterval_THEN_shouldCheckpointAutomatically() throws Exception {
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8(), 2, 4).get()) {
+            for (int i = 0; i < 4; i++) journal.put(String.valueOf(i), "v" + i);
+        }
+
+        Assertions.assertTrue(Files.exists(dir.resolve(HashMapJournal.CHECKPOINT_FILE)));
+        Assertions.assertEquals(0, Files.size(dir.resolve(HashMapJournal.LOG_FILE)));
+    }
+
+    @Test
+    public void WHEN_appendingDuringCheckpoint_THEN_shouldRecoverUpdate() throws Exception {
+        AtomicReference<HashMapJournal<String, String>> opened = new AtomicReference<>();
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8(), 256, 1 << 20,
+                HashStrategy.<String>natural(), () -> opened.get().put("2", "b")).get()) {
+            opened.set(journal);
+            journal.put("1", "a");
+            Assertions.assertFalse(journal.checkpoint().get().containsKey("2"));
+        }
+
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8()).get()) {
+            Assertions.assertEquals("a", journal.current().get("1").get());
+            Assertions.assertEquals("b", journal.current().get("2").get());
+        }
+    }
+
+    @Test
+    public void WHEN_logHasTornRecord_THEN_shouldDiscardIt() throws Exception {
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8()).get()) {
+            journal.put("1", "a");
+        }
+        long validLength = Files.size(dir.resolve(HashMapJournal.LOG_FILE));
+        Files.write(dir.resolve(HashMapJournal.LOG_FILE), new byte[] { 0, 0, 0, 42, 1, 2, 3 },
+                StandardOpenOption.APPEND);
+
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8()).get()) {
+            Assertions.assertEquals("a", journal.current().get("1").get());
+            Assertions.assertEquals(validLength, Files.size(dir.resolve(HashMapJournal.LOG_FILE)));
+
+            journal.put("2", "b");
+        }
+
+        try (var journal = HashMapJournal.open(dir, Codec.utf8(), Codec.utf8()).get()) {
+            Assertions.assertEquals("a", journal.current().get("1").get());
+            Assertions.assertEquals("b", journal.current().get("2").get());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class HashMapPublisherTest {
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<HashMapDiff<String, Integer>> {
+        final ArrayList<HashMapDiff<String, Integer>> diffs = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(HashMapDiff<String, Integer> diff) {
+            diffs.add(diff);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    public void WHEN_subscriberKeepsUp_THEN_shouldReceiveStateAndOneDiffPerVersion() {
+        var initial = new HashMap<String, Integer>().put("a", 1).get();
+        var publisher = HashMapPublisher.of(initial, Runnable::run);
+        var subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        var second = initial.put("b", 2).get();
+        publisher.publish(second);
+        publisher.publish(second.remove("a").get());
+        publisher.publish(second.remove("a").get());
+        publisher.close();
+
+        Assertions.assertEquals(3, subscriber.diffs.size());
+        Assertions.assertTrue(subscriber.diffs.get(0).changes().forAll(HashMapDiff.Change::isAddition));
+        Assertions.assertEquals("b", subscriber.diffs.get(1).changes().single().key());
+        Assertions.assertTrue(subscriber.diffs.get(2).changes().single().isRemoval());
+        Assertions.assertTrue(subscriber.completed);
+        Assertions.assertEquals(0, publisher.subscribers());
+        Assertions.assertTrue(publisher.publish(second).isLeft());
+    }
+
+    @Test
+    public void WHEN_subscriberIsSlow_THEN_shouldReceiveCoalescedDiff() {
+        var map = new HashMap<String, Integer>();
+        var publisher = HashMapPublisher.of(map, Runnable::run);
+        var subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        for (int i = 0; i < 100; i++) {
+            map = map.put("key" + (i % 10), i).get();
+            publisher.publish(map);
+        }
+        map = map.remove("key0").get();
+        publisher.publish(map);
+        Assertions.assertTrue(subscriber.diffs.isEmpty());
+
+        subscriber.subscription.request(1);
+        Assertions.assertEquals(1, subscriber.diffs.size());
+        Assertions.assertEquals(9, subscriber.diffs.getFirst().size());
+        Assertions.assertSame(map, subscriber.diffs.getFirst().to());
+
+        publisher.close();
+        Assertions.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void WHEN_requestingNonPositiveDemand_THEN_shouldSignalError() {
+        var publisher = HashMapPublisher.of(new HashMap<String, Integer>(), Runnable::run);
+        var subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        Assertions.assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        Assertions.assertEquals(0, publisher.subscribers());
+    }
+
+    @Test
+    public void WHEN_requestingFromOnSubscribeOnThreadPool_THEN_signalsShouldBeSerial() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            var publisher = HashMapPublisher.of(new HashMap<String, Integer>().put("a", 0).get(), executor);
+            AtomicBoolean inSignal = new AtomicBoolean();
+            AtomicInteger overlaps = new AtomicInteger();
+            CountDownLatch completed = new CountDownLatch(1);
+            publisher.subscribe(new Flow.Subscriber<>() {
+                private void enter() {
+                    if (!inSignal.compareAndSet(false, true)) overlaps.incrementAndGet();
+                }
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    enter();
+                    subscription.request(Long.MAX_VALUE);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                    inSignal.set(false);
+                }
+
+                @Override
+                public void onNext(HashMapDiff<String, Integer> diff) {
+                    enter();
+                    inSignal.set(false);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    completed.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            });
+
+            var map = publisher.current();
+            for (int i = 1; i <= 1000; i++) publisher.publish(map = map.put("a", i).get());
+            publisher.close();
+
+            Assertions.assertTrue(completed.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, overlaps.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
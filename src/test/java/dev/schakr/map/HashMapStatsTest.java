@@ -0,0 +1,85 @@
+package dev.schakr.map;
+
+import dev.schakr.map.HashMapTest.CollidingKey;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public class HashMapStatsTest {
+
+    @Test
+    public void WHEN_inspectingMap_THEN_shouldCountEveryEntry() {
+        var map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 1000; i++) map = map.put(i, i).get();
+
+        HashMapStats stats = HashMapStats.of(map);
+        Assertions.assertEquals(1000, stats.entries());
+        Assertions.assertEquals(1000, stats.leafNodes());
+        Assertions.assertEquals(1000L, stats.depthHistogram().values().sum().longValue());
+        Assertions.assertEquals(stats.indirectionNodes(), stats.fanOutHistogram().values().sum().longValue());
+        Assertions.assertTrue(stats.estimatedBytes() > 1000 * 24);
+    }
+
+    @Test
+    public void WHEN_inspectingCollidingKeys_THEN_shouldReportCollisionSizes() {
+        var map = new HashMap<CollidingKey, Integer>();
+        for (int i = 0; i < 10; i++) map = map.put(new CollidingKey(i), i).get();
+
+        HashMapStats stats = HashMapStats.of(map);
+        Assertions.assertEquals(10, stats.entries());
+        Assertions.assertEquals(1, stats.collisionNodes());
+        Assertions.assertEquals(1L, stats.collisionSizeHistogram().get(10).get());
+    }
+
+    @Test
+    public void WHEN_inspectingSmallMap_THEN_shouldReportItsArray() {
+        var map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 3; i++) map = map.put(i, i).get();
+
+        HashMapStats stats = HashMapStats.of(map);
+        Assertions.assertEquals(3, stats.entries());
+        Assertions.assertEquals(0, stats.leafNodes() + stats.indirectionNodes() + stats.collisionNodes());
+        Assertions.assertEquals(3L, stats.depthHistogram().get(0).get());
+        Assertions.assertEquals(40, stats.estimatedBytes());
+
+        HashMapStats.Sharing sharing = HashMapStats.sharing(map.put(0, -1).get(), map);
+        Assertions.assertEquals(1, sharing.uniqueNodes());
+        Assertions.assertEquals(0, HashMapStats.sharing(map, map).uniqueNodes());
+    }
+
+    @Test
+    public void WHEN_comparingVersions_THEN_onlyCopiedPathShouldBeUnique() {
+        var map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 10_000; i++) map = map.put(i, i).get();
+        var updated = map.put(42, -1).get();
+
+        HashMapStats.Sharing sharing = HashMapStats.sharing(updated, map);
+        Assertions.assertTrue(sharing.uniqueNodes() <= 4);
+        Assertions.assertEquals(HashMapStats.of(updated).estimatedBytes(), sharing.sharedBytes() + sharing.uniqueBytes());
+        Assertions.assertEquals(0, HashMapStats.sharing(map, map).uniqueNodes());
+    }
+
+    @Test
+    public void WHEN_recordingPathCopies_THEN_shouldEmitEventPerUpdate(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("dev.schakr.map.PathCopy");
+            recording.start();
+            new HashMap<String, String>().put("a", "1").flatMap(m -> m.remove("a"));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("dev.schakr.map.PathCopy"))
+                .toList();
+        Assertions.assertEquals(List.of("put", "remove"), events.stream().map(e -> e.getString("operation")).toList());
+        Assertions.assertTrue(events.get(0).getInt("nodesCopied") > 0);
+    }
+}
@@ -4,6 +4,11 @@ import io.vavr.collection.List;
 import io.vavr.control.Either;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 public class HashMapTest {
 
@@ -137,4 +142,207 @@ public class HashMapTest {
 
         Assertions.assertTrue(map.isEmpty());
     }
+
+    @Test
+    public void WHEN_puttingManyElements_THEN_shouldContainAllValues() {
+        var map = new HashMap<String, String>();
+        for (int i = 0; i < 10000; i++) map = map.put(String.valueOf(i), "v" + i).get();
+
+        for (int i = 0; i < 10000; i++) Assertions.assertEquals("v" + i, map.get(String.valueOf(i)).get());
+        Assertions.assertFalse(map.containsKey("10000"));
+    }
+
+    @Test
+    public void WHEN_keysCollide_THEN_shouldContainAndRemoveValues() {
+        var map = new HashMap<CollidingKey, String>();
+        for (int i = 0; i < 5; i++) map = map.put(new CollidingKey(i), "v" + i).get();
+        var removed = map.remove(new CollidingKey(2)).get();
+
+        for (int i = 0; i < 5; i++) Assertions.assertEquals("v" + i, map.get(new CollidingKey(i)).get());
+        Assertions.assertFalse(removed.containsKey(new CollidingKey(2)));
+        Assertions.assertEquals("v4", removed.get(new CollidingKey(4)).get());
+    }
+
+    @Test
+    public void WHEN_puttingElements_THEN_shouldHashKeysOnlyOnce() {
+        var map = new HashMap<CountingKey, String>();
+        var keys = new ArrayList<CountingKey>();
+        for (int i = 0; i < 1000; i++) {
+            var key = new CountingKey(i);
+            keys.add(key);
+            map = map.put(key, "v" + i).get();
+        }
+
+        for (CountingKey key : keys) Assertions.assertEquals(1, key.hashCodeCalls);
+
+        // The map's hash code sums the hashes stored in the trie instead of hashing the keys again.
+        Assertions.assertEquals(keys.stream().mapToInt(key -> key.id ^ ("v" + key.id).hashCode()).sum(), map.hashCode());
+        for (CountingKey key : keys) Assertions.assertEquals(1, key.hashCodeCalls);
+    }
+
+    @Test
+    public void WHEN_lookingUpThroughCache_THEN_shouldCacheHitLeaves() {
+        var map = new HashMap<Integer, String>();
+        for (int i = 0; i < 1000; i++) map = map.put(i, "v" + i).get();
+        var cached = map.withLookupCache(64);
+
+        Assertions.assertNull(map.lookupCache);
+        Assertions.assertNull(cached.lookupCache);
+        for (int i = 0; i < 1000; i++) Assertions.assertEquals("v" + i, cached.get(i).get());
+        Assertions.assertEquals(64, cached.lookupCache.length);
+        Assertions.assertTrue(cached.get(1000).isEmpty());
+        Assertions.assertTrue(Arrays.stream(cached.lookupCache).allMatch(leaf -> leaf != null));
+        for (int i = 0; i < 1000; i++) Assertions.assertTrue(cached.containsKey(i));
+    }
+
+    @Test
+    public void WHEN_derivingFromCachedMap_THEN_shouldAllocateCacheOnFirstLookup() {
+        var map = new HashMap<Integer, String>();
+        for (int i = 0; i < 100; i++) map = map.put(i, "v" + i).get();
+        var cached = map.withLookupCache(16);
+        Assertions.assertEquals("v1", cached.get(1).get());
+
+        var updated = cached.put(1, "b").get();
+        Assertions.assertNull(updated.lookupCache);
+        Assertions.assertEquals("b", updated.get(1).get());
+        Assertions.assertEquals(16, updated.lookupCache.length);
+        Assertions.assertEquals(1, Arrays.stream(updated.lookupCache).filter(leaf -> leaf != null).count());
+        Assertions.assertEquals("v1", cached.get(1).get());
+        Assertions.assertTrue(updated.remove(1).get().get(1).isEmpty());
+    }
+
+    @Test
+    public void WHEN_cachingSmallMap_THEN_shouldOnlyAllocateCacheOnceItGrowsIntoTrie() {
+        var cached = new HashMap<Integer, String>().put(1, "a").get().withLookupCache(16);
+        Assertions.assertNull(cached.lookupCache);
+        Assertions.assertEquals("a", cached.get(1).get());
+
+        var grown = cached;
+        for (int i = 2; i <= HashMap.SMALL_MAP_SIZE + 1; i++) grown = grown.put(i, "v" + i).get();
+        Assertions.assertNull(cached.lookupCache);
+        Assertions.assertNull(grown.entries);
+        Assertions.assertEquals("a", grown.get(1).get());
+        Assertions.assertEquals(16, grown.lookupCache.length);
+    }
+
+    @Test
+    public void WHEN_puttingIdenticalValue_THEN_shouldReturnSameMap() {
+        var map = new HashMap<Object, String>();
+        for (int i = 0; i < 1000; i++) map = map.put(i, "v" + i).get();
+        map = map.put(new CollidingKey(1), "a").flatMap(m -> m.put(new CollidingKey(2), "b")).get();
+
+        String value = map.get(500).get();
+        Assertions.assertSame(map, map.put(500, value).get());
+        Assertions.assertSame(map, map.put(new CollidingKey(2), "b").get());
+        Assertions.assertNotSame(map, map.put(500, new String(value)).get());
+    }
+
+    @Test
+    public void WHEN_puttingAndRemovingElements_THEN_shouldTrackSize() {
+        var map = new HashMap<Object, String>();
+        for (int i = 0; i < 1000; i++) map = map.put(i, "a").get();
+        for (int i = 0; i < 1000; i++) map = map.put(i, "b").get();
+        for (int i = 0; i < 5; i++) map = map.put(new CollidingKey(i), "c").get();
+        Assertions.assertEquals(1005, map.size());
+
+        map = map.remove(3).flatMap(m -> m.remove(new CollidingKey(1))).flatMap(m -> m.remove(-1)).get();
+        Assertions.assertEquals(1003, map.size());
+    }
+
+    @Test
+    public void WHEN_crossingSmallMapSize_THEN_shouldSwitchBetweenArrayAndTrie() {
+        var map = new HashMap<Integer, String>();
+        for (int i = 0; i < HashMap.SMALL_MAP_SIZE; i++) map = map.put(i, "v" + i).get();
+        Assertions.assertNotNull(map.entries);
+        var small = map;
+
+        map = map.put(HashMap.SMALL_MAP_SIZE, "v").get();
+        Assertions.assertNull(map.entries);
+        Assertions.assertEquals(HashMap.SMALL_MAP_SIZE + 1, map.size());
+        for (int i = 0; i < HashMap.SMALL_MAP_SIZE; i++) Assertions.assertEquals("v" + i, map.get(i).get());
+
+        map = map.remove(HashMap.SMALL_MAP_SIZE).get();
+        Assertions.assertNull(map.entries);
+        Assertions.assertEquals(small, map);
+        Assertions.assertEquals(small.hashCode(), map.hashCode());
+
+        for (int i = 0; map.size() > HashMap.SMALL_MAP_SIZE / 2; i++) map = map.remove(i).get();
+        Assertions.assertNotNull(map.entries);
+        Assertions.assertTrue(map.get(0).isEmpty());
+        Assertions.assertEquals("v" + (HashMap.SMALL_MAP_SIZE - 1), map.get(HashMap.SMALL_MAP_SIZE - 1).get());
+    }
+
+    @Test
+    public void WHEN_mapIsSmall_THEN_shouldUseLessMemoryThanTrie() {
+        var map = new HashMap<String, String>();
+        for (int i = 0; i < 5; i++) map = map.put("attribute" + i, "value" + i).get();
+
+        // Both layouts hold the same keys and values, which are left out of the comparison.
+        var keysAndValues = new ArrayList<Object>();
+        map.forEach((key, value) -> { keysAndValues.add(key); keysAndValues.add(value); });
+        long shared = GraphLayout.parseInstance(keysAndValues.toArray()).totalSize();
+        long smallSize = GraphLayout.parseInstance(map).totalSize() - shared;
+        long trieSize = GraphLayout.parseInstance(map, map.root()).totalSize() - GraphLayout.parseInstance(map).totalSize();
+        Assertions.assertTrue(2 * smallSize < trieSize, "small map: " + smallSize + " bytes, trie: " + trieSize + " bytes");
+    }
+
+    @Test
+    public void WHEN_mergingMaps_THEN_shouldResolveCommonKeys() {
+        var left = new HashMap<Object, Integer>();
+        var right = new HashMap<Object, Integer>();
+        for (int i = 0; i < 3000; i++) left = left.put(i, 1).get();
+        for (int i = 2000; i < 5000; i++) right = right.put(i, 10).get();
+        for (int i = 0; i < 4; i++) {
+            left = left.put(new CollidingKey(i), 1).get();
+            right = right.put(new CollidingKey(i + 2), 10).get();
+        }
+
+        var merged = left.merge(right, Integer::sum).get();
+        Assertions.assertEquals(5006, merged.size());
+        for (int i = 0; i < 5000; i++) Assertions.assertEquals((i < 2000) ? 1 : (i < 3000) ? 11 : 10, merged.get(i).get());
+        Assertions.assertEquals(11, merged.get(new CollidingKey(3)).get());
+        Assertions.assertEquals(10, merged.get(new CollidingKey(5)).get());
+        Assertions.assertEquals(HashMapStats.of(merged).entries(), merged.size());
+    }
+
+    @Test
+    public void WHEN_collectingInParallel_THEN_shouldMatchSequentialCollection() {
+        var sequential = IntStream.range(0, 20_000).boxed()
+                .collect(HashMap.toImmutableHashMap(i -> i % 7000, i -> 1, Integer::sum));
+        var parallel = IntStream.range(0, 20_000).parallel().boxed()
+                .collect(HashMap.toImmutableHashMap(i -> i % 7000, i -> 1, Integer::sum));
+
+        Assertions.assertEquals(7000, parallel.size());
+        Assertions.assertEquals(sequential.asJavaMap(), parallel.asJavaMap());
+        Assertions.assertEquals(3, parallel.get(0).get());
+        Assertions.assertEquals(19_999, IntStream.range(0, 20_000).boxed()
+                .collect(HashMap.toImmutableHashMap(i -> "key", i -> i)).get("key").get());
+    }
+
+    record CollidingKey(int id) {
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    static final class CountingKey {
+        final int id;
+        int hashCodeCalls;
+
+        CountingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            hashCodeCalls++;
+            return Integer.hashCode(id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CountingKey other && other.id == id;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package dev.schakr.map;
+
+import dev.schakr.map.HashMapTest.CollidingKey;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HashMapViewTest {
+
+    private static HashMap<Integer, Integer> range(int count) {
+        var map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < count; i++) map = map.put(i, i).get();
+        return map;
+    }
+
+    @Test
+    public void WHEN_chainingTransforms_THEN_shouldOnlyEvaluateAccessedKeys() {
+        AtomicInteger calls = new AtomicInteger();
+        var view = range(10_000)
+                .mapValues(v -> { calls.incrementAndGet(); return v * 2; })
+                .filterKeys(k -> k % 2 == 0)
+                .mapValues(v -> "v" + v);
+
+        Assertions.assertEquals(0, calls.get());
+        Assertions.assertEquals("v20", view.get(10).get());
+        Assertions.assertTrue(view.get(11).isEmpty());
+        Assertions.assertFalse(view.containsKey(20_000));
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void WHEN_forcingView_THEN_shouldBuildMapOfRetainedEntries() {
+        var forced = range(10_000).view().filter((k, v) -> k % 3 == 0).mapValues(v -> v + 1).force();
+
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 3 == 0) Assertions.assertEquals(i + 1, forced.get(i).get());
+            else Assertions.assertFalse(forced.containsKey(i));
+        }
+        Assertions.assertEquals(3334, HashMapStats.of(forced).entries());
+        Assertions.assertTrue(forced.put(1, 1).get().containsKey(1));
+        Assertions.assertTrue(range(100).filterKeys(k -> false).force().isEmpty());
+    }
+
+    @Test
+    public void WHEN_forcingViewOfCollidingKeys_THEN_shouldShrinkCollisionNodes() {
+        var map = new HashMap<CollidingKey, Integer>();
+        for (int i = 0; i < 4; i++) map = map.put(new CollidingKey(i), i).get();
+
+        var forced = map.filterKeys(k -> k.id() == 2).force();
+        Assertions.assertEquals(2, forced.get(new CollidingKey(2)).get());
+        Assertions.assertEquals(0, HashMapStats.of(forced).collisionNodes());
+        Assertions.assertEquals(1, HashMapStats.of(forced).entries());
+    }
+
+    @Test
+    public void WHEN_forcingViewChangingNothing_THEN_shouldReturnSourceMap() {
+        var map = range(1000);
+        Assertions.assertSame(map, map.view().force());
+        Assertions.assertSame(map, map.filterKeys(k -> true).mapValues(v -> v).force());
+    }
+
+    @Test
+    public void WHEN_forcingViewChangingFewEntries_THEN_shouldShareUnchangedSubtrees() {
+        var map = range(10_000);
+        var forced = map.mapValues(v -> (v == 42) ? Integer.valueOf(-1) : v).force();
+
+        Assertions.assertEquals(-1, forced.get(42).get());
+        Assertions.assertEquals(7, forced.get(7).get());
+        Assertions.assertTrue(HashMapStats.sharing(forced, map).uniqueNodes() <= 4);
+    }
+}
@@ -0,0 +1,86 @@
+package dev.schakr.map;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Random;
+
+public class HashMultimapTest {
+
+    @Test
+    public void WHEN_addingAndRemovingValues_THEN_shouldMatchMapOfSets() {
+        Random random = new Random(17);
+        var multimap = HashMultimap.<Integer, Integer>empty();
+        var expected = new java.util.HashMap<Integer, java.util.Set<Integer>>();
+        int expectedSize = 0;
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(200);
+            // Skewed so that keys pass through inline, small and large groups in both directions.
+            int value = random.nextInt(1 + (key % 40));
+            var values = expected.computeIfAbsent(key, k -> new java.util.HashSet<>());
+            switch (random.nextInt(7)) {
+                case 0, 1, 2, 3 -> {
+                    var updated = multimap.put(key, value).get();
+                    if (!values.add(value)) Assertions.assertSame(multimap, updated);
+                    else expectedSize++;
+                    multimap = updated;
+                }
+                case 4, 5 -> {
+                    var updated = multimap.remove(key, value).get();
+                    if (!values.remove(value)) Assertions.assertSame(multimap, updated);
+                    else expectedSize--;
+                    multimap = updated;
+                }
+                default -> {
+                    if (random.nextInt(20) == 0) {
+                        multimap = multimap.removeAll(key).get();
+                        expectedSize -= values.size();
+                        values.clear();
+                    }
+                }
+            }
+            if (values.isEmpty()) expected.remove(key);
+
+            Assertions.assertEquals(expectedSize, multimap.size());
+            Assertions.assertEquals(expected.size(), multimap.keyCount());
+            Assertions.assertEquals(values.size(), multimap.valueCount(key));
+            Assertions.assertEquals(values, new java.util.HashSet<>(multimap.get(key).asJava()));
+            Assertions.assertEquals(values.contains(value), multimap.containsEntry(key, value));
+        }
+
+        var visited = new java.util.HashMap<Integer, java.util.Set<Integer>>();
+        multimap.forEach((key, value) -> Assertions.assertTrue(visited.computeIfAbsent(key, k -> new java.util.HashSet<>()).add(value)));
+        Assertions.assertEquals(expected, visited);
+    }
+
+    @Test
+    public void WHEN_valueIsNull_THEN_shouldReturnLeft() {
+        var multimap = HashMultimap.<String, String>empty();
+        Assertions.assertTrue(multimap.put("a", null).isLeft());
+        Assertions.assertTrue(multimap.get("a").isEmpty());
+        Assertions.assertSame(multimap, multimap.remove("a", "b").get());
+    }
+
+    @Test
+    public void WHEN_mostKeysHaveOneValue_THEN_shouldUseLessMemoryThanMapOfSets() {
+        var multimap = HashMultimap.<Integer, Integer>empty();
+        var mapOfSets = new HashMap<Integer, Set<Integer>>();
+        for (int key = 0; key < 100_000; key++) {
+            int values = (key % 10 == 0) ? 5 : 1;
+            for (int value = 0; value < values; value++) {
+                multimap = multimap.put(key, value).get();
+                Set<Integer> set = mapOfSets.get(key).getOrElse(HashSet.empty()).add(value);
+                mapOfSets = mapOfSets.put(key, set).get();
+            }
+        }
+
+        long multimapSize = GraphLayout.parseInstance(multimap).totalSize();
+        long mapOfSetsSize = GraphLayout.parseInstance(mapOfSets).totalSize();
+        Assertions.assertTrue(multimapSize < 0.8 * mapOfSetsSize,
+                "HashMultimap: " + multimapSize + " bytes; HashMap<Integer, Set<Integer>>: " + mapOfSetsSize + " bytes");
+    }
+}
@@ -0,0 +1,75 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HashStrategyTest {
+
+    @Test
+    public void WHEN_usingCaseInsensitiveStrategy_THEN_shouldMatchKeysIgnoringCase() {
+        var map = new HashMap<String, String>(HashStrategy.caseInsensitive())
+                .put("Content-Type", "a")
+                .flatMap(m -> m.put("CONTENT-TYPE", "b"))
+                .get();
+
+        Assertions.assertEquals("b", map.get("content-type").get());
+        Assertions.assertFalse(map.remove("Content-type").get().containsKey("Content-Type"));
+    }
+
+    @Test
+    public void WHEN_usingIdentityStrategy_THEN_shouldMatchKeysByReference() {
+        String key = new String("key");
+        var map = new HashMap<String, String>(HashStrategy.identity()).put(key, "a").get();
+
+        Assertions.assertTrue(map.containsKey(key));
+        Assertions.assertFalse(map.containsKey(new String("key")));
+    }
+
+    @Test
+    public void WHEN_usingByteArrayStrategy_THEN_shouldMatchKeysByContents() {
+        var map = new HashMap<byte[], String>(HashStrategy.byteArray()).put(new byte[] { 1, 2, 3 }, "a").get();
+
+        Assertions.assertEquals("a", map.get(new byte[] { 1, 2, 3 }).get());
+        Assertions.assertFalse(map.containsKey(new byte[] { 1, 2 }));
+    }
+
+    @Test
+    public void WHEN_usingMixedStrategy_THEN_shouldSpreadWeakHashesAcrossRoot() {
+        HashStrategy<Integer> mixed = HashStrategy.murmur3(HashStrategy.natural());
+        var map = new HashMap<Integer, Integer>(mixed);
+        for (int i = 0; i < 64; i++) map = map.put(i << 10, i).get();
+
+        for (int i = 0; i < 64; i++) Assertions.assertEquals(i, map.get(i << 10).get());
+        Assertions.assertTrue(map.root.nodes.size() > 16);
+    }
+
+    @Test
+    public void WHEN_usingSeededStrings_THEN_shouldSeparateCollidingHashCodes() {
+        Assertions.assertEquals("Aa".hashCode(), "BB".hashCode());
+        HashStrategy<String> seeded = HashStrategy.seededStrings(42);
+        Assertions.assertNotEquals(seeded.hash("Aa"), seeded.hash("BB"));
+
+        var map = new HashMap<String, String>(seeded).put("Aa", "a").flatMap(m -> m.put("BB", "b")).get();
+        Assertions.assertEquals("a", map.get("Aa").get());
+        Assertions.assertEquals("b", map.get("BB").get());
+    }
+
+    @Test
+    public void WHEN_creatingSeededStrategiesSeparately_THEN_mapsShouldStillBeComparable() {
+        Assertions.assertEquals(HashStrategy.murmur3(HashStrategy.natural()), HashStrategy.murmur3(HashStrategy.natural()));
+        Assertions.assertEquals(HashStrategy.seededStrings(7), HashStrategy.seededStrings(7));
+        Assertions.assertNotEquals(HashStrategy.seeded(HashStrategy.natural(), 1), HashStrategy.seeded(HashStrategy.natural(), 2));
+
+        var left = new HashMap<Integer, Integer>(HashStrategy.murmur3(HashStrategy.natural()));
+        var right = new HashMap<Integer, Integer>(HashStrategy.murmur3(HashStrategy.natural()));
+        for (int i = 0; i < 100; i++) {
+            left = left.put(i, i).get();
+            right = right.put(i, i).get();
+        }
+
+        Assertions.assertEquals(left, right);
+        Assertions.assertEquals(1, HashMapDiff.between(left, right.put(100, 100).get()).get().size());
+        Assertions.assertEquals(101, left.merge(right.put(100, 100).get(), Integer::sum).get().size());
+        Assertions.assertEquals(HashMapInterner.<Integer, Integer>create(HashStrategy.murmur3(HashStrategy.natural())).intern(left).get(), left);
+    }
+}
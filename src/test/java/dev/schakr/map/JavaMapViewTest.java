@@ -0,0 +1,48 @@
+package dev.schakr.map;
+
+import dev.schakr.map.HashMapTest.CollidingKey;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class JavaMapViewTest {
+
+    @Test
+    public void WHEN_viewingMap_THEN_shouldEqualEquivalentJavaMap() {
+        var map = new HashMap<Object, Integer>();
+        var expected = new java.util.HashMap<Object, Integer>();
+        for (int i = 0; i < 5000; i++) {
+            Object key = (i % 100 == 0) ? new CollidingKey(i) : Integer.valueOf(i);
+            map = map.put(key, i).get();
+            expected.put(key, i);
+        }
+
+        Map<Object, Integer> view = map.asJavaMap();
+        Assertions.assertEquals(expected, view);
+        Assertions.assertEquals(view, expected);
+        Assertions.assertEquals(expected.hashCode(), view.hashCode());
+        Assertions.assertEquals(5000, view.entrySet().stream().count());
+        Assertions.assertEquals(7, view.get(7));
+        Assertions.assertNull(view.get(-1));
+    }
+
+    @Test
+    public void WHEN_usingWrongKeyType_THEN_shouldReportAbsentKey() {
+        Map<String, String> view = new HashMap<String, String>(HashStrategy.caseInsensitive()).put("a", "b").get().asJavaMap();
+
+        Assertions.assertEquals("b", view.get("A"));
+        Assertions.assertFalse(view.containsKey(42));
+        Assertions.assertNull(view.get(42));
+    }
+
+    @Test
+    public void WHEN_mutatingView_THEN_shouldThrow() {
+        Map<String, String> view = new HashMap<String, String>().put("a", "b").get().asJavaMap();
+
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.put("c", "d"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.remove("a"));
+        Assertions.assertThrows(UnsupportedOperationException.class, view::clear);
+        Assertions.assertEquals(1, view.size());
+    }
+}
@@ -0,0 +1,97 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MappedHashMapTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void WHEN_writingEmptyMap_THEN_mappedMapShouldBeEmpty() {
+        Path path = MappedHashMap.write(new HashMap<String, String>(), dir.resolve("empty.hamt"),
+                Codec.utf8(), Codec.utf8()).get();
+
+        try (var mapped = MappedHashMap.open(path, Codec.utf8(), Codec.utf8()).get()) {
+            Assertions.assertTrue(mapped.isEmpty());
+            Assertions.assertFalse(mapped.containsKey("1"));
+        }
+    }
+
+    @Test
+    public void WHEN_writingMap_THEN_mappedMapShouldContainValues() {
+        var map = new HashMap<String, String>();
+        for (int i = 0; i < 100; i++) map = map.put(String.valueOf(i), "v" + i).get();
+        Path path = MappedHashMap.write(map, dir.resolve("map.hamt"), Codec.utf8(), Codec.utf8()).get();
+
+        try (var mapped = MappedHashMap.open(path, Codec.utf8(), Codec.utf8()).get()) {
+            Assertions.assertFalse(mapped.isEmpty());
+            for (int i = 0; i < 100; i++) {
+                String key = String.valueOf(i);
+                Assertions.assertEquals(map.containsKey(key), mapped.containsKey(key));
+                Assertions.assertEquals(map.get(key), mapped.get(key));
+            }
+            Assertions.assertFalse(mapped.containsKey("100"));
+            Assertions.assertTrue(mapped.get("100").isEmpty());
+        }
+    }
+
+    /**
+     * Returns the 16 strings made of four blocks of "Aa" or "BB", which all share the same hash code.
+     */
+    private static List<String> collidingStrings() {
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            StringBuilder string = new StringBuilder();
+            for (int block = 0; block < 4; block++) string.append(((i >> block) & 1) == 0 ? "Aa" : "BB");
+            strings.add(string.toString());
+        }
+        return strings;
+    }
+
+    @Test
+    public void WHEN_writingCollidingKeys_THEN_mappedMapShouldFindEachOfThem() {
+        List<String> colliding = collidingStrings();
+        var map = new HashMap<String, String>();
+        for (int i = 0; i < 100; i++) map = map.put(String.valueOf(i), "v" + i).get();
+        for (String key : colliding) map = map.put(key, "c" + key).get();
+        Assertions.assertEquals(1, HashMapStats.of(map).collisionNodes());
+        Path path = MappedHashMap.write(map, dir.resolve("colliding.hamt"), Codec.utf8(), Codec.utf8()).get();
+
+        try (var mapped = MappedHashMap.open(path, Codec.utf8(), Codec.utf8()).get()) {
+            for (String key : colliding) Assertions.assertEquals("c" + key, mapped.get(key).get());
+            Assertions.assertTrue(mapped.get("AaAaAaAaAa").isEmpty());
+            Assertions.assertTrue(mapped.get("AaAaAaBb").isEmpty());
+            Assertions.assertEquals("v42", mapped.get("42").get());
+        }
+    }
+
+    @Test
+    public void WHEN_iteratingMappedMap_THEN_shouldVisitEveryEntryOnce() {
+        var map = new HashMap<String, String>();
+        for (int i = 0; i < 1000; i++) map = map.put(String.valueOf(i), "v" + i).get();
+        for (String key : collidingStrings()) map = map.put(key, "c" + key).get();
+        Path path = MappedHashMap.write(map, dir.resolve("iterated.hamt"), Codec.utf8(), Codec.utf8()).get();
+
+        java.util.HashMap<String, String> expected = new java.util.HashMap<>();
+        map.forEach(expected::put);
+        java.util.HashMap<String, String> visited = new java.util.HashMap<>();
+        try (var mapped = MappedHashMap.open(path, Codec.utf8(), Codec.utf8()).get()) {
+            mapped.forEach((key, value) -> Assertions.assertNull(visited.put(key, value), "visited " + key + " twice"));
+        }
+        Assertions.assertEquals(expected, visited);
+    }
+
+    @Test
+    public void WHEN_openingInvalidFile_THEN_shouldFail() throws Exception {
+        Path path = Files.writeString(dir.resolve("invalid.hamt"), "definitely not a trie");
+        Assertions.assertTrue(MappedHashMap.open(path, Codec.utf8(), Codec.utf8()).isLeft());
+    }
+}
@@ -0,0 +1,86 @@
+package dev.schakr.map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class RadixTreeMapTest {
+
+    @Test
+    public void WHEN_puttingAndRemovingKeys_THEN_shouldMatchTreeMapInOrder() {
+        Random random = new Random(23);
+        var map = RadixTreeMap.<String, Integer>empty(Codec.utf8());
+        var expected = new TreeMap<String, Integer>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // Short ASCII keys, with a first byte wide enough to grow nodes to 256 children and back,
+            // and later bytes from a small alphabet so that keys are often prefixes of each other.
+            StringBuilder key = new StringBuilder();
+            int length = random.nextInt(5);
+            for (int j = 0; j < length; j++) key.append((char) ((j == 0) ? 33 + random.nextInt(90) : 'a' + random.nextInt(3)));
+            String k = key.toString();
+
+            if (random.nextInt(3) < ((i < 100_000) ? 2 : 1)) {
+                map = map.put(k, i).get();
+                expected.put(k, i);
+            } else {
+                var updated = map.remove(k).get();
+                if (expected.remove(k) == null) Assertions.assertSame(map, updated);
+                map = updated;
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+            Assertions.assertEquals(expected.get(k), map.get(k).getOrNull());
+        }
+
+        var visited = new ArrayList<String>();
+        map.forEach((key, value) -> {
+            Assertions.assertEquals(expected.get(key), value);
+            visited.add(key);
+        });
+        Assertions.assertEquals(new ArrayList<>(expected.keySet()), visited);
+    }
+
+    @Test
+    public void WHEN_queryingPrefix_THEN_shouldReturnKeysStartingWithIt() {
+        var map = RadixTreeMap.<String, Integer>empty(Codec.utf8());
+        String[] keys = { "", "a", "ab", "abc", "abd", "abde", "b", "ba", "romane", "romanus", "romulus", "rubens" };
+        for (int i = 0; i < keys.length; i++) map = map.put(keys[i], i).get();
+
+        Assertions.assertEquals(keys.length, map.withPrefix("").size());
+        Assertions.assertEquals(5, map.withPrefix("a").size());
+        Assertions.assertEquals(2, map.withPrefix("abd").size());
+        Assertions.assertEquals(2, map.withPrefix("roma").size());
+        Assertions.assertEquals(3, map.withPrefix("rom").size());
+        Assertions.assertEquals(1, map.withPrefix("romul").size());
+        Assertions.assertTrue(map.withPrefix("romux").isEmpty());
+        Assertions.assertTrue(map.withPrefix("abcd").isEmpty());
+
+        var romans = map.withPrefix("roma");
+        var visited = new ArrayList<String>();
+        romans.forEach((key, value) -> visited.add(key));
+        Assertions.assertEquals(java.util.List.of("romane", "romanus"), visited);
+        Assertions.assertEquals(9, romans.get("romanus").get());
+        Assertions.assertTrue(romans.get("romulus").isEmpty());
+    }
+
+    @Test
+    public void WHEN_keysShareLongPrefixes_THEN_shouldUseLessMemoryThanHashMap() {
+        var radixTree = RadixTreeMap.<String, Integer>empty(Codec.utf8());
+        var hashMap = new HashMap<String, Integer>();
+        Integer value = 1;
+        for (int i = 0; i < 100_000; i++) {
+            String key = "https://example.com/catalog/" + (i % 100) + "/items/" + i;
+            radixTree = radixTree.put(key, value).get();
+            hashMap = hashMap.put(key, value).get();
+        }
+
+        long radixTreeSize = GraphLayout.parseInstance(radixTree).totalSize();
+        long hashMapSize = GraphLayout.parseInstance(hashMap).totalSize();
+        Assertions.assertTrue(radixTreeSize < 0.6 * hashMapSize,
+                "RadixTreeMap: " + radixTreeSize + " bytes; HashMap: " + hashMapSize + " bytes");
+    }
+}
@@ -0,0 +1,48 @@
+package dev.schakr.vector;
+
+import io.vavr.collection.Vector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class DoubleVectorTest {
+
+    @Test
+    public void WHEN_appendingAndSetting_THEN_shouldMatchArrayListAndKeepOldVersions() {
+        VectorChecks.appendingAndSetting(VectorChecks.DOUBLE);
+    }
+
+    @Test
+    public void WHEN_buildingFromArray_THEN_shouldEqualAppendedVector() {
+        VectorChecks.buildingFromArray(VectorChecks.DOUBLE);
+    }
+
+    @Test
+    public void WHEN_summing_THEN_shouldMatchSequentialSumWithinRounding() {
+        double[] values = new Random(11).doubles(100_003).toArray();
+        var vector = DoubleVector.of(values);
+        double expected = 0;
+        for (double value : values) expected += value;
+        Assertions.assertEquals(expected, vector.sum(), 1e-6);
+        Assertions.assertArrayEquals(values, vector.toArray());
+        Assertions.assertEquals(0.0, DoubleVector.empty().sum());
+    }
+
+    @Test
+    public void WHEN_storingMillionDoubles_THEN_shouldUseFractionOfBoxedVector() {
+        double[] values = new Random(13).doubles(1_000_000).toArray();
+        var vector = DoubleVector.of(values);
+        var boxed = Vector.ofAll(Arrays.stream(values).boxed().toList());
+
+        long unboxedSize = GraphLayout.parseInstance(vector).totalSize();
+        long boxedSize = GraphLayout.parseInstance(boxed).totalSize();
+        String footprint = "DoubleVector: " + unboxedSize + " bytes; Vector<Double>: " + boxedSize + " bytes";
+
+        // 8 bytes per element plus a 16 byte header per leaf, against a 16 byte box and a reference per element.
+        Assertions.assertTrue(unboxedSize < 8_700_000, footprint);
+        Assertions.assertTrue(boxedSize > 2.5 * unboxedSize, footprint);
+    }
+}
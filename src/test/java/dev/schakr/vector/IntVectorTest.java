@@ -0,0 +1,27 @@
+package dev.schakr.vector;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IntVectorTest {
+
+    @Test
+    public void WHEN_appendingAndSetting_THEN_shouldMatchArrayListAndKeepOldVersions() {
+        VectorChecks.appendingAndSetting(VectorChecks.INT);
+    }
+
+    @Test
+    public void WHEN_buildingFromArray_THEN_shouldEqualAppendedVector() {
+        VectorChecks.buildingFromArray(VectorChecks.INT);
+    }
+
+    @Test
+    public void WHEN_indexIsOutOfBounds_THEN_shouldReturnEmptyOrLeft() {
+        var vector = IntVector.of(1, 2, 3);
+        Assertions.assertTrue(vector.get(3).isEmpty());
+        Assertions.assertTrue(vector.get(-1).isEmpty());
+        Assertions.assertTrue(vector.set(3, 0).isLeft());
+        Assertions.assertEquals("IntVector(1, 2, 3)", vector.toString());
+        Assertions.assertTrue(IntVector.empty().isEmpty());
+    }
+}
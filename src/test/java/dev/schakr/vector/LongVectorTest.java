@@ -0,0 +1,29 @@
+package dev.schakr.vector;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+public class LongVectorTest {
+
+    @Test
+    public void WHEN_appendingAndSetting_THEN_shouldMatchArrayListAndKeepOldVersions() {
+        VectorChecks.appendingAndSetting(VectorChecks.LONG);
+    }
+
+    @Test
+    public void WHEN_buildingFromArray_THEN_shouldEqualAppendedVector() {
+        VectorChecks.buildingFromArray(VectorChecks.LONG);
+    }
+
+    @Test
+    public void WHEN_summingLargeValues_THEN_shouldNotOverflowInt() {
+        long[] values = LongStream.range(0, 70_000).map(i -> i * 1_000_000_007L).toArray();
+        var vector = LongVector.of(values);
+        Assertions.assertEquals(LongStream.of(values).sum(), vector.sum());
+        Assertions.assertEquals(values[69_999], vector.get(69_999).getAsLong());
+        Assertions.assertEquals(-1L, vector.set(5, -1L).get().get(5).getAsLong());
+        Assertions.assertEquals(values[5], vector.get(5).getAsLong());
+    }
+}
@@ -0,0 +1,148 @@
+package dev.schakr.vector;
+
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Assertions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * Checks shared by the tests of all primitive vectors. Each vector type is driven through an
+ * {@link Ops} adapter that converts its elements to and from longs; the checks only use small
+ * integral values, which every element type represents exactly.
+ */
+final class VectorChecks {
+
+    interface Ops<V> {
+        V empty();
+
+        V of(long[] values);
+
+        V append(V vector, long value);
+
+        Either<Throwable, V> set(V vector, int index, long value);
+
+        long get(V vector, int index);
+
+        int size(V vector);
+
+        long[] toArray(V vector);
+
+        long sum(V vector);
+
+        /** The sum the vector is expected to return, wrapped like its own sum. */
+        default long sumOf(long[] values) {
+            return LongStream.of(values).sum();
+        }
+
+        void forEach(V vector, LongConsumer action);
+    }
+
+    static final Ops<IntVector> INT = new Ops<>() {
+        public IntVector empty() { return IntVector.empty(); }
+        public IntVector of(long[] values) { return IntVector.of(Arrays.stream(values).mapToInt(v -> (int) v).toArray()); }
+        public IntVector append(IntVector vector, long value) { return vector.append((int) value); }
+        public Either<Throwable, IntVector> set(IntVector vector, int index, long value) { return vector.set(index, (int) value); }
+        public long get(IntVector vector, int index) { return vector.get(index).getAsInt(); }
+        public int size(IntVector vector) { return vector.size(); }
+        public long[] toArray(IntVector vector) { return Arrays.stream(vector.toArray()).asLongStream().toArray(); }
+        public long sum(IntVector vector) { return vector.sum(); }
+        public long sumOf(long[] values) { return (int) LongStream.of(values).sum(); }
+        public void forEach(IntVector vector, LongConsumer action) { vector.forEach(action::accept); }
+    };
+
+    static final Ops<LongVector> LONG = new Ops<>() {
+        public LongVector empty() { return LongVector.empty(); }
+        public LongVector of(long[] values) { return LongVector.of(values); }
+        public LongVector append(LongVector vector, long value) { return vector.append(value); }
+        public Either<Throwable, LongVector> set(LongVector vector, int index, long value) { return vector.set(index, value); }
+        public long get(LongVector vector, int index) { return vector.get(index).getAsLong(); }
+        public int size(LongVector vector) { return vector.size(); }
+        public long[] toArray(LongVector vector) { return vector.toArray(); }
+        public long sum(LongVector vector) { return vector.sum(); }
+        public void forEach(LongVector vector, LongConsumer action) { vector.forEach(action); }
+    };
+
+    static final Ops<DoubleVector> DOUBLE = new Ops<>() {
+        public DoubleVector empty() { return DoubleVector.empty(); }
+        public DoubleVector of(long[] values) { return DoubleVector.of(Arrays.stream(values).asDoubleStream().toArray()); }
+        public DoubleVector append(DoubleVector vector, long value) { return vector.append(value); }
+        public Either<Throwable, DoubleVector> set(DoubleVector vector, int index, long value) { return vector.set(index, value); }
+        public long get(DoubleVector vector, int index) { return (long) vector.get(index).getAsDouble(); }
+        public int size(DoubleVector vector) { return vector.size(); }
+        public long[] toArray(DoubleVector vector) { return Arrays.stream(vector.toArray()).mapToLong(v -> (long) v).toArray(); }
+        public long sum(DoubleVector vector) { return (long) vector.sum(); }
+        public void forEach(DoubleVector vector, LongConsumer action) { vector.forEach(v -> action.accept((long) v)); }
+    };
+
+    private VectorChecks() {}
+
+    /**
+     * Appends to and sets random indices of a vector, comparing it with an ArrayList after every
+     * operation and checking that snapshots taken along the way keep their elements.
+     */
+    static <V> void appendingAndSetting(Ops<V> ops) {
+        Random random = new Random(3);
+        V vector = ops.empty();
+        var expected = new ArrayList<Long>();
+        var snapshots = new ArrayList<V>();
+        var snapshotElements = new ArrayList<ArrayList<Long>>();
+
+        for (int i = 0; i < 40_000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                vector = ops.append(vector, i);
+                expected.add((long) i);
+            } else {
+                int index = random.nextInt(expected.size());
+                vector = ops.set(vector, index, -i).get();
+                expected.set(index, (long) -i);
+            }
+            int probe = random.nextInt(expected.size());
+            Assertions.assertEquals(expected.get(probe), ops.get(vector, probe));
+            if (i % 1500 == 0) {
+                snapshots.add(vector);
+                snapshotElements.add(new ArrayList<>(expected));
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), ops.size(vector));
+        Assertions.assertEquals(expected, elements(ops, vector));
+        Assertions.assertArrayEquals(toArray(expected), ops.toArray(vector));
+        Assertions.assertEquals(ops.sumOf(toArray(expected)), ops.sum(vector));
+        for (int i = 0; i < snapshots.size(); i++) {
+            Assertions.assertEquals(snapshotElements.get(i), elements(ops, snapshots.get(i)));
+        }
+    }
+
+    /**
+     * Builds vectors from arrays whose sizes fill or just overflow a leaf, a two-level tree and a
+     * three-level tree, and compares them with vectors built by appending.
+     */
+    static <V> void buildingFromArray(Ops<V> ops) {
+        for (int size : new int[] { 0, 1, 32, 33, 1024, 1056, 1057, 32 * 1024 + 33, 100_000 }) {
+            long[] values = LongStream.range(0, size).map(i -> i * 7).toArray();
+            V built = ops.of(values);
+            V appended = ops.empty();
+            for (long value : values) appended = ops.append(appended, value);
+
+            Assertions.assertArrayEquals(values, ops.toArray(built), "size " + size);
+            Assertions.assertArrayEquals(values, ops.toArray(appended), "size " + size);
+            Assertions.assertArrayEquals(LongStream.concat(LongStream.of(values), LongStream.of(-1)).toArray(),
+                    ops.toArray(ops.append(built, -1)), "size " + size);
+            Assertions.assertEquals(ops.sumOf(values), ops.sum(built), "size " + size);
+        }
+    }
+
+    private static <V> ArrayList<Long> elements(Ops<V> ops, V vector) {
+        ArrayList<Long> elements = new ArrayList<>();
+        ops.forEach(vector, elements::add);
+        return elements;
+    }
+
+    private static long[] toArray(ArrayList<Long> elements) {
+        return elements.stream().mapToLong(Long::longValue).toArray();
+    }
+}